@@ -18,7 +18,10 @@
  */
 package io.hyperfoil.api.config;
 
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -26,15 +29,23 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import io.hyperfoil.api.statistics.HistogramSettings;
+import io.hyperfoil.impl.ByteBufferInputStream;
+
 /**
  * A benchmark is a collection of simulation, user,
  * SLA and scaling strategy (Ramp up, Steady State, Ramp Down, steady state variance)
  * that are to be run against the target environment.
  */
 public class Benchmark implements Serializable {
+   /**
+    * Size of all but the last segment returned from {@link #fileSegments(String)}.
+    */
+   public static final int FILE_SEGMENT_SIZE = 1 << 30;
 
    private final String name;
    private final String version;
@@ -55,6 +66,8 @@ public class Benchmark implements Serializable {
    private final List<RunHook> preHooks;
    private final List<RunHook> postHooks;
    private final FailurePolicy failurePolicy;
+   private final HistogramSettings histogramSettings;
+   private final Map<String, HistogramSettings> metricHistogramSettings;
 
    public static Benchmark forTesting() {
       return BenchmarkBuilder.builder().build();
@@ -64,7 +77,8 @@ public class Benchmark implements Serializable {
          Agent[] agents, int defaultThreads,
          Map<Class<? extends PluginConfig>, PluginConfig> plugins, Collection<Phase> phases,
          Map<String, Object> tags, long statisticsCollectionPeriod, String triggerUrl,
-         List<RunHook> preHooks, List<RunHook> postHooks, FailurePolicy failurePolicy) {
+         List<RunHook> preHooks, List<RunHook> postHooks, FailurePolicy failurePolicy,
+         HistogramSettings histogramSettings, Map<String, HistogramSettings> metricHistogramSettings) {
       this.name = name;
       this.params = params;
       this.source = source;
@@ -82,6 +96,8 @@ public class Benchmark implements Serializable {
       this.preHooks = preHooks;
       this.postHooks = postHooks;
       this.version = version;
+      this.histogramSettings = histogramSettings;
+      this.metricHistogramSettings = metricHistogramSettings;
    }
 
    static String randomUUID() {
@@ -92,7 +108,8 @@ public class Benchmark implements Serializable {
    public static Benchmark empty(String name, Map<String, String> templateParams) {
       return new Benchmark(name, randomUUID(), null, templateParams,
             Collections.emptyMap(), new Agent[0], 0, Collections.emptyMap(), Collections.emptyList(),
-            Collections.emptyMap(), 0, null, Collections.emptyList(), Collections.emptyList(), FailurePolicy.CANCEL);
+            Collections.emptyMap(), 0, null, Collections.emptyList(), Collections.emptyList(), FailurePolicy.CANCEL,
+            HistogramSettings.DEFAULT, Collections.emptyMap());
    }
 
    public String name() {
@@ -125,6 +142,51 @@ public class Benchmark implements Serializable {
       return files;
    }
 
+   /**
+    * Content of a file the benchmark was built with. On remote agents this is backed by a memory-mapped file
+    * in the local cache rather than by heap arrays; the same holds for files that the controller reads from disk.
+    *
+    * @param name File name, as in {@link #files()}.
+    * @return Read-only buffer or <code>null</code> if there's no such file.
+    * @throws IllegalStateException if the file does not fit into single buffer; use {@link #fileSegments(String)}.
+    */
+   public ByteBuffer file(String name) {
+      ByteBuffer[] segments = fileSegments(name);
+      if (segments == null) {
+         return null;
+      } else if (segments.length > 1) {
+         throw new IllegalStateException("File " + name + " is too big to be accessed as a single buffer.");
+      }
+      return segments[0];
+   }
+
+   /**
+    * Content of a file split into buffers of {@link #FILE_SEGMENT_SIZE} bytes (the last one can be shorter),
+    * so that files over 2 GB can be addressed with <code>long</code> offsets.
+    *
+    * @param name File name, as in {@link #files()}.
+    * @return Read-only buffers or <code>null</code> if there's no such file.
+    */
+   public ByteBuffer[] fileSegments(String name) {
+      return SegmentedFiles.segments(files, name);
+   }
+
+   /**
+    * @param name File name, as in {@link #files()}.
+    * @return Stream with the content or <code>null</code> if there's no such file.
+    * @see #fileSegments(String)
+    */
+   public InputStream fileStream(String name) {
+      ByteBuffer[] segments = fileSegments(name);
+      if (segments == null) {
+         return null;
+      } else if (segments.length == 1) {
+         return new ByteBufferInputStream(segments[0]);
+      }
+      return new SequenceInputStream(Collections.enumeration(
+            Stream.of(segments).map(ByteBufferInputStream::new).collect(Collectors.toList())));
+   }
+
    public int defaultThreads() {
       return defaultThreads;
    }
@@ -137,6 +199,23 @@ public class Benchmark implements Serializable {
       return tags;
    }
 
+   public HistogramSettings histogramSettings() {
+      return histogramSettings;
+   }
+
+   public Map<String, HistogramSettings> metricHistogramSettings() {
+      return metricHistogramSettings;
+   }
+
+   /**
+    * @param metric Metric name.
+    * @return Histogram settings specific for this metric or benchmark-wide settings.
+    */
+   public HistogramSettings histogramSettings(String metric) {
+      HistogramSettings settings = metricHistogramSettings.get(metric);
+      return settings == null ? histogramSettings : settings;
+   }
+
    public long statisticsCollectionPeriod() {
       return statisticsCollectionPeriod;
    }
@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import io.hyperfoil.api.statistics.HistogramSettings;
 import io.hyperfoil.impl.FutureSupplier;
 
 /**
@@ -52,6 +53,7 @@ public class BenchmarkBuilder {
    private final List<RunHook> preHooks = new ArrayList<>();
    private final List<RunHook> postHooks = new ArrayList<>();
    private Benchmark.FailurePolicy failurePolicy = Benchmark.FailurePolicy.CANCEL;
+   private final HistogramBuilder histogram = new HistogramBuilder();
 
    public static Collection<PhaseBuilder<?>> phasesForTesting(BenchmarkBuilder builder) {
       return builder.phaseBuilders.values();
@@ -133,6 +135,10 @@ public class BenchmarkBuilder {
       return this;
    }
 
+   public HistogramBuilder histogram() {
+      return histogram;
+   }
+
    public void prepareBuild() {
       plugins.values().forEach(PluginBuilder::prepareBuild);
       phaseBuilders.values().forEach(PhaseBuilder::prepareBuild);
@@ -171,8 +177,10 @@ public class BenchmarkBuilder {
       }).toArray(Agent[]::new);
       Map<Class<? extends PluginConfig>, PluginConfig> plugins = this.plugins.values().stream()
             .map(PluginBuilder::build).collect(Collectors.toMap(PluginConfig::getClass, Function.identity()));
+      HistogramSettings histogramSettings = histogram.build(HistogramSettings.DEFAULT);
       Benchmark benchmark = new Benchmark(name, Benchmark.randomUUID(), source, params, files, agents, threads, plugins,
-            new ArrayList<>(phases.values()), tags, statisticsCollectionPeriod, triggerUrl, preHooks, postHooks, failurePolicy);
+            new ArrayList<>(phases.values()), tags, statisticsCollectionPeriod, triggerUrl, preHooks, postHooks, failurePolicy,
+            histogramSettings, histogram.buildMetrics(histogramSettings));
       bs.set(benchmark);
       return benchmark;
    }
@@ -0,0 +1,60 @@
+package io.hyperfoil.api.config;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replacement for {@link Benchmark#files()} used when the benchmark is sent to remote agents: only SHA-256 digests
+ * of the files travel with the benchmark, the content is resolved from agent's local cache and
+ * {@link #attach(Map) attached} as (usually memory-mapped) buffers before the benchmark is initialized.
+ */
+public class ContentAddressedFiles extends SegmentedFiles implements Serializable {
+   private final Map<String, String> digests;
+   private transient Map<String, ByteBuffer[]> buffers;
+
+   public ContentAddressedFiles(Map<String, String> digests) {
+      this.digests = Collections.unmodifiableMap(digests);
+   }
+
+   /**
+    * @return Map of file name to hex-encoded SHA-256 digest of its content.
+    */
+   public Map<String, String> digests() {
+      return digests;
+   }
+
+   /**
+    * @param buffers Map of file name to its content, in segments as described in {@link Benchmark#fileSegments(String)}.
+    */
+   public void attach(Map<String, ByteBuffer[]> buffers) {
+      if (!buffers.keySet().containsAll(digests.keySet())) {
+         throw new IllegalArgumentException("Missing content for some files: expected " + digests.keySet()
+               + ", got " + buffers.keySet());
+      }
+      this.buffers = buffers;
+   }
+
+   @Override
+   protected Set<String> names() {
+      return digests.keySet();
+   }
+
+   @Override
+   public ByteBuffer[] segments(String name) {
+      if (buffers == null) {
+         throw new IllegalStateException("File content was not attached to the benchmark.");
+      }
+      ByteBuffer[] segments = buffers.get(name);
+      if (segments == null) {
+         return null;
+      }
+      ByteBuffer[] copy = new ByteBuffer[segments.length];
+      for (int i = 0; i < segments.length; ++i) {
+         copy[i] = segments[i].asReadOnlyBuffer();
+      }
+      return copy;
+   }
+}
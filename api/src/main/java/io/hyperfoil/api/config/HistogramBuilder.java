@@ -0,0 +1,80 @@
+package io.hyperfoil.api.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.hyperfoil.api.statistics.HistogramSettings;
+
+/**
+ * Configures range and precision of response time histograms, either for the whole benchmark or for a single metric.
+ * Values not set on a metric are inherited from the benchmark-wide configuration.
+ */
+public class HistogramBuilder {
+   private final boolean perMetric;
+   private final Map<String, HistogramBuilder> metrics = new HashMap<>();
+   private Long maxValue;
+   private Integer precision;
+   private Boolean packed;
+
+   HistogramBuilder() {
+      this(false);
+   }
+
+   private HistogramBuilder(boolean perMetric) {
+      this.perMetric = perMetric;
+   }
+
+   /**
+    * @param maxValue Highest trackable value in nanoseconds. Higher values are recorded as the maximum.
+    * @return Self.
+    */
+   public HistogramBuilder maxValue(long maxValue) {
+      this.maxValue = maxValue;
+      return this;
+   }
+
+   /**
+    * @param precision Number of significant value digits, 0 - 5.
+    * @return Self.
+    */
+   public HistogramBuilder precision(int precision) {
+      this.precision = precision;
+      return this;
+   }
+
+   /**
+    * @param packed Use auto-resizing histogram with memory proportional to the number of occupied buckets.
+    * @return Self.
+    */
+   public HistogramBuilder packed(boolean packed) {
+      this.packed = packed;
+      return this;
+   }
+
+   public HistogramBuilder metric(String name) {
+      if (perMetric) {
+         throw new BenchmarkDefinitionException("Histogram settings cannot be nested in per-metric settings.");
+      }
+      return metrics.computeIfAbsent(name, n -> new HistogramBuilder(true));
+   }
+
+   HistogramSettings build(HistogramSettings defaults) {
+      try {
+         return new HistogramSettings(maxValue == null ? defaults.maxValue() : maxValue,
+               precision == null ? defaults.precision() : precision,
+               packed == null ? defaults.packed() : packed);
+      } catch (IllegalArgumentException e) {
+         throw new BenchmarkDefinitionException(e.getMessage());
+      }
+   }
+
+   Map<String, HistogramSettings> buildMetrics(HistogramSettings defaults) {
+      if (metrics.isEmpty()) {
+         return Collections.emptyMap();
+      }
+      Map<String, HistogramSettings> settings = new HashMap<>();
+      metrics.forEach((name, builder) -> settings.put(name, builder.build(defaults)));
+      return settings;
+   }
+}
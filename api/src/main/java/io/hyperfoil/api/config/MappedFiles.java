@@ -0,0 +1,145 @@
+package io.hyperfoil.api.config;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Benchmark files read from local filesystem: the files are memory-mapped rather than copied to heap.
+ * When the benchmark is serialized only the paths are written; the content is not available on a different host.
+ * <p>
+ * Each file is mapped only once per instance ({@link #map()} maps all of them eagerly) and the mapping is kept
+ * as long as the benchmark; the {@link #digest(String) digest} is computed from that mapping, therefore
+ * the content served to remote agents and the content used by agents in this JVM are the same.
+ * Files should not be modified in place while the benchmark is loaded (replacing them is fine).
+ */
+public class MappedFiles extends SegmentedFiles implements Serializable {
+   private final Map<String, String> paths;
+   private transient volatile Map<String, ByteBuffer[]> mapped;
+   private transient volatile Map<String, String> digests;
+
+   /**
+    * @param paths Map of file name to absolute path of the file.
+    */
+   public MappedFiles(Map<String, String> paths) {
+      this.paths = Collections.unmodifiableMap(new HashMap<>(paths));
+   }
+
+   /**
+    * @param name File name.
+    * @return Path of the file or <code>null</code> if there's no such file.
+    */
+   public Path path(String name) {
+      String path = paths.get(name);
+      return path == null ? null : Paths.get(path);
+   }
+
+   @Override
+   protected Set<String> names() {
+      return paths.keySet();
+   }
+
+   /**
+    * Maps all files that were not mapped yet. This can block for a while.
+    */
+   public void map() {
+      for (String name : paths.keySet()) {
+         mapped(name);
+      }
+   }
+
+   /**
+    * Computes the digest on first invocation; this can block for a while.
+    *
+    * @param name File name.
+    * @return Hex-encoded SHA-256 digest of the mapped content or <code>null</code> if there's no such file.
+    */
+   public String digest(String name) {
+      ByteBuffer[] segments = mapped(name);
+      if (segments == null) {
+         return null;
+      }
+      Map<String, String> digests = this.digests;
+      if (digests == null) {
+         synchronized (this) {
+            if (this.digests == null) {
+               this.digests = new ConcurrentHashMap<>();
+            }
+            digests = this.digests;
+         }
+      }
+      return digests.computeIfAbsent(name, n -> {
+         MessageDigest md;
+         try {
+            md = MessageDigest.getInstance("SHA-256");
+         } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+         }
+         for (ByteBuffer segment : segments) {
+            md.update(segment.duplicate());
+         }
+         return HexFormat.of().formatHex(md.digest());
+      });
+   }
+
+   @Override
+   public ByteBuffer[] segments(String name) {
+      ByteBuffer[] segments = mapped(name);
+      if (segments == null) {
+         return null;
+      }
+      ByteBuffer[] copy = new ByteBuffer[segments.length];
+      for (int i = 0; i < segments.length; ++i) {
+         copy[i] = segments[i].duplicate();
+      }
+      return copy;
+   }
+
+   private ByteBuffer[] mapped(String name) {
+      Path path = path(name);
+      if (path == null) {
+         return null;
+      }
+      Map<String, ByteBuffer[]> mapped = this.mapped;
+      if (mapped == null) {
+         synchronized (this) {
+            if (this.mapped == null) {
+               this.mapped = new ConcurrentHashMap<>();
+            }
+            mapped = this.mapped;
+         }
+      }
+      return mapped.computeIfAbsent(name, n -> map(path));
+   }
+
+   private static ByteBuffer[] map(Path path) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long size = channel.size();
+         // single mapping cannot exceed 2 GB
+         int count = Math.max(1, (int) ((size + Benchmark.FILE_SEGMENT_SIZE - 1) / Benchmark.FILE_SEGMENT_SIZE));
+         ByteBuffer[] segments = new ByteBuffer[count];
+         for (int i = 0; i < count; ++i) {
+            long offset = (long) i * Benchmark.FILE_SEGMENT_SIZE;
+            // the mapping stays valid after the channel is closed
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                  Math.min(Benchmark.FILE_SEGMENT_SIZE, size - offset));
+         }
+         return segments;
+      } catch (IOException e) {
+         throw new UncheckedIOException("Cannot map file " + path, e);
+      }
+   }
+}
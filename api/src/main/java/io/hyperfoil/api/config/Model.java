@@ -71,11 +71,23 @@ public interface Model extends Serializable {
       public final boolean variance;
       public final int maxSessions;
       public final SessionLimitPolicy sessionLimitPolicy;
-
-      public OpenModel(boolean variance, int maxSessions, SessionLimitPolicy sessionLimitPolicy) {
+      public final boolean perThreadScheduling;
+      /**
+       * When non-negative, all due arrivals (plus those falling into this window) are started in a single wake-up.
+       */
+      public final long batchLookAheadNs;
+
+      public OpenModel(boolean variance, int maxSessions, SessionLimitPolicy sessionLimitPolicy,
+            boolean perThreadScheduling, long batchLookAheadNs) {
          this.variance = variance;
          this.maxSessions = maxSessions;
          this.sessionLimitPolicy = sessionLimitPolicy;
+         this.perThreadScheduling = perThreadScheduling;
+         this.batchLookAheadNs = batchLookAheadNs;
+      }
+
+      public boolean batchArrivals() {
+         return batchLookAheadNs >= 0;
       }
 
       @Override
@@ -91,8 +103,9 @@ public interface Model extends Serializable {
       public final double targetUsersPerSec;
 
       public RampRate(double initialUsersPerSec, double targetUsersPerSec,
-            boolean variance, int maxSessions, SessionLimitPolicy sessionLimitPolicy) {
-         super(variance, maxSessions, sessionLimitPolicy);
+            boolean variance, int maxSessions, SessionLimitPolicy sessionLimitPolicy, boolean perThreadScheduling,
+            long batchLookAheadNs) {
+         super(variance, maxSessions, sessionLimitPolicy, perThreadScheduling, batchLookAheadNs);
          this.initialUsersPerSec = initialUsersPerSec;
          this.targetUsersPerSec = targetUsersPerSec;
       }
@@ -106,8 +119,9 @@ public interface Model extends Serializable {
    class ConstantRate extends OpenModel {
       public final double usersPerSec;
 
-      public ConstantRate(double usersPerSec, boolean variance, int maxSessions, SessionLimitPolicy sessionLimitPolicy) {
-         super(variance, maxSessions, sessionLimitPolicy);
+      public ConstantRate(double usersPerSec, boolean variance, int maxSessions, SessionLimitPolicy sessionLimitPolicy,
+            boolean perThreadScheduling, long batchLookAheadNs) {
+         super(variance, maxSessions, sessionLimitPolicy, perThreadScheduling, batchLookAheadNs);
          this.usersPerSec = usersPerSec;
       }
 
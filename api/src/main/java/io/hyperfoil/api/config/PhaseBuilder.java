@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -435,6 +436,9 @@ public abstract class PhaseBuilder<PB extends PhaseBuilder<PB>> {
       protected int maxSessions;
       protected boolean variance = true;
       protected SessionLimitPolicy sessionLimitPolicy = SessionLimitPolicy.FAIL;
+      protected boolean perThreadScheduling;
+      protected boolean batchArrivals;
+      protected long batchLookAheadNs;
 
       protected OpenModel(BenchmarkBuilder parent, String name) {
          super(parent, name);
@@ -457,6 +461,31 @@ public abstract class PhaseBuilder<PB extends PhaseBuilder<PB>> {
          this.sessionLimitPolicy = sessionLimitPolicy;
          return (P) this;
       }
+
+      @SuppressWarnings("unchecked")
+      public P perThreadScheduling(boolean perThreadScheduling) {
+         this.perThreadScheduling = perThreadScheduling;
+         return (P) this;
+      }
+
+      @SuppressWarnings("unchecked")
+      public P batchArrivals(boolean batchArrivals) {
+         this.batchArrivals = batchArrivals;
+         return (P) this;
+      }
+
+      @SuppressWarnings("unchecked")
+      public P batchLookAhead(long lookAhead, TimeUnit timeUnit) {
+         if (lookAhead < 0) {
+            throw new BenchmarkDefinitionException("Phase " + name + ".batchLookAhead must not be negative");
+         }
+         this.batchLookAheadNs = timeUnit.toNanos(lookAhead);
+         return (P) this;
+      }
+
+      protected long batchLookAheadNs() {
+         return batchArrivals ? batchLookAheadNs : -1;
+      }
    }
 
    public static class RampRate extends OpenModel<RampRate> {
@@ -494,7 +523,8 @@ public abstract class PhaseBuilder<PB extends PhaseBuilder<PB>> {
          }
          double initial = (this.initialUsersPerSec + initialUsersPerSecIncrement * iteration) * weight;
          double target = (this.targetUsersPerSec + targetUsersPerSecIncrement * iteration) * weight;
-         Model.RampRate model = new Model.RampRate(initial, target, variance, maxSessions, sessionLimitPolicy);
+         Model.RampRate model = new Model.RampRate(initial, target, variance, maxSessions, sessionLimitPolicy,
+               perThreadScheduling, batchLookAheadNs());
          if (constraint != null && !constraint.test(model)) {
             throw new BenchmarkDefinitionException("Phase " + name + " failed constraints: " + constraintMessage);
          }
@@ -553,7 +583,8 @@ public abstract class PhaseBuilder<PB extends PhaseBuilder<PB>> {
             throw new BenchmarkDefinitionException("Phase " + name + ".usersPerSec must be positive.");
          }
          double rate = (this.usersPerSec + usersPerSecIncrement * iteration) * weight;
-         return new Model.ConstantRate(rate, variance, maxSessions, sessionLimitPolicy);
+         return new Model.ConstantRate(rate, variance, maxSessions, sessionLimitPolicy, perThreadScheduling,
+               batchLookAheadNs());
       }
 
       public ConstantRate usersPerSec(double usersPerSec) {
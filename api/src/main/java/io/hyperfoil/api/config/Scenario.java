@@ -30,8 +30,11 @@ import java.util.stream.Stream;
 
 import io.hyperfoil.api.session.AccessVisitor;
 import io.hyperfoil.api.session.ReadAccess;
+import io.hyperfoil.api.session.ResourceLayout;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.api.session.WriteAccess;
+import io.hyperfoil.api.statistics.MetricHandle;
+import io.hyperfoil.impl.CollectingVisitor;
 
 public class Scenario implements Serializable {
    private final Sequence[] initialSequences;
@@ -42,6 +45,9 @@ public class Scenario implements Serializable {
    private final int sumConcurrency;
    private final WriteAccess[] writes;
    private final int uniqueVars;
+   private final int metricSlots;
+   // Slots of session resources are assigned on the agent, when the first session is reserved
+   private transient volatile ResourceLayout resourceLayout;
 
    public Scenario(Sequence[] initialSequences, Sequence[] sequences, int maxRequests, int maxSequences) {
       this.initialSequences = initialSequences;
@@ -72,6 +78,16 @@ public class Scenario implements Serializable {
             access.setIndex(keyIndexMap.get(access.key()));
          }
       }
+      int[] slots = new int[1];
+      new CollectingVisitor<>(MetricHandle.class) {
+         @Override
+         protected boolean process(MetricHandle handle) {
+            handle.setIndex(slots[0]);
+            slots[0] += handle.slots();
+            return false;
+         }
+      }.visit(sequences);
+      metricSlots = slots[0];
    }
 
    public Sequence[] initialSequences() {
@@ -94,6 +110,26 @@ public class Scenario implements Serializable {
       return sumConcurrency;
    }
 
+   public int metricSlots() {
+      return metricSlots;
+   }
+
+   /**
+    * @return Layout of resources in sessions running this scenario.
+    */
+   public ResourceLayout resourceLayout() {
+      ResourceLayout layout = resourceLayout;
+      if (layout == null) {
+         synchronized (this) {
+            layout = resourceLayout;
+            if (layout == null) {
+               resourceLayout = layout = new ResourceLayout();
+            }
+         }
+      }
+      return layout;
+   }
+
    public Sequence sequence(String name) {
       Sequence sequence = sequenceMap.get(name);
       if (sequence == null) {
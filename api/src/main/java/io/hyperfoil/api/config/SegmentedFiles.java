@@ -0,0 +1,131 @@
+package io.hyperfoil.api.config;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of {@link Benchmark#files()} that does not hold the content on heap; the content is accessed
+ * through {@link #segments(String)}, so that files over 2 GB can be addressed with <code>long</code> offsets.
+ * <p>
+ * The map view copies the content to heap on each access to a value; steps should prefer
+ * {@link Benchmark#fileSegments(String)}.
+ */
+public abstract class SegmentedFiles extends AbstractMap<String, byte[]> {
+   /**
+    * @return Names of all files.
+    */
+   protected abstract Set<String> names();
+
+   /**
+    * @param name File name.
+    * @return Read-only views of the content with independent positions, or <code>null</code> if there's no such file.
+    */
+   public abstract ByteBuffer[] segments(String name);
+
+   /**
+    * @param files Files as in {@link Benchmark#files()}.
+    * @param name File name.
+    * @return Content split as described in {@link Benchmark#fileSegments(String)}, or <code>null</code> if there's
+    *         no such file.
+    */
+   public static ByteBuffer[] segments(Map<String, byte[]> files, String name) {
+      if (files instanceof SegmentedFiles) {
+         return ((SegmentedFiles) files).segments(name);
+      }
+      byte[] bytes = files.get(name);
+      return bytes == null ? null : split(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+   }
+
+   /**
+    * Splits the buffer into slices of {@link Benchmark#FILE_SEGMENT_SIZE} bytes.
+    *
+    * @param buffer Buffer with the content.
+    * @return Segments; an empty buffer results in single empty segment.
+    */
+   public static ByteBuffer[] split(ByteBuffer buffer) {
+      int count = Math.max(1, (int) ((buffer.remaining() + (long) Benchmark.FILE_SEGMENT_SIZE - 1)
+            / Benchmark.FILE_SEGMENT_SIZE));
+      ByteBuffer[] segments = new ByteBuffer[count];
+      for (int i = 0; i < count; ++i) {
+         int offset = buffer.position() + i * Benchmark.FILE_SEGMENT_SIZE;
+         int length = Math.min(Benchmark.FILE_SEGMENT_SIZE, buffer.limit() - offset);
+         segments[i] = buffer.slice(offset, length);
+      }
+      return segments;
+   }
+
+   /**
+    * @param segments Content as returned from {@link #segments(String)}.
+    * @return Total length of the content.
+    */
+   public static long length(ByteBuffer[] segments) {
+      long length = 0;
+      for (ByteBuffer segment : segments) {
+         length += segment.remaining();
+      }
+      return length;
+   }
+
+   @Override
+   public boolean containsKey(Object key) {
+      return names().contains(key);
+   }
+
+   @Override
+   public byte[] get(Object key) {
+      if (!(key instanceof String)) {
+         return null;
+      }
+      ByteBuffer[] segments = segments((String) key);
+      if (segments == null) {
+         return null;
+      } else if (segments.length > 1) {
+         throw new IllegalStateException("File " + key + " is too big to be copied to heap.");
+      }
+      byte[] bytes = new byte[segments[0].remaining()];
+      segments[0].get(bytes);
+      return bytes;
+   }
+
+   @Override
+   public int size() {
+      return names().size();
+   }
+
+   @Override
+   public Set<Entry<String, byte[]>> entrySet() {
+      // The content is copied only when the value of an entry is accessed
+      return new AbstractSet<>() {
+         @Override
+         public Iterator<Entry<String, byte[]>> iterator() {
+            Iterator<String> names = names().iterator();
+            return new Iterator<>() {
+               @Override
+               public boolean hasNext() {
+                  return names.hasNext();
+               }
+
+               @Override
+               public Entry<String, byte[]> next() {
+                  String name = names.next();
+                  return new SimpleImmutableEntry<>(name, null) {
+                     @Override
+                     public byte[] getValue() {
+                        return get(name);
+                     }
+                  };
+               }
+            };
+         }
+
+         @Override
+         public int size() {
+            return names().size();
+         }
+      };
+   }
+}
@@ -9,18 +9,13 @@ import org.apache.logging.log4j.Logger;
 import io.hyperfoil.api.config.StartTimeSource;
 import io.hyperfoil.api.session.SequenceInstance;
 import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.session.TimingWheel;
 import io.hyperfoil.api.statistics.Statistics;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
-import io.netty.util.concurrent.ScheduledFuture;
 
 public abstract class Request implements Callable<Void>, GenericFutureListener<Future<Void>>, StartTimeSource {
    private static final Logger log = LogManager.getLogger(Request.class);
-   private static final GenericFutureListener<Future<Object>> FAILURE_LISTENER = future -> {
-      if (!future.isSuccess() && !future.isCancelled()) {
-         log.error("Timeout task failed", future.cause());
-      }
-   };
 
    public final Session session;
    private final long[] timestamps = new long[2];
@@ -29,7 +24,7 @@ public abstract class Request implements Callable<Void>, GenericFutureListener<F
    private SequenceInstance sequence;
    private SequenceInstance completionSequence;
    private Statistics statistics;
-   private ScheduledFuture<?> timeoutFuture;
+   private final TimingWheel.Timeout timeout = new TimingWheel.Timeout(this::call);
    private Connection connection;
    private Status status = Status.IDLE;
    private Result result = Result.VALID;
@@ -45,7 +40,6 @@ public abstract class Request implements Callable<Void>, GenericFutureListener<F
    public Void call() {
       int uniqueId = session == null ? -1 : session.uniqueId();
       log.warn("#{} Request timeout, closing connection {}", uniqueId, connection);
-      timeoutFuture = null;
       if (status != Status.COMPLETED) {
          result = Result.TIMED_OUT;
          statistics.incrementTimeouts(this, session);
@@ -109,10 +103,7 @@ public abstract class Request implements Callable<Void>, GenericFutureListener<F
    }
 
    public void setCompleted() {
-      if (timeoutFuture != null) {
-         timeoutFuture.cancel(false);
-         timeoutFuture = null;
-      }
+      timeout.cancel();
       connection = null;
       sequence = null;
       // handleEnd may indirectly call handleThrowable which calls setCompleted first
@@ -148,8 +139,7 @@ public abstract class Request implements Callable<Void>, GenericFutureListener<F
    }
 
    public void setTimeout(long timeout, TimeUnit timeUnit) {
-      timeoutFuture = session.executor().schedule(this, timeout, timeUnit);
-      timeoutFuture.addListener(FAILURE_LISTENER);
+      session.timingWheel().schedule(this.timeout, timeout, timeUnit);
    }
 
    @Override
@@ -0,0 +1,77 @@
+package io.hyperfoil.api.session;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assignment of resource keys to dense slots in sessions' resource arrays. The layout is owned by the scenario
+ * and shared by all its sessions; it is populated while the first session is reserved, the other sessions declare
+ * the same keys in the same order and only look the slots up.
+ * <p>
+ * Slots are assigned in the order of declaration and never reassigned. Each scenario has its own layout, therefore
+ * a key declared in several scenarios can have different slots: {@link Session.SharedResourceKey shared keys}
+ * are resolved through {@link #sharedSlot(int)}, other keys through {@link #lookup(Session.ResourceKey)}.
+ */
+public final class ResourceLayout {
+   private final Map<Session.ResourceKey<?>, Integer> slots = new ConcurrentHashMap<>();
+   // When the arrays grow the old copies are still valid for the slots they contain.
+   private volatile Session.ResourceKey<?>[] keys = new Session.ResourceKey<?>[8];
+   private volatile int[] sharedSlots = new int[0];
+   private int size;
+
+   /**
+    * @return Slot of the key, assigning the next free one if the key has not been declared yet.
+    */
+   public synchronized int assign(Session.ResourceKey<?> key) {
+      Integer existing = slots.get(key);
+      if (existing != null) {
+         return existing;
+      }
+      int slot = size++;
+      if (slot >= keys.length) {
+         keys = Arrays.copyOf(keys, keys.length * 2);
+      }
+      keys[slot] = key;
+      slots.put(key, slot);
+      if (key instanceof Session.SharedResourceKey<?> shared) {
+         int index = shared.index();
+         int[] sharedSlots = this.sharedSlots;
+         if (index >= sharedSlots.length) {
+            int length = sharedSlots.length;
+            sharedSlots = Arrays.copyOf(sharedSlots, index + 1);
+            Arrays.fill(sharedSlots, length, sharedSlots.length, -1);
+         }
+         sharedSlots[index] = slot;
+         // publish the slot after the key
+         this.sharedSlots = sharedSlots;
+      } else if (key instanceof Session.SlottedResourceKey<?> slotted) {
+         slotted.setSlot(slot);
+      }
+      return slot;
+   }
+
+   /**
+    * @return Slot of the key or negative value if the key was not declared.
+    */
+   public int lookup(Session.ResourceKey<?> key) {
+      Integer slot = slots.get(key);
+      return slot == null ? -1 : slot;
+   }
+
+   int sharedSlot(int index) {
+      int[] sharedSlots = this.sharedSlots;
+      return index < sharedSlots.length ? sharedSlots[index] : -1;
+   }
+
+   /**
+    * @return Keys indexed by their slots; the array is replaced when it grows.
+    */
+   public Session.ResourceKey<?>[] keys() {
+      return keys;
+   }
+
+   public synchronized int size() {
+      return size;
+   }
+}
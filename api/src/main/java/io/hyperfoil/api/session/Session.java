@@ -1,11 +1,14 @@
 package io.hyperfoil.api.session;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import io.hyperfoil.api.config.Phase;
 import io.hyperfoil.api.config.Scenario;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.connection.Request;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.SessionStatistics;
 import io.hyperfoil.api.statistics.Statistics;
 import io.netty.util.concurrent.EventExecutor;
@@ -38,6 +41,13 @@ public interface Session {
 
    EventExecutor executor();
 
+   /**
+    * @return Timing wheel of the executor; must be called only from the executor thread.
+    */
+   default TimingWheel timingWheel() {
+      return TimingWheel.get(executor());
+   }
+
    ThreadData threadData();
 
    AgentData agentData();
@@ -62,6 +72,19 @@ public interface Session {
 
    Statistics statistics(int stepId, String name);
 
+   /**
+    * @param handle Static handle (with fixed metric name).
+    * @return Statistics for the current phase, resolved through the handle's slot.
+    */
+   Statistics statistics(MetricHandle handle);
+
+   /**
+    * @param handle Dynamic handle.
+    * @param metric Metric name selected at runtime.
+    * @return Statistics for the current phase; recently used metrics are cached in the handle's slots.
+    */
+   Statistics statistics(MetricHandle handle, String metric);
+
    void pruneStats(Phase phase);
 
    // Resources
@@ -172,7 +195,63 @@ public interface Session {
       }
    }
 
+   /**
+    * Sessions store resources in an array; the slot for each key is assigned by the {@link ResourceLayout}
+    * of the scenario when the resource is first declared, and the layout is shared by all sessions of that scenario.
+    * Keys used on hot paths should resolve the slot without a map lookup: keys owned by a single step or handler
+    * extend {@link SlottedResourceKey}, static keys used by many scenarios are {@link SharedResourceKey}s.
+    * Other keys are looked up in a map.
+    */
    interface ResourceKey<R extends Resource> extends Serializable {
+      /**
+       * @param layout Layout of the session's scenario.
+       * @return Slot of this key in the layout, negative value if the key was not declared. The slot might be
+       *         stale; sessions verify that the slot holds this key before use.
+       */
+      default int slot(ResourceLayout layout) {
+         return layout.lookup(this);
+      }
+   }
+
+   /**
+    * Key that remembers its slot. The slot is set by the layout of the first scenario that declares the key;
+    * the key should not be used in other scenarios (these would fall back to map lookup).
+    */
+   class SlottedResourceKey<R extends Resource> implements ResourceKey<R> {
+      @Visitor.Ignore
+      private int slot = -1;
+
+      @Override
+      public int slot(ResourceLayout layout) {
+         int slot = this.slot;
+         return slot >= 0 ? slot : layout.lookup(this);
+      }
+
+      void setSlot(int slot) {
+         if (this.slot < 0) {
+            this.slot = slot;
+         }
+      }
+   }
+
+   /**
+    * Key held in a static field and declared by any scenario. Each instance gets an immutable index, and every
+    * layout maps that index to the slot it has assigned; create these only as constants.
+    */
+   class SharedResourceKey<R extends Resource> implements ResourceKey<R> {
+      private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+      @Visitor.Ignore
+      private final int index = NEXT_INDEX.getAndIncrement();
+
+      @Override
+      public int slot(ResourceLayout layout) {
+         return layout.sharedSlot(index);
+      }
+
+      int index() {
+         return index;
+      }
    }
 
    /**
@@ -0,0 +1,251 @@
+package io.hyperfoil.api.session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.FormattedMessage;
+
+import io.hyperfoil.internal.Properties;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/**
+ * Hierarchical timing wheel used for request timeouts and delays. There is one instance per event loop
+ * (see {@link #get(EventExecutor)}) and it must be used only from that event loop.
+ * <p>
+ * The timeouts are represented by {@link Timeout} instances owned by the caller and reused for subsequent
+ * invocations; scheduling and cancelling a timeout is O(1) and does not allocate. The wheel is driven by a single
+ * task scheduled on the event loop every tick (1 ms by default, see {@link Properties#TIMER_TICK}), which is
+ * cancelled when the wheel stays empty for a while. A timeout never fires before its deadline but it may fire
+ * up to one tick later.
+ */
+public final class TimingWheel {
+   private static final Logger log = LogManager.getLogger(TimingWheel.class);
+   private static final long TICK_NANOS = TimeUnit.MICROSECONDS.toNanos(Properties.getLong(Properties.TIMER_TICK, 1000));
+   // number of bits of the tick number handled by each level; 32 bits in total cover more than a month with 1 ms tick
+   private static final int[] LEVEL_BITS = { 8, 6, 6, 6, 6 };
+   private static final long MAX_DELTA = (1L << 32) - 1;
+   // the tick task is cancelled after this many ticks without any timeout
+   private static final int IDLE_TICKS = 1 << LEVEL_BITS[0];
+   private static final FastThreadLocal<TimingWheel> WHEELS = new FastThreadLocal<>();
+
+   private final EventExecutor executor;
+   private final long startNanos = System.nanoTime();
+   private final Bucket[][] levels = new Bucket[LEVEL_BITS.length][];
+   private final int[] shifts = new int[LEVEL_BITS.length];
+   private final Bucket firing = new Bucket();
+   private final Runnable tickTask = this::tick;
+   // all ticks lower than this one have been processed
+   private long currentTick;
+   private long lastNonEmptyTick;
+   private int size;
+   private ScheduledFuture<?> tickFuture;
+
+   TimingWheel(EventExecutor executor) {
+      this.executor = executor;
+      int shift = 0;
+      for (int i = 0; i < LEVEL_BITS.length; ++i) {
+         levels[i] = new Bucket[1 << LEVEL_BITS[i]];
+         for (int j = 0; j < levels[i].length; ++j) {
+            levels[i][j] = new Bucket();
+         }
+         shifts[i] = shift;
+         shift += LEVEL_BITS[i];
+      }
+   }
+
+   /**
+    * @param executor Event loop executing current thread.
+    * @return Timing wheel for this event loop.
+    */
+   public static TimingWheel get(EventExecutor executor) {
+      assert executor.inEventLoop();
+      TimingWheel wheel = WHEELS.get();
+      if (wheel == null) {
+         wheel = new TimingWheel(executor);
+         WHEELS.set(wheel);
+      }
+      return wheel;
+   }
+
+   /**
+    * Schedules the timeout; if it has been already scheduled it is rescheduled to the new deadline.
+    */
+   public void schedule(Timeout timeout, long delay, TimeUnit unit) {
+      assert executor.inEventLoop();
+      if (timeout.bucket != null) {
+         cancel(timeout);
+      }
+      long now = System.nanoTime();
+      long nowTick = (now - startNanos) / TICK_NANOS;
+      if (size == 0 && currentTick < nowTick) {
+         // nothing to process in between
+         currentTick = nowTick;
+      }
+      long deadlineNanos = now - startNanos + Math.min(unit.toNanos(delay), MAX_DELTA * TICK_NANOS);
+      // round up so that the timeout does not fire before the deadline
+      timeout.deadlineTick = Math.max(currentTick, (deadlineNanos + TICK_NANOS - 1) / TICK_NANOS);
+      timeout.wheel = this;
+      insert(timeout);
+      ++size;
+      if (tickFuture == null) {
+         lastNonEmptyTick = currentTick;
+         tickFuture = executor.scheduleAtFixedRate(tickTask, TICK_NANOS, TICK_NANOS, TimeUnit.NANOSECONDS);
+      }
+   }
+
+   /**
+    * Cancels the timeout; this is no-op if the timeout is not scheduled.
+    */
+   public void cancel(Timeout timeout) {
+      assert executor.inEventLoop();
+      if (timeout.bucket != null) {
+         timeout.bucket.remove(timeout);
+         timeout.wheel = null;
+         --size;
+      }
+   }
+
+   public int size() {
+      return size;
+   }
+
+   private void insert(Timeout timeout) {
+      long delta = Math.min(timeout.deadlineTick - currentTick, MAX_DELTA);
+      int level = 0;
+      while (level < LEVEL_BITS.length - 1 && delta >= 1L << (shifts[level] + LEVEL_BITS[level])) {
+         ++level;
+      }
+      // timeouts beyond the range of the wheel are placed to the farthest slot and cascaded again later
+      long slotTick = currentTick + delta;
+      Bucket[] buckets = levels[level];
+      buckets[(int) (slotTick >>> shifts[level]) & (buckets.length - 1)].add(timeout);
+   }
+
+   private void tick() {
+      long nowTick = (System.nanoTime() - startNanos) / TICK_NANOS;
+      if (size == 0) {
+         currentTick = Math.max(currentTick, nowTick + 1);
+         if (currentTick - lastNonEmptyTick > IDLE_TICKS) {
+            tickFuture.cancel(false);
+            tickFuture = null;
+         }
+         return;
+      }
+      while (currentTick <= nowTick && size > 0) {
+         long tick = currentTick;
+         for (int level = LEVEL_BITS.length - 1; level > 0; --level) {
+            if ((tick & ((1L << shifts[level]) - 1)) == 0) {
+               Bucket[] buckets = levels[level];
+               cascade(buckets[(int) (tick >>> shifts[level]) & (buckets.length - 1)]);
+            }
+         }
+         Bucket bucket = levels[0][(int) tick & (levels[0].length - 1)];
+         currentTick = tick + 1;
+         if (bucket.head == null) {
+            continue;
+         }
+         // timeouts scheduled or cancelled by the fired tasks must not interfere with the iteration
+         bucket.moveTo(firing);
+         Timeout timeout;
+         while ((timeout = firing.head) != null) {
+            firing.remove(timeout);
+            if (timeout.deadlineTick > tick) {
+               insert(timeout);
+               continue;
+            }
+            timeout.wheel = null;
+            --size;
+            try {
+               timeout.task.run();
+            } catch (Throwable t) {
+               log.error(new FormattedMessage("Timeout task {} failed", timeout.task), t);
+            }
+         }
+      }
+      if (size == 0) {
+         currentTick = Math.max(currentTick, nowTick + 1);
+      }
+      lastNonEmptyTick = currentTick;
+   }
+
+   private void cascade(Bucket bucket) {
+      if (bucket.head == null) {
+         return;
+      }
+      bucket.moveTo(firing);
+      Timeout timeout;
+      while ((timeout = firing.head) != null) {
+         firing.remove(timeout);
+         insert(timeout);
+      }
+   }
+
+   /**
+    * Reusable timeout entry.
+    */
+   public static final class Timeout {
+      private final Runnable task;
+      private TimingWheel wheel;
+      private Bucket bucket;
+      private Timeout prev;
+      private Timeout next;
+      private long deadlineTick;
+
+      public Timeout(Runnable task) {
+         this.task = task;
+      }
+
+      public boolean isScheduled() {
+         return bucket != null;
+      }
+
+      /**
+       * Cancels this timeout if it is scheduled.
+       */
+      public void cancel() {
+         if (wheel != null) {
+            wheel.cancel(this);
+         }
+      }
+   }
+
+   private static final class Bucket {
+      private Timeout head;
+
+      void add(Timeout timeout) {
+         timeout.bucket = this;
+         timeout.prev = null;
+         timeout.next = head;
+         if (head != null) {
+            head.prev = timeout;
+         }
+         head = timeout;
+      }
+
+      void remove(Timeout timeout) {
+         if (timeout.prev == null) {
+            head = timeout.next;
+         } else {
+            timeout.prev.next = timeout.next;
+         }
+         if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+         }
+         timeout.prev = null;
+         timeout.next = null;
+         timeout.bucket = null;
+      }
+
+      void moveTo(Bucket other) {
+         assert other.head == null;
+         other.head = head;
+         head = null;
+         for (Timeout timeout = other.head; timeout != null; timeout = timeout.next) {
+            timeout.bucket = other;
+         }
+      }
+   }
+}
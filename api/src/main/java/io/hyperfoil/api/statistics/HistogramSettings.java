@@ -0,0 +1,122 @@
+package io.hyperfoil.api.statistics;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+
+/**
+ * Range and precision of histograms recording response times.
+ */
+public class HistogramSettings implements Serializable {
+   public static final HistogramSettings DEFAULT = new HistogramSettings(TimeUnit.MINUTES.toNanos(1), 2, false);
+
+   private final long maxValue;
+   private final int precision;
+   private final boolean packed;
+
+   /**
+    * @param maxValue Highest trackable value in nanoseconds; ignored for packed histograms.
+    * @param precision Number of significant value digits (0 - 5).
+    * @param packed Use auto-resizing histogram with memory footprint proportional to the number of non-empty buckets.
+    */
+   public HistogramSettings(long maxValue, int precision, boolean packed) {
+      if (precision < 0 || precision > 5) {
+         throw new IllegalArgumentException("Histogram precision must be between 0 and 5 significant digits: " + precision);
+      } else if (!packed && maxValue < 2) {
+         throw new IllegalArgumentException("Histogram max value must be at least 2 ns: " + maxValue);
+      }
+      this.maxValue = maxValue;
+      this.precision = precision;
+      this.packed = packed;
+   }
+
+   public static HistogramSettings of(Histogram histogram) {
+      return new HistogramSettings(histogram.getHighestTrackableValue(), histogram.getNumberOfSignificantValueDigits(),
+            histogram.isAutoResize());
+   }
+
+   public long maxValue() {
+      return maxValue;
+   }
+
+   public int precision() {
+      return precision;
+   }
+
+   public boolean packed() {
+      return packed;
+   }
+
+   public Histogram create() {
+      return packed ? new PackedHistogram(precision) : new Histogram(maxValue, precision);
+   }
+
+   /**
+    * @param histogram Existing histogram.
+    * @return True if values from the histogram can be added to histogram with these settings without loss.
+    */
+   public boolean accepts(Histogram histogram) {
+      if (precision < histogram.getNumberOfSignificantValueDigits()) {
+         return false;
+      } else if (packed) {
+         return true;
+      } else if (histogram.isAutoResize()) {
+         return maxValue >= histogram.getMaxValue();
+      } else {
+         return maxValue >= histogram.getHighestTrackableValue();
+      }
+   }
+
+   /**
+    * @param histogram Histogram created with these settings.
+    * @param other Histogram that will be added to or subtracted from <code>histogram</code>.
+    * @return The same histogram or a replacement with wider range or higher precision, holding the same values.
+    */
+   public Histogram widen(Histogram histogram, Histogram other) {
+      if (accepts(other)) {
+         return histogram;
+      }
+      HistogramSettings otherSettings = of(other);
+      Histogram replacement;
+      if (histogram.getTotalCount() == 0) {
+         replacement = otherSettings.create();
+      } else {
+         replacement = union(otherSettings).create();
+         replacement.add(histogram);
+      }
+      replacement.setStartTimeStamp(histogram.getStartTimeStamp());
+      replacement.setEndTimeStamp(histogram.getEndTimeStamp());
+      return replacement;
+   }
+
+   /**
+    * @return Settings that can accommodate values from histograms with both these and other settings.
+    */
+   public HistogramSettings union(HistogramSettings other) {
+      return new HistogramSettings(Math.max(maxValue, other.maxValue), Math.max(precision, other.precision),
+            packed || other.packed);
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) {
+         return true;
+      } else if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+      HistogramSettings that = (HistogramSettings) o;
+      return maxValue == that.maxValue && precision == that.precision && packed == that.packed;
+   }
+
+   @Override
+   public int hashCode() {
+      return Long.hashCode(maxValue) * 31 * 31 + precision * 31 + (packed ? 1 : 0);
+   }
+
+   @Override
+   public String toString() {
+      return "HistogramSettings{maxValue=" + maxValue + ", precision=" + precision + ", packed=" + packed + '}';
+   }
+}
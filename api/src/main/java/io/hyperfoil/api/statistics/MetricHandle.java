@@ -0,0 +1,82 @@
+package io.hyperfoil.api.statistics;
+
+import java.io.Serializable;
+
+import io.hyperfoil.api.session.Session;
+
+/**
+ * Pre-resolved reference to {@link Statistics} recorded by a step. Components that record statistics should create
+ * the handle when they are built and keep it in a field; when the {@link io.hyperfoil.api.config.Scenario} is
+ * constructed all reachable handles get a slot index (similar to variable accesses) and the session then resolves
+ * the statistics through an array lookup rather than searching {@link SessionStatistics}.
+ * <p>
+ * Handles with a fixed metric name are <em>static</em>; use {@link Session#statistics(MetricHandle)}.
+ * When the metric name is selected at runtime (e.g. based on request path) the handle is <em>dynamic</em>
+ * and the session keeps a small cache of the most recently used metrics;
+ * use {@link Session#statistics(MetricHandle, String)}.
+ */
+public class MetricHandle implements Serializable {
+   /**
+    * Number of metrics cached by the session for a single dynamic handle.
+    */
+   public static final int DYNAMIC_CACHE_SIZE = 4;
+
+   private final int stepId;
+   private final String metric;
+   private int index = -1;
+
+   /**
+    * Creates a dynamic handle.
+    *
+    * @param stepId Step ID.
+    */
+   public MetricHandle(int stepId) {
+      this(stepId, null);
+   }
+
+   /**
+    * Creates a static handle.
+    *
+    * @param stepId Step ID.
+    * @param metric Metric name, or <code>null</code> for dynamic handle.
+    */
+   public MetricHandle(int stepId, String metric) {
+      this.stepId = stepId;
+      this.metric = metric;
+   }
+
+   public int stepId() {
+      return stepId;
+   }
+
+   public String metric() {
+      return metric;
+   }
+
+   public boolean isDynamic() {
+      return metric == null;
+   }
+
+   /**
+    * @return Number of session slots this handle occupies.
+    */
+   public int slots() {
+      return metric == null ? DYNAMIC_CACHE_SIZE : 1;
+   }
+
+   public void setIndex(int index) {
+      this.index = index;
+   }
+
+   /**
+    * @return Index of first slot or <code>-1</code> if the handle was not registered in a scenario.
+    */
+   public int index() {
+      return index;
+   }
+
+   @Override
+   public String toString() {
+      return "MetricHandle{stepId=" + stepId + ", metric=" + metric + ", index=" + index + '}';
+   }
+}
@@ -31,7 +31,7 @@ public class SessionStatistics {
          if (stepIds[i] == stepId && phases[i] == phase) {
             Statistics s = maps[i].get(name);
             if (s == null) {
-               s = new Statistics(startTime);
+               s = new Statistics(startTime, phase.benchmark().histogramSettings(name));
                maps[i].put(name, s);
             }
             return s;
@@ -45,7 +45,7 @@ public class SessionStatistics {
 
       phases[size] = phase;
       stepIds[size] = stepId;
-      Statistics s = new Statistics(startTime);
+      Statistics s = new Statistics(startTime, phase.benchmark().histogramSettings(name));
       HashMap<String, Statistics> map = new HashMap<>();
       map.put(name, s);
       maps[size] = map;
@@ -4,6 +4,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.HdrHistogram.SingleWriterRecorder;
@@ -17,6 +18,9 @@ import io.hyperfoil.api.session.Session;
 /**
  * This is a copy/subset of {@link SingleWriterRecorder} but uses {@link StatisticsSnapshot} instead of only
  * the histogram.
+ * <p>
+ * All sessions running on the same executor record into the same instance (see {@link SessionStatistics}),
+ * so the reader merges one set of snapshots per executor regardless of the number of sessions.
  */
 public class Statistics {
    private static final Logger log = LogManager.getLogger(Statistics.class);
@@ -29,6 +33,7 @@ public class Statistics {
          "lowestActive2");
 
    private final WriterReaderPhaser recordingPhaser = new WriterReaderPhaser();
+   private final HistogramSettings histogramSettings;
    private final long highestTrackableValue;
    // We'll start making space 4 samples (seconds) ahead; in case the readers fall behind the schedule
    // this will help to keep the active array always big enough.
@@ -49,18 +54,23 @@ public class Statistics {
    private int lastLowestIndex;
 
    public Statistics(long startTimestamp) {
+      this(startTimestamp, HistogramSettings.DEFAULT);
+   }
+
+   public Statistics(long startTimestamp, HistogramSettings histogramSettings) {
       this.startTimestamp = startTimestamp;
+      this.histogramSettings = histogramSettings;
       active = new AtomicReferenceArray<>(16);
       inactive = new AtomicReferenceArray<>(16);
-      StatisticsSnapshot first = new StatisticsSnapshot();
+      StatisticsSnapshot first = new StatisticsSnapshot(histogramSettings);
       first.sequenceId = 0;
       active.set(0, first);
-      highestTrackableValue = first.histogram.getHighestTrackableValue();
+      highestTrackableValue = histogramSettings.packed() ? Long.MAX_VALUE : first.histogram().getHighestTrackableValue();
    }
 
    public void recordResponse(StartTimeSource source, long responseTime, Session session) {
       if (responseTime > highestTrackableValue) {
-         // we don't use auto-resize histograms
+         // only packed histograms auto-resize
          long lastWarn = lastWarnThrottle.get();
          long warnings = lastWarn & 0xFFFF;
          long now = System.currentTimeMillis();
@@ -82,7 +92,7 @@ public class Statistics {
       long criticalValueAtEnter = recordingPhaser.writerCriticalSectionEnter();
       try {
          StatisticsSnapshot active = active(source, session);
-         active.histogram.recordValue(responseTime);
+         active.histogram().recordValue(responseTime);
          active.responseCount++;
       } finally {
          recordingPhaser.writerCriticalSectionExit(criticalValueAtEnter);
@@ -149,6 +159,19 @@ public class Statistics {
       executeUpdate(key, source, creator, session, custom -> updater.update(custom, value));
    }
 
+   /**
+    * Same as {@link #update(String, StartTimeSource, Supplier, LongUpdater, long, Session)} for extensions that record
+    * values into histograms; these are created with the same settings as the response time histogram.
+    */
+   public <C extends StatsExtension> void updateHistograms(String key, StartTimeSource source,
+         Function<HistogramSettings, C> creator, LongUpdater<C> updater, long value, Session session) {
+      executeUpdate(key, source, () -> creator.apply(histogramSettings), session, custom -> updater.update(custom, value));
+   }
+
+   public HistogramSettings histogramSettings() {
+      return histogramSettings;
+   }
+
    private <C extends StatsExtension> void executeUpdate(
          String key, StartTimeSource source, Supplier<C> creator, Session session, Consumer<C> action) {
 
@@ -231,8 +254,8 @@ public class Statistics {
          } else if (snapshot.isEmpty()) {
             array.set(i, null);
          } else {
-            snapshot.histogram.setStartTimeStamp(startTimestamp + i * SAMPLING_PERIOD_MILLIS);
-            snapshot.histogram.setEndTimeStamp(Math.min(endTimestamp, startTimestamp + (i + 1) * SAMPLING_PERIOD_MILLIS));
+            snapshot.histogram().setStartTimeStamp(startTimestamp + i * SAMPLING_PERIOD_MILLIS);
+            snapshot.histogram().setEndTimeStamp(Math.min(endTimestamp, startTimestamp + (i + 1) * SAMPLING_PERIOD_MILLIS));
             consumer.accept(snapshot);
             snapshot.reset();
          }
@@ -273,11 +296,16 @@ public class Statistics {
       }
       StatisticsSnapshot snapshot = active.get(index);
       if (snapshot == null) {
-         snapshot = new StatisticsSnapshot();
+         snapshot = new StatisticsSnapshot(histogramSettings);
          snapshot.sequenceId = index;
          active.set(index, snapshot);
       }
-      lowestActiveUpdater.accumulateAndGet(this, index, Math::min);
+      // Statistics are recorded only by the event-loop thread that owns the (shared) SessionStatistics
+      // and the reader resets the lowest index only on the inactive updater; therefore we don't need CAS here.
+      AtomicIntegerFieldUpdater<Statistics> lowestActiveUpdater = this.lowestActiveUpdater;
+      if (index < lowestActiveUpdater.get(this)) {
+         lowestActiveUpdater.set(this, index);
+      }
       // Highest active is increasing monotonically and it is updated only by the event-loop thread;
       // therefore we don't have to use CAS operation
       if (index > highestActive) {
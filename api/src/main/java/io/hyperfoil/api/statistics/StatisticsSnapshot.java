@@ -4,7 +4,6 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.DoubleStream;
 
 import org.HdrHistogram.Histogram;
@@ -14,7 +13,9 @@ import org.HdrHistogram.Histogram;
  */
 public class StatisticsSnapshot implements Serializable {
    public int sequenceId = -1;
-   public final Histogram histogram = new Histogram(TimeUnit.MINUTES.toNanos(1), 2);
+   private Histogram histogram;
+   // Settings of the current histogram, cached to not allocate on each add()
+   private transient HistogramSettings histogramSettings;
    public int requestCount;
    public int responseCount;
    public int invalid;
@@ -24,6 +25,27 @@ public class StatisticsSnapshot implements Serializable {
    public long blockedTime;
    public final Map<String, StatsExtension> extensions = new HashMap<>();
 
+   public StatisticsSnapshot() {
+      this(HistogramSettings.DEFAULT);
+   }
+
+   public StatisticsSnapshot(HistogramSettings histogramSettings) {
+      setHistogram(histogramSettings.create());
+   }
+
+   public Histogram histogram() {
+      return histogram;
+   }
+
+   /**
+    * When adding statistics with wider range or higher precision the histogram is replaced;
+    * callers should not hold the reference across {@link #add(StatisticsSnapshot)}.
+    */
+   private void setHistogram(Histogram histogram) {
+      this.histogram = histogram;
+      this.histogramSettings = HistogramSettings.of(histogram);
+   }
+
    public boolean isEmpty() {
       return requestCount + responseCount + invalid + connectionErrors + requestTimeouts + internalErrors == 0 &&
             extensions.values().stream().allMatch(StatsExtension::isNull);
@@ -46,13 +68,14 @@ public class StatisticsSnapshot implements Serializable {
    }
 
    public StatisticsSnapshot clone() {
-      StatisticsSnapshot copy = new StatisticsSnapshot();
+      StatisticsSnapshot copy = new StatisticsSnapshot(histogramSettings());
       copy.sequenceId = sequenceId;
       copy.add(this);
       return copy;
    }
 
    public void add(StatisticsSnapshot other) {
+      ensureAccepts(other.histogram);
       histogram.add(other.histogram);
       requestCount += other.requestCount;
       responseCount += other.responseCount;
@@ -74,7 +97,23 @@ public class StatisticsSnapshot implements Serializable {
       }
    }
 
+   private HistogramSettings histogramSettings() {
+      if (histogramSettings == null) {
+         // deserialized instance
+         histogramSettings = HistogramSettings.of(histogram);
+      }
+      return histogramSettings;
+   }
+
+   private void ensureAccepts(Histogram other) {
+      Histogram widened = histogramSettings().widen(histogram, other);
+      if (widened != histogram) {
+         setHistogram(widened);
+      }
+   }
+
    public void subtract(StatisticsSnapshot other) {
+      ensureAccepts(other.histogram);
       histogram.subtract(other.histogram);
       requestCount -= other.requestCount;
       responseCount -= other.responseCount;
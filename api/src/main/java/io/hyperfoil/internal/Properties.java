@@ -8,6 +8,9 @@ public interface Properties {
    String AGENT_DEBUG_SUSPEND = "io.hyperfoil.agent.debug.suspend";
    String AGENT_JAVA_EXECUTABLE = "io.hyperfoil.agent.java.executable";
    String AGENT_NAME = "io.hyperfoil.agent.name";
+   String AGENT_FILE_CACHE_DIR = "io.hyperfoil.agent.file.cache.dir";
+   String AGENT_FILE_CACHE_MAX_SIZE = "io.hyperfoil.agent.file.cache.max.size";
+   String AGENT_INITIALIZE_TIMEOUT = "io.hyperfoil.agent.initialize.timeout";
    String BENCHMARK_DIR = "io.hyperfoil.benchmarkdir";
    String CONTROLLER_CLUSTER_IP = "io.hyperfoil.controller.cluster.ip";
    String CONTROLLER_CLUSTER_PORT = "io.hyperfoil.controller.cluster.port";
@@ -30,12 +33,15 @@ public interface Properties {
    String JITTER_WATCHDOG_PERIOD = "io.hyperfoil.jitter.watchdog.period";
    String JITTER_WATCHDOG_THRESHOLD = "io.hyperfoil.jitter.watchdog.threshold";
    String LOG4J2_CONFIGURATION_FILE = "log4j.configurationFile";
+   String JSON_SCANNER = "io.hyperfoil.json.scanner";
    String LOAD_DIR = "io.hyperfoil.loaddir";
+   String METRICS_CACHE_PERIOD = "io.hyperfoil.metrics.cache.period";
    String MAX_IN_MEMORY_RUNS = "io.hyperfoil.max.in.memory.runs";
    String NETTY_TRANSPORT = "io.hyperfoil.netty.transport";
    String ROOT_DIR = "io.hyperfoil.rootdir";
    String RUN_DIR = "io.hyperfoil.rundir";
    String RUN_ID = "io.hyperfoil.runid";
+   String TIMER_TICK = "io.hyperfoil.timer.tick";
    String TRIGGER_URL = "io.hyperfoil.trigger.url";
    String CLI_REQUEST_TIMEOUT = "io.hyperfoil.cli.request.timeout";
    String GC_CHECK = "io.hyperfoil.gc.check.enabled";
@@ -0,0 +1,100 @@
+package io.hyperfoil.api.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.EventExecutor;
+
+public class TimingWheelTest {
+   private final EventExecutor executor = new DefaultEventExecutor();
+
+   @AfterEach
+   public void shutdown() {
+      executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+   }
+
+   @Test
+   public void testFiresNotBeforeDeadline() throws Exception {
+      int count = 1000;
+      long[] deadlines = new long[count];
+      long[] fired = new long[count];
+      AtomicInteger remaining = new AtomicInteger(count);
+      CompletableFuture<Void> done = new CompletableFuture<>();
+      executor.execute(() -> {
+         TimingWheel wheel = TimingWheel.get(executor);
+         for (int i = 0; i < count; ++i) {
+            int index = i;
+            TimingWheel.Timeout timeout = new TimingWheel.Timeout(() -> {
+               fired[index] = System.nanoTime();
+               if (remaining.decrementAndGet() == 0) {
+                  done.complete(null);
+               }
+            });
+            // some of these go to the second level of the wheel
+            long delay = ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(400));
+            deadlines[i] = System.nanoTime() + delay;
+            wheel.schedule(timeout, delay, TimeUnit.NANOSECONDS);
+         }
+      });
+      done.get(10, TimeUnit.SECONDS);
+      for (int i = 0; i < count; ++i) {
+         assertTrue(fired[i] >= deadlines[i], "Timeout " + i + " fired early");
+      }
+   }
+
+   @Test
+   public void testCancelAndReschedule() throws Exception {
+      List<String> events = new ArrayList<>();
+      CompletableFuture<Void> done = new CompletableFuture<>();
+      executor.execute(() -> {
+         TimingWheel wheel = TimingWheel.get(executor);
+         TimingWheel.Timeout cancelled = new TimingWheel.Timeout(() -> events.add("cancelled"));
+         TimingWheel.Timeout rescheduled = new TimingWheel.Timeout(() -> events.add("rescheduled"));
+         TimingWheel.Timeout last = new TimingWheel.Timeout(() -> {
+            events.add("last");
+            done.complete(null);
+         });
+         wheel.schedule(cancelled, 10, TimeUnit.MILLISECONDS);
+         wheel.schedule(rescheduled, 5, TimeUnit.MILLISECONDS);
+         wheel.schedule(last, 50, TimeUnit.MILLISECONDS);
+         wheel.schedule(rescheduled, 20, TimeUnit.MILLISECONDS);
+         cancelled.cancel();
+         assertFalse(cancelled.isScheduled());
+         assertEquals(2, wheel.size());
+      });
+      done.get(10, TimeUnit.SECONDS);
+      assertEquals(List.of("rescheduled", "last"), events);
+   }
+
+   @Test
+   public void testRescheduleFromTask() throws Exception {
+      AtomicInteger fired = new AtomicInteger();
+      CompletableFuture<Void> done = new CompletableFuture<>();
+      executor.execute(() -> {
+         TimingWheel wheel = TimingWheel.get(executor);
+         TimingWheel.Timeout[] timeout = new TimingWheel.Timeout[1];
+         timeout[0] = new TimingWheel.Timeout(() -> {
+            if (fired.incrementAndGet() < 5) {
+               wheel.schedule(timeout[0], 1, TimeUnit.MILLISECONDS);
+            } else {
+               done.complete(null);
+            }
+         });
+         wheel.schedule(timeout[0], 0, TimeUnit.MILLISECONDS);
+      });
+      done.get(10, TimeUnit.SECONDS);
+      assertEquals(5, fired.get());
+   }
+}
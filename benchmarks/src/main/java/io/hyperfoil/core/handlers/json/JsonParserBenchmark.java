@@ -0,0 +1,130 @@
+package io.hyperfoil.core.handlers.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hyperfoil.api.processor.Processor;
+import io.hyperfoil.api.session.ResourceUtilizer;
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.core.session.SessionFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Extraction from a JSON API response (an array of objects with nested attributes) delivered in chunks
+ * as they would come from the network. The <code>bytes</code> counter reports the parsing throughput in bytes/us,
+ * which is the same as MB/s.
+ * <p>
+ * The structural scanner is picked through <code>-jvmArgsAppend -Dio.hyperfoil.json.scanner=scalar|vector</code>;
+ * the vector scanner requires <code>-jvmArgsAppend --add-modules=jdk.incubator.vector</code>.
+ */
+@State(Scope.Thread)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonParserBenchmark {
+   @Param({ "50000", "500000" })
+   private int size;
+
+   // top-level attribute (most of the document is skipped), attribute of each item, deeply nested value,
+   // filter with condition after the selected attribute and recursive descent
+   @Param({ ".total", ".items[].name", ".items[].details.tags[0]", ".items[?(@.details.stock == 3)].name", "..stock" })
+   private String query;
+
+   @Param("16384")
+   private int chunkSize;
+
+   private ByteBuf[] chunks;
+   private int bytes;
+   private JsonHandler handler;
+   private Session session;
+   private long matches;
+
+   @Setup
+   public void setup() {
+      byte[] json = generate(size);
+      bytes = json.length;
+      int numChunks = (json.length + chunkSize - 1) / chunkSize;
+      chunks = new ByteBuf[numChunks];
+      for (int i = 0; i < numChunks; ++i) {
+         int length = Math.min(chunkSize, json.length - i * chunkSize);
+         chunks[i] = PooledByteBufAllocator.DEFAULT.directBuffer(length);
+         chunks[i].writeBytes(json, i * chunkSize, length);
+      }
+      handler = new JsonHandler(query, false, null, new Processor() {
+         @Override
+         public void process(Session session, ByteBuf data, int offset, int length, boolean isLastPart) {
+            if (isLastPart) {
+               ++matches;
+            }
+         }
+      });
+      session = SessionFactory.forTesting();
+      ResourceUtilizer.reserveForTesting(session, handler);
+   }
+
+   @TearDown
+   public void tearDown() {
+      for (ByteBuf chunk : chunks) {
+         chunk.release();
+      }
+   }
+
+   private static byte[] generate(int size) {
+      StringBuilder sb = new StringBuilder("{\"items\": [\n");
+      for (int i = 0; sb.length() < size; ++i) {
+         if (i > 0) {
+            sb.append(",\n");
+         }
+         sb.append("  {\"id\": ").append(i)
+               .append(", \"name\": \"Item number ").append(i).append("\"")
+               .append(", \"description\": \"Lorem ipsum dolor sit amet, \\\"consectetur\\\" adipiscing elit\"")
+               .append(", \"price\": ").append(i * 7 % 1000).append('.').append(i % 100)
+               .append(", \"details\": {\"tags\": [\"tag").append(i % 13).append("\", \"other\"], \"stock\": ")
+               .append(i % 17).append(", \"active\": ").append(i % 2 == 0).append("}}");
+      }
+      sb.append("\n], \"total\": 42}");
+      return sb.toString().getBytes(StandardCharsets.UTF_8);
+   }
+
+   @Benchmark
+   public long parse(Throughput throughput) {
+      handler.before(session);
+      for (int i = 0; i < chunks.length; ++i) {
+         ByteBuf chunk = chunks[i];
+         handler.process(session, chunk, chunk.readerIndex(), chunk.readableBytes(), i == chunks.length - 1);
+      }
+      handler.after(session);
+      throughput.bytes += bytes;
+      return matches;
+   }
+
+   @AuxCounters(AuxCounters.Type.OPERATIONS)
+   @State(Scope.Thread)
+   public static class Throughput {
+      // bytes per microsecond equals MB/s
+      public long bytes;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         bytes = 0;
+      }
+   }
+}
@@ -11,6 +11,7 @@ import io.hyperfoil.api.session.PhaseInstance;
 import io.hyperfoil.api.session.SequenceInstance;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.api.session.ThreadData;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.SessionStatistics;
 import io.hyperfoil.api.statistics.Statistics;
 import io.netty.util.concurrent.EventExecutor;
@@ -120,6 +121,16 @@ public class FakeSession implements Session {
       return null;
    }
 
+   @Override
+   public Statistics statistics(MetricHandle handle) {
+      return null;
+   }
+
+   @Override
+   public Statistics statistics(MetricHandle handle, String metric) {
+      return null;
+   }
+
    @Override
    public void pruneStats(Phase phase) {
 
@@ -0,0 +1,162 @@
+package io.hyperfoil.core.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.config.Phase;
+import io.hyperfoil.api.config.PhaseBuilder;
+import io.hyperfoil.api.session.PhaseInstance;
+import io.hyperfoil.api.session.Session;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Runs {@link OpenModelPhase} with a target rate above what the scheduler can sustain and reports the number of users
+ * started per second ({@link Counters#arrivals}) and the number of users throttled due to depleted session pool
+ * ({@link Counters#throttled}). This compares the single chain of scheduling tasks bouncing through the executor group
+ * (default) with independent per-event-loop schedulers (<code>perThreadScheduling</code>), each with and without
+ * batched arrivals.
+ * <p>
+ * Sessions do not execute any steps: a started session is handed over to its executor and released back
+ * to the pool right away, therefore the results measure the scheduling and session pool overhead only.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OpenModelSchedulingBenchmark {
+   private static final long PHASE_DURATION_MS = 100;
+   private static final int MAX_SESSIONS_PER_THREAD = 1024;
+
+   @Param({ "1", "4" })
+   private int eventLoops;
+
+   @Param({ "false", "true" })
+   private boolean perThreadScheduling;
+
+   @Param({ "false", "true" })
+   private boolean batchArrivals;
+
+   @Param({ "10000000" })
+   private int usersPerSec;
+
+   private DefaultEventLoopGroup eventLoopGroup;
+   private EventExecutor[] executors;
+   private Phase phase;
+   private List<Session> sessions;
+   private AffinityAwareSessionPool pool;
+   private final LongAdder started = new LongAdder();
+
+   @Setup
+   public void setup() {
+      eventLoopGroup = new DefaultEventLoopGroup(eventLoops);
+      executors = StreamSupport.stream(eventLoopGroup.spliterator(), false).map(EventExecutor.class::cast)
+            .toArray(EventExecutor[]::new);
+      // @formatter:off
+      BenchmarkBuilder builder = BenchmarkBuilder.builder()
+            .name("openModelScheduling")
+            .threads(eventLoops);
+      PhaseBuilder.ConstantRate phaseBuilder = builder.addPhase("arrivals").constantRate(usersPerSec)
+            .variance(false)
+            .perThreadScheduling(perThreadScheduling)
+            .batchArrivals(batchArrivals)
+            .maxSessions(MAX_SESSIONS_PER_THREAD * eventLoops);
+      phaseBuilder.duration(PHASE_DURATION_MS)
+            .scenario()
+               .initialSequence("noop")
+                  .step(session -> true)
+               .endSequence();
+      // @formatter:on
+      phase = builder.build().phases().iterator().next();
+
+      int capacity = MAX_SESSIONS_PER_THREAD * eventLoops;
+      sessions = new ArrayList<>(capacity);
+      var supplier = new ArrayDeque<Session>(capacity);
+      for (int i = 0; i < capacity; i++) {
+         Session session = new ReleasingSession(executors[i % executors.length], i % executors.length);
+         sessions.add(session);
+         supplier.add(session);
+      }
+      pool = new AffinityAwareSessionPool(executors, supplier::poll);
+      pool.reserve(capacity);
+   }
+
+   @TearDown
+   public void tearDown() throws InterruptedException {
+      eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).await();
+   }
+
+   @Benchmark
+   public void phase(Counters counters) throws InterruptedException {
+      PhaseInstance instance = PhaseInstanceImpl.newInstance(phase, "benchmark", 0);
+      CountDownLatch terminated = new CountDownLatch(1);
+      instance.setComponents(pool, sessions, (def, status, sessionLimitExceeded, error) -> {
+         if (status == PhaseInstance.Status.FINISHED) {
+            // there's no controller that would finish the phase
+            instance.tryTerminate();
+         } else if (status == PhaseInstance.Status.TERMINATED) {
+            terminated.countDown();
+         }
+         return CompletableFuture.completedFuture(null);
+      });
+      instance.runOnFailedSessionAcquisition(counters.throttledAdder::increment);
+      eventLoopGroup.schedule(instance::finish, PHASE_DURATION_MS, TimeUnit.MILLISECONDS);
+      eventLoopGroup.execute(() -> instance.start(eventLoopGroup));
+      terminated.await();
+      counters.arrivals += started.sumThenReset();
+      counters.throttled += counters.throttledAdder.sumThenReset();
+   }
+
+   @State(Scope.Thread)
+   @AuxCounters(AuxCounters.Type.OPERATIONS)
+   public static class Counters {
+      private final LongAdder throttledAdder = new LongAdder();
+      public long arrivals;
+      public long throttled;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         arrivals = 0;
+         throttled = 0;
+      }
+   }
+
+   private class ReleasingSession extends FakeSession {
+      private final EventExecutor executor;
+
+      ReleasingSession(EventExecutor executor, int agentThreadId) {
+         super(executor, agentThreadId);
+         this.executor = executor;
+      }
+
+      @Override
+      public void start(long intendedStartTimeMs, long intendedStartNanoTime, PhaseInstance phase) {
+         started.increment();
+         executor.execute(() -> phase.notifyFinished(this));
+      }
+   }
+}
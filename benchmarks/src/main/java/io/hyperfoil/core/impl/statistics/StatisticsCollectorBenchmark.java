@@ -0,0 +1,99 @@
+package io.hyperfoil.core.impl.statistics;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hyperfoil.api.config.Phase;
+import io.hyperfoil.api.config.Scenario;
+import io.hyperfoil.api.config.Sequence;
+import io.hyperfoil.api.config.StartTimeSource;
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.statistics.SessionStatistics;
+
+/**
+ * Measures the time the per-second {@link StatisticsCollector} pass takes depending on the number of sessions.
+ * Before each pass every session records one response. With <code>perSession=false</code> sessions share
+ * {@link SessionStatistics} per executor (as in {@link io.hyperfoil.core.impl.SimulationRunner}); with
+ * <code>perSession=true</code> each session has its own recorder, which is what the collector would have to merge
+ * without the striping.
+ */
+@State(Scope.Thread)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatisticsCollectorBenchmark {
+   private static final int EXECUTORS = 4;
+   private static final int STEP_ID = 0;
+   private static final String METRIC = "test";
+
+   @Param({ "1000", "10000", "100000" })
+   private int sessions;
+
+   @Param({ "false", "true" })
+   private boolean perSession;
+
+   private Phase phase;
+   private SessionStatistics[] statistics;
+   private StatisticsCollector collector;
+   private StartTimeSource source;
+   private long startTimestamp;
+   private long responseTime;
+
+   @Setup
+   public void setup() {
+      Scenario scenario = new Scenario(new Sequence[0], new Sequence[0], 16, 16);
+      phase = new Phase(io.hyperfoil.api.config.Benchmark::forTesting, 0, 0, "test", scenario, 0,
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), 0, -1, "test", false,
+            () -> "test", Collections.emptyMap(), null);
+      statistics = new SessionStatistics[perSession ? sessions : EXECUTORS];
+      startTimestamp = System.currentTimeMillis();
+      for (int i = 0; i < statistics.length; ++i) {
+         statistics[i] = new SessionStatistics();
+         // ended statistics publish the current sample, too
+         statistics[i].getOrCreate(phase, STEP_ID, METRIC, startTimestamp).end(Long.MAX_VALUE - 1);
+      }
+      collector = new StatisticsCollector(io.hyperfoil.api.config.Benchmark.forTesting());
+      source = new StartTimeSource() {
+         @Override
+         public long getStartTimestampMillis(Session session) {
+            return startTimestamp;
+         }
+
+         @Override
+         public long getStartTimestampNanos(Session session) {
+            return 0;
+         }
+      };
+   }
+
+   @Setup(Level.Invocation)
+   public void record() {
+      for (int i = 0; i < sessions; ++i) {
+         SessionStatistics s = statistics[i % statistics.length];
+         s.getOrCreate(phase, STEP_ID, METRIC, startTimestamp).recordResponse(source, ++responseTime % 1_000_000, null);
+      }
+   }
+
+   @Benchmark
+   public StatisticsCollector collect() {
+      for (SessionStatistics s : statistics) {
+         collector.accept(s);
+      }
+      return collector;
+   }
+}
@@ -0,0 +1,121 @@
+package io.hyperfoil.core.session;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hyperfoil.api.config.Phase;
+import io.hyperfoil.api.config.Scenario;
+import io.hyperfoil.api.config.Sequence;
+import io.hyperfoil.api.config.StartTimeSource;
+import io.hyperfoil.api.config.Step;
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.statistics.MetricHandle;
+import io.hyperfoil.api.statistics.SessionStatistics;
+import io.hyperfoil.core.impl.PhaseInstanceImpl;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+/**
+ * Compares resolving {@link io.hyperfoil.api.statistics.Statistics} by step ID and metric name
+ * (linear scan over steps and hash lookup in {@link SessionStatistics}) with resolving them through
+ * pre-registered {@link MetricHandle metric handles}. Each invocation records one response in each step.
+ */
+@State(Scope.Thread)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricHandleBenchmark {
+   @Param({ "1", "16" })
+   private int steps;
+
+   private String[] metrics;
+   private MetricHandle[] staticHandles;
+   private MetricHandle[] dynamicHandles;
+   private Session session;
+   private StartTimeSource source;
+
+   @Setup
+   public void setup() {
+      metrics = new String[steps];
+      staticHandles = new MetricHandle[steps];
+      dynamicHandles = new MetricHandle[steps];
+      for (int i = 0; i < steps; ++i) {
+         // the name is computed to mimic metric selectors
+         metrics[i] = new StringBuilder("metric-").append(i).toString();
+         staticHandles[i] = new MetricHandle(i, metrics[i]);
+         dynamicHandles[i] = new MetricHandle(i);
+      }
+      Scenario scenario = new Scenario(new Sequence[0], new Sequence[] {
+            new Sequence("benchmark", 0, 1, 0, new Step[0]) {
+               final MetricHandle[] handles = staticHandles;
+               final MetricHandle[] dynamic = dynamicHandles;
+            }
+      }, 16, 16);
+      SessionImpl session = new SessionImpl(scenario, 0, 0);
+      Phase phase = new Phase(io.hyperfoil.api.config.Benchmark::forTesting, 0, 0, "benchmark", scenario, 0,
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), 0, -1, null, false,
+            () -> "benchmark", Collections.emptyMap(), null);
+      PhaseInstanceImpl phaseInstance = new PhaseInstanceImpl(phase, "benchmark", 0) {
+         {
+            absoluteStartTime = System.currentTimeMillis();
+         }
+
+         @Override
+         protected void proceed() {
+         }
+
+         @Override
+         public void reserveSessions() {
+         }
+      };
+      session.resetPhase(phaseInstance);
+      session.attach(ImmediateEventExecutor.INSTANCE, null, null, null, new SessionStatistics());
+      this.session = session;
+      long startTimestamp = phaseInstance.absoluteStartTime();
+      source = new StartTimeSource() {
+         @Override
+         public long getStartTimestampMillis(Session session) {
+            return startTimestamp;
+         }
+
+         @Override
+         public long getStartTimestampNanos(Session session) {
+            return 0;
+         }
+      };
+   }
+
+   @Benchmark
+   public void lookup() {
+      for (int i = 0; i < steps; ++i) {
+         session.statistics(i, metrics[i]).recordResponse(source, 1000, session);
+      }
+   }
+
+   @Benchmark
+   public void staticHandle() {
+      for (int i = 0; i < steps; ++i) {
+         session.statistics(staticHandles[i]).recordResponse(source, 1000, session);
+      }
+   }
+
+   @Benchmark
+   public void dynamicHandle() {
+      for (int i = 0; i < steps; ++i) {
+         session.statistics(dynamicHandles[i], metrics[i]).recordResponse(source, 1000, session);
+      }
+   }
+}
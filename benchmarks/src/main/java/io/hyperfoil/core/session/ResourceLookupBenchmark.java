@@ -0,0 +1,192 @@
+package io.hyperfoil.core.session;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.config.Scenario;
+import io.hyperfoil.api.config.ScenarioBuilder;
+import io.hyperfoil.api.config.Sequence;
+import io.hyperfoil.api.session.ResourceLayout;
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.core.handlers.json.JsonHandler;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.config.HttpPluginBuilder;
+
+/**
+ * Resource lookups done by a scenario with several HTTP requests: each request step looks up the shared
+ * request pool, destination table and cookie store, its own request context and a body handler context.
+ * <p>
+ * <code>slotted</code> uses keys that cache their slot, <code>unslotted</code> keys fall back to the layout map
+ * and <code>hashMap</code> mimics the previous per-session <code>HashMap</code>. The <code>reserve*</code>
+ * benchmarks allocate the resource storage for one session; run with <code>-prof gc</code> to compare
+ * the footprint (<code>gc.alloc.rate.norm</code>, subtract <code>newSession</code> from <code>reserveSlotted</code>).
+ * <p>
+ * The <code>http*</code> benchmarks use keys declared by a real scenario with one sequence of
+ * <code>requests</code> HTTP requests, each parsing the response body as JSON:
+ * <code>httpLookup</code> looks up all resources of a session once and <code>reserveHttpSession</code> creates
+ * and reserves one session; with <code>-prof gc</code> its <code>gc.alloc.rate.norm</code> is the footprint
+ * of one session of that scenario.
+ */
+@State(Scope.Thread)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResourceLookupBenchmark {
+   private static final Session.Resource RESOURCE = new Session.Resource() {
+   };
+
+   @Param({ "4", "16" })
+   private int requests;
+
+   private Session.ResourceKey<Session.Resource>[] slottedKeys;
+   private Session.ResourceKey<Session.Resource>[] unslottedKeys;
+   private Scenario scenario;
+   private Scenario emptyScenario;
+   private SessionImpl slottedSession;
+   private SessionImpl unslottedSession;
+   private Map<Session.ResourceKey<?>, Object> hashMap;
+   private Scenario httpScenario;
+   private Session.ResourceKey<?>[] httpKeys;
+   private SessionImpl httpSession;
+
+   @SuppressWarnings("unchecked")
+   @Setup
+   public void setup() {
+      int keys = 3 + 2 * requests;
+      slottedKeys = new Session.ResourceKey[keys];
+      unslottedKeys = new Session.ResourceKey[keys];
+      for (int i = 0; i < keys; ++i) {
+         slottedKeys[i] = new Session.SlottedResourceKey<>();
+         unslottedKeys[i] = new Session.ResourceKey<>() {
+         };
+      }
+      scenario = new Scenario(new Sequence[0], new Sequence[0], 16, 16);
+      emptyScenario = new Scenario(new Sequence[0], new Sequence[0], 16, 16);
+      slottedSession = reserve(scenario, slottedKeys);
+      unslottedSession = reserve(new Scenario(new Sequence[0], new Sequence[0], 16, 16), unslottedKeys);
+      hashMap = createHashMap();
+
+      httpScenario = httpScenario(requests);
+      httpSession = reserveHttpSession();
+      ResourceLayout layout = httpScenario.resourceLayout();
+      httpKeys = Arrays.stream(layout.keys(), 0, layout.size()).filter(k -> k != null)
+            .toArray(Session.ResourceKey<?>[]::new);
+   }
+
+   private static Scenario httpScenario(int requests) {
+      BenchmarkBuilder builder = BenchmarkBuilder.builder().name("resources")
+            .addPlugin(HttpPluginBuilder::new).http().host("localhost").port(8080).endHttp().endPlugin();
+      ScenarioBuilder scenario = builder.addPhase("test").always(1).duration(1000).scenario();
+      var sequence = scenario.initialSequence("requests");
+      for (int i = 0; i < requests; ++i) {
+         // @formatter:off
+         sequence.step(SC).httpRequest(HttpMethod.GET).path("/items/" + i)
+               .handler()
+                  .body(new JsonHandler.Builder().init(".items[].id -> id" + i))
+               .endHandler()
+            .endStep();
+         // @formatter:on
+      }
+      return builder.build().phases().iterator().next().scenario();
+   }
+
+   private static SessionImpl reserve(Scenario scenario, Session.ResourceKey<Session.Resource>[] keys) {
+      SessionImpl session = new SessionImpl(scenario, 0, 0);
+      for (Session.ResourceKey<Session.Resource> key : keys) {
+         session.declareResource(key, () -> RESOURCE);
+      }
+      return session;
+   }
+
+   private Map<Session.ResourceKey<?>, Object> createHashMap() {
+      Map<Session.ResourceKey<?>, Object> map = new HashMap<>();
+      for (Session.ResourceKey<Session.Resource> key : unslottedKeys) {
+         map.putIfAbsent(key, RESOURCE);
+      }
+      return map;
+   }
+
+   @Benchmark
+   public void slotted(Blackhole blackhole) {
+      lookup(slottedSession, slottedKeys, blackhole);
+   }
+
+   @Benchmark
+   public void unslotted(Blackhole blackhole) {
+      lookup(unslottedSession, unslottedKeys, blackhole);
+   }
+
+   @Benchmark
+   public void hashMap(Blackhole blackhole) {
+      Session.ResourceKey<Session.Resource>[] keys = unslottedKeys;
+      for (int i = 0; i < requests; ++i) {
+         blackhole.consume(hashMap.get(keys[0]));
+         blackhole.consume(hashMap.get(keys[1]));
+         blackhole.consume(hashMap.get(keys[2]));
+         blackhole.consume(hashMap.get(keys[3 + 2 * i]));
+         blackhole.consume(hashMap.get(keys[4 + 2 * i]));
+      }
+   }
+
+   private void lookup(SessionImpl session, Session.ResourceKey<Session.Resource>[] keys, Blackhole blackhole) {
+      for (int i = 0; i < requests; ++i) {
+         // pool, destinations, cookies
+         blackhole.consume(session.getResource(keys[0]));
+         blackhole.consume(session.getResource(keys[1]));
+         blackhole.consume(session.getResource(keys[2]));
+         // request context, handler context
+         blackhole.consume(session.getResource(keys[3 + 2 * i]));
+         blackhole.consume(session.getResource(keys[4 + 2 * i]));
+      }
+   }
+
+   @Benchmark
+   public SessionImpl reserveSlotted() {
+      return reserve(scenario, slottedKeys);
+   }
+
+   @Benchmark
+   public Map<Session.ResourceKey<?>, Object> reserveHashMap() {
+      return createHashMap();
+   }
+
+   @Benchmark
+   public SessionImpl newSession() {
+      return new SessionImpl(emptyScenario, 0, 0);
+   }
+
+   @Benchmark
+   public void httpLookup(Blackhole blackhole) {
+      SessionImpl session = httpSession;
+      for (Session.ResourceKey<?> key : httpKeys) {
+         blackhole.consume(session.getResource(key));
+      }
+   }
+
+   @Benchmark
+   public SessionImpl reserveHttpSession() {
+      SessionImpl session = (SessionImpl) SessionFactory.create(httpScenario, 0, 0);
+      session.reserve(httpScenario);
+      return session;
+   }
+}
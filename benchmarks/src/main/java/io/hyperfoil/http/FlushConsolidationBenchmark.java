@@ -0,0 +1,166 @@
+package io.hyperfoil.http;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.core.impl.LocalSimulationRunner;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.config.HttpPluginBuilder;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Runs a closed-model benchmark against a local Netty HTTP server with and without
+ * <code>flushConsolidation</code>. All sessions share one event loop and 4 connections with pipelining,
+ * so that many requests are written in the same event loop iteration.
+ * <p>
+ * Besides the number of requests per second ({@link Counters#requests}) the server counts the reads from the sockets
+ * ({@link Counters#reads}). Each client flush results in a write syscall; the server may read several of them at once,
+ * so the number of reads per second is the lower bound for the client's write syscalls. For the exact number
+ * of syscalls run the benchmark under <code>strace -f -c -e trace=write,writev,sendto</code> or <code>perf trace</code>.
+ * Client and server share the machine, so prefer comparing the results with each other to the absolute numbers.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 2)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FlushConsolidationBenchmark {
+   private static final int CONNECTIONS = 4;
+   private static final int PIPELINING_LIMIT = 16;
+   private static final long PHASE_DURATION_MS = 1000;
+
+   @Param({ "false", "true" })
+   private boolean flushConsolidation;
+
+   @Param({ "256" })
+   private int sessions;
+
+   private final LongAdder requests = new LongAdder();
+   private final LongAdder reads = new LongAdder();
+   private EventLoopGroup serverGroup;
+   private Channel serverChannel;
+   private io.hyperfoil.api.config.Benchmark benchmark;
+
+   @Setup
+   public void setup() throws InterruptedException {
+      FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+            Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(new byte[] { 'o', 'k' })));
+      response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 2);
+      serverGroup = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+      serverChannel = new ServerBootstrap().group(serverGroup).channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+               @Override
+               protected void initChannel(SocketChannel ch) {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                     @Override
+                     public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        reads.increment();
+                        ctx.fireChannelRead(msg);
+                     }
+                  });
+                  ch.pipeline().addLast(new HttpServerCodec());
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                     @Override
+                     public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        if (msg instanceof LastHttpContent) {
+                           requests.increment();
+                           ctx.write(response.retainedDuplicate());
+                        }
+                        ReferenceCountUtil.release(msg);
+                     }
+
+                     @Override
+                     public void channelReadComplete(ChannelHandlerContext ctx) {
+                        ctx.flush();
+                     }
+                  });
+               }
+            }).bind("localhost", 0).sync().channel();
+      int port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+
+      // @formatter:off
+      BenchmarkBuilder builder = BenchmarkBuilder.builder()
+            .name("flushConsolidation")
+            .addPlugin(HttpPluginBuilder::new).http()
+               .host("localhost").port(port)
+               .sharedConnections(CONNECTIONS)
+               .pipeliningLimit(PIPELINING_LIMIT)
+               .flushConsolidation(flushConsolidation)
+            .endHttp().endPlugin()
+            .threads(1);
+      builder.addPhase("test").always(sessions)
+            .duration(PHASE_DURATION_MS)
+            .scenario()
+               .initialSequence("request")
+                  .step(SC).httpRequest(HttpMethod.GET)
+                     .path("/")
+                  .endStep()
+               .endSequence();
+      // @formatter:on
+      benchmark = builder.build();
+   }
+
+   @TearDown
+   public void tearDown() throws InterruptedException {
+      serverChannel.close().sync();
+      serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+   }
+
+   @Benchmark
+   public void run(Counters counters) {
+      new LocalSimulationRunner(benchmark).run();
+      counters.requests += requests.sumThenReset();
+      counters.reads += reads.sumThenReset();
+   }
+
+   @State(Scope.Thread)
+   @AuxCounters(AuxCounters.Type.OPERATIONS)
+   public static class Counters {
+      public long requests;
+      public long reads;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         requests = 0;
+         reads = 0;
+      }
+   }
+}
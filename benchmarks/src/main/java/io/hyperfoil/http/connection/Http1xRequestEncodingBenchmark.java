@@ -0,0 +1,199 @@
+package io.hyperfoil.http.connection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import javax.net.ssl.SSLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.core.impl.ConnectionStatsConsumer;
+import io.hyperfoil.http.api.ConnectionConsumer;
+import io.hyperfoil.http.api.HttpClientPool;
+import io.hyperfoil.http.api.HttpConnection;
+import io.hyperfoil.http.api.HttpConnectionPool;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.api.HttpRequest;
+import io.hyperfoil.http.api.HttpRequestTemplate;
+import io.hyperfoil.http.api.HttpRequestWriter;
+import io.hyperfoil.http.config.HttpBuilder;
+import io.hyperfoil.impl.Util;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+/**
+ * Encodes a GET request with a few headers through {@link Http1xConnection} into an embedded channel.
+ * With <code>template=true</code> the method, path (or its constant prefix) and headers are copied from
+ * a pre-encoded {@link HttpRequestTemplate}; otherwise these are encoded from strings for each request.
+ * With <code>dynamicPath=true</code> the path contains a variable, written by the template straight into the buffer
+ * the same way as {@link io.hyperfoil.core.generators.Pattern#acceptSuffix(Session, ByteBuf)} does.
+ * Run with <code>-prof gc</code> to compare allocations per request.
+ * <p>
+ * Dynamic headers and a generated body are still encoded (and possibly formatted) for each request.
+ */
+@State(Scope.Thread)
+@Fork(value = 2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Http1xRequestEncodingBenchmark {
+   private static final String PATH = "/api/v1/products/list?category=books&sort=price";
+   private static final String PATH_PREFIX = "/api/v1/products/";
+   private static final int PRODUCT_ID = 12345;
+   private static final byte[] QUERY_BYTES = "?category=books&sort=price".getBytes(StandardCharsets.US_ASCII);
+   private static final List<CharSequence> HEADER_NAMES = Arrays.asList("accept", "accept-language", "x-client", "x-trace");
+   private static final List<CharSequence> HEADER_VALUES = Arrays.asList("application/json", "en-US,en;q=0.5",
+         "hyperfoil-benchmark", "0123456789abcdef");
+
+   @Param({ "false", "true" })
+   private boolean template;
+
+   @Param({ "false", "true" })
+   private boolean dynamicPath;
+
+   private HttpClientPoolImpl client;
+   private EmbeddedChannel channel;
+   private Http1xConnection connection;
+   private HttpRequest request;
+   private BiConsumer<Session, HttpRequestWriter>[] headerAppenders;
+   private HttpRequestTemplate requestTemplate;
+
+   @SuppressWarnings("unchecked")
+   @Setup
+   public void setup() throws SSLException {
+      client = HttpClientPoolImpl.forTesting(HttpBuilder.forTesting().host("localhost").port(8080).build(true), 1);
+      connection = new Http1xConnection(client, (c, t) -> {
+      });
+      channel = new EmbeddedChannel(connection);
+      connection.attach(new NoopConnectionPool(client));
+      request = new HttpRequest(null, false);
+      request.method = HttpMethod.GET;
+      // The path string is generated in the prepare step in both cases
+      request.path = dynamicPath ? PATH_PREFIX + PRODUCT_ID + new String(QUERY_BYTES, StandardCharsets.US_ASCII) : PATH;
+      if (template) {
+         requestTemplate = dynamicPath
+               ? new HttpRequestTemplate(HttpMethod.GET, PATH_PREFIX, Http1xRequestEncodingBenchmark::writeProductQuery,
+                     HEADER_NAMES, HEADER_VALUES)
+               : new HttpRequestTemplate(HttpMethod.GET, PATH, null, HEADER_NAMES, HEADER_VALUES);
+      } else {
+         headerAppenders = new BiConsumer[HEADER_NAMES.size()];
+         for (int i = 0; i < headerAppenders.length; ++i) {
+            CharSequence name = HEADER_NAMES.get(i);
+            CharSequence value = HEADER_VALUES.get(i);
+            headerAppenders[i] = (session, writer) -> writer.putHeader(name, value);
+         }
+      }
+   }
+
+   private static void writeProductQuery(Session session, ByteBuf buf) {
+      Util.intAsText2byteBuf(PRODUCT_ID, buf);
+      buf.writeBytes(QUERY_BYTES);
+   }
+
+   @TearDown
+   public void tearDown() {
+      channel.finishAndReleaseAll();
+      client.shutdown();
+   }
+
+   @Benchmark
+   public int encode() {
+      request.template = requestTemplate;
+      connection.onAcquire();
+      connection.request(request, headerAppenders, true, null);
+      connection.removeRequest(0, request);
+      ByteBuf buf = channel.readOutbound();
+      int length = buf.readableBytes();
+      buf.release();
+      return length;
+   }
+
+   private static class NoopConnectionPool implements HttpConnectionPool {
+      private final HttpClientPool clientPool;
+
+      private NoopConnectionPool(HttpClientPool clientPool) {
+         this.clientPool = clientPool;
+      }
+
+      @Override
+      public HttpClientPool clientPool() {
+         return clientPool;
+      }
+
+      @Override
+      public void acquire(boolean exclusiveConnection, ConnectionConsumer consumer) {
+      }
+
+      @Override
+      public void afterRequestSent(HttpConnection connection) {
+      }
+
+      @Override
+      public int waitingSessions() {
+         return 0;
+      }
+
+      @Override
+      public EventLoop executor() {
+         return null;
+      }
+
+      @Override
+      public void pulse() {
+      }
+
+      @Override
+      public Collection<? extends HttpConnection> connections() {
+         return Collections.emptyList();
+      }
+
+      @Override
+      public void release(HttpConnection connection, boolean becameAvailable, boolean afterRequest) {
+      }
+
+      @Override
+      public void onSessionReset() {
+      }
+
+      @Override
+      public void incrementInFlight() {
+      }
+
+      @Override
+      public void decrementInFlight() {
+      }
+
+      @Override
+      public void visitConnectionStats(ConnectionStatsConsumer consumer) {
+      }
+
+      @Override
+      public void start(Handler<AsyncResult<Void>> handler) {
+      }
+
+      @Override
+      public void shutdown() {
+      }
+   }
+}
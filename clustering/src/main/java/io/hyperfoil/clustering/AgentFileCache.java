@@ -0,0 +1,256 @@
+package io.hyperfoil.clustering;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.ContentAddressedFiles;
+import io.hyperfoil.api.config.MappedFiles;
+import io.hyperfoil.clustering.messages.FileChunkRequest;
+import io.hyperfoil.clustering.util.FileDigests;
+import io.hyperfoil.internal.Controller;
+import io.hyperfoil.internal.Properties;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Benchmark files stored on the agent under their SHA-256 digest. Files missing in the cache are fetched from
+ * the controller in chunks; all files are then memory-mapped, so even large data sets are neither re-sent nor
+ * held on heap in subsequent runs. A file is mapped and its digest verified once, when the benchmark
+ * is initialized on the agent; the mapping stays valid even if the file is later replaced or evicted.
+ * <p>
+ * Several agents can share the cache directory: each writes into its own temporary file and moves it into place
+ * atomically. The digest is verified on the file that is about to be mapped. When the cache grows over
+ * {@link Properties#AGENT_FILE_CACHE_MAX_SIZE} the least recently used files are removed.
+ * <p>
+ * Fetching a large data set can take long; progress is reported at most once per {@link #PROGRESS_PERIOD} ms
+ * so that the controller can tell a slow transfer from a stuck one.
+ */
+class AgentFileCache {
+   private static final Logger log = LogManager.getLogger(AgentFileCache.class);
+   static final Path DIR = Properties.get(Properties.AGENT_FILE_CACHE_DIR, Paths::get,
+         Controller.ROOT_DIR.resolve("agent-files"));
+   static final long MAX_SIZE = Properties.getLong(Properties.AGENT_FILE_CACHE_MAX_SIZE, 16L << 30);
+   static final int CHUNK_SIZE = 4 * 1024 * 1024;
+   static final long PROGRESS_PERIOD = 1000;
+   private static final String PART_SUFFIX = ".part";
+
+   private final Vertx vertx;
+   private final String runId;
+   private final Path dir;
+   private final long maxSize;
+   private ProgressListener progressListener = (filesReady, filesTotal, bytesFetched) -> {
+   };
+   private int filesReady;
+   private int filesTotal;
+   private long bytesFetched;
+   private long lastProgress;
+
+   AgentFileCache(Vertx vertx, String runId) {
+      this(vertx, runId, DIR, MAX_SIZE);
+   }
+
+   AgentFileCache(Vertx vertx, String runId, Path dir, long maxSize) {
+      this.vertx = vertx;
+      this.runId = runId;
+      this.dir = dir;
+      this.maxSize = maxSize;
+   }
+
+   /**
+    * Makes content of all files available to the benchmark; each file is mapped and verified once, here,
+    * and the benchmark keeps using that mapping. Benchmarks that were not received through the wire
+    * (agents running in the same JVM as the controller) keep their files; these are only mapped, using
+    * the same mapping the controller computed the digests from.
+    */
+   Future<Void> attach(Benchmark benchmark) {
+      if (benchmark.files() instanceof MappedFiles) {
+         MappedFiles files = (MappedFiles) benchmark.files();
+         return vertx.executeBlocking(() -> {
+            files.map();
+            return null;
+         }, false);
+      } else if (!(benchmark.files() instanceof ContentAddressedFiles)) {
+         return Future.succeededFuture();
+      }
+      ContentAddressedFiles files = (ContentAddressedFiles) benchmark.files();
+      Map<String, Future<ByteBuffer[]>> byDigest = new HashMap<>();
+      Map<String, ByteBuffer[]> buffers = new HashMap<>();
+      Future<Void> future = Future.succeededFuture();
+      filesTotal = files.digests().size();
+      for (var entry : files.digests().entrySet()) {
+         future = future.compose(nil -> byDigest.computeIfAbsent(entry.getValue(), this::resolve))
+               .map(buffer -> {
+                  buffers.put(entry.getKey(), buffer);
+                  ++filesReady;
+                  reportProgress(false);
+                  return null;
+               });
+      }
+      return future.<Void> map(nil -> {
+         files.attach(buffers);
+         reportProgress(true);
+         return null;
+      }).onSuccess(nil -> vertx.executeBlocking(() -> {
+         evict(files.digests().values());
+         return null;
+      }, false).onFailure(t -> log.warn("Failed to evict files from cache {}", dir, t)));
+   }
+
+   private Future<ByteBuffer[]> resolve(String digest) {
+      Path path = dir.resolve(digest);
+      return vertx.executeBlocking(() -> {
+         if (Files.exists(path)) {
+            ByteBuffer[] segments = map(path, digest);
+            if (segments != null) {
+               log.debug("File {} found in cache", digest);
+               Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+               return segments;
+            }
+            log.warn("Cached file {} does not match its digest, fetching it again.", path);
+            Files.deleteIfExists(path);
+         }
+         return null;
+      }).compose(buffer -> buffer != null ? Future.succeededFuture(buffer) : fetch(digest, path));
+   }
+
+   private Future<ByteBuffer[]> fetch(String digest, Path path) {
+      log.info("Fetching file {} from controller", digest);
+      // Other agents using the same directory could be fetching the same file
+      Path tmp = dir.resolve(digest + "." + UUID.randomUUID() + PART_SUFFIX);
+      return vertx.executeBlocking(() -> {
+         Files.createDirectories(dir);
+         return FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+      }).compose(channel -> fetchChunk(digest, channel, 0)
+            .eventually(() -> vertx.executeBlocking(() -> {
+               channel.close();
+               return null;
+            })))
+            .compose(nil -> vertx.executeBlocking(() -> {
+               Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+               ByteBuffer[] segments = map(path, digest);
+               if (segments == null) {
+                  Files.deleteIfExists(path);
+                  throw new IllegalStateException("Received file does not match digest " + digest);
+               }
+               return segments;
+            }))
+            .recover(t -> vertx.executeBlocking(() -> Files.deleteIfExists(tmp), false)
+                  .transform(ignored -> Future.failedFuture(t)));
+   }
+
+   private Future<Void> fetchChunk(String digest, FileChannel channel, long offset) {
+      return vertx.eventBus().request(Feeds.FILES, new FileChunkRequest(runId, digest, offset, CHUNK_SIZE))
+            .compose(reply -> {
+               Buffer buffer = (Buffer) reply.body();
+               return vertx.executeBlocking(() -> {
+                  ByteBuffer byteBuffer = ByteBuffer.wrap(buffer.getBytes());
+                  while (byteBuffer.hasRemaining()) {
+                     channel.write(byteBuffer);
+                  }
+                  return buffer.length();
+               });
+            }).compose(length -> {
+               bytesFetched += length;
+               reportProgress(false);
+               return length < CHUNK_SIZE ? Future.succeededFuture() : fetchChunk(digest, channel, offset + length);
+            });
+   }
+
+   AgentFileCache onProgress(ProgressListener listener) {
+      this.progressListener = listener;
+      return this;
+   }
+
+   private void reportProgress(boolean force) {
+      long now = System.currentTimeMillis();
+      if (force || now - lastProgress >= PROGRESS_PERIOD) {
+         lastProgress = now;
+         progressListener.onProgress(filesReady, filesTotal, bytesFetched);
+      }
+   }
+
+   /**
+    * Maps the file and computes digest of the mapped content.
+    *
+    * @return Segments as described in {@link Benchmark#fileSegments(String)} or <code>null</code> if the content
+    *         does not match the digest.
+    */
+   static ByteBuffer[] map(Path path, String digest) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long size = channel.size();
+         // single mapping cannot exceed 2 GB
+         int count = Math.max(1, (int) ((size + Benchmark.FILE_SEGMENT_SIZE - 1) / Benchmark.FILE_SEGMENT_SIZE));
+         ByteBuffer[] segments = new ByteBuffer[count];
+         MessageDigest md = FileDigests.newDigest();
+         for (int i = 0; i < count; ++i) {
+            long offset = (long) i * Benchmark.FILE_SEGMENT_SIZE;
+            // the mapping stays valid after the channel is closed
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                  Math.min(Benchmark.FILE_SEGMENT_SIZE, size - offset));
+            md.update(segments[i].duplicate());
+         }
+         return digest.equals(FileDigests.toString(md)) ? segments : null;
+      }
+   }
+
+   /**
+    * Removes least recently used files until the cache fits into the limit. Files used by the current
+    * benchmark are kept; existing mappings stay valid even when their file is deleted.
+    */
+   void evict(Collection<String> inUse) throws IOException {
+      if (!Files.isDirectory(dir)) {
+         return;
+      }
+      Set<Path> keep = inUse.stream().map(dir::resolve).collect(Collectors.toCollection(HashSet::new));
+      List<Path> files;
+      try (Stream<Path> list = Files.list(dir)) {
+         files = list.filter(p -> !p.getFileName().toString().endsWith(PART_SUFFIX)).collect(Collectors.toList());
+      }
+      long size = 0;
+      Map<Path, FileTime> lastUsed = new HashMap<>();
+      for (Path file : files) {
+         size += Files.size(file);
+         lastUsed.put(file, Files.getLastModifiedTime(file));
+      }
+      files.sort(Comparator.comparing(lastUsed::get));
+      for (Path file : files) {
+         if (size <= maxSize) {
+            break;
+         } else if (keep.contains(file)) {
+            continue;
+         }
+         long fileSize = Files.size(file);
+         if (Files.deleteIfExists(file)) {
+            log.info("Evicted file {} ({} bytes) from cache", file.getFileName(), fileSize);
+            size -= fileSize;
+         }
+      }
+   }
+
+   interface ProgressListener {
+      void onProgress(int filesReady, int filesTotal, long bytesFetched);
+   }
+}
@@ -14,6 +14,7 @@ class AgentInfo {
    Status status = Status.STARTING;
    Map<String, PhaseInstance.Status> phases = new HashMap<>();
    DeployedAgent deployedAgent;
+   long initializeTimerId = -1;
 
    AgentInfo(String name, int id) {
       this.name = name;
@@ -28,6 +29,7 @@ class AgentInfo {
    public enum Status {
       STARTING,
       REGISTERED,
+      INITIALIZING,
       READY,
       STOPPING,
       STOPPED,
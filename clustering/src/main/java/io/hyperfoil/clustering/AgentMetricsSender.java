@@ -0,0 +1,51 @@
+package io.hyperfoil.clustering;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.hyperfoil.clustering.messages.AgentMetricsMessage;
+import io.hyperfoil.core.impl.ArrivalStatsConsumer;
+import io.hyperfoil.core.util.watchdog.EventLoopProbe;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.vertx.core.eventbus.EventBus;
+
+public class AgentMetricsSender implements ArrivalStatsConsumer {
+   private final EventBus eventBus;
+   private final String address;
+   private final String runId;
+   private final EventLoopProbe probe;
+   private Map<String, AgentMetricsMessage.Arrivals> arrivals;
+
+   public AgentMetricsSender(EventBus eb, String address, String runId, EventLoopProbe probe) {
+      this.eventBus = eb;
+      this.address = address;
+      this.runId = runId;
+      this.probe = probe;
+   }
+
+   public void send() {
+      // the eventBus may process this asynchronously so we can't reuse the array
+      long[] latencies = new long[probe.size()];
+      probe.probe(latencies);
+      long usedHeapMemory = -1, usedDirectMemory = -1;
+      if (ByteBufAllocator.DEFAULT instanceof ByteBufAllocatorMetricProvider) {
+         ByteBufAllocatorMetric metric = ((ByteBufAllocatorMetricProvider) ByteBufAllocator.DEFAULT).metric();
+         usedHeapMemory = metric.usedHeapMemory();
+         usedDirectMemory = metric.usedDirectMemory();
+      }
+      eventBus.send(Feeds.STATS, new AgentMetricsMessage(address, runId, System.currentTimeMillis(), latencies,
+            usedHeapMemory, usedDirectMemory, arrivals == null ? Collections.emptyMap() : arrivals));
+      arrivals = null;
+   }
+
+   @Override
+   public void accept(String phase, long arrivals, long wakeUps, long maxArrivalsPerWakeUp) {
+      if (this.arrivals == null) {
+         this.arrivals = new HashMap<>();
+      }
+      this.arrivals.put(phase, new AgentMetricsMessage.Arrivals(arrivals, wakeUps, maxArrivalsPerWakeUp));
+   }
+}
@@ -9,12 +9,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import io.hyperfoil.Hyperfoil;
+import io.hyperfoil.api.BenchmarkExecutionException;
 import io.hyperfoil.api.config.Benchmark;
 import io.hyperfoil.api.session.PhaseInstance;
 import io.hyperfoil.clustering.messages.AgentControlMessage;
 import io.hyperfoil.clustering.messages.AgentHello;
 import io.hyperfoil.clustering.messages.AgentReadyMessage;
 import io.hyperfoil.clustering.messages.ErrorMessage;
+import io.hyperfoil.clustering.messages.FileProgressMessage;
 import io.hyperfoil.clustering.messages.PhaseChangeMessage;
 import io.hyperfoil.clustering.messages.PhaseControlMessage;
 import io.hyperfoil.core.impl.SimulationRunner;
@@ -46,6 +48,7 @@ public class AgentVerticle extends AbstractVerticle {
    private CountDown statisticsCountDown;
    private SessionStatsSender sessionStatsSender;
    private ConnectionStatsSender connectionStatsSender;
+   private AgentMetricsSender agentMetricsSender;
 
    @Override
    public void start() {
@@ -129,14 +132,25 @@ public class AgentVerticle extends AbstractVerticle {
       switch (controlMessage.command()) {
          case INITIALIZE:
             log.info("Initializing agent, runner is null: {}", runner == null);
-            try {
-               initBenchmark(controlMessage.benchmark(), controlMessage.agentId());
-               log.info("Initialization completed for {}", deploymentId);
-               message.reply("OK");
-            } catch (Throwable e) {
-               log.error("Failed to initialize agent", e);
-               message.fail(1, Util.explainCauses(e));
-            }
+            Benchmark benchmark = controlMessage.benchmark();
+            // Fetching files can take long; the controller learns about progress and readiness through the response feed
+            message.reply("OK");
+            new AgentFileCache(vertx, runId)
+                  .onProgress((filesReady, filesTotal, bytesFetched) -> eb.send(Feeds.RESPONSE,
+                        new FileProgressMessage(deploymentId, runId, filesReady, filesTotal, bytesFetched)))
+                  .attach(benchmark).onComplete(result -> {
+                     try {
+                        if (result.failed()) {
+                           throw result.cause();
+                        }
+                        initBenchmark(benchmark, controlMessage.agentId());
+                        log.info("Initialization completed for {}", deploymentId);
+                     } catch (Throwable e) {
+                        log.error("Failed to initialize agent", e);
+                        eb.send(Feeds.RESPONSE, new ErrorMessage(deploymentId, runId,
+                              new BenchmarkExecutionException(Util.explainCauses(e)), true));
+                     }
+                  });
             break;
          case STOP:
             // collect stats one last time before acknowledging termination
@@ -258,6 +272,7 @@ public class AgentVerticle extends AbstractVerticle {
       statisticsCountDown = new CountDown(1);
       sessionStatsSender = new SessionStatsSender(eb, deploymentId, runId);
       connectionStatsSender = new ConnectionStatsSender(eb, deploymentId, runId);
+      agentMetricsSender = new AgentMetricsSender(eb, deploymentId, runId, runner.createEventLoopProbe());
 
       runner.setControllerListener((phase, status, sessionLimitExceeded, error, globalData) -> {
          log.debug("{} changed phase {} to {}", deploymentId, phase, status);
@@ -300,6 +315,8 @@ public class AgentVerticle extends AbstractVerticle {
          sessionStatsSender.send();
          runner.visitConnectionStats(connectionStatsSender);
          connectionStatsSender.send();
+         runner.visitArrivalStats(agentMetricsSender);
+         agentMetricsSender.send();
          if (log.isDebugEnabled()) {
             log.debug("Finished collecting statistics");
          }
@@ -4,11 +4,14 @@ import java.util.ArrayList;
 
 import io.hyperfoil.clustering.messages.AgentControlMessage;
 import io.hyperfoil.clustering.messages.AgentHello;
+import io.hyperfoil.clustering.messages.AgentMetricsMessage;
 import io.hyperfoil.clustering.messages.AgentReadyMessage;
 import io.hyperfoil.clustering.messages.AuxiliaryHello;
 import io.hyperfoil.clustering.messages.ConnectionStatsMessage;
 import io.hyperfoil.clustering.messages.DelayStatsCompletionMessage;
 import io.hyperfoil.clustering.messages.ErrorMessage;
+import io.hyperfoil.clustering.messages.FileChunkRequest;
+import io.hyperfoil.clustering.messages.FileProgressMessage;
 import io.hyperfoil.clustering.messages.ObjectCodec;
 import io.hyperfoil.clustering.messages.PhaseChangeMessage;
 import io.hyperfoil.clustering.messages.PhaseControlMessage;
@@ -27,12 +30,15 @@ public final class Codecs {
 
       eb.registerDefaultCodec(AgentHello.class, new AgentHello.Codec());
       eb.registerDefaultCodec(AgentControlMessage.class, new AgentControlMessage.Codec());
+      eb.registerDefaultCodec(AgentMetricsMessage.class, new AgentMetricsMessage.Codec());
       eb.registerDefaultCodec(AgentReadyMessage.class, new AgentReadyMessage.Codec());
       eb.registerDefaultCodec(ArrayList.class, new ObjectCodec.ArrayList());
       eb.registerDefaultCodec(AuxiliaryHello.class, new AuxiliaryHello.Codec());
       eb.registerDefaultCodec(ConnectionStatsMessage.class, new ConnectionStatsMessage.Codec());
       eb.registerDefaultCodec(DelayStatsCompletionMessage.class, new DelayStatsCompletionMessage.Codec());
       eb.registerDefaultCodec(ErrorMessage.class, new ErrorMessage.Codec());
+      eb.registerDefaultCodec(FileChunkRequest.class, new FileChunkRequest.Codec());
+      eb.registerDefaultCodec(FileProgressMessage.class, new FileProgressMessage.Codec());
       eb.registerDefaultCodec(PhaseChangeMessage.class, new PhaseChangeMessage.Codec());
       eb.registerDefaultCodec(PhaseControlMessage.class, new PhaseControlMessage.Codec());
       eb.registerDefaultCodec(PhaseStatsCompleteMessage.class, new PhaseStatsCompleteMessage.Codec());
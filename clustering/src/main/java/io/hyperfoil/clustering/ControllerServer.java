@@ -13,6 +13,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -20,6 +21,7 @@ import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -46,12 +48,14 @@ import io.hyperfoil.api.config.BenchmarkData;
 import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.api.config.BenchmarkSource;
 import io.hyperfoil.api.config.Model;
+import io.hyperfoil.api.config.SegmentedFiles;
 import io.hyperfoil.api.statistics.StatisticsSummary;
 import io.hyperfoil.clustering.util.PersistedBenchmarkData;
 import io.hyperfoil.clustering.webcli.WebCLI;
 import io.hyperfoil.controller.ApiService;
 import io.hyperfoil.controller.Client;
-import io.hyperfoil.controller.StatisticsStore;
+import io.hyperfoil.controller.OpenMetricsWriter;
+import io.hyperfoil.controller.RunStatistics;
 import io.hyperfoil.controller.model.Histogram;
 import io.hyperfoil.controller.model.RequestStats;
 import io.hyperfoil.controller.router.ApiRouter;
@@ -120,6 +124,7 @@ class ControllerServer implements ApiService {
    }
 
    final ControllerVerticle controller;
+   private final MetricsExporter metricsExporter = new MetricsExporter();
    HttpServer httpServer;
    String baseURL;
 
@@ -669,12 +674,16 @@ class ControllerServer implements ApiService {
       response.putHeader(HttpHeaders.CONTENT_TYPE, "multipart/form-data; boundary=\"" + boundary + "\"");
       response.setChunked(true);
       response.write("--" + boundary);
-      for (var file : files.entrySet()) {
+      for (String file : files.keySet()) {
+         // Files read from disk are memory-mapped rather than copied to heap
+         ByteBuffer[] segments = SegmentedFiles.segments(files, file);
          response.write("\n");
          response.write(HttpHeaders.CONTENT_TYPE + ": application/octet-stream\n");
-         response.write(HttpHeaders.CONTENT_LENGTH + ": " + file.getValue().length + "\n");
-         response.write(HttpHeaders.CONTENT_DISPOSITION + ": form-data; name=\"file\"; filename=\"" + file.getKey() + "\"\n\n");
-         response.write(BufferInternal.buffer(Unpooled.wrappedBuffer(file.getValue())));
+         response.write(HttpHeaders.CONTENT_LENGTH + ": " + SegmentedFiles.length(segments) + "\n");
+         response.write(HttpHeaders.CONTENT_DISPOSITION + ": form-data; name=\"file\"; filename=\"" + file + "\"\n\n");
+         for (ByteBuffer segment : segments) {
+            response.write(BufferInternal.buffer(Unpooled.wrappedBuffer(segment)));
+         }
          response.write("\n--" + boundary);
       }
       response.write("--");
@@ -690,15 +699,42 @@ class ControllerServer implements ApiService {
    }
 
    @Override
-   public void listRuns(RoutingContext ctx, boolean details) {
-      io.hyperfoil.controller.model.Run[] runs = controller.runs().stream()
+   public void listRuns(RoutingContext ctx, boolean details, int offset, int limit, String benchmark, String status) {
+      List<Run> matching = matchingRuns(controller.runs(), benchmark, status);
+      io.hyperfoil.controller.model.Run[] runs = matching.stream()
+            .skip(Math.max(offset, 0))
+            .limit(limit < 0 ? Long.MAX_VALUE : limit)
             .map(r -> details ? runInfo(r, false)
                   : new io.hyperfoil.controller.model.Run(r.id, null, null, null, r.cancelled,
-                        r.completed, r.persisted, null, null, null, null))
+                        r.completed, r.persisted, null, null, null, null, null))
             .toArray(io.hyperfoil.controller.model.Run[]::new);
+      ctx.response().putHeader("x-total-count", String.valueOf(matching.size()));
       respondWithJson(ctx, true, runs);
    }
 
+   /**
+    * @return Runs of given benchmark and status (<code>null</code> matches any), the most recent run first.
+    */
+   static List<Run> matchingRuns(Collection<Run> runs, String benchmark, String status) {
+      return runs.stream()
+            .filter(r -> benchmark == null || (r.benchmark != null && benchmark.equals(r.benchmark.name())))
+            .filter(r -> status == null || status.equalsIgnoreCase(runStatus(r)))
+            .sorted(Comparator.comparingInt((Run r) -> Integer.parseInt(r.id, 16)).reversed())
+            .collect(Collectors.toList());
+   }
+
+   private static String runStatus(Run run) {
+      if (!run.terminateTime.future().isComplete()) {
+         return "RUNNING";
+      } else if (run.cancelled) {
+         return "CANCELLED";
+      } else if (!run.errors.isEmpty()) {
+         return "FAILED";
+      } else {
+         return "COMPLETED";
+      }
+   }
+
    @Override
    public void getRun(RoutingContext ctx, String runId) {
       withRun(ctx, runId, run -> respondWithJson(ctx, true, runInfo(run, true)));
@@ -706,7 +742,7 @@ class ControllerServer implements ApiService {
 
    @Override
    public void agentCpu(RoutingContext ctx, String runId) {
-      withStats(ctx, runId, run -> respondWithJson(ctx, false, run.statisticsStore().cpuUsage()));
+      withStats(ctx, runId, run -> respondWithJson(ctx, false, run.statistics().cpuUsage()));
    }
 
    private io.hyperfoil.controller.model.Run runInfo(Run run, boolean reportPhases) {
@@ -764,7 +800,7 @@ class ControllerServer implements ApiService {
             .collect(Collectors.toList());
       return new io.hyperfoil.controller.model.Run(run.id, benchmark, started, terminated, run.cancelled, run.completed,
             run.persisted, run.description, phases, agents,
-            run.errors.stream().map(Run.Error::toString).collect(Collectors.toList()));
+            run.errors.stream().map(Run.Error::toString).collect(Collectors.toList()), run.summary);
    }
 
    private void withRun(RoutingContext ctx, String runId, Consumer<Run> consumer) {
@@ -891,13 +927,13 @@ class ControllerServer implements ApiService {
 
    @Override
    public void getTotalSessions(RoutingContext ctx, String runId) {
-      getSessionStats(ctx, runId, StatisticsStore::totalSessionPoolSummary);
+      getSessionStats(ctx, runId, RunStatistics::totalSessionPoolSummary);
    }
 
    private void getSessionStats(RoutingContext ctx, String runId,
-         Function<StatisticsStore, Map<String, Map<String, LowHigh>>> func) {
+         Function<RunStatistics, Map<String, Map<String, LowHigh>>> func) {
       withStats(ctx, runId, run -> {
-         Map<String, Map<String, LowHigh>> stats = func.apply(run.statisticsStore());
+         Map<String, Map<String, LowHigh>> stats = func.apply(run.statistics());
          JsonObject reply = new JsonObject();
          for (Map.Entry<String, Map<String, LowHigh>> entry : stats.entrySet()) {
             String phase = entry.getKey();
@@ -929,18 +965,18 @@ class ControllerServer implements ApiService {
 
    @Override
    public void getRecentConnections(RoutingContext ctx, String runId) {
-      connectionStats(ctx, runId, StatisticsStore::recentConnectionsSummary);
+      connectionStats(ctx, runId, RunStatistics::recentConnectionsSummary);
    }
 
    @Override
    public void getTotalConnections(RoutingContext ctx, String runId) {
-      connectionStats(ctx, runId, StatisticsStore::totalConnectionsSummary);
+      connectionStats(ctx, runId, RunStatistics::totalConnectionsSummary);
    }
 
    private void connectionStats(RoutingContext ctx, String runId,
-         Function<StatisticsStore, Map<String, Map<String, LowHigh>>> mapper) {
+         Function<RunStatistics, Map<String, Map<String, LowHigh>>> mapper) {
       withStats(ctx, runId, run -> {
-         Map<String, Map<String, LowHigh>> stats = mapper.apply(run.statisticsStore());
+         Map<String, Map<String, LowHigh>> stats = mapper.apply(run.statistics());
          JsonObject result = stats.entrySet().stream().collect(JsonObject::new,
                (json, e) -> json.put(e.getKey(), lowHighMapToJson(e.getValue())), JsonObject::mergeIn);
          respondWithJson(ctx, JsonObject.mapFrom(result));
@@ -993,7 +1029,7 @@ class ControllerServer implements ApiService {
    @Override
    public void getRecentStats(RoutingContext ctx, String runId) {
       withStats(ctx, runId, run -> {
-         List<RequestStats> stats = run.statisticsStore().recentSummary(System.currentTimeMillis() - 5000);
+         List<RequestStats> stats = run.statistics().recentSummary(System.currentTimeMillis() - 5000);
          respondWithJson(ctx, false, statsToJson(run, stats));
       });
    }
@@ -1001,7 +1037,7 @@ class ControllerServer implements ApiService {
    @Override
    public void getTotalStats(RoutingContext ctx, String runId) {
       withStats(ctx, runId, run -> {
-         List<RequestStats> stats = run.statisticsStore().totalSummary();
+         List<RequestStats> stats = run.statistics().totalSummary();
          respondWithJson(ctx, false, statsToJson(run, stats));
       });
    }
@@ -1009,7 +1045,7 @@ class ControllerServer implements ApiService {
    @Override
    public void getHistogramStats(RoutingContext ctx, String runId, String phase, int stepId, String metric) {
       withStats(ctx, runId, run -> {
-         Histogram histogram = run.statisticsStore().histogram(phase, stepId, metric);
+         Histogram histogram = run.statistics().histogram(phase, stepId, metric);
          respondWithJson(ctx, false, histogram);
       });
    }
@@ -1017,11 +1053,27 @@ class ControllerServer implements ApiService {
    @Override
    public void getSeries(RoutingContext ctx, String runId, String phase, int stepId, String metric) {
       withStats(ctx, runId, run -> {
-         List<StatisticsSummary> series = run.statisticsStore().series(phase, stepId, metric);
+         List<StatisticsSummary> series = run.statistics().series(phase, stepId, metric);
          respondWithJson(ctx, false, series);
       });
    }
 
+   @Override
+   public void streamStats(RoutingContext ctx, String runId, String phase, String metric) {
+      withRun(ctx, runId, run -> {
+         HttpServerResponse response = ctx.response()
+               .setChunked(true)
+               .putHeader(HttpHeaders.CONTENT_TYPE, "text/event-stream")
+               .putHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+         if (run.statsStream == null) {
+            // historical run
+            response.end(StatsStream.END);
+         } else {
+            run.statsStream.subscribe(response, phase, metric);
+         }
+      });
+   }
+
    @Override
    public void getRunFile(RoutingContext ctx, String runId, String file) {
       withRun(ctx, runId, run -> {
@@ -1039,7 +1091,7 @@ class ControllerServer implements ApiService {
 
    private void withStats(RoutingContext ctx, String runId, Consumer<Run> consumer) {
       withRun(ctx, runId, run -> {
-         if (run.statisticsStore() == null) {
+         if (run.statistics() == null) {
             ctx.response().setStatusCode(HttpResponseStatus.NOT_FOUND.code()).end();
          } else {
             consumer.accept(run);
@@ -1234,6 +1286,12 @@ class ControllerServer implements ApiService {
             controller.deploymentID(), new Date()));
    }
 
+   @Override
+   public void getMetrics(RoutingContext ctx) {
+      ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, OpenMetricsWriter.CONTENT_TYPE)
+            .end(metricsExporter.export(controller.runs()));
+   }
+
    public void withBenchmark(RoutingContext ctx, String name, Consumer<Benchmark> consumer) {
       Benchmark benchmark = controller.getBenchmark(name);
       if (benchmark == null) {
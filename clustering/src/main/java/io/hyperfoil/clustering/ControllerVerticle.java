@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -41,25 +42,31 @@ import io.hyperfoil.api.deployment.DeployedAgent;
 import io.hyperfoil.api.deployment.Deployer;
 import io.hyperfoil.api.session.GlobalData;
 import io.hyperfoil.api.session.PhaseInstance;
+import io.hyperfoil.api.statistics.StatisticsSummary;
 import io.hyperfoil.clustering.messages.AgentControlMessage;
 import io.hyperfoil.clustering.messages.AgentHello;
+import io.hyperfoil.clustering.messages.AgentMetricsMessage;
 import io.hyperfoil.clustering.messages.AgentReadyMessage;
 import io.hyperfoil.clustering.messages.AgentStatusMessage;
 import io.hyperfoil.clustering.messages.AuxiliaryHello;
 import io.hyperfoil.clustering.messages.ConnectionStatsMessage;
 import io.hyperfoil.clustering.messages.DelayStatsCompletionMessage;
 import io.hyperfoil.clustering.messages.ErrorMessage;
+import io.hyperfoil.clustering.messages.FileProgressMessage;
 import io.hyperfoil.clustering.messages.PhaseChangeMessage;
 import io.hyperfoil.clustering.messages.PhaseControlMessage;
 import io.hyperfoil.clustering.messages.PhaseStatsCompleteMessage;
 import io.hyperfoil.clustering.messages.RequestStatsMessage;
 import io.hyperfoil.clustering.messages.SessionStatsMessage;
 import io.hyperfoil.clustering.messages.StatsMessage;
+import io.hyperfoil.clustering.util.FileDigests;
 import io.hyperfoil.clustering.util.PersistenceUtil;
 import io.hyperfoil.controller.CsvWriter;
 import io.hyperfoil.controller.JsonLoader;
 import io.hyperfoil.controller.JsonWriter;
 import io.hyperfoil.controller.StatisticsStore;
+import io.hyperfoil.controller.model.RequestStats;
+import io.hyperfoil.controller.model.RunSummary;
 import io.hyperfoil.core.hooks.ExecRunHook;
 import io.hyperfoil.core.parser.BenchmarkParser;
 import io.hyperfoil.core.parser.ParserException;
@@ -75,7 +82,6 @@ import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
-import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.internal.VertxInternal;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -86,7 +92,9 @@ import io.vertx.ext.cluster.infinispan.InfinispanClusterManager;
 public class ControllerVerticle extends AbstractVerticle implements NodeListener {
    private static final Logger log = LogManager.getLogger(ControllerVerticle.class);
    private static final int MAX_IN_MEMORY_RUNS = Properties.getInt(Properties.MAX_IN_MEMORY_RUNS, 20);
+   private static final long INITIALIZE_TIMEOUT = Properties.getLong(Properties.AGENT_INITIALIZE_TIMEOUT, 60000);
    static final String DEFAULT_STATS_JSON = "all.json";
+   static final String STATS_COLUMNS = "columns";
 
    private EventBus eb;
    private ControllerServer server;
@@ -97,6 +105,7 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
    private long timerId = -1;
 
    Map<String, Run> runs = new HashMap<>();
+   private final RunIndex runIndex = new RunIndex(Controller.RUN_DIR);
 
    @Override
    public void start(Promise<Void> future) {
@@ -112,7 +121,33 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
       vertx.exceptionHandler(throwable -> log.error("Uncaught error: ", throwable));
       if (Files.exists(Controller.RUN_DIR)) {
          try {
-            Files.list(Controller.RUN_DIR).forEach(this::updateRuns);
+            boolean indexExists = runIndex.exists();
+            // Listing the directory keeps startup linear in the number of runs but it does not read any files;
+            // the index must not resurrect runs deleted from disk.
+            List<String> runDirs = runIndex.listRunIds();
+            Map<String, JsonObject> indexed = indexExists ? runIndex.load(new HashSet<>(runDirs)) : Collections.emptyMap();
+            indexed.forEach((runId, info) -> loadRun(runId, Controller.RUN_DIR.resolve(runId), info));
+            if (!indexExists) {
+               log.info("Run index not found, loading runs from {}", Controller.RUN_DIR);
+            }
+            // Entries might be missing in the index when appending failed or the runs were copied here;
+            // we must not reuse their IDs even if these cannot be loaded.
+            List<JsonObject> missing = new ArrayList<>();
+            for (String runId : runDirs) {
+               reserveRunId(runId);
+               if (!indexed.containsKey(runId)) {
+                  JsonObject info = updateRuns(Controller.RUN_DIR.resolve(runId));
+                  if (info != null) {
+                     missing.add(info);
+                  }
+               }
+            }
+            if (!indexExists) {
+               runIndex.rewrite(missing);
+            } else if (!missing.isEmpty()) {
+               log.info("Adding {} runs missing in the index", missing.size());
+               missing.forEach(runIndex::append);
+            }
          } catch (IOException e) {
             log.error("Could not list run dir contents", e);
          } catch (Exception e) {
@@ -153,14 +188,23 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
          }
          if (msg instanceof PhaseChangeMessage) {
             handlePhaseChange(run, agent, (PhaseChangeMessage) msg);
+         } else if (msg instanceof FileProgressMessage) {
+            FileProgressMessage progress = (FileProgressMessage) msg;
+            log.info("{} Agent {} has {}/{} files ready, fetched {} bytes", run.id, agent.name, progress.filesReady(),
+                  progress.filesTotal(), progress.bytesFetched());
+            if (agent.status == AgentInfo.Status.INITIALIZING) {
+               scheduleInitializeTimeout(run, agent);
+            }
          } else if (msg instanceof ErrorMessage) {
             ErrorMessage errorMessage = (ErrorMessage) msg;
             run.errors.add(new Run.Error(agent, errorMessage.error()));
             if (errorMessage.isFatal()) {
+               vertx.cancelTimer(agent.initializeTimerId);
                agent.status = AgentInfo.Status.FAILED;
                stopSimulation(run);
             }
          } else if (msg instanceof AgentReadyMessage) {
+            vertx.cancelTimer(agent.initializeTimerId);
             agent.status = AgentInfo.Status.READY;
             if (run.agents.stream().allMatch(a -> a.status == AgentInfo.Status.READY)) {
                startSimulation(run);
@@ -170,6 +214,11 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
          }
       });
 
+      eb.consumer(Feeds.FILES, new FileChunkHandler(vertx, runId -> {
+         Run run = runs.get(runId);
+         return run == null ? null : run.distribution;
+      }));
+
       eb.consumer(Feeds.STATS, message -> {
          if (!(message.body() instanceof StatsMessage)) {
             log.error("Unknown message type: {}", message.body());
@@ -183,19 +232,23 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
                   .map(ai -> ai.name).findFirst().orElse("<unknown>");
             if (statsMessage instanceof RequestStatsMessage) {
                RequestStatsMessage rsm = (RequestStatsMessage) statsMessage;
-               String phase = run.phase(rsm.phaseId);
-               if (rsm.statistics != null) {
-                  boolean added = run.statisticsStore().record(agentName, rsm.phaseId, rsm.stepId, rsm.metric, rsm.statistics);
+               for (RequestStatsMessage.Entry entry : rsm.entries) {
+                  if (entry.statistics == null) {
+                     continue;
+                  }
+                  String phase = run.phase(entry.phaseId);
+                  boolean added = run.statisticsStore().record(agentName, entry.phaseId, entry.stepId, entry.metric,
+                        entry.statistics);
                   if (log.isDebugEnabled()) {
                      log.debug("Run {}: Received stats from {}({}): {}/{}/{}:{} ({} requests) - added:{}",
-                           rsm.runId, agentName, rsm.address, phase, rsm.stepId, rsm.metric,
-                           rsm.statistics.sequenceId, rsm.statistics.requestCount, added);
+                           rsm.runId, agentName, rsm.address, phase, entry.stepId, entry.metric,
+                           entry.statistics.sequenceId, entry.statistics.requestCount, added);
                   }
                   if (!added) {
                      // warning already logged
                      String errorMessage = String.format(
                            "Received statistics for %s/%d/%s:%d with %d requests but the statistics are already completed; these statistics won't be reported.",
-                           phase, rsm.stepId, rsm.metric, rsm.statistics.sequenceId, rsm.statistics.requestCount);
+                           phase, entry.stepId, entry.metric, entry.statistics.sequenceId, entry.statistics.requestCount);
                      log.error(errorMessage);
                      run.errors.add(new Run.Error(null, new BenchmarkExecutionException(errorMessage)));
                   }
@@ -234,6 +287,10 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
                      connectionStatsMessage.address);
                run.statisticsStore().recordConnectionStats(agentName, connectionStatsMessage.timestamp,
                      connectionStatsMessage.stats);
+            } else if (statsMessage instanceof AgentMetricsMessage) {
+               AgentMetricsMessage agentMetricsMessage = (AgentMetricsMessage) statsMessage;
+               log.trace("Run {}: Received agent metrics from {}", agentMetricsMessage.runId, agentMetricsMessage.address);
+               run.agentMetrics.put(agentName, agentMetricsMessage);
             } else if (statsMessage instanceof DelayStatsCompletionMessage) {
                DelayStatsCompletionMessage delayStatsCompletionMessage = (DelayStatsCompletionMessage) statsMessage;
                String phase = run.phase(delayStatsCompletionMessage.phaseId);
@@ -392,16 +449,12 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
       }
    }
 
-   private void updateRuns(Path runDir) {
+   private JsonObject updateRuns(Path runDir) {
       File file = runDir.toFile();
       if (!file.getName().matches("[0-9A-F][0-9A-F][0-9A-F][0-9A-F]")) {
-         return;
+         return null;
       }
       String runId = file.getName();
-      int id = Integer.parseInt(runId, 16);
-      if (id >= runIds.get()) {
-         runIds.set(id + 1);
-      }
       Path infoFile = runDir.resolve("info.json");
       JsonObject info = new JsonObject();
       if (infoFile.toFile().exists() && infoFile.toFile().isFile()) {
@@ -409,9 +462,21 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
             info = new JsonObject(Files.readString(infoFile));
          } catch (Exception e) {
             log.error("Cannot read info for run {}", runId);
-            return;
+            return null;
          }
       }
+      info.put("id", runId);
+      loadRun(runId, runDir, info);
+      return info;
+   }
+
+   private void reserveRunId(String runId) {
+      int id = Integer.parseInt(runId, 16);
+      runIds.accumulateAndGet(id + 1, Math::max);
+   }
+
+   private void loadRun(String runId, Path runDir, JsonObject info) {
+      reserveRunId(runId);
       String name = info.getString("benchmark", "<unknown>");
       JsonObject paramsObject = info.getJsonObject("params");
       Map<String, String> templateParams = paramsObject == null ? Collections.emptyMap()
@@ -432,6 +497,10 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
                .collect(Collectors.toList()));
       }
       run.cancelled = info.getBoolean("cancelled", Boolean.FALSE);
+      JsonObject summary = info.getJsonObject("summary");
+      if (summary != null) {
+         run.summary = summary.mapTo(RunSummary.class);
+      }
       runs.put(runId, run);
    }
 
@@ -507,15 +576,35 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
 
    Run createRun(Benchmark benchmark, String description) {
       ensureMaxInMemoryRuns();
-      String runId = String.format("%04X", runIds.getAndIncrement());
-      Path runDir = Controller.RUN_DIR.resolve(runId);
+      String runId;
+      Path runDir;
+      do {
+         // never write into the directory of another run
+         runId = String.format("%04X", runIds.getAndIncrement());
+         runDir = Controller.RUN_DIR.resolve(runId);
+      } while (Files.exists(runDir));
       //noinspection ResultOfMethodCallIgnored
       runDir.toFile().mkdirs();
       Run run = new Run(runId, runDir, benchmark);
-      run.initStore(new StatisticsStore(benchmark, failure -> log.warn("Failed verify SLA(s) for {}/{}: {}",
-            failure.phase(), failure.metric(), failure.message())));
+      StatisticsStore store = new StatisticsStore(benchmark, failure -> log.warn("Failed verify SLA(s) for {}/{}: {}",
+            failure.phase(), failure.metric(), failure.message()));
+      try {
+         // writes are serialized by the writer, the tasks need not be ordered
+         store.writeColumns(runDir.resolve(STATS_COLUMNS), task -> vertx.executeBlocking(() -> {
+            task.run();
+            return null;
+         }, false));
+      } catch (IOException e) {
+         log.error("Cannot write statistics to {}, run will be persisted only in JSON", runDir, e);
+      }
+      run.initStore(store);
       run.description = description;
       runs.put(run.id, run);
+      runIndex.append(new JsonObject()
+            .put("id", run.id)
+            .put("benchmark", run.benchmark.name())
+            .put("params", new JsonObject(new HashMap<>(run.benchmark.params())))
+            .put("description", run.description));
       if (run.benchmark.source() != null) {
          PersistenceUtil.store(run.benchmark.source(), run.dir);
       }
@@ -615,39 +704,62 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
 
       log.info("Starting benchmark {} - run {}", run.benchmark.name(), run.id);
 
+      // Agents cache files by their digest, hashing large files can take a while
+      vertx.executeBlocking(() -> FileDigests.digests(run.benchmark.files()), false).onComplete(result -> {
+         if (result.failed()) {
+            log.error("{} Cannot compute file digests", run.id, result.cause());
+            run.errors.add(new Run.Error(null, new BenchmarkExecutionException("Cannot compute file digests", result.cause())));
+            stopSimulation(run);
+         } else {
+            run.distribution = FileChunkHandler.Distribution.of(run.benchmark.files(), result.result());
+            initializeAgents(run, result.result());
+         }
+      });
+   }
+
+   private void initializeAgents(Run run, Map<String, String> fileDigests) {
       for (AgentInfo agent : run.agents) {
          if (agent.status != AgentInfo.Status.REGISTERED) {
             log.error("{} Agent {}({}) already initializing, status is {}!", run.id, agent.name, agent.deploymentId,
                   agent.status);
          } else {
+            // The agent only acknowledges the command here; it reports progress while fetching files
+            // and sends AgentReadyMessage once it has initialized the benchmark.
+            agent.status = AgentInfo.Status.INITIALIZING;
+            scheduleInitializeTimeout(run, agent);
             eb.request(agent.deploymentId,
-                  new AgentControlMessage(AgentControlMessage.Command.INITIALIZE, agent.id, run.benchmark))
+                  AgentControlMessage.initialize(agent.id, run.benchmark, fileDigests))
                   .onComplete(reply -> {
-                     Throwable cause;
-                     if (reply.failed()) {
-                        cause = reply.cause();
-                        log.error("{} Agent {}({}) failed to initialize", run.id, agent.name, agent.deploymentId);
-                        log.error("Failure thrown on the controller (this node): ", cause);
-                     } else {
-                        Message<Object> message = reply.result();
-                        if (message.body() instanceof ReplyException) {
-                           String msg = ((ReplyException) message.body()).getMessage();
-                           log.error("{} Agent {}({}) failed to initialize", run.id, agent.name, agent.deploymentId);
-                           log.error("Failure thrown on the agent node (see agent log for details): {}", msg);
-                           cause = new BenchmarkExecutionException(msg);
-                        } else {
-                           log.debug("{} Agent {}({}) was initialized.", run.id, agent.name, agent.deploymentId);
-                           return;
-                        }
+                     if (reply.succeeded()) {
+                        log.debug("{} Agent {}({}) is initializing.", run.id, agent.name, agent.deploymentId);
+                        return;
                      }
+                     log.error("{} Agent {}({}) failed to initialize", run.id, agent.name, agent.deploymentId);
+                     log.error("Failure thrown on the controller (this node): ", reply.cause());
+                     vertx.cancelTimer(agent.initializeTimerId);
                      agent.status = AgentInfo.Status.FAILED;
-                     run.errors.add(new Run.Error(agent, cause));
+                     run.errors.add(new Run.Error(agent, reply.cause()));
                      stopSimulation(run);
                   });
          }
       }
    }
 
+   private void scheduleInitializeTimeout(Run run, AgentInfo agent) {
+      vertx.cancelTimer(agent.initializeTimerId);
+      agent.initializeTimerId = vertx.setTimer(INITIALIZE_TIMEOUT, id -> {
+         if (agent.status != AgentInfo.Status.INITIALIZING) {
+            return;
+         }
+         log.error("{} Agent {}({}) did not report any progress in {} ms", run.id, agent.name, agent.deploymentId,
+               INITIALIZE_TIMEOUT);
+         agent.status = AgentInfo.Status.FAILED;
+         run.errors.add(new Run.Error(agent, new BenchmarkExecutionException(
+               "Agent initialization timed out after " + INITIALIZE_TIMEOUT + " ms without progress.")));
+         stopSimulation(run);
+      });
+   }
+
    @SuppressWarnings("deprecation") // Uses a deprecated executeBlocking call that should be addressed later. This is tracked in https://github.com/Hyperfoil/Hyperfoil/issues/493
    private void startSimulation(Run run) {
       vertx.<Void> executeBlocking(() -> {
@@ -800,6 +912,7 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
             log.warn("Run {}: {}", run.id, error);
             run.errors.add(new Run.Error(null, new BenchmarkExecutionException(error)));
          });
+         run.statsStream.end();
          persistRun(run);
          log.info("Run {} completed", run.id);
       }
@@ -811,6 +924,12 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
 
          boolean hasError = false;
 
+         try {
+            run.statisticsStore().completeColumns();
+         } catch (IOException e) {
+            log.error("Failed to persist statistics", e);
+            hasError = true;
+         }
          try {
             CsvWriter.writeCsv(run.dir.resolve("stats"), run.statisticsStore());
          } catch (IOException e) {
@@ -843,6 +962,8 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
             log.error("Cannot write info file", e);
             hasError = true;
          }
+         run.summary = summarize(run.statisticsStore());
+         runIndex.append(info.copy().put("summary", JsonObject.mapFrom(run.summary)));
          try (FileOutputStream stream = new FileOutputStream(run.dir.resolve(DEFAULT_STATS_JSON).toFile())) {
             JsonFactory jfactory = new JsonFactory();
             jfactory.setCodec(new ObjectMapper());
@@ -897,6 +1018,22 @@ public class ControllerVerticle extends AbstractVerticle implements NodeListener
       });
    }
 
+   private static RunSummary summarize(StatisticsStore store) {
+      long requests = 0, responses = 0, errors = 0, responseTime = 0;
+      for (RequestStats stats : store.totalSummary()) {
+         if (stats.isWarmup) {
+            continue;
+         }
+         StatisticsSummary summary = stats.summary;
+         requests += summary.requestCount;
+         responses += summary.responseCount;
+         errors += summary.invalid + summary.connectionErrors + summary.requestTimeouts + summary.internalErrors;
+         responseTime += summary.meanResponseTime * summary.responseCount;
+      }
+      return new RunSummary(requests, responses, errors, responses == 0 ? 0 : responseTime / responses,
+            store.getFailures().size());
+   }
+
    private Map<String, String> getRunProperties(Run run) {
       Map<String, String> properties = new HashMap<>();
       properties.put("RUN_ID", run.id);
@@ -0,0 +1,105 @@
+package io.hyperfoil.clustering;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.SegmentedFiles;
+import io.hyperfoil.clustering.messages.FileChunkRequest;
+import io.hyperfoil.clustering.util.FileDigests;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * Serves parts of benchmark files to agents that don't have them in their {@link AgentFileCache}.
+ * Files read from disk are not held on heap and can exceed 2 GB; as reading the content can block
+ * the chunks are copied in a worker thread. Files are looked up by the digests computed when the run
+ * was distributed to agents, the handler does not hash the files again.
+ */
+class FileChunkHandler implements Handler<Message<Object>> {
+   private static final Logger log = LogManager.getLogger(FileChunkHandler.class);
+
+   private final Vertx vertx;
+   private final Function<String, Distribution> distributionByRunId;
+
+   /**
+    * @param vertx Used to run the blocking reads.
+    * @param distributionByRunId Returns files distributed in given run or <code>null</code> if there's no such run
+    *        or its files were not distributed yet.
+    */
+   FileChunkHandler(Vertx vertx, Function<String, Distribution> distributionByRunId) {
+      this.vertx = vertx;
+      this.distributionByRunId = distributionByRunId;
+   }
+
+   @Override
+   public void handle(Message<Object> message) {
+      FileChunkRequest request = (FileChunkRequest) message.body();
+      Distribution distribution = distributionByRunId.apply(request.runId());
+      String name = distribution == null ? null : distribution.namesByDigest().get(request.digest());
+      if (name == null) {
+         fail(message, request);
+         return;
+      }
+      vertx.executeBlocking(() -> {
+         ByteBuffer[] segments = SegmentedFiles.segments(distribution.files(), name);
+         return segments == null ? null : chunk(segments, request.offset(), request.length());
+      }, false).onComplete(result -> {
+         if (result.failed()) {
+            log.error("Cannot read file {} in run {}", request.digest(), request.runId(), result.cause());
+            message.fail(1, "Cannot read file " + request.digest() + ": " + result.cause());
+         } else if (result.result() == null) {
+            fail(message, request);
+         } else {
+            message.reply(result.result());
+         }
+      });
+   }
+
+   private static void fail(Message<Object> message, FileChunkRequest request) {
+      log.error("Agent requested unknown file {} in run {}", request.digest(), request.runId());
+      message.fail(1, "No file " + request.digest() + " in run " + request.runId());
+   }
+
+   static Buffer chunk(ByteBuffer[] segments, long offset, int maxLength) {
+      long size = SegmentedFiles.length(segments);
+      offset = Math.min(offset, size);
+      byte[] bytes = new byte[(int) Math.min(maxLength, size - offset)];
+      int segment = (int) (offset / Benchmark.FILE_SEGMENT_SIZE);
+      int position = (int) (offset % Benchmark.FILE_SEGMENT_SIZE);
+      // the chunk can span the boundary of two segments
+      for (int length = 0; length < bytes.length; position = 0) {
+         ByteBuffer source = segments[segment++];
+         int n = Math.min(bytes.length - length, source.limit() - position);
+         source.get(position, bytes, length, n);
+         length += n;
+      }
+      return Buffer.buffer(bytes);
+   }
+
+   /**
+    * Files of a run as sent to the agents.
+    *
+    * @param files Benchmark files.
+    * @param namesByDigest Map of file digest to its name.
+    */
+   record Distribution(Map<String, byte[]> files, Map<String, String> namesByDigest) {
+      /**
+       * @param files Benchmark files.
+       * @param digests Map of file name to its digest, as computed by {@link FileDigests#digests(Map)}.
+       */
+      static Distribution of(Map<String, byte[]> files, Map<String, String> digests) {
+         Map<String, String> namesByDigest = new HashMap<>();
+         // files with the same content are fetched only once
+         digests.forEach((name, digest) -> namesByDigest.putIfAbsent(digest, name));
+         return new Distribution(files, namesByDigest);
+      }
+   }
+}
@@ -0,0 +1,82 @@
+package io.hyperfoil.clustering;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.hyperfoil.controller.OpenMetricsWriter;
+import io.hyperfoil.controller.StatisticsStore;
+import io.hyperfoil.internal.Properties;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Renders the response for <code>/metrics</code>. As the scrapers might poll frequently and there might be
+ * multiple of them the rendered output is cached for a short period.
+ */
+class MetricsExporter {
+   private static final long CACHE_PERIOD = Properties.getLong(Properties.METRICS_CACHE_PERIOD, 1000);
+   private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+   private final OpenMetricsWriter writer = new OpenMetricsWriter();
+   private Buffer cached;
+   private long cachedTimestamp = Long.MIN_VALUE;
+
+   Buffer export(Collection<Run> runs) {
+      long now = System.currentTimeMillis();
+      if (cached != null && now < cachedTimestamp + CACHE_PERIOD) {
+         return cached;
+      }
+      Map<String, Run> running = new TreeMap<>();
+      Map<String, StatisticsStore> stores = new TreeMap<>();
+      for (Run run : runs) {
+         // statsStream is set only for runs executed by this controller
+         if (run.statsStream != null && !run.terminateTime.future().isComplete() && run.isLoaded()) {
+            running.put(run.id, run);
+            stores.put(run.id, run.statisticsStore());
+         }
+      }
+      writer.reset().writeStatistics(stores);
+
+      writer.family("hyperfoil_agent_event_loop_latency_seconds", "gauge", "seconds",
+            "Time a task waits in the queue of the event loop before it gets executed.");
+      running.forEach((runId, run) -> run.agentMetrics.forEach((agent, metrics) -> {
+         for (int i = 0; i < metrics.eventLoopLatencies.length; ++i) {
+            writer.sample("hyperfoil_agent_event_loop_latency_seconds", metrics.eventLoopLatencies[i] / NANOS_PER_SECOND,
+                  "run", runId, "agent", agent, "loop", String.valueOf(i));
+         }
+      }));
+      writer.family("hyperfoil_agent_allocator_used_bytes", "gauge", "bytes",
+            "Memory used by the default buffer allocator.");
+      running.forEach((runId, run) -> run.agentMetrics.forEach((agent, metrics) -> {
+         writeMemory(runId, agent, "heap", metrics.usedHeapMemory);
+         writeMemory(runId, agent, "direct", metrics.usedDirectMemory);
+      }));
+      writer.family("hyperfoil_phase_batched_arrivals", "counter", null,
+            "Users started by open-model phases with batched arrivals.");
+      running.forEach((runId, run) -> run.agentMetrics.forEach((agent, metrics) -> metrics.arrivals.forEach(
+            (phase, arrivals) -> writer.sample("hyperfoil_phase_batched_arrivals_total", arrivals.arrivals,
+                  "run", runId, "agent", agent, "phase", phase))));
+      writer.family("hyperfoil_phase_scheduler_wake_ups", "counter", null,
+            "Wake-ups of the open-model phase scheduler that started at least one user.");
+      running.forEach((runId, run) -> run.agentMetrics.forEach((agent, metrics) -> metrics.arrivals.forEach(
+            (phase, arrivals) -> writer.sample("hyperfoil_phase_scheduler_wake_ups_total", arrivals.wakeUps,
+                  "run", runId, "agent", agent, "phase", phase))));
+      writer.family("hyperfoil_phase_max_arrivals_per_wake_up", "gauge", null,
+            "Maximum number of users started in a single wake-up of the open-model phase scheduler.");
+      running.forEach((runId, run) -> run.agentMetrics.forEach((agent, metrics) -> metrics.arrivals.forEach(
+            (phase, arrivals) -> writer.sample("hyperfoil_phase_max_arrivals_per_wake_up", arrivals.maxArrivalsPerWakeUp,
+                  "run", runId, "agent", agent, "phase", phase))));
+      writer.eof();
+
+      cached = Buffer.buffer(writer.toString());
+      cachedTimestamp = now;
+      return cached;
+   }
+
+   private void writeMemory(String runId, String agent, String type, long value) {
+      // the allocator might not provide the metrics
+      if (value >= 0) {
+         writer.sample("hyperfoil_agent_allocator_used_bytes", value, "run", runId, "agent", agent, "type", type);
+      }
+   }
+}
@@ -1,5 +1,8 @@
 package io.hyperfoil.clustering;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,6 +22,7 @@ public class RequestStatsSender extends StatisticsCollector {
    private final String runId;
    private final EventBus eb;
    private final StatisticsConsumer sendStats = this::sendStats;
+   private final List<RequestStatsMessage.Entry> batch = new ArrayList<>();
 
    public RequestStatsSender(Benchmark benchmark, EventBus eb, String address, String runId) {
       super(benchmark);
@@ -29,19 +33,30 @@ public class RequestStatsSender extends StatisticsCollector {
 
    public void send(CountDown completion) {
       visitStatistics(sendStats, completion);
+      // All metrics from this collection are sent in single message
+      sendBatch(completion);
    }
 
    private void sendStats(Phase phase, int stepId, String metric, StatisticsSnapshot statistics, CountDown countDown) {
-      if (statistics.histogram.getEndTimeStamp() >= statistics.histogram.getStartTimeStamp()) {
+      if (statistics.histogram().getEndTimeStamp() >= statistics.histogram().getStartTimeStamp()) {
          log.debug("Sending stats for {} {}/{}, id {}: {} requests, {} responses", phase.name(), stepId, metric,
                statistics.sequenceId, statistics.requestCount, statistics.responseCount);
-         // On clustered eventbus, ObjectCodec is not called synchronously so we *must* do a copy here.
+         // On clustered eventbus, the codec is not called synchronously so we *must* do a copy here.
          // (on a local eventbus we'd have to do a copy in transform() anyway)
          StatisticsSnapshot copy = statistics.clone();
-         countDown.increment();
-         eb.request(Feeds.STATS, new RequestStatsMessage(address, runId, phase.id(), stepId, metric, copy))
-               .onComplete(reply -> countDown.countDown());
+         batch.add(new RequestStatsMessage.Entry(phase.id(), stepId, metric, copy));
+      }
+   }
+
+   private void sendBatch(CountDown countDown) {
+      if (batch.isEmpty()) {
+         return;
       }
+      RequestStatsMessage.Entry[] entries = batch.toArray(new RequestStatsMessage.Entry[0]);
+      batch.clear();
+      countDown.increment();
+      eb.request(Feeds.STATS, new RequestStatsMessage(address, runId, entries))
+            .onComplete(reply -> countDown.countDown());
    }
 
    public void sendPhaseComplete(Phase phase, CountDown countDown) {
@@ -50,10 +65,9 @@ public class RequestStatsSender extends StatisticsCollector {
             continue;
          }
 
-         countDown.increment();
-         eb.request(Feeds.STATS, new RequestStatsMessage(address, runId, phaseAndStepId >> 16, -1, null, null))
-               .onComplete(reply -> countDown.countDown());
+         batch.add(new RequestStatsMessage.Entry(phaseAndStepId >> 16, -1, null, null));
       }
+      sendBatch(countDown);
       if (phase == null) {
          // TODO: it would be better to not send this for those phases that are already complete
          for (Phase p : phases) {
@@ -10,7 +10,11 @@ import java.util.function.Supplier;
 import io.hyperfoil.api.config.Benchmark;
 import io.hyperfoil.api.config.Phase;
 import io.hyperfoil.api.session.GlobalData;
+import io.hyperfoil.clustering.messages.AgentMetricsMessage;
+import io.hyperfoil.controller.ColumnarStatistics;
+import io.hyperfoil.controller.RunStatistics;
 import io.hyperfoil.controller.StatisticsStore;
+import io.hyperfoil.controller.model.RunSummary;
 import io.hyperfoil.impl.Util;
 import io.vertx.core.Promise;
 
@@ -34,7 +38,15 @@ class Run {
    boolean persisted;
    Supplier<StatisticsStore> statsSupplier;
    private StatisticsStore statisticsStore;
+   private ColumnarStatistics columnarStatistics;
+   // only for runs executed by this controller
+   StatsStream statsStream;
+   // files sent to agents, set once the digests are computed
+   FileChunkHandler.Distribution distribution;
    Map<String, GlobalData.Element> newGlobalData = new HashMap<>();
+   RunSummary summary;
+   // latest metrics by agent name
+   final Map<String, AgentMetricsMessage> agentMetrics = new HashMap<>();
 
    Run(String id, Path dir, Benchmark benchmark) {
       this.id = id;
@@ -45,6 +57,7 @@ class Run {
 
    void initStore(StatisticsStore store) {
       this.statisticsStore = store;
+      this.statsStream = new StatsStream(store);
    }
 
    long nextTimestamp() {
@@ -91,6 +104,23 @@ class Run {
       }
    }
 
+   /**
+    * Prefers statistics held in memory, then the columnar files of a persisted run (these are read lazily,
+    * only the index is loaded) and falls back to loading the run from JSON.
+    */
+   public RunStatistics statistics() {
+      if (statisticsStore != null) {
+         return statisticsStore;
+      }
+      if (columnarStatistics == null) {
+         columnarStatistics = ColumnarStatistics.open(dir.resolve(ControllerVerticle.STATS_COLUMNS));
+      }
+      if (columnarStatistics != null) {
+         return columnarStatistics;
+      }
+      return statisticsStore();
+   }
+
    public boolean isLoaded() {
       return statisticsStore != null;
    }
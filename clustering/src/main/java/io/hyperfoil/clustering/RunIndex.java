@@ -0,0 +1,125 @@
+package io.hyperfoil.clustering;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Append-only file in the run directory holding one JSON object per line with the same information as
+ * <code>info.json</code> in each run's directory (plus summary of the results). An entry is appended when the run
+ * is created and again when it is persisted; the last entry for given run ID wins.
+ * <p>
+ * The controller reads this file on startup instead of parsing info files of all runs. The run directory is still
+ * listed (without reading anything inside) to not reuse the ID of a run that is missing in the index and to ignore
+ * entries of runs that were deleted from disk, so the startup is still linear in the number of runs; only the cost
+ * per run is reduced to a directory entry.
+ */
+class RunIndex {
+   private static final Logger log = LogManager.getLogger(RunIndex.class);
+   static final String FILE = "index.jsonl";
+
+   private static final Pattern RUN_ID = Pattern.compile("[0-9A-F]{4}");
+
+   private final Path path;
+
+   RunIndex(Path runDir) {
+      this.path = runDir.resolve(FILE);
+   }
+
+   boolean exists() {
+      return Files.exists(path);
+   }
+
+   /**
+    * @return Sorted IDs of all runs in the run directory, regardless of whether these are indexed.
+    */
+   List<String> listRunIds() throws IOException {
+      try (Stream<Path> dirs = Files.list(path.getParent())) {
+         return dirs.filter(Files::isDirectory).map(dir -> dir.getFileName().toString())
+               .filter(name -> RUN_ID.matcher(name).matches()).sorted().collect(Collectors.toList());
+      }
+   }
+
+   /**
+    * @param runIds IDs of runs present in the run directory (see {@link #listRunIds()}); other entries are dropped.
+    * @return Entries by run ID, in the order of first appearance in the index.
+    */
+   synchronized Map<String, JsonObject> load(Set<String> runIds) throws IOException {
+      Map<String, JsonObject> entries = new LinkedHashMap<>();
+      int lines = 0;
+      boolean invalid = false;
+      try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+               continue;
+            }
+            ++lines;
+            try {
+               JsonObject entry = new JsonObject(line);
+               entries.put(entry.getString("id"), entry);
+            } catch (DecodeException e) {
+               // probably the last line was not completely written
+               log.warn("Ignoring invalid line {} in {}", lines, path);
+               invalid = true;
+            }
+         }
+      }
+      int indexed = entries.size();
+      entries.keySet().retainAll(runIds);
+      if (entries.size() < indexed) {
+         log.info("Dropping {} runs deleted from {}", indexed - entries.size(), path.getParent());
+      }
+      // each run usually has two entries; compact only when the file grows significantly over that,
+      // when we need to get rid of invalid lines, so that further entries are not appended to these,
+      // or when some runs were deleted
+      if (invalid || entries.size() < indexed || lines > 2 * entries.size() + 100) {
+         log.info("Compacting {}: {} lines, {} runs", path, lines, entries.size());
+         rewrite(entries.values());
+      }
+      return entries;
+   }
+
+   synchronized void append(JsonObject entry) {
+      try {
+         Files.writeString(path, entry.encode() + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+               StandardOpenOption.APPEND);
+      } catch (IOException e) {
+         log.error("Cannot append run {} to {}", entry.getString("id"), path, e);
+      }
+   }
+
+   synchronized void rewrite(Collection<JsonObject> entries) {
+      Path tmp = path.resolveSibling(FILE + ".tmp");
+      try {
+         try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (JsonObject entry : entries) {
+               writer.write(entry.encode());
+               writer.write('\n');
+            }
+         }
+         Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+         log.error("Cannot write {}", path, e);
+      }
+   }
+}
@@ -0,0 +1,122 @@
+package io.hyperfoil.clustering;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import io.hyperfoil.controller.StatisticsStore;
+import io.hyperfoil.controller.model.RequestStats;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+
+/**
+ * Pushes statistics of a running benchmark to subscribers as server-sent events. Each event is encoded once
+ * and the same buffer is written to all subscribers interested in given phase and metric.
+ * <p>
+ * When the response of a subscriber is not writable the events are queued; a newer event for the same metric
+ * replaces the queued one so that slow subscribers don't accumulate a backlog.
+ */
+class StatsStream implements Consumer<RequestStats> {
+   private static final Buffer CONNECTED = Buffer.buffer(": connected\n\n");
+   static final Buffer END = Buffer.buffer("event: end\ndata: {}\n\n");
+
+   private final StatisticsStore store;
+   private final List<Subscriber> subscribers = new ArrayList<>();
+   private boolean ended;
+
+   StatsStream(StatisticsStore store) {
+      this.store = store;
+   }
+
+   void subscribe(HttpServerResponse response, String phase, String metric) {
+      if (ended) {
+         response.end(END);
+         return;
+      }
+      if (subscribers.isEmpty()) {
+         store.addListener(this);
+      }
+      Subscriber subscriber = new Subscriber(response, phase, metric);
+      subscribers.add(subscriber);
+      response.closeHandler(nil -> unsubscribe(subscriber));
+      response.write(CONNECTED);
+   }
+
+   private void unsubscribe(Subscriber subscriber) {
+      subscribers.remove(subscriber);
+      if (subscribers.isEmpty()) {
+         store.removeListener(this);
+      }
+   }
+
+   @Override
+   public void accept(RequestStats stats) {
+      Buffer event = null;
+      String key = null;
+      for (Subscriber subscriber : subscribers) {
+         if (subscriber.matches(stats)) {
+            if (event == null) {
+               event = Buffer.buffer("event: stats\ndata: " + Json.encode(stats) + "\n\n");
+               key = stats.phase + "/" + stats.stepId + "/" + stats.metric;
+            }
+            subscriber.offer(key, event);
+         }
+      }
+   }
+
+   void end() {
+      ended = true;
+      store.removeListener(this);
+      for (Subscriber subscriber : subscribers) {
+         subscriber.end();
+      }
+      subscribers.clear();
+   }
+
+   private static class Subscriber {
+      private final HttpServerResponse response;
+      private final String phase;
+      private final String metric;
+      // events waiting for the response to become writable, by phase/step/metric
+      private final Map<String, Buffer> pending = new LinkedHashMap<>();
+
+      Subscriber(HttpServerResponse response, String phase, String metric) {
+         this.response = response;
+         this.phase = phase;
+         this.metric = metric;
+      }
+
+      boolean matches(RequestStats stats) {
+         return (phase == null || phase.equals(stats.phase)) && (metric == null || metric.equals(stats.metric));
+      }
+
+      void offer(String key, Buffer event) {
+         if (pending.isEmpty() && !response.writeQueueFull()) {
+            response.write(event);
+            return;
+         }
+         if (pending.isEmpty()) {
+            response.drainHandler(nil -> drain());
+         }
+         pending.put(key, event);
+      }
+
+      private void drain() {
+         Iterator<Buffer> iterator = pending.values().iterator();
+         while (iterator.hasNext() && !response.writeQueueFull()) {
+            response.write(iterator.next());
+            iterator.remove();
+         }
+         response.drainHandler(pending.isEmpty() ? null : nil -> drain());
+      }
+
+      void end() {
+         pending.clear();
+         response.end(END);
+      }
+   }
+}
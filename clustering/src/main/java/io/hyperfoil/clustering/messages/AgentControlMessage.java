@@ -1,13 +1,20 @@
 package io.hyperfoil.clustering.messages;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Map;
 
 import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.ContentAddressedFiles;
 
 public class AgentControlMessage implements Serializable {
    private Command command;
    private int agentId;
    private Object param;
+   // Used only when encoding the message, these are sent as ContentAddressedFiles inside the benchmark
+   private transient Map<String, String> fileDigests;
 
    public AgentControlMessage(Command command, int agentId, Object param) {
       this.command = command;
@@ -15,6 +22,16 @@ public class AgentControlMessage implements Serializable {
       this.param = param;
    }
 
+   /**
+    * When the message is sent to a remote agent the benchmark files are replaced with their digests;
+    * the agent fetches the content using {@link FileChunkRequest} unless it has the files cached.
+    */
+   public static AgentControlMessage initialize(int agentId, Benchmark benchmark, Map<String, String> fileDigests) {
+      AgentControlMessage message = new AgentControlMessage(Command.INITIALIZE, agentId, benchmark);
+      message.fileDigests = fileDigests;
+      return message;
+   }
+
    public Command command() {
       return command;
    }
@@ -39,5 +56,25 @@ public class AgentControlMessage implements Serializable {
    }
 
    public static class Codec extends ObjectCodec<AgentControlMessage> {
+      @Override
+      protected ObjectOutputStream createOutputStream(OutputStream stream, AgentControlMessage message) throws IOException {
+         if (message.fileDigests == null || message.fileDigests.isEmpty()) {
+            return super.createOutputStream(stream, message);
+         }
+         Map<String, byte[]> files = message.benchmark().files();
+         ContentAddressedFiles replacement = new ContentAddressedFiles(message.fileDigests);
+         return new ObjectOutputStream(stream) {
+            {
+               enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object obj) {
+               // The files map is referenced from the benchmark, but also from other objects
+               // (e.g. phases) that hold the benchmark; all those references must be replaced.
+               return obj == files ? replacement : obj;
+            }
+         };
+      }
    }
 }
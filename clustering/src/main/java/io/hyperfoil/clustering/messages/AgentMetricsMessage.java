@@ -0,0 +1,39 @@
+package io.hyperfoil.clustering.messages;
+
+import java.io.Serializable;
+import java.util.Map;
+
+public class AgentMetricsMessage extends StatsMessage {
+   public final long timestamp;
+   // nanoseconds a task waited in the queue of each event loop
+   public final long[] eventLoopLatencies;
+   public final long usedHeapMemory;
+   public final long usedDirectMemory;
+   // open-model phases batching arrivals, by phase name
+   public final Map<String, Arrivals> arrivals;
+
+   public AgentMetricsMessage(String address, String runId, long timestamp, long[] eventLoopLatencies,
+         long usedHeapMemory, long usedDirectMemory, Map<String, Arrivals> arrivals) {
+      super(address, runId);
+      this.timestamp = timestamp;
+      this.eventLoopLatencies = eventLoopLatencies;
+      this.usedHeapMemory = usedHeapMemory;
+      this.usedDirectMemory = usedDirectMemory;
+      this.arrivals = arrivals;
+   }
+
+   public static class Arrivals implements Serializable {
+      public final long arrivals;
+      public final long wakeUps;
+      public final long maxArrivalsPerWakeUp;
+
+      public Arrivals(long arrivals, long wakeUps, long maxArrivalsPerWakeUp) {
+         this.arrivals = arrivals;
+         this.wakeUps = wakeUps;
+         this.maxArrivalsPerWakeUp = maxArrivalsPerWakeUp;
+      }
+   }
+
+   public static class Codec extends ObjectCodec<AgentMetricsMessage> {
+   }
+}
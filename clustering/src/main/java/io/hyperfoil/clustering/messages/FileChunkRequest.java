@@ -0,0 +1,40 @@
+package io.hyperfoil.clustering.messages;
+
+import java.io.Serializable;
+
+/**
+ * Agent requests part of a benchmark file it does not have in its cache; the controller replies
+ * with a {@link io.vertx.core.buffer.Buffer} that is shorter than requested at the end of the file.
+ */
+public class FileChunkRequest implements Serializable {
+   private final String runId;
+   private final String digest;
+   private final long offset;
+   private final int length;
+
+   public FileChunkRequest(String runId, String digest, long offset, int length) {
+      this.runId = runId;
+      this.digest = digest;
+      this.offset = offset;
+      this.length = length;
+   }
+
+   public String runId() {
+      return runId;
+   }
+
+   public String digest() {
+      return digest;
+   }
+
+   public long offset() {
+      return offset;
+   }
+
+   public int length() {
+      return length;
+   }
+
+   public static class Codec extends ObjectCodec<FileChunkRequest> {
+   }
+}
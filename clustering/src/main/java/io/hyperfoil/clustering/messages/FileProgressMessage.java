@@ -0,0 +1,29 @@
+package io.hyperfoil.clustering.messages;
+
+public class FileProgressMessage extends AgentStatusMessage {
+   private final int filesReady;
+   private final int filesTotal;
+   private final long bytesFetched;
+
+   public FileProgressMessage(String senderId, String runId, int filesReady, int filesTotal, long bytesFetched) {
+      super(senderId, runId);
+      this.filesReady = filesReady;
+      this.filesTotal = filesTotal;
+      this.bytesFetched = bytesFetched;
+   }
+
+   public int filesReady() {
+      return filesReady;
+   }
+
+   public int filesTotal() {
+      return filesTotal;
+   }
+
+   public long bytesFetched() {
+      return bytesFetched;
+   }
+
+   public static class Codec extends ObjectCodec<FileProgressMessage> {
+   }
+}
@@ -26,6 +26,7 @@ import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 import org.infinispan.commons.io.LazyByteArrayOutputStream;
 
@@ -41,7 +42,7 @@ public class ObjectCodec<T> implements MessageCodec<T, T> {
       LazyByteArrayOutputStream bos = new LazyByteArrayOutputStream();
 
       try {
-         ObjectOutput out = new ObjectOutputStream(bos);
+         ObjectOutput out = createOutputStream(bos, object);
          out.writeObject(object);
          out.flush();
 
@@ -59,6 +60,10 @@ public class ObjectCodec<T> implements MessageCodec<T, T> {
       }
    }
 
+   protected ObjectOutputStream createOutputStream(OutputStream stream, T object) throws IOException {
+      return new ObjectOutputStream(stream);
+   }
+
    @Override
    public T decodeFromWire(int position, Buffer buffer) {
 
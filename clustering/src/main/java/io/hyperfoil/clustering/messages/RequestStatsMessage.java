@@ -1,22 +1,301 @@
 package io.hyperfoil.clustering.messages;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import io.hyperfoil.api.statistics.HistogramSettings;
 import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.api.statistics.StatsExtension;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
 
+/**
+ * All request statistics an agent collected in one sampling period.
+ */
 public class RequestStatsMessage extends StatsMessage {
-   public final int phaseId;
-   public final int stepId;
-   public final String metric;
-   public final StatisticsSnapshot statistics;
+   public final Entry[] entries;
 
-   public RequestStatsMessage(String address, String runId, int phaseId, int stepId, String metric,
-         StatisticsSnapshot statistics) {
+   public RequestStatsMessage(String address, String runId, Entry[] entries) {
       super(address, runId);
-      this.phaseId = phaseId;
-      this.stepId = stepId;
-      this.metric = metric;
-      this.statistics = statistics;
+      this.entries = entries;
+   }
+
+   public static class Entry implements Serializable {
+      public final int phaseId;
+      public final int stepId;
+      public final String metric;
+      public final StatisticsSnapshot statistics;
+
+      public Entry(int phaseId, int stepId, String metric, StatisticsSnapshot statistics) {
+         this.phaseId = phaseId;
+         this.stepId = stepId;
+         this.metric = metric;
+         this.statistics = statistics;
+      }
+   }
+
+   /**
+    * Compact binary format replacing Java serialization. Integers use (zig-zag) varints, metric names and extension
+    * keys are written once into a dictionary and referenced by index, and histograms are written as their settings
+    * followed by a sparse list of non-empty buckets (value delta + count). Extension values are arbitrary
+    * {@link StatsExtension} implementations,
+    * therefore these are still Java-serialized but using a single stream for the whole message.
+    */
+   public static class Codec implements MessageCodec<RequestStatsMessage, RequestStatsMessage> {
+      private static final byte VERSION = 1;
+
+      @Override
+      public void encodeToWire(Buffer buffer, RequestStatsMessage msg) {
+         int lengthPosition = buffer.length();
+         buffer.appendInt(0);
+         buffer.appendByte(VERSION);
+         writeString(buffer, msg.runId);
+         writeString(buffer, msg.address);
+
+         Map<String, Integer> dictionary = new HashMap<>();
+         List<String> strings = new ArrayList<>();
+         List<StatsExtension> extensions = new ArrayList<>();
+         for (Entry entry : msg.entries) {
+            intern(dictionary, strings, entry.metric);
+            if (entry.statistics != null) {
+               for (Map.Entry<String, StatsExtension> extension : entry.statistics.extensions.entrySet()) {
+                  intern(dictionary, strings, extension.getKey());
+                  extensions.add(extension.getValue());
+               }
+            }
+         }
+         writeVarLong(buffer, strings.size());
+         for (String string : strings) {
+            writeString(buffer, string);
+         }
+
+         writeVarLong(buffer, msg.entries.length);
+         for (Entry entry : msg.entries) {
+            writeVarLong(buffer, entry.phaseId);
+            writeSigned(buffer, entry.stepId);
+            writeVarLong(buffer, entry.metric == null ? 0 : dictionary.get(entry.metric) + 1);
+            StatisticsSnapshot snapshot = entry.statistics;
+            if (snapshot == null) {
+               buffer.appendByte((byte) 0);
+               continue;
+            }
+            buffer.appendByte((byte) 1);
+            Histogram histogram = snapshot.histogram();
+            buffer.appendByte((byte) histogram.getNumberOfSignificantValueDigits());
+            buffer.appendByte((byte) (histogram.isAutoResize() ? 1 : 0));
+            writeVarLong(buffer, histogram.getHighestTrackableValue());
+            writeSigned(buffer, snapshot.sequenceId);
+            writeSigned(buffer, snapshot.requestCount);
+            writeSigned(buffer, snapshot.responseCount);
+            writeSigned(buffer, snapshot.invalid);
+            writeSigned(buffer, snapshot.connectionErrors);
+            writeSigned(buffer, snapshot.requestTimeouts);
+            writeSigned(buffer, snapshot.internalErrors);
+            writeSigned(buffer, snapshot.blockedTime);
+            writeHistogram(buffer, snapshot.histogram());
+            writeVarLong(buffer, snapshot.extensions.size());
+            for (String key : snapshot.extensions.keySet()) {
+               writeVarLong(buffer, dictionary.get(key));
+            }
+         }
+
+         if (extensions.isEmpty()) {
+            writeVarLong(buffer, 0);
+         } else {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+               for (StatsExtension extension : extensions) {
+                  out.writeObject(extension);
+               }
+            } catch (IOException e) {
+               throw new IllegalStateException("Cannot serialize statistics extensions", e);
+            }
+            writeVarLong(buffer, bos.size());
+            buffer.appendBytes(bos.toByteArray());
+         }
+         buffer.setInt(lengthPosition, buffer.length() - lengthPosition - 4);
+      }
+
+      @Override
+      public RequestStatsMessage decodeFromWire(int position, Buffer buffer) {
+         Reader reader = new Reader(buffer, position + 4);
+         byte version = buffer.getByte(reader.position++);
+         if (version != VERSION) {
+            throw new IllegalStateException("Unsupported request stats message version " + version);
+         }
+         String runId = reader.readString();
+         String address = reader.readString();
+
+         String[] strings = new String[(int) reader.readVarLong()];
+         for (int i = 0; i < strings.length; ++i) {
+            strings[i] = reader.readString();
+         }
+
+         Entry[] entries = new Entry[(int) reader.readVarLong()];
+         List<StatisticsSnapshot> extensionSnapshots = new ArrayList<>();
+         List<String> extensionKeys = new ArrayList<>();
+         for (int i = 0; i < entries.length; ++i) {
+            int phaseId = (int) reader.readVarLong();
+            int stepId = (int) reader.readSigned();
+            int metricRef = (int) reader.readVarLong();
+            String metric = metricRef == 0 ? null : strings[metricRef - 1];
+            StatisticsSnapshot snapshot = null;
+            if (buffer.getByte(reader.position++) != 0) {
+               int precision = buffer.getByte(reader.position++);
+               boolean packed = buffer.getByte(reader.position++) != 0;
+               snapshot = new StatisticsSnapshot(new HistogramSettings(reader.readVarLong(), precision, packed));
+               snapshot.sequenceId = (int) reader.readSigned();
+               snapshot.requestCount = (int) reader.readSigned();
+               snapshot.responseCount = (int) reader.readSigned();
+               snapshot.invalid = (int) reader.readSigned();
+               snapshot.connectionErrors = (int) reader.readSigned();
+               snapshot.requestTimeouts = (int) reader.readSigned();
+               snapshot.internalErrors = (int) reader.readSigned();
+               snapshot.blockedTime = reader.readSigned();
+               reader.readHistogram(snapshot.histogram());
+               int numExtensions = (int) reader.readVarLong();
+               for (int j = 0; j < numExtensions; ++j) {
+                  extensionSnapshots.add(snapshot);
+                  extensionKeys.add(strings[(int) reader.readVarLong()]);
+               }
+            }
+            entries[i] = new Entry(phaseId, stepId, metric, snapshot);
+         }
+
+         int extensionsLength = (int) reader.readVarLong();
+         if (extensionsLength > 0) {
+            byte[] bytes = buffer.getBytes(reader.position, reader.position + extensionsLength);
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+               for (int i = 0; i < extensionSnapshots.size(); ++i) {
+                  extensionSnapshots.get(i).extensions.put(extensionKeys.get(i), (StatsExtension) in.readObject());
+               }
+            } catch (IOException | ClassNotFoundException e) {
+               throw new IllegalStateException("Cannot deserialize statistics extensions", e);
+            }
+         }
+         return new RequestStatsMessage(address, runId, entries);
+      }
+
+      @Override
+      public RequestStatsMessage transform(RequestStatsMessage msg) {
+         // The sender already passes a copy of the statistics
+         return msg;
+      }
+
+      @Override
+      public String name() {
+         return getClass().getName();
+      }
+
+      @Override
+      public byte systemCodecID() {
+         return -1;
+      }
+
+      private static void intern(Map<String, Integer> dictionary, List<String> strings, String string) {
+         if (string != null && dictionary.putIfAbsent(string, strings.size()) == null) {
+            strings.add(string);
+         }
+      }
+
+      private static void writeHistogram(Buffer buffer, Histogram histogram) {
+         writeVarLong(buffer, histogram.getStartTimeStamp());
+         writeSigned(buffer, histogram.getEndTimeStamp() - histogram.getStartTimeStamp());
+         if (histogram.getTotalCount() == 0) {
+            writeVarLong(buffer, 0);
+            return;
+         }
+         // Number of non-empty buckets is not known upfront; we'll write the terminating zero count instead.
+         long lastValue = 0;
+         for (HistogramIterationValue value : histogram.recordedValues()) {
+            long count = value.getCountAtValueIteratedTo();
+            long valueIteratedTo = value.getValueIteratedTo();
+            writeVarLong(buffer, count);
+            writeVarLong(buffer, valueIteratedTo - lastValue);
+            lastValue = valueIteratedTo;
+         }
+         writeVarLong(buffer, 0);
+      }
+
+      private static void writeString(Buffer buffer, String string) {
+         if (string == null) {
+            writeVarLong(buffer, 0);
+         } else {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(buffer, bytes.length + 1);
+            buffer.appendBytes(bytes);
+         }
+      }
+
+      private static void writeSigned(Buffer buffer, long value) {
+         writeVarLong(buffer, (value << 1) ^ (value >> 63));
+      }
+
+      private static void writeVarLong(Buffer buffer, long value) {
+         while ((value & ~0x7FL) != 0) {
+            buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+         }
+         buffer.appendByte((byte) value);
+      }
    }
 
-   public static class Codec extends ObjectCodec<RequestStatsMessage> {
+   private static class Reader {
+      private final Buffer buffer;
+      private int position;
+
+      private Reader(Buffer buffer, int position) {
+         this.buffer = buffer;
+         this.position = position;
+      }
+
+      long readVarLong() {
+         long value = 0;
+         for (int shift = 0;; shift += 7) {
+            byte b = buffer.getByte(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+               return value;
+            }
+         }
+      }
+
+      long readSigned() {
+         long value = readVarLong();
+         return (value >>> 1) ^ -(value & 1);
+      }
+
+      String readString() {
+         int length = (int) readVarLong();
+         if (length == 0) {
+            return null;
+         }
+         String string = buffer.getString(position, position + length - 1, StandardCharsets.UTF_8.name());
+         position += length - 1;
+         return string;
+      }
+
+      void readHistogram(Histogram histogram) {
+         long startTimeStamp = readVarLong();
+         histogram.setStartTimeStamp(startTimeStamp);
+         histogram.setEndTimeStamp(startTimeStamp + readSigned());
+         long value = 0;
+         for (long count = readVarLong(); count != 0; count = readVarLong()) {
+            value += readVarLong();
+            histogram.recordValueWithCount(value, count);
+         }
+      }
    }
 }
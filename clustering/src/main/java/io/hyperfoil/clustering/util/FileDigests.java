@@ -0,0 +1,81 @@
+package io.hyperfoil.clustering.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import io.hyperfoil.api.config.MappedFiles;
+import io.hyperfoil.api.config.SegmentedFiles;
+
+/**
+ * SHA-256 digests of benchmark files. Benchmarks are kept in memory and started repeatedly, therefore
+ * we cache the digest for each content array (arrays use identity equality). Files that are read from disk
+ * keep the digest of their mapping in {@link MappedFiles}, so it goes away with the benchmark.
+ */
+public final class FileDigests {
+   private static final Map<byte[], String> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+   private FileDigests() {
+   }
+
+   public static MessageDigest newDigest() {
+      try {
+         return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   public static String toString(MessageDigest digest) {
+      return HexFormat.of().formatHex(digest.digest());
+   }
+
+   public static String digest(byte[] content) {
+      String digest = CACHE.get(content);
+      if (digest == null) {
+         MessageDigest md = newDigest();
+         md.update(content);
+         digest = toString(md);
+         CACHE.put(content, digest);
+      }
+      return digest;
+   }
+
+   public static String digest(ByteBuffer[] segments) {
+      MessageDigest md = newDigest();
+      for (ByteBuffer segment : segments) {
+         md.update(segment.duplicate());
+      }
+      return toString(md);
+   }
+
+   /**
+    * @return Digest of given file or <code>null</code> if there is no such file.
+    */
+   public static String digest(Map<String, byte[]> files, String name) {
+      if (files instanceof MappedFiles) {
+         return ((MappedFiles) files).digest(name);
+      } else if (files instanceof SegmentedFiles) {
+         ByteBuffer[] segments = ((SegmentedFiles) files).segments(name);
+         return segments == null ? null : digest(segments);
+      }
+      byte[] content = files.get(name);
+      return content == null ? null : digest(content);
+   }
+
+   /**
+    * @return Map of file name to its digest.
+    */
+   public static Map<String, String> digests(Map<String, byte[]> files) {
+      Map<String, String> digests = new HashMap<>();
+      for (String name : files.keySet()) {
+         digests.put(name, digest(files, name));
+      }
+      return digests;
+   }
+}
@@ -6,22 +6,37 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Collectors;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import java.util.stream.Stream;
 
 import io.hyperfoil.api.config.BenchmarkData;
+import io.hyperfoil.api.config.MappedFiles;
 
 public class PersistedBenchmarkData implements BenchmarkData {
-   private static final Logger log = LogManager.getLogger(PersistedBenchmarkData.class);
    private final Path dir;
 
    public static void store(Map<String, byte[]> files, Path dir) throws IOException {
       for (Map.Entry<String, byte[]> entry : files.entrySet()) {
-         Files.write(dir.resolve(BenchmarkData.sanitize(entry.getKey())), entry.getValue());
+         Path target = dir.resolve(BenchmarkData.sanitize(entry.getKey()));
+         Path source = files instanceof MappedFiles ? ((MappedFiles) files).path(entry.getKey()) : null;
+         if (source != null && Files.exists(target) && Files.isSameFile(source, target)) {
+            continue;
+         }
+         // Benchmarks using the previous version can have the file memory-mapped; replace it rather than overwrite
+         Path tmp = Files.createTempFile(dir, ".", ".tmp");
+         try {
+            if (source != null) {
+               Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+               Files.write(tmp, entry.getValue());
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+         } finally {
+            Files.deleteIfExists(tmp);
+         }
       }
    }
 
@@ -44,15 +59,10 @@ public class PersistedBenchmarkData implements BenchmarkData {
       if (!dir.toFile().exists() || !dir.toFile().isDirectory()) {
          return Collections.emptyMap();
       }
-      try {
-         return Files.list(dir).collect(Collectors.toMap(path -> path.getFileName().toString(), (Path path) -> {
-            try {
-               return Files.readAllBytes(path);
-            } catch (IOException e) {
-               log.error("Cannot read file " + path, e);
-               throw new RuntimeException(e);
-            }
-         }));
+      // The files are memory-mapped when accessed rather than read to heap, so they can be larger than 2 GB
+      try (Stream<Path> list = Files.list(dir)) {
+         return new MappedFiles(list.collect(Collectors.toMap(path -> path.getFileName().toString(),
+               path -> path.toAbsolutePath().toString())));
       } catch (IOException e) {
          throw new RuntimeException("Cannot list directory " + dir, e);
       }
@@ -6,6 +6,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,10 +45,11 @@ public class PersistenceUtil {
                return;
             }
          }
-         // Make sure the directory is empty
+         // Remove old files; the files being stored can be read from this directory, too
+         Set<String> keep = files.keySet().stream().map(BenchmarkData::sanitize).collect(Collectors.toSet());
          //noinspection ConstantConditions
          for (File file : dataDir.listFiles()) {
-            if (file.delete()) {
+            if (!keep.contains(file.getName()) && !file.delete()) {
                log.warn("Could not delete old file {}", file);
             }
          }
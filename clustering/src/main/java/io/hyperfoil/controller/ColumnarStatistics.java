@@ -0,0 +1,391 @@
+package io.hyperfoil.controller;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.hyperfoil.api.statistics.StatisticsSummary;
+import io.hyperfoil.api.statistics.StatsExtension;
+import io.hyperfoil.controller.model.Histogram;
+import io.hyperfoil.controller.model.RequestStats;
+import io.hyperfoil.core.util.LowHigh;
+
+/**
+ * Statistics of a completed run, read lazily from the files written by {@link ColumnarWriter}.
+ * <p>
+ * Only the index (list of metrics with their totals, failures and CPU usage) is kept on heap; series,
+ * histograms and session/connection records are memory-mapped when a request asks for them and dropped afterwards.
+ * <p>
+ * Layout of the directory:
+ * <ul>
+ * <li><code>index.bin</code> is written when the run completes; without it the other files are not valid.
+ * <li><code>series-N.bin</code> holds per-second summaries of the N-th metric. The rows are grouped into chunks
+ * of {@link #CHUNK} rows and each chunk stores the rows column by column (e.g. all start timestamps, then all
+ * request counts...). Each value is a 64-bit integer.
+ * <li><code>extensions-N.bin</code> holds serialized extensions (e.g. HTTP status counts) of the N-th metric,
+ * referenced from the {@link #EXTENSIONS} column; -1 there means no extensions.
+ * <li><code>histograms.bin</code> holds compressed total histograms of all metrics.
+ * <li><code>sessions.bin</code> and <code>connections.bin</code> hold fixed-size records of session pool
+ * and connection pool statistics.
+ * </ul>
+ */
+public final class ColumnarStatistics implements RunStatistics {
+   private static final Logger log = LogManager.getLogger(ColumnarStatistics.class);
+
+   static final int MAGIC = 0x48464353; // HFCS
+   static final int VERSION = 1;
+   static final String INDEX = "index.bin";
+   static final String HISTOGRAMS = "histograms.bin";
+   static final String SESSIONS = "sessions.bin";
+   static final String CONNECTIONS = "connections.bin";
+   static final int CHUNK = 64;
+
+   static final int START = 0;
+   static final int END = 1;
+   static final int MIN = 2;
+   static final int MEAN = 3;
+   static final int STD_DEV = 4;
+   static final int MAX = 5;
+   static final int REQUESTS = 6;
+   static final int RESPONSES = 7;
+   static final int INVALID = 8;
+   static final int CONNECTION_ERRORS = 9;
+   static final int REQUEST_TIMEOUTS = 10;
+   static final int INTERNAL_ERRORS = 11;
+   static final int BLOCKED_TIME = 12;
+   static final int EXTENSIONS = 13;
+   static final int PERCENTILES = 14;
+
+   // phase, address, timestamp, min, max
+   static final int SESSION_RECORD_SIZE = 4 + 4 + 8 + 4 + 4;
+   // authority, type, address, timestamp, low, high
+   static final int CONNECTION_RECORD_SIZE = 4 + 4 + 4 + 8 + 4 + 4;
+
+   private final Path dir;
+   private final double[] percentiles;
+   private final int columns;
+   private final String[] strings;
+   private final List<Metric> metrics = new ArrayList<>();
+   private final List<Failure> failures = new ArrayList<>();
+   private final Map<String, Map<String, String>> cpuUsage = new HashMap<>();
+   private final int sessionRecords;
+   private final int connectionRecords;
+
+   private ColumnarStatistics(Path dir) throws IOException {
+      this.dir = dir;
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(INDEX))))) {
+         if (input.readInt() != MAGIC) {
+            throw new IOException("Invalid index in " + dir);
+         }
+         int version = input.readInt();
+         if (version != VERSION) {
+            throw new IOException("Unsupported version " + version + " of " + dir);
+         }
+         if (input.readInt() != CHUNK) {
+            throw new IOException("Unsupported chunk size in " + dir);
+         }
+         percentiles = new double[input.readInt()];
+         for (int i = 0; i < percentiles.length; ++i) {
+            percentiles[i] = input.readDouble();
+         }
+         columns = PERCENTILES + percentiles.length;
+         strings = new String[input.readInt()];
+         for (int i = 0; i < strings.length; ++i) {
+            strings[i] = input.readUTF();
+         }
+         int numMetrics = input.readInt();
+         for (int i = 0; i < numMetrics; ++i) {
+            Metric metric = new Metric(input.readInt(), input.readUTF(), input.readInt(), input.readUTF(), input.readBoolean(),
+                  input.readInt(), input.readLong(), input.readInt());
+            long[] total = new long[columns];
+            for (int j = 0; j < columns; ++j) {
+               total[j] = input.readLong();
+            }
+            byte[] extensions = new byte[input.readInt()];
+            input.readFully(extensions);
+            metric.total = summary(total, 0, 1, extensions.length == 0 ? null : extensions);
+            metrics.add(metric);
+         }
+         int numFailures = input.readInt();
+         for (int i = 0; i < numFailures; ++i) {
+            failures.add(new Failure(input.readUTF(), input.readBoolean() ? input.readUTF() : null, input.readUTF()));
+         }
+         int numCpuPhases = input.readInt();
+         for (int i = 0; i < numCpuPhases; ++i) {
+            Map<String, String> agents = cpuUsage.computeIfAbsent(input.readUTF(), p -> new HashMap<>());
+            int numAgents = input.readInt();
+            for (int j = 0; j < numAgents; ++j) {
+               agents.put(input.readUTF(), input.readUTF());
+            }
+         }
+         sessionRecords = input.readInt();
+         connectionRecords = input.readInt();
+      }
+   }
+
+   /**
+    * @param dir Directory with the columnar files.
+    * @return Statistics or <code>null</code> if the directory does not contain a complete index.
+    */
+   public static ColumnarStatistics open(Path dir) {
+      try {
+         return new ColumnarStatistics(dir);
+      } catch (NoSuchFileException e) {
+         return null;
+      } catch (IOException e) {
+         log.error("Cannot read statistics from {}", dir, e);
+         return null;
+      }
+   }
+
+   @Override
+   public List<RequestStats> recentSummary(long minValidTimestamp) {
+      return Collections.emptyList();
+   }
+
+   @Override
+   public List<RequestStats> totalSummary() {
+      return metrics.stream().map(m -> new RequestStats(m.phase, m.stepId, m.metric, m.total,
+            failures.stream().filter(f -> f.phase.equals(m.phase) && (f.metric == null || f.metric.equals(m.metric)))
+                  .map(f -> f.message).collect(Collectors.toList()),
+            m.isWarmup))
+            .sorted(StatisticsStore.REQUEST_STATS_COMPARATOR)
+            .collect(Collectors.toList());
+   }
+
+   @Override
+   public Histogram histogram(String phase, int stepId, String metric) {
+      Metric m = find(phase, stepId, metric);
+      if (m == null) {
+         return null;
+      }
+      try (FileChannel channel = FileChannel.open(dir.resolve(HISTOGRAMS), StandardOpenOption.READ)) {
+         ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, m.histogramOffset, m.histogramLength);
+         AbstractHistogram histogram = org.HdrHistogram.Histogram.decodeFromCompressedByteBuffer(buffer, 0);
+         histogram.setStartTimeStamp(m.total.startTime);
+         histogram.setEndTimeStamp(m.total.endTime);
+         return HistogramConverter.convert(phase, metric, histogram);
+      } catch (IOException | DataFormatException e) {
+         log.error("Cannot read histogram for {}/{}/{} from {}", phase, stepId, metric, dir, e);
+         return null;
+      }
+   }
+
+   @Override
+   public List<StatisticsSummary> series(String phase, int stepId, String metric) {
+      Metric m = find(phase, stepId, metric);
+      if (m == null) {
+         return null;
+      } else if (m.rows == 0) {
+         return Collections.emptyList();
+      }
+      try (FileChannel channel = FileChannel.open(dir.resolve(seriesFile(m.ordinal)), StandardOpenOption.READ)) {
+         ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         long[] chunk = new long[columns * CHUNK];
+         List<StatisticsSummary> series = new ArrayList<>(m.rows);
+         ByteBuffer extensions = null;
+         for (int row = 0; row < m.rows; ++row) {
+            int offset = row % CHUNK;
+            if (offset == 0) {
+               buffer.position((row / CHUNK) * chunk.length * Long.BYTES);
+               buffer.asLongBuffer().get(chunk, 0, Math.min(chunk.length, buffer.remaining() / Long.BYTES));
+            }
+            byte[] serializedExtensions = null;
+            long extensionsOffset = chunk[EXTENSIONS * CHUNK + offset];
+            if (extensionsOffset >= 0) {
+               if (extensions == null) {
+                  extensions = mapAll(extensionsFile(m.ordinal));
+               }
+               serializedExtensions = new byte[extensions.getInt((int) extensionsOffset)];
+               extensions.get((int) extensionsOffset + Integer.BYTES, serializedExtensions);
+            }
+            series.add(summary(chunk, offset, CHUNK, serializedExtensions));
+         }
+         return series;
+      } catch (IOException e) {
+         log.error("Cannot read series for {}/{}/{} from {}", phase, stepId, metric, dir, e);
+         return null;
+      }
+   }
+
+   @Override
+   public Map<String, Map<String, LowHigh>> recentSessionPoolSummary(long minValidTimestamp) {
+      return Collections.emptyMap();
+   }
+
+   @Override
+   public Map<String, Map<String, LowHigh>> totalSessionPoolSummary() {
+      Map<String, Map<String, LowHigh>> result = new HashMap<>();
+      ByteBuffer buffer = mapRecords(SESSIONS, sessionRecords * SESSION_RECORD_SIZE);
+      for (int i = 0; i < sessionRecords; ++i) {
+         int offset = i * SESSION_RECORD_SIZE;
+         String phase = strings[buffer.getInt(offset)];
+         String address = strings[buffer.getInt(offset + 4)];
+         int min = buffer.getInt(offset + 16);
+         int max = buffer.getInt(offset + 20);
+         result.computeIfAbsent(phase, p -> new HashMap<>())
+               .merge(address, new LowHigh(min, max), LowHigh::combine);
+      }
+      return result;
+   }
+
+   @Override
+   public Map<String, Map<String, LowHigh>> recentConnectionsSummary() {
+      return Collections.emptyMap();
+   }
+
+   @Override
+   public Map<String, Map<String, LowHigh>> totalConnectionsSummary() {
+      Map<String, Map<String, Map<String, List<LowHigh>>>> records = new HashMap<>();
+      ByteBuffer buffer = mapRecords(CONNECTIONS, connectionRecords * CONNECTION_RECORD_SIZE);
+      for (int i = 0; i < connectionRecords; ++i) {
+         int offset = i * CONNECTION_RECORD_SIZE;
+         records.computeIfAbsent(strings[buffer.getInt(offset)], a -> new HashMap<>())
+               .computeIfAbsent(strings[buffer.getInt(offset + 4)], t -> new HashMap<>())
+               .computeIfAbsent(strings[buffer.getInt(offset + 8)], a -> new ArrayList<>())
+               .add(new LowHigh(buffer.getInt(offset + 20), buffer.getInt(offset + 24)));
+      }
+      // same as StatisticsStore.totalConnectionsSummary(): sum n-th records from all agents and find the extremes
+      Map<String, Map<String, LowHigh>> summary = new HashMap<>();
+      for (var byAuthority : records.entrySet()) {
+         for (var byType : byAuthority.getValue().entrySet()) {
+            int maxSize = byType.getValue().values().stream().mapToInt(List::size).max().orElse(0);
+            LowHigh total = null;
+            for (int i = 0; i < maxSize; ++i) {
+               int ii = i;
+               total = LowHigh.combine(total, byType.getValue().values().stream()
+                     .map(list -> ii < list.size() ? list.get(ii) : null)
+                     .reduce(LowHigh::sum).orElse(null));
+            }
+            if (total != null) {
+               summary.computeIfAbsent(byAuthority.getKey(), a -> new HashMap<>()).put(byType.getKey(), total);
+            }
+         }
+      }
+      return summary;
+   }
+
+   @Override
+   public Map<String, Map<String, String>> cpuUsage() {
+      return cpuUsage;
+   }
+
+   static String seriesFile(int ordinal) {
+      return "series-" + ordinal + ".bin";
+   }
+
+   static String extensionsFile(int ordinal) {
+      return "extensions-" + ordinal + ".bin";
+   }
+
+   private Metric find(String phase, int stepId, String metric) {
+      for (Metric m : metrics) {
+         if (m.phase.equals(phase) && m.stepId == stepId && m.metric.equals(metric)) {
+            return m;
+         }
+      }
+      return null;
+   }
+
+   private ByteBuffer mapRecords(String file, int size) {
+      if (size == 0) {
+         return ByteBuffer.allocate(0);
+      }
+      try (FileChannel channel = FileChannel.open(dir.resolve(file), StandardOpenOption.READ)) {
+         return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } catch (IOException e) {
+         log.error("Cannot read {} from {}", file, dir, e);
+         return ByteBuffer.allocate(0);
+      }
+   }
+
+   private ByteBuffer mapAll(String file) throws IOException {
+      try (FileChannel channel = FileChannel.open(dir.resolve(file), StandardOpenOption.READ)) {
+         return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+   }
+
+   private StatisticsSummary summary(long[] values, int offset, int stride, byte[] serializedExtensions) {
+      SortedMap<Double, Long> percentileResponseTime = new TreeMap<>();
+      for (int i = 0; i < percentiles.length; ++i) {
+         percentileResponseTime.put(percentiles[i], values[(PERCENTILES + i) * stride + offset]);
+      }
+      return new StatisticsSummary(values[START * stride + offset], values[END * stride + offset],
+            values[MIN * stride + offset], values[MEAN * stride + offset], values[STD_DEV * stride + offset],
+            values[MAX * stride + offset], percentileResponseTime,
+            (int) values[REQUESTS * stride + offset], (int) values[RESPONSES * stride + offset],
+            (int) values[INVALID * stride + offset], (int) values[CONNECTION_ERRORS * stride + offset],
+            (int) values[REQUEST_TIMEOUTS * stride + offset], (int) values[INTERNAL_ERRORS * stride + offset],
+            values[BLOCKED_TIME * stride + offset], extensions(serializedExtensions));
+   }
+
+   @SuppressWarnings("unchecked")
+   private SortedMap<String, StatsExtension> extensions(byte[] serialized) {
+      if (serialized == null) {
+         return Collections.emptySortedMap();
+      }
+      try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+         return (SortedMap<String, StatsExtension>) input.readObject();
+      } catch (IOException | ClassNotFoundException e) {
+         log.warn("Cannot read extensions from {}", dir, e);
+         return Collections.emptySortedMap();
+      }
+   }
+
+   private static class Metric {
+      final int ordinal;
+      final String phase;
+      final int stepId;
+      final String metric;
+      final boolean isWarmup;
+      final int rows;
+      final long histogramOffset;
+      final int histogramLength;
+      StatisticsSummary total;
+
+      Metric(int ordinal, String phase, int stepId, String metric, boolean isWarmup, int rows, long histogramOffset,
+            int histogramLength) {
+         this.ordinal = ordinal;
+         this.phase = phase;
+         this.stepId = stepId;
+         this.metric = metric;
+         this.isWarmup = isWarmup;
+         this.rows = rows;
+         this.histogramOffset = histogramOffset;
+         this.histogramLength = histogramLength;
+      }
+   }
+
+   private static class Failure {
+      final String phase;
+      final String metric;
+      final String message;
+
+      Failure(String phase, String metric, String message) {
+         this.phase = phase;
+         this.metric = metric;
+         this.message = message;
+      }
+   }
+}
@@ -0,0 +1,430 @@
+package io.hyperfoil.controller;
+
+import static io.hyperfoil.controller.ColumnarStatistics.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.hyperfoil.api.config.SLA;
+import io.hyperfoil.api.statistics.StatisticsSummary;
+
+/**
+ * Writes statistics in the format read by {@link ColumnarStatistics}.
+ * <p>
+ * Callers only queue the records; these are written by tasks submitted to the executor, in order. Series rows of all
+ * metrics are appended to a single journal, sessions and connections records go directly into their files.
+ * When the run completes the journal is split into per-metric series and extensions files, and the index
+ * and histograms are written.
+ * <p>
+ * Failure to write does not stop the run; the index is not written and the run will be loaded from JSON instead.
+ */
+final class ColumnarWriter {
+   private static final Logger log = LogManager.getLogger(ColumnarWriter.class);
+   private static final int COLUMNS = PERCENTILES + StatisticsStore.PERCENTILES.length;
+   private static final String JOURNAL = "series.journal";
+
+   private final Path dir;
+   private final Executor executor;
+   // guards writing the files and everything below
+   private final Object io = new Object();
+   private DataOutputStream journal;
+   private DataOutputStream sessions;
+   private DataOutputStream connections;
+   private volatile boolean closed;
+   // guarded by this
+   private final List<Series> series = new ArrayList<>();
+   private final Map<String, Integer> strings = new HashMap<>();
+   private List<Record> pending = new ArrayList<>();
+   private boolean scheduled;
+   private int sessionRecords;
+   private int connectionRecords;
+
+   ColumnarWriter(Path dir, Executor executor) throws IOException {
+      this.dir = dir;
+      this.executor = executor;
+      Files.createDirectories(dir);
+      // do not mix with leftovers of a previous attempt
+      Files.deleteIfExists(dir.resolve(INDEX));
+   }
+
+   synchronized void appendSeries(Data data, StatisticsSummary summary) {
+      if (closed) {
+         return;
+      }
+      if (data.columns == null) {
+         data.columns = new Series(series.size());
+         series.add(data.columns);
+      }
+      int ordinal = data.columns.ordinal;
+      data.columns.rows++;
+      // the summary is not modified after being recorded so it can be serialized later
+      enqueue(() -> {
+         if (journal == null) {
+            journal = open(JOURNAL);
+         }
+         journal.writeInt(ordinal);
+         long[] row = new long[COLUMNS];
+         setColumns(row, 0, 1, summary, -1);
+         for (long value : row) {
+            journal.writeLong(value);
+         }
+         byte[] extensions = serialize(summary);
+         journal.writeInt(extensions.length);
+         journal.write(extensions);
+      });
+   }
+
+   synchronized void appendSession(String phase, String address, long timestamp, int min, int max) {
+      if (closed) {
+         return;
+      }
+      int phaseId = id(phase);
+      int addressId = id(address);
+      ++sessionRecords;
+      enqueue(() -> {
+         if (sessions == null) {
+            sessions = open(SESSIONS);
+         }
+         sessions.writeInt(phaseId);
+         sessions.writeInt(addressId);
+         sessions.writeLong(timestamp);
+         sessions.writeInt(min);
+         sessions.writeInt(max);
+      });
+   }
+
+   synchronized void appendConnections(String authority, String type, String address, long timestamp, int low,
+         int high) {
+      if (closed) {
+         return;
+      }
+      int authorityId = id(authority);
+      int typeId = id(type);
+      int addressId = id(address);
+      ++connectionRecords;
+      enqueue(() -> {
+         if (connections == null) {
+            connections = open(CONNECTIONS);
+         }
+         connections.writeInt(authorityId);
+         connections.writeInt(typeId);
+         connections.writeInt(addressId);
+         connections.writeLong(timestamp);
+         connections.writeInt(low);
+         connections.writeInt(high);
+      });
+   }
+
+   private void enqueue(Record record) {
+      pending.add(record);
+      if (!scheduled) {
+         scheduled = true;
+         executor.execute(this::drain);
+      }
+   }
+
+   private void drain() {
+      synchronized (io) {
+         List<Record> records;
+         synchronized (this) {
+            records = pending;
+            pending = new ArrayList<>();
+            scheduled = false;
+         }
+         if (closed) {
+            return;
+         }
+         try {
+            for (Record record : records) {
+               record.write();
+            }
+         } catch (IOException e) {
+            fail(e);
+         }
+      }
+   }
+
+   void complete(StatisticsStore store) throws IOException {
+      synchronized (io) {
+         try {
+            // write whatever has not been picked by the executor yet
+            drain();
+            if (closed) {
+               return;
+            }
+            closeStreams();
+            completeLocked(store);
+         } finally {
+            close();
+         }
+      }
+   }
+
+   private synchronized void completeLocked(StatisticsStore store) throws IOException {
+      List<Data> allData = store.getData();
+      for (Data data : allData) {
+         if (data.columns == null) {
+            data.columns = new Series(series.size());
+            series.add(data.columns);
+         }
+      }
+      splitJournal();
+      long[] histogramOffsets = new long[allData.size()];
+      int[] histogramLengths = new int[allData.size()];
+      try (FileChannel histograms = FileChannel.open(dir.resolve(HISTOGRAMS), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+         for (int i = 0; i < allData.size(); ++i) {
+            Data data = allData.get(i);
+            ByteBuffer buffer = ByteBuffer.allocate(data.total.histogram().getNeededByteBufferCapacity());
+            histogramLengths[i] = data.total.histogram().encodeIntoCompressedByteBuffer(buffer);
+            histogramOffsets[i] = histograms.position();
+            histograms.write(buffer.flip());
+         }
+      }
+      // write the index to a temporary file to not leave incomplete index in place
+      Path tmpIndex = dir.resolve(INDEX + ".tmp");
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpIndex)))) {
+         output.writeInt(MAGIC);
+         output.writeInt(VERSION);
+         output.writeInt(CHUNK);
+         output.writeInt(StatisticsStore.PERCENTILES.length);
+         for (double p : StatisticsStore.PERCENTILES) {
+            output.writeDouble(p);
+         }
+         String[] dictionary = new String[strings.size()];
+         strings.forEach((string, id) -> dictionary[id] = string);
+         output.writeInt(dictionary.length);
+         for (String string : dictionary) {
+            output.writeUTF(string);
+         }
+         output.writeInt(allData.size());
+         long[] total = new long[COLUMNS];
+         for (int i = 0; i < allData.size(); ++i) {
+            Data data = allData.get(i);
+            output.writeInt(data.columns.ordinal);
+            output.writeUTF(data.phase);
+            output.writeInt(data.stepId);
+            output.writeUTF(data.metric);
+            output.writeBoolean(data.isWarmup);
+            output.writeInt(data.columns.rows);
+            output.writeLong(histogramOffsets[i]);
+            output.writeInt(histogramLengths[i]);
+            StatisticsSummary summary = data.total.summary(StatisticsStore.PERCENTILES);
+            setColumns(total, 0, 1, summary, -1);
+            for (long value : total) {
+               output.writeLong(value);
+            }
+            byte[] extensions = serialize(summary);
+            output.writeInt(extensions.length);
+            output.write(extensions);
+         }
+         output.writeInt(store.failures.size());
+         for (SLA.Failure failure : store.failures) {
+            output.writeUTF(failure.phase());
+            output.writeBoolean(failure.metric() != null);
+            if (failure.metric() != null) {
+               output.writeUTF(failure.metric());
+            }
+            output.writeUTF(failure.message());
+         }
+         output.writeInt(store.cpuUsage.size());
+         for (var phaseEntry : store.cpuUsage.entrySet()) {
+            output.writeUTF(phaseEntry.getKey());
+            output.writeInt(phaseEntry.getValue().size());
+            for (var agentEntry : phaseEntry.getValue().entrySet()) {
+               output.writeUTF(agentEntry.getKey());
+               output.writeUTF(agentEntry.getValue());
+            }
+         }
+         output.writeInt(sessionRecords);
+         output.writeInt(connectionRecords);
+      }
+      Files.move(tmpIndex, dir.resolve(INDEX));
+   }
+
+   /**
+    * Reads the journal once and regroups the rows into chunks of each series. Full chunks are appended to the series
+    * file right away so that only one chunk per series is held in memory.
+    */
+   private void splitJournal() throws IOException {
+      Path journalPath = dir.resolve(JOURNAL);
+      int rows = 0;
+      for (Series s : series) {
+         rows += s.rows;
+      }
+      if (rows == 0) {
+         Files.deleteIfExists(journalPath);
+         return;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(COLUMNS * CHUNK * Long.BYTES);
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+         for (int i = 0; i < rows; ++i) {
+            Series s = series.get(input.readInt());
+            s.read(input);
+            if (s.written % CHUNK == 0) {
+               s.flush(buffer);
+            }
+         }
+      }
+      for (Series s : series) {
+         if (s.written % CHUNK != 0) {
+            // the last, partially filled chunk is written in full, too
+            s.flush(buffer);
+         }
+      }
+      Files.delete(journalPath);
+   }
+
+   private void close() {
+      closed = true;
+      closeStreams();
+   }
+
+   private void closeStreams() {
+      closeQuietly(journal);
+      closeQuietly(sessions);
+      closeQuietly(connections);
+      journal = null;
+      sessions = null;
+      connections = null;
+   }
+
+   private static void closeQuietly(Closeable closeable) {
+      if (closeable != null) {
+         try {
+            closeable.close();
+         } catch (IOException e) {
+            log.warn("Cannot close file", e);
+         }
+      }
+   }
+
+   private void fail(IOException e) {
+      log.error("Cannot write statistics to {}, run will be persisted only in JSON", dir, e);
+      close();
+   }
+
+   private int id(String string) {
+      return strings.computeIfAbsent(string, s -> strings.size());
+   }
+
+   private DataOutputStream open(String file) throws IOException {
+      return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dir.resolve(file))));
+   }
+
+   private static void setColumns(long[] values, int offset, int stride, StatisticsSummary summary, long extensions) {
+      values[START * stride + offset] = summary.startTime;
+      values[END * stride + offset] = summary.endTime;
+      values[MIN * stride + offset] = summary.minResponseTime;
+      values[MEAN * stride + offset] = summary.meanResponseTime;
+      values[STD_DEV * stride + offset] = summary.stdDevResponseTime;
+      values[MAX * stride + offset] = summary.maxResponseTime;
+      values[REQUESTS * stride + offset] = summary.requestCount;
+      values[RESPONSES * stride + offset] = summary.responseCount;
+      values[INVALID * stride + offset] = summary.invalid;
+      values[CONNECTION_ERRORS * stride + offset] = summary.connectionErrors;
+      values[REQUEST_TIMEOUTS * stride + offset] = summary.requestTimeouts;
+      values[INTERNAL_ERRORS * stride + offset] = summary.internalErrors;
+      values[BLOCKED_TIME * stride + offset] = summary.blockedTime;
+      values[EXTENSIONS * stride + offset] = extensions;
+      for (int i = 0; i < StatisticsStore.PERCENTILES.length; ++i) {
+         Long value = summary.percentileResponseTime.get(StatisticsStore.PERCENTILES[i]);
+         values[(PERCENTILES + i) * stride + offset] = value == null ? 0 : value;
+      }
+   }
+
+   private static byte[] serialize(StatisticsSummary summary) throws IOException {
+      if (summary.extensions == null || summary.extensions.isEmpty()) {
+         return new byte[0];
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+         // summaries created by the controller already hold a TreeMap; others might use an unmodifiable map
+         output.writeObject(summary.extensions instanceof SortedMap ? summary.extensions
+               : new TreeMap<>(summary.extensions));
+      }
+      return bytes.toByteArray();
+   }
+
+   private interface Record {
+      void write() throws IOException;
+   }
+
+   final class Series {
+      final int ordinal;
+      // rows appended, counted when queued
+      int rows;
+      // state used only when splitting the journal
+      long[] chunk;
+      ByteArrayOutputStream extensions;
+      long extensionsLength;
+      int written;
+
+      Series(int ordinal) {
+         this.ordinal = ordinal;
+      }
+
+      void read(DataInputStream input) throws IOException {
+         if (chunk == null) {
+            chunk = new long[COLUMNS * CHUNK];
+            extensions = new ByteArrayOutputStream();
+         }
+         int offset = written % CHUNK;
+         for (int column = 0; column < COLUMNS; ++column) {
+            chunk[column * CHUNK + offset] = input.readLong();
+         }
+         int length = input.readInt();
+         if (length > 0) {
+            chunk[EXTENSIONS * CHUNK + offset] = extensionsLength;
+            new DataOutputStream(extensions).writeInt(length);
+            extensions.write(input.readNBytes(length));
+            extensionsLength += Integer.BYTES + length;
+         }
+         ++written;
+      }
+
+      void flush(ByteBuffer buffer) throws IOException {
+         boolean first = written <= CHUNK;
+         buffer.clear();
+         buffer.asLongBuffer().put(chunk);
+         try (OutputStream output = append(seriesFile(ordinal), first)) {
+            output.write(buffer.array());
+         }
+         if (extensions.size() > 0) {
+            try (OutputStream output = append(extensionsFile(ordinal), extensionsLength == extensions.size())) {
+               extensions.writeTo(output);
+            }
+            extensions.reset();
+         }
+         Arrays.fill(chunk, 0);
+      }
+
+      private OutputStream append(String file, boolean truncate) throws IOException {
+         return Files.newOutputStream(dir.resolve(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+               truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+      }
+   }
+}
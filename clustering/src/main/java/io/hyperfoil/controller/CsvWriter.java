@@ -48,9 +48,9 @@ public class CsvWriter {
             writer.print(',');
             writer.print(data.metric);
             writer.print(',');
-            writer.print(data.total.histogram.getStartTimeStamp());
+            writer.print(data.total.histogram().getStartTimeStamp());
             writer.print(',');
-            writer.print(data.total.histogram.getEndTimeStamp());
+            writer.print(data.total.histogram().getEndTimeStamp());
             writer.print(',');
             data.total.summary(StatisticsStore.PERCENTILES).printTo(writer, extensionHeaders);
 
@@ -92,9 +92,9 @@ public class CsvWriter {
                writer.print(',');
                writer.print(data.metric);
                writer.print(',');
-               writer.print(data.total.histogram.getStartTimeStamp());
+               writer.print(data.total.histogram().getStartTimeStamp());
                writer.print(',');
-               writer.print(data.total.histogram.getEndTimeStamp());
+               writer.print(data.total.histogram().getEndTimeStamp());
                writer.print(',');
                agentStats.summary(StatisticsStore.PERCENTILES).printTo(writer, extensionHeaders);
 
@@ -202,7 +202,7 @@ public class CsvWriter {
          throws FileNotFoundException {
       if (total != null) {
          try (PrintStream stream = new PrintStream(new FileOutputStream(filePrefix + ".histogram.csv"))) {
-            total.histogram.outputPercentileDistribution(stream, 5, 1000_000.0, true);
+            total.histogram().outputPercentileDistribution(stream, 5, 1000_000.0, true);
          }
       }
       if (series != null) {
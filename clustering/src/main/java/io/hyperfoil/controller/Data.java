@@ -20,6 +20,9 @@ final class Data {
    // When we receive snapshot with order #N we will attempt to compact agent snapshots #(N-60)
    // We are delaying this because the statistics for outlier may come with a significant delay
    private static final int MERGE_DELAY = 60;
+   // Listeners receive period #N once all agents have sent data for a later period; agents that do not record
+   // this metric (or fell behind) do not hold back the stream for more than this number of periods.
+   private static final int LISTENER_DELAY = 3;
 
    private final StatisticsStore statisticsStore;
    final String phase;
@@ -35,7 +38,10 @@ final class Data {
    // floating statistics for SLAs
    private final Map<SLA, StatisticsStore.Window> windowSlas;
    private final SLA[] totalSlas;
+   ColumnarWriter.Series columns;
    private int highestSequenceId = 0;
+   private final Map<String, Integer> agentSequenceIds = new HashMap<>();
+   private int notifiedSequenceId = -1;
    private boolean completed;
 
    Data(StatisticsStore statisticsStore, String phase, boolean isWarmup, int stepId, String metric,
@@ -62,6 +68,7 @@ final class Data {
       } else {
          partialSnapshot.add(stats);
       }
+      agentSequenceIds.merge(agentName, stats.sequenceId, Math::max);
       while (stats.sequenceId > highestSequenceId) {
          ++highestSequenceId;
          int mergedSequenceId = highestSequenceId - MERGE_DELAY;
@@ -70,9 +77,44 @@ final class Data {
          }
          mergeSnapshots(mergedSequenceId);
       }
+      notifyCompletedPeriods();
       return true;
    }
 
+   private void notifyCompletedPeriods() {
+      int completedSequenceId = highestSequenceId - LISTENER_DELAY;
+      // benchmark without agents runs in a single in-VM agent
+      if (agentSequenceIds.size() >= Math.max(1, statisticsStore.benchmark().agents().length)) {
+         // Like in StatisticsStore.recentSummary() the last period of each agent is likely not completed
+         int lowestSequenceId = Integer.MAX_VALUE;
+         for (int sequenceId : agentSequenceIds.values()) {
+            lowestSequenceId = Math.min(lowestSequenceId, sequenceId);
+         }
+         completedSequenceId = Math.max(completedSequenceId, lowestSequenceId - 1);
+      }
+      // Listeners registered later receive only new periods
+      boolean notify = statisticsStore.hasListeners();
+      while (notifiedSequenceId < completedSequenceId) {
+         ++notifiedSequenceId;
+         if (notify) {
+            notifyListeners(notifiedSequenceId);
+         }
+      }
+   }
+
+   private void notifyListeners(int sequenceId) {
+      StatisticsSnapshot sum = new StatisticsSnapshot();
+      for (IntObjectMap<StatisticsSnapshot> snapshots : lastStats.values()) {
+         StatisticsSnapshot snapshot = snapshots.get(sequenceId);
+         if (snapshot != null) {
+            sum.add(snapshot);
+         }
+      }
+      if (!sum.isEmpty()) {
+         statisticsStore.notifyListeners(this, sum.summary(StatisticsStore.PERCENTILES));
+      }
+   }
+
    private void mergeSnapshots(int sequenceId) {
       StatisticsSnapshot sum = new StatisticsSnapshot();
       for (Map.Entry<String, IntObjectMap<StatisticsSnapshot>> entry : lastStats.entrySet()) {
@@ -84,7 +126,9 @@ final class Data {
          }
       }
       if (!sum.isEmpty()) {
-         series.add(sum.summary(StatisticsStore.PERCENTILES));
+         StatisticsSummary summary = sum.summary(StatisticsStore.PERCENTILES);
+         series.add(summary);
+         statisticsStore.appendSeries(this, summary);
       }
       for (Map.Entry<SLA, StatisticsStore.Window> entry : windowSlas.entrySet()) {
          SLA sla = entry.getKey();
@@ -101,6 +145,12 @@ final class Data {
    }
 
    void completePhase() {
+      // All agents have finished the phase, therefore all periods are completed
+      if (statisticsStore.hasListeners()) {
+         while (notifiedSequenceId < highestSequenceId) {
+            notifyListeners(++notifiedSequenceId);
+         }
+      }
       for (int i = Math.max(0, highestSequenceId - MERGE_DELAY); i <= highestSequenceId; ++i) {
          mergeSnapshots(i);
       }
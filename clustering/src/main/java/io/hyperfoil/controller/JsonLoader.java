@@ -28,8 +28,8 @@ public class JsonLoader {
       for (Object item : object.getJsonArray("failures")) {
          JsonObject failure = (JsonObject) item;
          StatisticsSnapshot snapshot = new StatisticsSnapshot();
-         snapshot.histogram.setStartTimeStamp(failure.getLong("start"));
-         snapshot.histogram.setEndTimeStamp(failure.getLong("end"));
+         snapshot.histogram().setStartTimeStamp(failure.getLong("start"));
+         snapshot.histogram().setEndTimeStamp(failure.getLong("end"));
          // ignoring percentiles
          store.addFailure(new SLA.Failure(null, failure.getString("phase"), failure.getString("metric"), snapshot,
                failure.getString("message")));
@@ -46,7 +46,7 @@ public class JsonLoader {
          loadSnapshot(stats.getJsonObject("total"), data.total);
          // We cannot use percentiles histogram since it always tells only upper bounds on the response time
          // and the results would be way of (at least for the first bucket)
-         loadHistogram(stats.getJsonObject("histogram").getJsonArray("linear"), data.total.histogram);
+         loadHistogram(stats.getJsonObject("histogram").getJsonArray("linear"), data.total.histogram());
          loadSeries(stats.getJsonArray("series"), data.series);
       }
 
@@ -78,7 +78,7 @@ public class JsonLoader {
                         m -> new Data(store, phase, isWarmup, 0, metric, Collections.emptyMap(), new SLA[0]));
             StatisticsSnapshot snapshot = new StatisticsSnapshot();
             loadSnapshot(stats.getJsonObject("total"), snapshot);
-            loadHistogram(stats.getJsonObject("histogram").getJsonArray("linear"), snapshot.histogram);
+            loadHistogram(stats.getJsonObject("histogram").getJsonArray("linear"), snapshot.histogram());
             data.perAgent.put(name, snapshot);
             loadSeries(stats.getJsonArray("series"), data.agentSeries.computeIfAbsent(name, a -> new ArrayList<>()));
          }
@@ -115,8 +115,8 @@ public class JsonLoader {
    }
 
    private static void loadSnapshot(JsonObject object, StatisticsSnapshot total) {
-      total.histogram.setStartTimeStamp(object.getLong("start"));
-      total.histogram.setEndTimeStamp(object.getLong("end"));
+      total.histogram().setStartTimeStamp(object.getLong("start"));
+      total.histogram().setEndTimeStamp(object.getLong("end"));
       JsonObject summary = object.getJsonObject("summary");
       total.requestCount = summary.getInteger("requestCount");
       total.responseCount = summary.getInteger("responseCount");
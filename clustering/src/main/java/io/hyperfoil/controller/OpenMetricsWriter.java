@@ -0,0 +1,213 @@
+package io.hyperfoil.controller;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.core.util.LowHigh;
+
+/**
+ * Renders statistics in the <a href="https://openmetrics.io">OpenMetrics</a> text format (compatible with Prometheus).
+ * <p>
+ * All samples of one metric family must be written contiguously, therefore the caller writes the header
+ * of a family using {@link #family(String, String, String, String)} and then samples for all runs/agents.
+ * The instance can be reused for subsequent exports after calling {@link #reset()}.
+ */
+public class OpenMetricsWriter {
+   public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+   private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+   private final StringBuilder sb = new StringBuilder(4096);
+
+   public OpenMetricsWriter reset() {
+      sb.setLength(0);
+      return this;
+   }
+
+   /**
+    * @param name Name of the metric family; for counters this is the name without the <code>_total</code> suffix.
+    * @param type One of <code>counter</code>, <code>gauge</code>, <code>summary</code>...
+    * @param unit Unit (must be a suffix of the name) or <code>null</code>.
+    * @param help Description of the family.
+    */
+   public OpenMetricsWriter family(String name, String type, String unit, String help) {
+      sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+      if (unit != null) {
+         sb.append("# UNIT ").append(name).append(' ').append(unit).append('\n');
+      }
+      sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+      return this;
+   }
+
+   /**
+    * @param labels Alternating label names and values.
+    */
+   public OpenMetricsWriter sample(String name, long value, String... labels) {
+      labels(name, labels);
+      sb.append(value).append('\n');
+      return this;
+   }
+
+   public OpenMetricsWriter sample(String name, double value, String... labels) {
+      labels(name, labels);
+      sb.append(value).append('\n');
+      return this;
+   }
+
+   private void labels(String name, String[] labels) {
+      sb.append(name);
+      if (labels.length > 0) {
+         sb.append('{');
+         for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+               sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"");
+            escape(labels[i + 1]);
+            sb.append('"');
+         }
+         sb.append('}');
+      }
+      sb.append(' ');
+   }
+
+   private void escape(String value) {
+      for (int i = 0; i < value.length(); ++i) {
+         char c = value.charAt(i);
+         switch (c) {
+            case '\\':
+               sb.append("\\\\");
+               break;
+            case '"':
+               sb.append("\\\"");
+               break;
+            case '\n':
+               sb.append("\\n");
+               break;
+            default:
+               sb.append(c);
+         }
+      }
+   }
+
+   /**
+    * Writes request statistics and session/connection pool gauges of running benchmarks.
+    *
+    * @param stores Statistics by run ID.
+    */
+   public OpenMetricsWriter writeStatistics(Map<String, StatisticsStore> stores) {
+      Map<String, Data[]> sorted = new TreeMap<>();
+      stores.forEach((runId, store) -> {
+         Data[] data = store.data.values().stream().flatMap(map -> map.values().stream()).toArray(Data[]::new);
+         Arrays.sort(data,
+               Comparator.comparing((Data d) -> d.phase).thenComparing(d -> d.metric).thenComparingInt(d -> d.stepId));
+         sorted.put(runId, data);
+      });
+
+      family("hyperfoil_requests", "counter", null, "Number of requests sent.");
+      forEachData(stores, sorted, (labels, total) -> sample("hyperfoil_requests_total", total.requestCount, labels));
+      family("hyperfoil_responses", "counter", null, "Number of responses received.");
+      forEachData(stores, sorted, (labels, total) -> sample("hyperfoil_responses_total", total.responseCount, labels));
+      family("hyperfoil_errors", "counter", null, "Number of failed requests by the type of error.");
+      forEachData(stores, sorted, (labels, total) -> {
+         sample("hyperfoil_errors_total", total.connectionErrors, with(labels, "type", "connection"));
+         sample("hyperfoil_errors_total", total.requestTimeouts, with(labels, "type", "timeout"));
+         sample("hyperfoil_errors_total", total.internalErrors, with(labels, "type", "internal"));
+         sample("hyperfoil_errors_total", total.invalid, with(labels, "type", "invalid"));
+      });
+      family("hyperfoil_blocked_time_seconds", "counter", "seconds",
+            "Time spent waiting for a connection or session when the requests could not be sent.");
+      forEachData(stores, sorted, (labels, total) -> sample("hyperfoil_blocked_time_seconds_total",
+            total.blockedTime / NANOS_PER_SECOND, labels));
+      family("hyperfoil_response_time_seconds", "summary", "seconds", "Response time since the start of the phase.");
+      forEachData(stores, sorted, (labels, total) -> {
+         long count = total.histogram().getTotalCount();
+         for (double percentile : StatisticsStore.PERCENTILES) {
+            sample("hyperfoil_response_time_seconds",
+                  total.histogram().getValueAtPercentile(percentile) / NANOS_PER_SECOND,
+                  with(labels, "quantile", String.valueOf(percentile / 100)));
+         }
+         sample("hyperfoil_response_time_seconds_count", count, labels);
+         sample("hyperfoil_response_time_seconds_sum", total.histogram().getMean() * count / NANOS_PER_SECOND, labels);
+      });
+
+      family("hyperfoil_agent_sessions_min", "gauge", null, "Minimum number of used sessions in the last period.");
+      forEachSessionRecord(stores, (labels, record) -> sample("hyperfoil_agent_sessions_min", record.low, labels));
+      family("hyperfoil_agent_sessions_max", "gauge", null, "Maximum number of used sessions in the last period.");
+      forEachSessionRecord(stores, (labels, record) -> sample("hyperfoil_agent_sessions_max", record.high, labels));
+      family("hyperfoil_agent_connections_min", "gauge", null, "Minimum number of connections in the last period.");
+      forEachConnectionRecord(stores, (labels, record) -> sample("hyperfoil_agent_connections_min", record.low, labels));
+      family("hyperfoil_agent_connections_max", "gauge", null, "Maximum number of connections in the last period.");
+      forEachConnectionRecord(stores, (labels, record) -> sample("hyperfoil_agent_connections_max", record.high, labels));
+      return this;
+   }
+
+   private void forEachData(Map<String, StatisticsStore> stores, Map<String, Data[]> sorted,
+         SampleWriter<StatisticsSnapshot> writer) {
+      sorted.forEach((runId, data) -> {
+         String benchmark = stores.get(runId).benchmark().name();
+         for (Data d : data) {
+            writer.write(new String[] { "run", runId, "benchmark", benchmark, "phase", d.phase,
+                  "step", String.valueOf(d.stepId), "metric", d.metric }, d.total);
+         }
+      });
+   }
+
+   private void forEachSessionRecord(Map<String, StatisticsStore> stores, SampleWriter<LowHigh> writer) {
+      stores.forEach((runId, store) -> {
+         for (var byPhase : store.sessionPoolStats.entrySet()) {
+            for (var byAgent : byPhase.getValue().records.entrySet()) {
+               List<StatisticsStore.SessionPoolRecord> records = byAgent.getValue();
+               if (!records.isEmpty()) {
+                  writer.write(new String[] { "run", runId, "phase", byPhase.getKey(), "agent", byAgent.getKey() },
+                        records.get(records.size() - 1));
+               }
+            }
+         }
+      });
+   }
+
+   private void forEachConnectionRecord(Map<String, StatisticsStore> stores, SampleWriter<LowHigh> writer) {
+      stores.forEach((runId, store) -> {
+         for (var byAuthority : store.connectionPoolStats.entrySet()) {
+            for (var byType : byAuthority.getValue().entrySet()) {
+               for (var byAgent : byType.getValue().entrySet()) {
+                  List<StatisticsStore.ConnectionPoolStats> records = byAgent.getValue();
+                  if (!records.isEmpty()) {
+                     writer.write(new String[] { "run", runId, "authority", byAuthority.getKey(), "type", byType.getKey(),
+                           "agent", byAgent.getKey() }, records.get(records.size() - 1));
+                  }
+               }
+            }
+         }
+      });
+   }
+
+   private static String[] with(String[] labels, String name, String value) {
+      String[] copy = Arrays.copyOf(labels, labels.length + 2);
+      copy[labels.length] = name;
+      copy[labels.length + 1] = value;
+      return copy;
+   }
+
+   /**
+    * Terminates the exposition; no more samples can be written.
+    */
+   public OpenMetricsWriter eof() {
+      sb.append("# EOF\n");
+      return this;
+   }
+
+   @Override
+   public String toString() {
+      return sb.toString();
+   }
+
+   @FunctionalInterface
+   private interface SampleWriter<T> {
+      void write(String[] labels, T value);
+   }
+}
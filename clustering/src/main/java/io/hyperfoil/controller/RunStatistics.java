@@ -0,0 +1,33 @@
+package io.hyperfoil.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import io.hyperfoil.api.statistics.StatisticsSummary;
+import io.hyperfoil.controller.model.Histogram;
+import io.hyperfoil.controller.model.RequestStats;
+import io.hyperfoil.core.util.LowHigh;
+
+/**
+ * Read-only view of run statistics, served either from the {@link StatisticsStore} of a run kept in memory
+ * or from the {@link ColumnarStatistics columnar files} of a persisted run.
+ */
+public interface RunStatistics {
+   List<RequestStats> recentSummary(long minValidTimestamp);
+
+   List<RequestStats> totalSummary();
+
+   Histogram histogram(String phase, int stepId, String metric);
+
+   List<StatisticsSummary> series(String phase, int stepId, String metric);
+
+   Map<String, Map<String, LowHigh>> recentSessionPoolSummary(long minValidTimestamp);
+
+   Map<String, Map<String, LowHigh>> totalSessionPoolSummary();
+
+   Map<String, Map<String, LowHigh>> recentConnectionsSummary();
+
+   Map<String, Map<String, LowHigh>> totalConnectionsSummary();
+
+   Map<String, Map<String, String>> cpuUsage();
+}
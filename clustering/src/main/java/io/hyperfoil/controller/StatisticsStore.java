@@ -1,5 +1,7 @@
 package io.hyperfoil.controller;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -10,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalInt;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -24,9 +27,9 @@ import io.hyperfoil.controller.model.Histogram;
 import io.hyperfoil.controller.model.RequestStats;
 import io.hyperfoil.core.util.LowHigh;
 
-public class StatisticsStore {
+public class StatisticsStore implements RunStatistics {
    static final double[] PERCENTILES = new double[] { 50, 90, 99, 99.9, 99.99 };
-   private static final Comparator<RequestStats> REQUEST_STATS_COMPARATOR = Comparator
+   static final Comparator<RequestStats> REQUEST_STATS_COMPARATOR = Comparator
          .<RequestStats, Long> comparing(rs -> rs.summary.startTime)
          .thenComparing(rs -> rs.phase).thenComparing(rs -> rs.metric);
 
@@ -39,6 +42,8 @@ public class StatisticsStore {
    final Map<String, SessionPoolStats> sessionPoolStats = new HashMap<>();
    final Map<String, Map<String, Map<String, List<ConnectionPoolStats>>>> connectionPoolStats = new HashMap<>();
    final Map<String, Map<String, String>> cpuUsage = new HashMap<>();
+   private ColumnarWriter columnarWriter;
+   private final List<Consumer<RequestStats>> listeners = new ArrayList<>();
 
    public StatisticsStore(Benchmark benchmark, Consumer<SLA.Failure> failureHandler) {
       this.benchmark = benchmark;
@@ -53,6 +58,34 @@ public class StatisticsStore {
             }));
    }
 
+   public Benchmark benchmark() {
+      return benchmark;
+   }
+
+   /**
+    * Start writing statistics into files that can be later read using {@link ColumnarStatistics}.
+    * This should be invoked before recording any data.
+    *
+    * @param dir Directory for the files.
+    * @param executor Executor that performs the writes; the tasks might block.
+    * @throws IOException When the directory cannot be created.
+    */
+   public void writeColumns(Path dir, Executor executor) throws IOException {
+      columnarWriter = new ColumnarWriter(dir, executor);
+   }
+
+   /**
+    * Write the remaining files (index, histograms) once all data has been recorded.
+    *
+    * @throws IOException When the files cannot be written.
+    */
+   public void completeColumns() throws IOException {
+      if (columnarWriter != null) {
+         columnarWriter.complete(this);
+         columnarWriter = null;
+      }
+   }
+
    public boolean record(String agentName, int phaseId, int stepId, String metric, StatisticsSnapshot stats) {
       Map<String, Data> map = this.data.computeIfAbsent((phaseId << 16) + stepId, phaseStep -> new HashMap<>());
       Data data = map.get(metric);
@@ -77,8 +110,8 @@ public class StatisticsStore {
 
    public void addFailure(String phase, String metric, long startTimestamp, long endTimestamp, String cause) {
       StatisticsSnapshot statistics = new StatisticsSnapshot();
-      statistics.histogram.setStartTimeStamp(startTimestamp);
-      statistics.histogram.setEndTimeStamp(endTimestamp);
+      statistics.histogram().setStartTimeStamp(startTimestamp);
+      statistics.histogram().setEndTimeStamp(endTimestamp);
       failures.add(new SLA.Failure(null, phase, metric, statistics, cause));
    }
 
@@ -92,6 +125,40 @@ public class StatisticsStore {
       }
    }
 
+   /**
+    * Register listener that receives statistics for each metric once per statistics collection period,
+    * as soon as all agents have sent data for the next period (not waiting for merging all agents' data into the series).
+    * An agent that does not send data for a metric delays the period by a few collection periods at most.
+    */
+   public void addListener(Consumer<RequestStats> listener) {
+      listeners.add(listener);
+   }
+
+   public void removeListener(Consumer<RequestStats> listener) {
+      listeners.remove(listener);
+   }
+
+   boolean hasListeners() {
+      return !listeners.isEmpty();
+   }
+
+   void notifyListeners(Data data, StatisticsSummary summary) {
+      List<String> failures = this.failures.stream()
+            .filter(f -> f.phase().equals(data.phase) && (f.metric() == null || f.metric().equals(data.metric)))
+            .map(SLA.Failure::message).collect(Collectors.toList());
+      RequestStats stats = new RequestStats(data.phase, data.stepId, data.metric, summary, failures, data.isWarmup);
+      // copy to allow listeners to unregister
+      for (Consumer<RequestStats> listener : List.copyOf(listeners)) {
+         listener.accept(stats);
+      }
+   }
+
+   void appendSeries(Data data, StatisticsSummary summary) {
+      if (columnarWriter != null) {
+         columnarWriter.appendSeries(data, summary);
+      }
+   }
+
    public void completeAll(Consumer<String> errorHandler) {
       for (Map<String, Data> m : this.data.values()) {
          for (Data data : m.values()) {
@@ -113,8 +180,8 @@ public class StatisticsStore {
       for (Map<String, Data> m : this.data.values()) {
          for (Data data : m.values()) {
             if (data.phase.equals(phase)) {
-               data.total.histogram.setStartTimeStamp(Math.min(start, data.total.histogram.getStartTimeStamp()));
-               data.total.histogram.setEndTimeStamp(Math.max(completion, data.total.histogram.getEndTimeStamp()));
+               data.total.histogram().setStartTimeStamp(Math.min(start, data.total.histogram().getStartTimeStamp()));
+               data.total.histogram().setEndTimeStamp(Math.max(completion, data.total.histogram().getEndTimeStamp()));
             }
          }
       }
@@ -124,6 +191,7 @@ public class StatisticsStore {
       return failures.isEmpty();
    }
 
+   @Override
    public List<RequestStats> recentSummary(long minValidTimestamp) {
       ArrayList<RequestStats> result = new ArrayList<>();
       for (Map<String, Data> m : this.data.values()) {
@@ -138,7 +206,7 @@ public class StatisticsStore {
             StatisticsSnapshot sum = new StatisticsSnapshot();
             data.lastStats.values().stream().map(map -> map.get(penultimateId))
                   .filter(Objects::nonNull).forEach(sum::add);
-            if (sum.isEmpty() || sum.histogram.getStartTimeStamp() < minValidTimestamp) {
+            if (sum.isEmpty() || sum.histogram().getStartTimeStamp() < minValidTimestamp) {
                continue;
             }
             List<String> failures = this.failures.stream()
@@ -152,6 +220,7 @@ public class StatisticsStore {
       return result;
    }
 
+   @Override
    public List<RequestStats> totalSummary() {
       ArrayList<RequestStats> result = new ArrayList<>();
       for (Map<String, Data> m : this.data.values()) {
@@ -167,14 +236,16 @@ public class StatisticsStore {
       return result;
    }
 
+   @Override
    public Histogram histogram(String phase, int stepId, String metric) {
       Data data = getData(phase, stepId, metric);
       if (data == null) {
          return null;
       }
-      return HistogramConverter.convert(phase, metric, data.total.histogram);
+      return HistogramConverter.convert(phase, metric, data.total.histogram());
    }
 
+   @Override
    public List<StatisticsSummary> series(String phase, int stepId, String metric) {
       Data data = getData(phase, stepId, metric);
       if (data == null) {
@@ -196,8 +267,12 @@ public class StatisticsStore {
       SessionPoolStats sps = this.sessionPoolStats.computeIfAbsent(phase, p -> new SessionPoolStats());
       sps.records.computeIfAbsent(address, a -> new ArrayList<>())
             .add(new SessionPoolRecord(timestamp, minSessions, maxSessions));
+      if (columnarWriter != null) {
+         columnarWriter.appendSession(phase, address, timestamp, minSessions, maxSessions);
+      }
    }
 
+   @Override
    public Map<String, Map<String, LowHigh>> recentSessionPoolSummary(long minValidTimestamp) {
       return sessionPoolSummary(records -> {
          SessionPoolRecord record = records.get(records.size() - 1);
@@ -205,6 +280,7 @@ public class StatisticsStore {
       });
    }
 
+   @Override
    public Map<String, Map<String, LowHigh>> totalSessionPoolSummary() {
       return sessionPoolSummary(records -> {
          int low = records.stream().mapToInt(r -> r.low).min().orElse(0);
@@ -242,10 +318,15 @@ public class StatisticsStore {
             var agentData = typeData.computeIfAbsent(address, a -> new ArrayList<>());
             LowHigh value = byType.getValue();
             agentData.add(new ConnectionPoolStats(timestamp, value.low, value.high));
+            if (columnarWriter != null) {
+               columnarWriter.appendConnections(byAuthority.getKey(), byType.getKey(), address, timestamp, value.low,
+                     value.high);
+            }
          }
       }
    }
 
+   @Override
    public Map<String, Map<String, LowHigh>> recentConnectionsSummary() {
       Map<String, Map<String, LowHigh>> summary = new HashMap<>();
       long minTimestamp = System.currentTimeMillis() - 5000;
@@ -267,6 +348,7 @@ public class StatisticsStore {
       return summary;
    }
 
+   @Override
    public Map<String, Map<String, LowHigh>> totalConnectionsSummary() {
       Map<String, Map<String, LowHigh>> summary = new HashMap<>();
       for (var byAuthority : connectionPoolStats.entrySet()) {
@@ -291,6 +373,7 @@ public class StatisticsStore {
       cpuUsage.computeIfAbsent(phase, p -> new HashMap<>()).putIfAbsent(agentName, usage);
    }
 
+   @Override
    public Map<String, Map<String, String>> cpuUsage() {
       return cpuUsage;
    }
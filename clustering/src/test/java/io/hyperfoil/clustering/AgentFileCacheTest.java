@@ -0,0 +1,225 @@
+package io.hyperfoil.clustering;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.config.BenchmarkData;
+import io.hyperfoil.api.config.MappedFiles;
+import io.hyperfoil.clustering.messages.AgentControlMessageCodecTest;
+import io.hyperfoil.clustering.messages.FileChunkRequest;
+import io.hyperfoil.clustering.util.FileDigests;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+@ExtendWith(VertxExtension.class)
+public class AgentFileCacheTest {
+   private static final String RUN_ID = "0000";
+   // spans several chunks and does not end on a chunk boundary
+   private static final byte[] CONTENT = new byte[2 * AgentFileCache.CHUNK_SIZE + 1234];
+
+   static {
+      ThreadLocalRandom.current().nextBytes(CONTENT);
+   }
+
+   private Vertx vertx;
+   private Map<String, byte[]> served;
+   private Handler<Message<Object>> handler;
+   private final AtomicInteger requests = new AtomicInteger();
+
+   @BeforeEach
+   public void before(Vertx vertx) {
+      this.vertx = vertx;
+      Codecs.register(vertx);
+      // The same handler serves the files on controller
+      handler = new FileChunkHandler(vertx, runId -> RUN_ID.equals(runId)
+            ? FileChunkHandler.Distribution.of(served, FileDigests.digests(served))
+            : null);
+      vertx.eventBus().consumer(Feeds.FILES, message -> {
+         requests.incrementAndGet();
+         handler.handle(message);
+      });
+   }
+
+   @Test
+   public void testFetchAndReuse(@TempDir Path dir, VertxTestContext ctx) {
+      served = Map.of("data.csv", CONTENT);
+      Benchmark first = AgentControlMessageCodecTest.roundTrip(AgentControlMessageCodecTest.benchmarkWithFile(CONTENT));
+      List<Long> progress = new ArrayList<>();
+      new AgentFileCache(vertx, RUN_ID, dir, Long.MAX_VALUE)
+            .onProgress((filesReady, filesTotal, bytesFetched) -> {
+               assertEquals(1, filesTotal);
+               progress.add(bytesFetched);
+            })
+            .attach(first)
+            .<Benchmark> compose(nil -> {
+               ctx.verify(() -> {
+                  assertContent(first);
+                  assertEquals(3, requests.get());
+                  // the final report is never throttled
+                  assertEquals((long) CONTENT.length, progress.get(progress.size() - 1));
+                  assertEquals(List.of(dir.resolve(FileDigests.digest(CONTENT))), list(dir));
+               });
+               // The controller does not have the file anymore but the agent should not ask for it
+               served = Map.of();
+               Benchmark second = AgentControlMessageCodecTest
+                     .roundTrip(AgentControlMessageCodecTest.benchmarkWithFile(CONTENT));
+               return new AgentFileCache(vertx, "0001", dir, Long.MAX_VALUE).attach(second).map(second);
+            })
+            .onComplete(ctx.succeeding(second -> ctx.verify(() -> {
+               assertContent(second);
+               assertEquals(3, requests.get());
+               ctx.completeNow();
+            })));
+   }
+
+   @Test
+   public void testFetchFromDisk(@TempDir Path dir, VertxTestContext ctx) throws IOException {
+      // Files the controller reads from disk are not loaded to heap
+      Path source = Files.createDirectory(dir.resolve("source")).resolve("data.csv");
+      Files.write(source, CONTENT);
+      served = new MappedFiles(Map.of("data.csv", source.toString()));
+      Path cache = dir.resolve("cache");
+      Benchmark benchmark = AgentControlMessageCodecTest
+            .roundTrip(AgentControlMessageCodecTest.benchmarkWithFile(CONTENT));
+      new AgentFileCache(vertx, RUN_ID, cache, Long.MAX_VALUE).attach(benchmark)
+            .onComplete(ctx.succeeding(nil -> ctx.verify(() -> {
+               assertContent(benchmark);
+               assertEquals(3, requests.get());
+               ctx.completeNow();
+            })));
+   }
+
+   @Test
+   public void testMappedFilesKeepMapping(@TempDir Path dir, VertxTestContext ctx) throws IOException {
+      // Agent in the same JVM as the controller uses the files directly
+      Path source = dir.resolve("data.csv");
+      Files.write(source, CONTENT);
+      MappedFiles files = new MappedFiles(Map.of("data.csv", source.toString()));
+      BenchmarkBuilder builder = BenchmarkBuilder.builder().name("files").data(new BenchmarkData() {
+         @Override
+         public InputStream readFile(String file) {
+            throw new MissingFileException(file);
+         }
+
+         @Override
+         public Map<String, byte[]> files() {
+            return files;
+         }
+      });
+      builder.addPhase("test").atOnce(1).scenario().initialSequence("noop").step(session -> true).endSequence();
+      Benchmark benchmark = builder.build();
+      new AgentFileCache(vertx, RUN_ID, dir.resolve("cache"), Long.MAX_VALUE).attach(benchmark)
+            .onComplete(ctx.succeeding(nil -> ctx.verify(() -> {
+               // replacing the file does not change the content nor the digest served to other agents
+               Path replacement = dir.resolve("replacement.csv");
+               Files.write(replacement, new byte[] { 1, 2, 3 });
+               Files.move(replacement, source, StandardCopyOption.REPLACE_EXISTING);
+               assertContent(benchmark);
+               assertEquals(FileDigests.digest(CONTENT), files.digest("data.csv"));
+               ctx.completeNow();
+            })));
+   }
+
+   @Test
+   public void testDigestMismatch(@TempDir Path dir, VertxTestContext ctx) {
+      byte[] corrupted = CONTENT.clone();
+      corrupted[corrupted.length / 2]++;
+      handler = message -> {
+         FileChunkRequest request = (FileChunkRequest) message.body();
+         int offset = (int) Math.min(request.offset(), corrupted.length);
+         int length = Math.min(request.length(), corrupted.length - offset);
+         message.reply(Buffer.buffer(length).appendBytes(corrupted, offset, length));
+      };
+      Benchmark benchmark = AgentControlMessageCodecTest
+            .roundTrip(AgentControlMessageCodecTest.benchmarkWithFile(CONTENT));
+      new AgentFileCache(vertx, RUN_ID, dir, Long.MAX_VALUE).attach(benchmark)
+            .onComplete(ctx.failing(t -> ctx.verify(() -> {
+               assertTrue(t.getMessage().contains("does not match digest"), t.getMessage());
+               // neither the temporary nor the final file is left behind
+               assertEquals(List.of(), list(dir));
+               ctx.completeNow();
+            })));
+   }
+
+   @Test
+   public void testCorruptedCacheIsFetchedAgain(@TempDir Path dir, VertxTestContext ctx) throws IOException {
+      served = Map.of("data.csv", CONTENT);
+      Path cached = dir.resolve(FileDigests.digest(CONTENT));
+      Files.write(cached, new byte[] { 1, 2, 3 });
+      Benchmark benchmark = AgentControlMessageCodecTest
+            .roundTrip(AgentControlMessageCodecTest.benchmarkWithFile(CONTENT));
+      new AgentFileCache(vertx, RUN_ID, dir, Long.MAX_VALUE).attach(benchmark)
+            .onComplete(ctx.succeeding(nil -> ctx.verify(() -> {
+               assertContent(benchmark);
+               assertArrayEquals(CONTENT, Files.readAllBytes(cached));
+               ctx.completeNow();
+            })));
+   }
+
+   @Test
+   public void testUnknownRun(@TempDir Path dir, VertxTestContext ctx) {
+      served = Map.of("data.csv", CONTENT);
+      Benchmark benchmark = AgentControlMessageCodecTest
+            .roundTrip(AgentControlMessageCodecTest.benchmarkWithFile(CONTENT));
+      new AgentFileCache(vertx, "9999", dir, Long.MAX_VALUE).attach(benchmark)
+            .onComplete(ctx.failing(t -> ctx.verify(() -> {
+               assertTrue(t.getMessage().contains("No file"), t.getMessage());
+               assertEquals(List.of(), list(dir));
+               ctx.completeNow();
+            })));
+   }
+
+   @Test
+   public void testEviction(@TempDir Path dir) throws IOException {
+      long now = System.currentTimeMillis();
+      for (int i = 0; i < 4; ++i) {
+         Path file = dir.resolve("file" + i);
+         Files.write(file, new byte[100]);
+         Files.setLastModifiedTime(file, FileTime.fromMillis(now - 1000 * (4 - i)));
+      }
+      // file0 is the least recently used but it's used by current benchmark
+      new AgentFileCache(vertx, RUN_ID, dir, 250).evict(List.of("file0"));
+      assertEquals(Set.of(dir.resolve("file0"), dir.resolve("file3")), Set.copyOf(list(dir)));
+   }
+
+   private static void assertContent(Benchmark benchmark) {
+      ByteBuffer[] segments = benchmark.fileSegments("data.csv");
+      assertEquals(1, segments.length);
+      byte[] bytes = new byte[segments[0].remaining()];
+      segments[0].get(bytes);
+      assertArrayEquals(CONTENT, bytes);
+   }
+
+   private static List<Path> list(Path dir) throws IOException {
+      try (Stream<Path> stream = Files.list(dir)) {
+         return stream.toList();
+      }
+   }
+}
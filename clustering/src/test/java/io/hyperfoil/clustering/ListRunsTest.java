@@ -0,0 +1,38 @@
+package io.hyperfoil.clustering;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.Benchmark;
+
+public class ListRunsTest {
+   @Test
+   public void testMostRecentFirst() {
+      Run first = completedRun("0009", "foo");
+      Run second = completedRun("000A", "bar");
+      Run third = completedRun("0100", "foo");
+      Run running = new Run("0101", Path.of("0101"), Benchmark.empty("foo", Map.of()));
+      List<Run> runs = List.of(second, running, first, third);
+
+      assertEquals(List.of("0101", "0100", "000A", "0009"), ids(ControllerServer.matchingRuns(runs, null, null)));
+      assertEquals(List.of("0100", "0009"), ids(ControllerServer.matchingRuns(runs, "foo", "COMPLETED")));
+      assertEquals(List.of("0101"), ids(ControllerServer.matchingRuns(runs, null, "running")));
+   }
+
+   private static Run completedRun(String id, String benchmark) {
+      Run run = new Run(id, Path.of(id), Benchmark.empty(benchmark, Map.of()));
+      run.completed = true;
+      run.terminateTime.complete(0L);
+      return run;
+   }
+
+   private static List<String> ids(List<Run> runs) {
+      return runs.stream().map(r -> r.id).collect(Collectors.toList());
+   }
+}
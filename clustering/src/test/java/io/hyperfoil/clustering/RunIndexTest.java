@@ -0,0 +1,76 @@
+package io.hyperfoil.clustering;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.vertx.core.json.JsonObject;
+
+public class RunIndexTest {
+   @Test
+   public void testLastEntryWins(@TempDir Path dir) throws IOException {
+      RunIndex index = new RunIndex(dir);
+      assertFalse(index.exists());
+      index.append(new JsonObject().put("id", "0000").put("benchmark", "foo"));
+      index.append(new JsonObject().put("id", "0001").put("benchmark", "bar"));
+      index.append(new JsonObject().put("id", "0000").put("benchmark", "foo").put("terminateTime", 42L));
+      assertTrue(index.exists());
+
+      Map<String, JsonObject> entries = new RunIndex(dir).load(Set.of("0000", "0001"));
+      assertEquals(List.of("0000", "0001"), List.copyOf(entries.keySet()));
+      assertEquals(42L, entries.get("0000").getLong("terminateTime"));
+   }
+
+   @Test
+   public void testIgnoreTruncatedLine(@TempDir Path dir) throws IOException {
+      RunIndex index = new RunIndex(dir);
+      index.append(new JsonObject().put("id", "0000"));
+      Files.writeString(dir.resolve(RunIndex.FILE), "{\"id\":\"0001\",\"bench", StandardOpenOption.APPEND);
+      assertEquals(1, index.load(Set.of("0000", "0001")).size());
+   }
+
+   @Test
+   public void testCompaction(@TempDir Path dir) throws IOException {
+      RunIndex index = new RunIndex(dir);
+      for (int i = 0; i < 200; ++i) {
+         index.append(new JsonObject().put("id", "0000").put("iteration", i));
+      }
+      assertEquals(199, index.load(Set.of("0000")).get("0000").getInteger("iteration"));
+      assertEquals(1, Files.readAllLines(dir.resolve(RunIndex.FILE)).size());
+   }
+
+   @Test
+   public void testDropDeletedRuns(@TempDir Path dir) throws IOException {
+      RunIndex index = new RunIndex(dir);
+      index.append(new JsonObject().put("id", "0000"));
+      index.append(new JsonObject().put("id", "0001"));
+      Files.createDirectories(dir.resolve("0001"));
+      Map<String, JsonObject> entries = index.load(Set.copyOf(index.listRunIds()));
+      assertEquals(List.of("0001"), List.copyOf(entries.keySet()));
+      // the stale entry is removed from the file as well
+      assertEquals(1, Files.readAllLines(dir.resolve(RunIndex.FILE)).size());
+   }
+
+   @Test
+   public void testListRunIds(@TempDir Path dir) throws IOException {
+      RunIndex index = new RunIndex(dir);
+      index.append(new JsonObject().put("id", "0000"));
+      Files.createDirectories(dir.resolve("0000"));
+      // not indexed, e.g. copied from another controller
+      Files.createDirectories(dir.resolve("002A"));
+      Files.createDirectories(dir.resolve("not-a-run"));
+      Files.writeString(dir.resolve("0003"), "not a directory");
+      assertEquals(List.of("0000", "002A"), index.listRunIds());
+   }
+}
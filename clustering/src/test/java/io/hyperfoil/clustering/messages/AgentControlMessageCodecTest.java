@@ -0,0 +1,71 @@
+package io.hyperfoil.clustering.messages;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.config.ContentAddressedFiles;
+import io.hyperfoil.api.config.Phase;
+import io.hyperfoil.clustering.util.FileDigests;
+import io.hyperfoil.core.impl.ProvidedBenchmarkData;
+import io.vertx.core.buffer.Buffer;
+
+public class AgentControlMessageCodecTest {
+   private static final byte[] CONTENT = "foo,bar\n".getBytes(StandardCharsets.UTF_8);
+
+   public static Benchmark benchmarkWithFile(byte[] content) {
+      // @formatter:off
+      BenchmarkBuilder builder = BenchmarkBuilder.builder()
+            .name("files")
+            .data(new ProvidedBenchmarkData(Map.of("data.csv", content)));
+      builder.addPhase("test").atOnce(1)
+            .scenario()
+               .initialSequence("noop")
+                  .step(session -> true)
+               .endSequence();
+      // @formatter:on
+      return builder.build();
+   }
+
+   public static Benchmark roundTrip(Benchmark benchmark) {
+      AgentControlMessage message = AgentControlMessage.initialize(0, benchmark,
+            FileDigests.digests(benchmark.files()));
+      Buffer buffer = Buffer.buffer();
+      new AgentControlMessage.Codec().encodeToWire(buffer, message);
+      return new AgentControlMessage.Codec().decodeFromWire(0, buffer).benchmark();
+   }
+
+   @Test
+   public void testFilesReplacedWithDigests() {
+      Benchmark benchmark = benchmarkWithFile(CONTENT);
+      Benchmark decoded = roundTrip(benchmark);
+
+      ContentAddressedFiles files = assertInstanceOf(ContentAddressedFiles.class, decoded.files());
+      assertEquals(Map.of("data.csv", FileDigests.digest(CONTENT)), files.digests());
+      // Phases reference the benchmark, too; they must see the same replacement
+      for (Phase phase : decoded.phases()) {
+         assertSame(decoded.files(), phase.benchmark().files());
+      }
+      // The original benchmark is intact
+      assertSame(CONTENT, benchmark.files().get("data.csv"));
+   }
+
+   @Test
+   public void testNoDigestsKeepsContent() {
+      Benchmark benchmark = benchmarkWithFile(CONTENT);
+      Buffer buffer = Buffer.buffer();
+      new AgentControlMessage.Codec().encodeToWire(buffer, AgentControlMessage.initialize(0, benchmark, Map.of()));
+      Benchmark decoded = new AgentControlMessage.Codec().decodeFromWire(0, buffer).benchmark();
+      assertFalse(decoded.files() instanceof ContentAddressedFiles);
+      assertArrayEquals(CONTENT, decoded.files().get("data.csv"));
+   }
+}
@@ -0,0 +1,82 @@
+package io.hyperfoil.clustering.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.statistics.Counters;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.vertx.core.buffer.Buffer;
+
+public class RequestStatsMessageCodecTest {
+   private static final int METRICS = 20;
+
+   @Test
+   public void testRoundTrip() {
+      RequestStatsMessage.Entry[] entries = new RequestStatsMessage.Entry[METRICS + 1];
+      for (int i = 0; i < METRICS; ++i) {
+         entries[i] = new RequestStatsMessage.Entry(1, i, "metric-" + (i % 5), snapshot(i));
+      }
+      // phase completion entry
+      entries[METRICS] = new RequestStatsMessage.Entry(1, -1, null, null);
+      RequestStatsMessage msg = new RequestStatsMessage("agent", "0001", entries);
+
+      Buffer compact = Buffer.buffer();
+      // the message does not have to start at the beginning of the buffer
+      compact.appendString("header");
+      new RequestStatsMessage.Codec().encodeToWire(compact, msg);
+      RequestStatsMessage decoded = new RequestStatsMessage.Codec().decodeFromWire("header".length(), compact);
+
+      assertEquals("agent", decoded.address);
+      assertEquals("0001", decoded.runId);
+      assertEquals(entries.length, decoded.entries.length);
+      for (int i = 0; i < METRICS; ++i) {
+         RequestStatsMessage.Entry expected = entries[i];
+         RequestStatsMessage.Entry actual = decoded.entries[i];
+         assertEquals(expected.phaseId, actual.phaseId);
+         assertEquals(expected.stepId, actual.stepId);
+         assertEquals(expected.metric, actual.metric);
+         assertEquals(expected.statistics.sequenceId, actual.statistics.sequenceId);
+         assertEquals(expected.statistics.requestCount, actual.statistics.requestCount);
+         assertEquals(expected.statistics.responseCount, actual.statistics.responseCount);
+         assertEquals(expected.statistics.connectionErrors, actual.statistics.connectionErrors);
+         assertEquals(expected.statistics.blockedTime, actual.statistics.blockedTime);
+         assertEquals(expected.statistics.histogram(), actual.statistics.histogram());
+         assertEquals(expected.statistics.histogram().getStartTimeStamp(), actual.statistics.histogram().getStartTimeStamp());
+         assertEquals(expected.statistics.histogram().getEndTimeStamp(), actual.statistics.histogram().getEndTimeStamp());
+         assertEquals(expected.statistics.extensions.get("counters").byHeader("foo"),
+               actual.statistics.extensions.get("counters").byHeader("foo"));
+      }
+      assertEquals(-1, decoded.entries[METRICS].stepId);
+      assertNull(decoded.entries[METRICS].metric);
+      assertNull(decoded.entries[METRICS].statistics);
+
+      Buffer serialized = Buffer.buffer();
+      new ObjectCodec<RequestStatsMessage>().encodeToWire(serialized, msg);
+      assertTrue(compact.length() < serialized.length(),
+            "Compact: " + compact.length() + " bytes, serialized: " + serialized.length() + " bytes");
+   }
+
+   private static StatisticsSnapshot snapshot(int seed) {
+      StatisticsSnapshot snapshot = new StatisticsSnapshot();
+      snapshot.sequenceId = seed;
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = 0; i < 1000; ++i) {
+         snapshot.histogram().recordValue(random.nextLong(1_000_000, 100_000_000));
+      }
+      snapshot.histogram().setStartTimeStamp(1_700_000_000_000L + seed * 1000L);
+      snapshot.histogram().setEndTimeStamp(1_700_000_001_000L + seed * 1000L);
+      snapshot.requestCount = 1000 + seed;
+      snapshot.responseCount = 1000;
+      snapshot.connectionErrors = seed;
+      snapshot.blockedTime = seed * 1_000_000L;
+      Counters counters = new Counters();
+      counters.increment("foo");
+      snapshot.extensions.put("counters", counters);
+      return snapshot;
+   }
+}
@@ -0,0 +1,130 @@
+package io.hyperfoil.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.statistics.Counters;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.api.statistics.StatisticsSummary;
+import io.hyperfoil.controller.model.RequestStats;
+import io.hyperfoil.core.util.LowHigh;
+
+public class ColumnarStatisticsTest {
+   private static final long START = 1_700_000_000_000L;
+
+   @Test
+   public void testRoundTrip(@TempDir Path dir) throws IOException {
+      roundTrip(dir, Runnable::run);
+   }
+
+   @Test
+   public void testWritesPendingOnComplete(@TempDir Path dir) throws IOException {
+      List<Runnable> tasks = new ArrayList<>();
+      roundTrip(dir, tasks::add);
+      // tasks scheduled before completion must not touch the files anymore
+      assertFalse(tasks.isEmpty());
+      tasks.forEach(Runnable::run);
+      ColumnarStatistics columns = ColumnarStatistics.open(dir);
+      assertNotNull(columns);
+      assertEquals(150, columns.series("test", 0, "metric").size());
+   }
+
+   private void roundTrip(Path dir, Executor executor) throws IOException {
+      BenchmarkBuilder builder = BenchmarkBuilder.builder();
+      builder.addPhase("test").atOnce(1).scenario().initialSequence("test");
+      Benchmark benchmark = builder.build();
+      StatisticsStore store = new StatisticsStore(benchmark, f -> {
+      });
+      store.writeColumns(dir, executor);
+      assertNull(ColumnarStatistics.open(dir));
+
+      // more rows than fit into single chunk
+      for (int i = 0; i < 150; ++i) {
+         for (String agent : new String[] { "agent-a", "agent-b" }) {
+            StatisticsSnapshot snapshot = new StatisticsSnapshot();
+            snapshot.sequenceId = i;
+            snapshot.histogram().setStartTimeStamp(START + i * 1000);
+            snapshot.histogram().setEndTimeStamp(START + i * 1000 + 1000);
+            snapshot.histogram().recordValue(1000 + i);
+            snapshot.requestCount = 1;
+            snapshot.responseCount = 1;
+            if (i % 7 == 0) {
+               Counters counters = new Counters();
+               counters.increment("foo");
+               snapshot.extensions.put("counters", counters);
+            }
+            store.record(agent, 0, 0, "metric", snapshot);
+         }
+         store.recordSessionStats("address-a", START + i * 1000, "test", i, 2 * i);
+         store.recordConnectionStats("address-a", START + i * 1000,
+               Map.of("localhost:8080", Map.of("HTTP/1.1", new LowHigh(i % 10, 10 + i % 10))));
+      }
+      store.recordCpuUsage("test", "agent-a", "42%");
+      store.addFailure("test", "metric", START, START + 1000, "Too slow");
+      store.completePhase("test");
+      store.completeColumns();
+
+      ColumnarStatistics columns = ColumnarStatistics.open(dir);
+      assertNotNull(columns);
+
+      List<StatisticsSummary> expectedSeries = store.series("test", 0, "metric");
+      List<StatisticsSummary> series = columns.series("test", 0, "metric");
+      assertEquals(150, series.size());
+      for (int i = 0; i < series.size(); ++i) {
+         assertSummary(expectedSeries.get(i), series.get(i));
+      }
+      assertNull(columns.series("test", 0, "other"));
+
+      List<RequestStats> total = columns.totalSummary();
+      assertEquals(1, total.size());
+      assertSummary(store.totalSummary().get(0).summary, total.get(0).summary);
+      assertEquals(List.of("Too slow"), total.get(0).failedSLAs);
+
+      assertEquals(store.histogram("test", 0, "metric").data, columns.histogram("test", 0, "metric").data);
+      assertEquals(lowHigh(store.totalSessionPoolSummary()), lowHigh(columns.totalSessionPoolSummary()));
+      assertEquals(lowHigh(store.totalConnectionsSummary()), lowHigh(columns.totalConnectionsSummary()));
+      assertEquals(store.cpuUsage(), columns.cpuUsage());
+      assertTrue(columns.recentSummary(0).isEmpty());
+      assertFalse(Files.exists(dir.resolve("series.journal")));
+   }
+
+   private static void assertSummary(StatisticsSummary expected, StatisticsSummary actual) {
+      assertEquals(expected.startTime, actual.startTime);
+      assertEquals(expected.endTime, actual.endTime);
+      assertEquals(expected.minResponseTime, actual.minResponseTime);
+      assertEquals(expected.meanResponseTime, actual.meanResponseTime);
+      assertEquals(expected.maxResponseTime, actual.maxResponseTime);
+      assertEquals(expected.percentileResponseTime, actual.percentileResponseTime);
+      assertEquals(expected.requestCount, actual.requestCount);
+      assertEquals(expected.responseCount, actual.responseCount);
+      assertEquals(expected.extensions.keySet(), actual.extensions.keySet());
+      expected.extensions.forEach((name, extension) -> {
+         for (String header : extension.headers()) {
+            assertEquals(extension.byHeader(header), actual.extensions.get(name).byHeader(header));
+         }
+      });
+   }
+
+   private static String lowHigh(Map<String, Map<String, LowHigh>> map) {
+      StringBuilder sb = new StringBuilder();
+      map.forEach((k1, m) -> m.forEach((k2, lh) -> sb.append(k1).append('/').append(k2).append('=')
+            .append(lh.low).append('-').append(lh.high).append(';')));
+      return sb.toString();
+   }
+}
@@ -25,12 +25,12 @@ public class JsonWriterTest {
       });
       StatisticsSnapshot snapshot = new StatisticsSnapshot();
       var samples = new long[] { 100, 200, 300, 400, 500, 600, 700, 800, 900, 1000 };
-      var histo = snapshot.histogram;
+      var histo = snapshot.histogram();
       for (long sample : samples) {
          histo.recordValue(sample);
       }
       // create a copy of the histogram
-      var latencies = snapshot.histogram.copy();
+      var latencies = snapshot.histogram().copy();
       // inject a failure using that snapshot
       SLA.Failure failure = new SLA.Failure(null, "phase1", "metric1", snapshot, "cause");
       store.addFailure(failure);
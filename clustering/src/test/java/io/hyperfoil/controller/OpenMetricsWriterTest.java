@@ -0,0 +1,59 @@
+package io.hyperfoil.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+
+public class OpenMetricsWriterTest {
+   @Test
+   public void testEscaping() {
+      String output = new OpenMetricsWriter().family("foo", "gauge", null, "Foo.")
+            .sample("foo", 42, "bar", "a\"b\\c\nd").eof().toString();
+      assertEquals("# TYPE foo gauge\n# HELP foo Foo.\nfoo{bar=\"a\\\"b\\\\c\\nd\"} 42\n# EOF\n", output);
+   }
+
+   @Test
+   public void testStatistics() {
+      BenchmarkBuilder builder = BenchmarkBuilder.builder().name("bench");
+      builder.addPhase("test").atOnce(1).scenario().initialSequence("test");
+      Benchmark benchmark = builder.build();
+      StatisticsStore store = new StatisticsStore(benchmark, f -> {
+      });
+      StatisticsSnapshot snapshot = new StatisticsSnapshot();
+      snapshot.sequenceId = 0;
+      snapshot.histogram().recordValue(2_000_000);
+      snapshot.requestCount = 3;
+      snapshot.responseCount = 1;
+      snapshot.requestTimeouts = 2;
+      store.record("agent", 0, 0, "metric", snapshot);
+      // the same metric name in another step must be a separate series
+      StatisticsSnapshot otherStep = new StatisticsSnapshot();
+      otherStep.sequenceId = 0;
+      otherStep.histogram().recordValue(1_000_000);
+      otherStep.requestCount = 4;
+      otherStep.responseCount = 4;
+      store.record("agent", 0, 1, "metric", otherStep);
+      store.recordSessionStats("agent", 0, "test", 1, 5);
+
+      List<String> lines = List.of(new OpenMetricsWriter().writeStatistics(Map.of("0001", store)).eof().toString()
+            .split("\n"));
+      String labels = "run=\"0001\",benchmark=\"bench\",phase=\"test\",step=\"0\",metric=\"metric\"";
+      String otherLabels = "run=\"0001\",benchmark=\"bench\",phase=\"test\",step=\"1\",metric=\"metric\"";
+      assertTrue(lines.contains("hyperfoil_requests_total{" + labels + "} 3"), lines::toString);
+      assertTrue(lines.contains("hyperfoil_errors_total{" + labels + ",type=\"timeout\"} 2"), lines::toString);
+      assertTrue(lines.contains("hyperfoil_response_time_seconds_count{" + labels + "} 1"), lines::toString);
+      assertTrue(lines.contains("hyperfoil_requests_total{" + otherLabels + "} 4"), lines::toString);
+      assertEquals(lines.size(), lines.stream().distinct().count(), "Duplicate samples: " + lines);
+      assertTrue(lines.contains("hyperfoil_agent_sessions_max{run=\"0001\",phase=\"test\",agent=\"agent\"} 5"),
+            lines::toString);
+      assertEquals("# EOF", lines.get(lines.size() - 1));
+   }
+}
@@ -0,0 +1,105 @@
+package io.hyperfoil.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.controller.model.RequestStats;
+
+public class StatisticsStoreTest {
+   @Test
+   public void testListenerReceivesPreviousPeriod() {
+      StatisticsStore store = store();
+      List<RequestStats> received = new ArrayList<>();
+      Consumer<RequestStats> listener = received::add;
+      store.addListener(listener);
+      for (int i = 0; i < 3; ++i) {
+         for (String agent : new String[] { "agent-a", "agent-b" }) {
+            StatisticsSnapshot snapshot = new StatisticsSnapshot();
+            snapshot.sequenceId = i;
+            snapshot.histogram().recordValue(1000);
+            snapshot.requestCount = i + 1;
+            store.record(agent, 0, 0, "metric", snapshot);
+         }
+      }
+      // each period is sent once, when all agents advance to the next one
+      assertEquals(2, received.size());
+      assertEquals("test", received.get(0).phase);
+      assertEquals("metric", received.get(0).metric);
+      assertEquals(2, received.get(0).summary.requestCount);
+      assertEquals(4, received.get(1).summary.requestCount);
+
+      store.removeListener(listener);
+      StatisticsSnapshot snapshot = new StatisticsSnapshot();
+      snapshot.sequenceId = 3;
+      store.record("agent-a", 0, 0, "metric", snapshot);
+      snapshot = new StatisticsSnapshot();
+      snapshot.sequenceId = 3;
+      store.record("agent-b", 0, 0, "metric", snapshot);
+      assertEquals(2, received.size());
+   }
+
+   @Test
+   public void testListenerWaitsForAllAgents() {
+      StatisticsStore store = store();
+      List<RequestStats> received = new ArrayList<>();
+      store.addListener(received::add);
+      // agent-b reports late: agent-a's later periods must not release the period agent-b has not sent yet
+      record(store, "agent-a", 0, 1);
+      record(store, "agent-a", 1, 2);
+      record(store, "agent-a", 2, 3);
+      assertEquals(0, received.size());
+      record(store, "agent-b", 0, 10);
+      assertEquals(0, received.size());
+      record(store, "agent-b", 1, 20);
+      assertEquals(1, received.size());
+      assertEquals(11, received.get(0).summary.requestCount);
+      record(store, "agent-b", 2, 30);
+      assertEquals(2, received.size());
+      assertEquals(22, received.get(1).summary.requestCount);
+      // the last period is sent when the phase completes
+      store.completePhase("test");
+      assertEquals(3, received.size());
+      assertEquals(33, received.get(2).summary.requestCount);
+   }
+
+   @Test
+   public void testListenerDoesNotWaitForSilentAgent() {
+      StatisticsStore store = store();
+      List<RequestStats> received = new ArrayList<>();
+      store.addListener(received::add);
+      record(store, "agent-b", 0, 10);
+      // agent-b does not send anything else, e.g. because it does not execute this metric anymore
+      for (int i = 0; i < 5; ++i) {
+         record(store, "agent-a", i, 1);
+      }
+      // period #N is released after agent-a sends #N+3
+      assertEquals(2, received.size());
+      assertEquals(11, received.get(0).summary.requestCount);
+      assertEquals(1, received.get(1).summary.requestCount);
+   }
+
+   private static StatisticsStore store() {
+      BenchmarkBuilder builder = BenchmarkBuilder.builder()
+            .addAgent("agent-a", "localhost", Collections.emptyMap())
+            .addAgent("agent-b", "localhost", Collections.emptyMap());
+      builder.addPhase("test").atOnce(1).scenario().initialSequence("test");
+      return new StatisticsStore(builder.build(), f -> {
+      });
+   }
+
+   private static void record(StatisticsStore store, String agent, int sequenceId, int requests) {
+      StatisticsSnapshot snapshot = new StatisticsSnapshot();
+      snapshot.sequenceId = sequenceId;
+      snapshot.histogram().recordValue(1000);
+      snapshot.requestCount = requests;
+      store.record(agent, 0, 0, "metric", snapshot);
+   }
+}
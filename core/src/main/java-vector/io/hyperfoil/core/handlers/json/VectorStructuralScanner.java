@@ -0,0 +1,39 @@
+package io.hyperfoil.core.handlers.json;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Do not reference this class directly: it links to incubator module that might not be present.
+ */
+class VectorStructuralScanner extends StructuralScanner {
+   private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() > BLOCK
+         ? ByteVector.SPECIES_512
+         : ByteVector.SPECIES_PREFERRED;
+
+   VectorStructuralScanner() {
+      if (SPECIES.length() < 16) {
+         throw new UnsupportedOperationException("Vector size " + SPECIES.vectorBitSize() + " bits is too small");
+      }
+   }
+
+   @Override
+   void scan(byte[] data, int offset, int length, long[] masks) {
+      long structural = 0;
+      long whitespace = 0;
+      for (int i = 0; i < length; i += SPECIES.length()) {
+         ByteVector v = ByteVector.fromArray(SPECIES, data, offset + i);
+         // '{' | 0x20 == '[' | 0x20 and '}' | 0x20 == ']' | 0x20
+         ByteVector lower = v.or((byte) 0x20);
+         VectorMask<Byte> s = lower.eq((byte) '{').or(lower.eq((byte) '}'))
+               .or(v.eq((byte) '"')).or(v.eq((byte) '\\')).or(v.eq((byte) ':')).or(v.eq((byte) ','));
+         VectorMask<Byte> w = v.eq((byte) ' ').or(v.eq((byte) '\n')).or(v.eq((byte) '\t')).or(v.eq((byte) '\r'));
+         structural |= s.toLong() << i;
+         whitespace |= w.toLong() << i;
+      }
+      long valid = validBits(length);
+      masks[STRUCTURAL] = structural & valid;
+      masks[WHITESPACE] = whitespace & valid;
+   }
+}
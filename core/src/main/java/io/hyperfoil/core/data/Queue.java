@@ -134,6 +134,6 @@ public class Queue implements Session.Resource {
       }
    }
 
-   public static class Key implements Session.ResourceKey<Queue> {
+   public static class Key extends Session.SlottedResourceKey<Queue> {
    }
 }
@@ -0,0 +1,300 @@
+package io.hyperfoil.core.generators;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
+
+/**
+ * Scanner of CSV content addressed by absolute (<code>long</code>) positions. The same code checks the file when
+ * the benchmark is built (reading it as a stream), indexes it on agents and decodes selected rows.
+ * <p>
+ * The content is read only forward from the position passed to {@link #release(long)}, with one byte lookahead.
+ * Instances are not thread-safe; these hold the current line number for error messages.
+ */
+abstract class CsvParser {
+   final String file;
+   final byte separator;
+   final boolean skipComments;
+   final Charset charset;
+   int line = 1;
+   // some quoted value contains line break; line starts are not necessarily row starts
+   boolean multiline;
+
+   CsvParser(String file, char separator, boolean skipComments, Charset charset) {
+      if (separator > 0x7F) {
+         throw new BenchmarkDefinitionException("CSV separator must be an ASCII character, got '" + separator + "'");
+      }
+      this.file = file;
+      this.separator = (byte) separator;
+      this.skipComments = skipComments;
+      this.charset = charset;
+   }
+
+   /**
+    * Checks that the charset encodes ASCII characters as single bytes; the parser looks for separators,
+    * quotes and line ends byte by byte.
+    */
+   static Charset charset(String name) {
+      Charset charset;
+      try {
+         charset = Charset.forName(name);
+      } catch (IllegalArgumentException e) {
+         throw new BenchmarkDefinitionException("Unknown charset " + name, e);
+      }
+      byte[] ascii = new byte[0x80];
+      for (int i = 0; i < ascii.length; ++i) {
+         ascii[i] = (byte) i;
+      }
+      if (!Arrays.equals(ascii, new String(ascii, StandardCharsets.US_ASCII).getBytes(charset))) {
+         throw new BenchmarkDefinitionException("Charset " + name + " is not compatible with ASCII");
+      }
+      return charset;
+   }
+
+   /**
+    * Scans the whole file without keeping any offsets. This runs when the benchmark is built, so that an invalid
+    * file is reported before the benchmark is started on agents.
+    *
+    * @return True if some quoted value spans multiple lines.
+    * @throws BenchmarkDefinitionException if the file is not a valid CSV.
+    */
+   static boolean validate(String file, InputStream stream, char separator, boolean skipComments, Charset charset)
+         throws IOException {
+      StreamParser parser = new StreamParser(file, stream, separator, skipComments, charset);
+      long pos = 0;
+      try {
+         for (;;) {
+            parser.release(pos);
+            pos = parser.nextRow(pos);
+            if (!parser.has(pos)) {
+               return parser.multiline;
+            }
+            pos = parser.row(pos, null, null);
+         }
+      } catch (UncheckedIOException e) {
+         throw e.getCause();
+      }
+   }
+
+   /**
+    * @return True if there is a byte at the position.
+    */
+   abstract boolean has(long pos);
+
+   /**
+    * Should be invoked only when {@link #has(long)} returned true for the position.
+    */
+   abstract byte get(long pos);
+
+   /**
+    * Content before this position won't be accessed anymore.
+    */
+   void release(long pos) {
+   }
+
+   /**
+    * @return Position of the first row at or after <code>pos</code>, skipping comments if enabled.
+    */
+   long nextRow(long pos) {
+      if (!skipComments) {
+         return pos;
+      }
+      for (;;) {
+         long p = pos;
+         while (has(p)) {
+            byte b = get(p);
+            if (isEol(b) || !Character.isWhitespace(b)) {
+               break;
+            }
+            ++p;
+         }
+         if (has(p) && get(p) == '#') {
+            pos = skipLine(p + 1);
+         } else {
+            return pos;
+         }
+      }
+   }
+
+   long skipLine(long pos) {
+      while (has(pos)) {
+         byte b = get(pos++);
+         if (b == '\n') {
+            ++line;
+            return pos;
+         } else if (b == '\r') {
+            ++line;
+            return has(pos) && get(pos) == '\n' ? pos + 1 : pos;
+         }
+      }
+      return pos;
+   }
+
+   static boolean isEol(byte b) {
+      return b == '\n' || b == '\r';
+   }
+
+   /**
+    * Scans single row starting at <code>pos</code> and stores selected columns.
+    *
+    * @param columns Sorted 0-based indices of columns that should be decoded, or <code>null</code>.
+    * @param values Output array with the same length as <code>columns</code>.
+    * @return Position following the row.
+    */
+   long row(long pos, int[] columns, String[] values) {
+      int column = 0;
+      int nextSelected = 0;
+      for (;;) {
+         boolean selected = columns != null && nextSelected < columns.length && columns[nextSelected] == column;
+         if (has(pos) && get(pos) == '"') {
+            long start = ++pos;
+            boolean escapes = false;
+            boolean cr = false;
+            for (;;) {
+               if (!has(pos)) {
+                  // unterminated quote at the end of file
+                  if (selected) {
+                     values[nextSelected++] = decode(start, pos, escapes);
+                  }
+                  return pos;
+               }
+               byte b = get(pos);
+               if (b == '"') {
+                  if (has(pos + 1) && get(pos + 1) == '"') {
+                     escapes = true;
+                     cr = false;
+                     pos += 2;
+                     continue;
+                  }
+                  if (selected) {
+                     values[nextSelected++] = decode(start, pos, escapes);
+                  }
+                  ++pos;
+                  break;
+               } else if (isEol(b)) {
+                  escapes = true;
+                  multiline = true;
+                  if (b == '\r' || !cr) {
+                     ++line;
+                  }
+               }
+               cr = b == '\r';
+               ++pos;
+            }
+            if (!has(pos) || isEol(get(pos))) {
+               return skipLine(pos);
+            } else if (get(pos) != separator) {
+               throw new BenchmarkDefinitionException("The CSV file " + file + " is invalid; line " +
+                     line + " uses quote but it's quoting correctly (check characters after?)");
+            }
+            ++pos;
+         } else {
+            long start = pos;
+            while (has(pos)) {
+               byte b = get(pos);
+               if (b == separator || isEol(b)) {
+                  break;
+               } else if (b == '"') {
+                  throw new BenchmarkDefinitionException("The CSV file " + file + " is invalid; line " +
+                        line + " uses quote but it's quoting correctly (check preceding whitespaces?)");
+               }
+               ++pos;
+            }
+            if (selected) {
+               values[nextSelected++] = decode(start, pos, false);
+            }
+            if (!has(pos) || get(pos) != separator) {
+               return skipLine(pos);
+            }
+            ++pos;
+         }
+         ++column;
+      }
+   }
+
+   /**
+    * @param escapes True if the value contains quoted quotes or line ends that should be normalized.
+    */
+   String decode(long start, long end, boolean escapes) {
+      byte[] bytes = new byte[Math.toIntExact(end - start)];
+      int length = 0;
+      for (long i = start; i < end; ++i) {
+         byte b = get(i);
+         if (escapes) {
+            if (b == '"') {
+               // quoted quote
+               ++i;
+            } else if (b == '\r') {
+               if (i + 1 < end && get(i + 1) == '\n') {
+                  ++i;
+               }
+               b = '\n';
+            }
+         }
+         bytes[length++] = b;
+      }
+      return new String(bytes, 0, length, charset);
+   }
+
+   private static final class StreamParser extends CsvParser {
+      private final InputStream stream;
+      private byte[] buffer = new byte[64 * 1024];
+      // position of buffer[0] in the file
+      private long base;
+      private int filled;
+      private long released;
+      private boolean eof;
+
+      private StreamParser(String file, InputStream stream, char separator, boolean skipComments, Charset charset) {
+         super(file, separator, skipComments, charset);
+         this.stream = stream;
+      }
+
+      @Override
+      boolean has(long pos) {
+         while (pos >= base + filled && !eof) {
+            fill();
+         }
+         return pos < base + filled;
+      }
+
+      @Override
+      byte get(long pos) {
+         return buffer[(int) (pos - base)];
+      }
+
+      @Override
+      void release(long pos) {
+         released = pos;
+      }
+
+      private void fill() {
+         if (filled == buffer.length) {
+            int discard = (int) Math.min(released - base, filled);
+            if (discard > 0) {
+               System.arraycopy(buffer, discard, buffer, 0, filled - discard);
+               base += discard;
+               filled -= discard;
+            } else {
+               // single row does not fit into the buffer
+               buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+         }
+         try {
+            int n = stream.read(buffer, filled, buffer.length - filled);
+            if (n < 0) {
+               eof = true;
+            } else {
+               filled += n;
+            }
+         } catch (IOException e) {
+            throw new UncheckedIOException(e);
+         }
+      }
+   }
+}
@@ -0,0 +1,177 @@
+package io.hyperfoil.core.generators;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
+
+/**
+ * Sparse index of rows in a CSV file; the content is not parsed until a row is selected, and then only the requested
+ * columns are decoded. The index is immutable and can be shared by all threads.
+ * <p>
+ * Only the offset of every {@link #SPARSE}-th row is kept; reading a row scans forward from the nearest
+ * preceding offset. The index can cover only a range of the file (a partition), e.g. rows used by one agent.
+ * <p>
+ * The content is accessed through segments as returned from {@link Benchmark#fileSegments(String)} and the offsets
+ * are <code>long</code>, therefore the file can exceed 2 GB.
+ */
+class CsvRowIndex {
+   static final int SPARSE = 32;
+   private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(Benchmark.FILE_SEGMENT_SIZE);
+   private static final long SEGMENT_MASK = Benchmark.FILE_SEGMENT_SIZE - 1;
+
+   private final String file;
+   private final ByteBuffer[] segments;
+   private final long end;
+   private final char separator;
+   private final boolean skipComments;
+   private final Charset charset;
+   private final long[] offsets;
+   private final int size;
+
+   /**
+    * Indexes the whole file.
+    *
+    * @param file File name, used in error messages.
+    * @param segments Read-only content of the file; only absolute get methods are used.
+    * @param separator Column separator.
+    * @param skipComments Skip lines starting with '#'
+    * @param charset Charset of the values.
+    */
+   CsvRowIndex(String file, ByteBuffer[] segments, char separator, boolean skipComments, Charset charset) {
+      this(file, segments, separator, skipComments, charset, 0, 1, false);
+   }
+
+   /**
+    * Indexes rows starting in the <code>partition</code>-th of <code>partitions</code> byte ranges of equal size.
+    * Ranges are aligned to row starts, so that each row belongs to exactly one partition.
+    *
+    * @param multiline Some quoted value in the file spans multiple lines; when false, we can align ranges
+    *        to the nearest line start rather than scanning the file from its beginning.
+    */
+   CsvRowIndex(String file, ByteBuffer[] segments, char separator, boolean skipComments, Charset charset,
+         int partition, int partitions, boolean multiline) {
+      for (int i = 0; i < segments.length - 1; ++i) {
+         if (segments[i].limit() != Benchmark.FILE_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment " + i + " of " + file + " has " + segments[i].limit() + " bytes");
+         }
+      }
+      this.file = file;
+      this.segments = segments;
+      this.end = segments.length == 0 ? 0
+            : (long) (segments.length - 1) * Benchmark.FILE_SEGMENT_SIZE + segments[segments.length - 1].limit();
+      this.separator = separator;
+      this.skipComments = skipComments;
+      this.charset = charset;
+
+      Parser parser = new Parser();
+      long from = align(parser, end * partition / partitions, multiline);
+      long to = align(parser, end * (partition + 1) / partitions, multiline);
+      long[] offsets = new long[16];
+      int rows = 0;
+      long pos = from;
+      for (;;) {
+         pos = parser.nextRow(pos);
+         if (pos >= to) {
+            break;
+         }
+         if (rows % SPARSE == 0) {
+            int index = rows / SPARSE;
+            if (index == offsets.length) {
+               offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[index] = pos;
+         }
+         if (++rows == Integer.MAX_VALUE) {
+            throw new BenchmarkDefinitionException("The CSV file " + file + " has too many rows.");
+         }
+         pos = parser.row(pos, null, null);
+      }
+      this.offsets = Arrays.copyOf(offsets, (rows + SPARSE - 1) / SPARSE);
+      this.size = rows;
+   }
+
+   /**
+    * @return Start of the first row at or after <code>pos</code>.
+    */
+   private long align(Parser parser, long pos, boolean multiline) {
+      if (pos == 0 || pos >= end) {
+         return pos;
+      } else if (multiline) {
+         // the line might be within quoted value; we need to follow the rows from the beginning
+         long row = 0;
+         while (row < pos) {
+            row = parser.row(parser.nextRow(row), null, null);
+         }
+         return row;
+      }
+      // byte at pos - 1 is the end of line if pos is a line start
+      long eol = pos - 1;
+      while (eol < end && !CsvParser.isEol(get(eol))) {
+         ++eol;
+      }
+      return parser.skipLine(eol);
+   }
+
+   int size() {
+      return size;
+   }
+
+   /**
+    * Decodes selected columns from given row.
+    *
+    * @param row Row index.
+    * @param columns Sorted 0-based indices of columns that should be decoded.
+    * @param values Output array with the same length as <code>columns</code>; unset columns are <code>null</code>.
+    */
+   void read(int row, int[] columns, String[] values) {
+      Arrays.fill(values, null);
+      Parser parser = new Parser();
+      long pos = offsets[row / SPARSE];
+      for (int i = row % SPARSE; i > 0; --i) {
+         pos = parser.nextRow(parser.row(pos, null, null));
+      }
+      parser.row(pos, columns, values);
+   }
+
+   private byte get(long pos) {
+      return segments[(int) (pos >>> SEGMENT_SHIFT)].get((int) (pos & SEGMENT_MASK));
+   }
+
+   private final class Parser extends CsvParser {
+      private Parser() {
+         super(CsvRowIndex.this.file, CsvRowIndex.this.separator, CsvRowIndex.this.skipComments, CsvRowIndex.this.charset);
+      }
+
+      @Override
+      boolean has(long pos) {
+         return pos < end;
+      }
+
+      @Override
+      byte get(long pos) {
+         return CsvRowIndex.this.get(pos);
+      }
+
+      @Override
+      String decode(long start, long end, boolean escapes) {
+         if (escapes) {
+            return super.decode(start, end, true);
+         }
+         byte[] bytes = new byte[Math.toIntExact(end - start)];
+         int length = 0;
+         int segment = (int) (start >>> SEGMENT_SHIFT);
+         int offset = (int) (start & SEGMENT_MASK);
+         // the value can span the boundary of two segments
+         while (length < bytes.length) {
+            int n = Math.min(bytes.length - length, Benchmark.FILE_SEGMENT_SIZE - offset);
+            segments[segment++].get(offset, bytes, length, n);
+            length += n;
+            offset = 0;
+         }
+         return new String(bytes, charset);
+      }
+   }
+}
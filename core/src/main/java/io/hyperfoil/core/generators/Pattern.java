@@ -149,6 +149,28 @@ public class Pattern implements SerializableFunction<Session, String>, Serializa
       return sb.toString();
    }
 
+   /**
+    * @return The resulting string when the pattern does not contain any variables, <code>null</code> otherwise.
+    */
+   public String constant() {
+      if (components.length == 0) {
+         return "";
+      } else if (components.length == 1 && components[0] instanceof StringComponent) {
+         return ((StringComponent) components[0]).substring;
+      }
+      return null;
+   }
+
+   /**
+    * @return Constant part of the pattern preceding the first variable (the whole string if there are no variables).
+    */
+   public String prefix() {
+      if (components.length > 0 && components[0] instanceof StringComponent) {
+         return ((StringComponent) components[0]).substring;
+      }
+      return "";
+   }
+
    @Override
    public void accept(Session session, ByteBuf byteBuf) {
       for (Component c : components) {
@@ -156,6 +178,16 @@ public class Pattern implements SerializableFunction<Session, String>, Serializa
       }
    }
 
+   /**
+    * Writes the pattern without its constant {@link #prefix()}.
+    */
+   public void acceptSuffix(Session session, ByteBuf byteBuf) {
+      int i = components.length > 0 && components[0] instanceof StringComponent ? 1 : 0;
+      for (; i < components.length; ++i) {
+         components[i].accept(session, byteBuf);
+      }
+   }
+
    @Override
    public void transform(Session session, ByteBuf in, int offset, int length, boolean lastFragment, ByteBuf out) {
       if (lastFragment) {
@@ -294,7 +326,8 @@ public class Pattern implements SerializableFunction<Session, String>, Serializa
                      if (transform != null) {
                         str = transform.apply(str.toString());
                      }
-                     Util.string2byteBuf(str, buf);
+                     // unlike Util.string2byteBuf this does not allocate an encoder
+                     buf.writeCharSequence(str, StandardCharsets.UTF_8);
                   } else {
                      Util.string2byteBuf("null", buf);
                   }
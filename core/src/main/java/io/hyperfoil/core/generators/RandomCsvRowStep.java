@@ -1,9 +1,10 @@
 package io.hyperfoil.core.generators;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -14,36 +15,73 @@ import java.util.function.IntUnaryOperator;
 
 import org.kohsuke.MetaInfServices;
 
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkData;
 import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.api.config.Locator;
 import io.hyperfoil.api.config.Name;
 import io.hyperfoil.api.config.PairBuilder;
 import io.hyperfoil.api.config.Step;
 import io.hyperfoil.api.config.StepBuilder;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.session.ObjectAccess;
+import io.hyperfoil.api.session.PhaseInstance;
+import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.core.builders.BaseStepBuilder;
 import io.hyperfoil.core.session.SessionFactory;
 
 /**
- * A class that will initialise, build and randomly select a single row of data.
+ * A class that will index and select a single row of data.
  * The row is exposed as columns.
+ * <p>
+ * The step does not hold parsed rows: the file content is available to agents through {@link Benchmark#files()}
+ * and each agent keeps a sparse index of row offsets, decoding only the selected columns when the row is used.
+ * In {@link Mode#UNIQUE} mode the agent indexes only the part of the file with its own rows.
+ * In {@link Mode#SEQUENTIAL} and {@link Mode#UNIQUE} modes the cursors start over in each phase.
  */
-public class RandomCsvRowStep implements Step {
-   private final String[][] rows;
+public class RandomCsvRowStep implements Step, ResourceUtilizer {
+   private final String file;
+   private final char separator;
+   private final boolean skipComments;
+   private final String charset;
+   // some quoted value spans multiple lines
+   private final boolean multiline;
+   private final int[] columns;
    private final ObjectAccess[] columnVars;
+   private final Mode mode;
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Values> valuesKey = new Session.SlottedResourceKey<>();
 
    // Use just for testing
    private final transient IntUnaryOperator rowSelector;
+   // single index or, in UNIQUE mode, index of rows per agent (agents running in the same JVM share the step)
+   @Visitor.Ignore
+   private transient volatile CsvRowIndex[] indexes;
+   @Visitor.Ignore
+   private transient volatile Cursors cursors;
 
-   public RandomCsvRowStep(String[][] rows, ObjectAccess[] columnVars, IntUnaryOperator rowSelector) {
-      this.rows = rows;
+   public RandomCsvRowStep(String file, char separator, boolean skipComments, String charset, boolean multiline,
+         int[] columns, ObjectAccess[] columnVars, Mode mode, IntUnaryOperator rowSelector) {
+      this.file = file;
+      this.separator = separator;
+      this.skipComments = skipComments;
+      this.charset = charset;
+      this.multiline = multiline;
+      this.columns = columns;
       this.columnVars = columnVars;
+      this.mode = mode;
       this.rowSelector = rowSelector;
    }
 
    // Visible for testing
    String[][] rows() {
+      CsvRowIndex index = indexes[0];
+      String[][] rows = new String[index.size()][];
+      for (int i = 0; i < rows.length; ++i) {
+         rows[i] = new String[columns.length];
+         index.read(i, columns, rows[i]);
+      }
       return rows;
    }
 
@@ -52,27 +90,150 @@ public class RandomCsvRowStep implements Step {
       return rowSelector;
    }
 
+   @Override
+   public void reserve(Session session) {
+      index(session);
+      session.declareResource(valuesKey, () -> new Values(columns.length), true);
+   }
+
+   private CsvRowIndex index(Session session) {
+      CsvRowIndex[] indexes = this.indexes;
+      int slot = mode == Mode.UNIQUE ? session.agentId() : 0;
+      if (indexes != null && slot < indexes.length && indexes[slot] != null) {
+         return indexes[slot];
+      }
+      return init(session.phase().definition().benchmark(), session.agentId(), session.agents());
+   }
+
+   // Visible for testing
+   synchronized CsvRowIndex init(Benchmark benchmark, int agentId, int agents) {
+      int slot = mode == Mode.UNIQUE ? agentId : 0;
+      CsvRowIndex[] indexes = this.indexes;
+      if (indexes != null && slot < indexes.length && indexes[slot] != null) {
+         return indexes[slot];
+      }
+      indexes = indexes == null ? new CsvRowIndex[slot + 1] : Arrays.copyOf(indexes, Math.max(indexes.length, slot + 1));
+      Charset charset = CsvParser.charset(this.charset);
+      if (mode == Mode.UNIQUE) {
+         indexes[slot] = new CsvRowIndex(file, content(benchmark), separator, skipComments, charset, agentId,
+               Math.max(1, agents), multiline);
+      } else {
+         indexes[slot] = new CsvRowIndex(file, content(benchmark), separator, skipComments, charset);
+      }
+      this.indexes = indexes;
+      return indexes[slot];
+   }
+
+   private ByteBuffer[] content(Benchmark benchmark) {
+      ByteBuffer[] content = benchmark.fileSegments(file);
+      if (content == null) {
+         content = benchmark.fileSegments(BenchmarkData.sanitize(file));
+      }
+      if (content == null) {
+         throw new IllegalStateException("File " + file + " is not available in benchmark " + benchmark.name());
+      }
+      return content;
+   }
+
+   private Cursors cursors(Session session) {
+      Cursors cursors = this.cursors;
+      // Each phase (or run) starts with fresh cursors
+      if (cursors == null || cursors.phase != session.phase()) {
+         synchronized (this) {
+            cursors = this.cursors;
+            if (cursors == null || cursors.phase != session.phase()) {
+               cursors = new Cursors(session.phase(), session.agentThreads());
+               this.cursors = cursors;
+            }
+         }
+      }
+      return cursors;
+   }
+
    @Override
    public boolean invoke(Session session) {
-      if (rows.length == 0) {
+      CsvRowIndex index = index(session);
+      final int size = index.size();
+      if (size == 0) {
          throw new RuntimeException("No rows available - was the CSV file empty?");
       }
-      // columns provided by csv
-      final var rowSelector = this.rowSelector;
-      final int rndRow;
-      if (rowSelector == null) {
-         rndRow = ThreadLocalRandom.current().nextInt(rows.length);
-      } else {
-         rndRow = rowSelector.applyAsInt(rows.length);
+      final int row;
+      final int threadId = session.agentThreadId();
+      switch (mode) {
+         case SEQUENTIAL: {
+            int[] next = cursors(session).next;
+            // Only this thread updates its cursor
+            row = next[threadId];
+            next[threadId] = row + 1 == size ? 0 : row + 1;
+            break;
+         }
+         case UNIQUE: {
+            // the index holds only rows of this agent
+            int[] used = cursors(session).next;
+            int threads = used.length;
+            long next = threadId + (long) used[threadId] * threads;
+            if (next >= size) {
+               throw new IllegalStateException("All rows from " + file + " assigned to agent " + session.agentId() +
+                     ", thread " + threadId + " have been used.");
+            }
+            used[threadId]++;
+            row = (int) next;
+            break;
+         }
+         case RANDOM:
+         default:
+            final var rowSelector = this.rowSelector;
+            if (rowSelector == null) {
+               row = ThreadLocalRandom.current().nextInt(size);
+            } else {
+               row = rowSelector.applyAsInt(size);
+            }
       }
-      final var row = rows[rndRow];
+      final var values = session.getResource(valuesKey).values;
+      index.read(row, columns, values);
       final var columnVars = this.columnVars;
       for (int i = 0; i < columnVars.length; i++) {
-         columnVars[i].setObject(session, row[i]);
+         columnVars[i].setObject(session, values[i]);
       }
       return true;
    }
 
+   private static final class Values implements Session.Resource {
+      private final String[] values;
+
+      private Values(int columns) {
+         this.values = new String[columns];
+      }
+   }
+
+   private static final class Cursors {
+      private final PhaseInstance phase;
+      // Per agent thread: next row in SEQUENTIAL mode, number of used rows in UNIQUE mode
+      private final int[] next;
+
+      private Cursors(PhaseInstance phase, int agentThreads) {
+         this.phase = phase;
+         this.next = new int[Math.max(1, agentThreads)];
+      }
+   }
+
+   public enum Mode {
+      /**
+       * Select random row for each invocation.
+       */
+      RANDOM,
+      /**
+       * Each thread iterates through all rows in file order, starting over after the last row and in each phase.
+       */
+      SEQUENTIAL,
+      /**
+       * The file is split between agents into contiguous slices of (roughly) the same size in bytes and within each
+       * agent the rows are interleaved between threads; each row is used at most once in a phase and the session fails
+       * when the thread runs out of rows.
+       */
+      UNIQUE,
+   }
+
    /**
     * Stores random row from a CSV-formatted file to variables.
     */
@@ -82,6 +243,8 @@ public class RandomCsvRowStep implements Step {
       private String file;
       private boolean skipComments;
       private char separator = ',';
+      private String charset = StandardCharsets.UTF_8.name();
+      private Mode mode = Mode.RANDOM;
       private final List<String> builderColumns = new ArrayList<>();
       private transient IntUnaryOperator customRowSelector = null;
 
@@ -96,85 +259,22 @@ public class RandomCsvRowStep implements Step {
          }
          assert next == srcIndex.length;
 
-         try (InputStream inputStream = Locator.current().benchmark().data().readFile(file);
-               BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            ArrayList<String[]> records = new ArrayList<>();
-            String line;
-            ArrayList<String> currentRecord = new ArrayList<>();
-            StringBuilder sb = new StringBuilder();
-            boolean quoted = false;
-            boolean maybeClosingQuote = false;
-            int lineNumber = 1;
-            while ((line = reader.readLine()) != null) {
-               if (!quoted && skipComments && line.stripLeading().startsWith("#")) {
-                  continue;
-               }
-               for (int i = 0; i < line.length(); ++i) {
-                  char c = line.charAt(i);
-                  if (!quoted) {
-                     if (c == separator) {
-                        currentRecord.add(sb.toString());
-                        sb.setLength(0);
-                     } else if (c == '"') {
-                        if (sb.length() != 0) {
-                           throw new BenchmarkDefinitionException("The CSV file " + file + " is invalid; line " +
-                                 lineNumber + " uses quote but it's quoting correctly (check preceding whitespaces?)");
-                        }
-                        quoted = true;
-                     } else {
-                        sb.append(c);
-                     }
-                  } else {
-                     if (i == 0) {
-                        assert lineNumber > 1;
-                        sb.append('\n');
-                     }
-                     if (c == '"') {
-                        if (maybeClosingQuote) {
-                           sb.append(c); // quoted quote
-                           maybeClosingQuote = false;
-                        } else {
-                           maybeClosingQuote = true;
-                        }
-                     } else if (maybeClosingQuote) {
-                        quoted = false;
-                        maybeClosingQuote = false;
-                        if (c == separator) {
-                           currentRecord.add(sb.toString());
-                           sb.setLength(0);
-                        } else {
-                           throw new BenchmarkDefinitionException("The CSV file " + file + " is invalid; line " +
-                                 lineNumber + " uses quote but it's quoting correctly (check characters after?)");
-                        }
-                     } else {
-                        sb.append(c);
-                     }
-                  }
-               }
-               if (maybeClosingQuote) {
-                  quoted = false;
-                  maybeClosingQuote = false;
-               }
-               if (!quoted) {
-                  currentRecord.add(sb.toString());
-                  sb.setLength(0);
-                  String[] arr = new String[srcIndex.length];
-                  Arrays.setAll(arr, i -> srcIndex[i] < currentRecord.size() ? currentRecord.get(srcIndex[i]) : null);
-                  currentRecord.clear();
-                  records.add(arr);
-               }
-               ++lineNumber;
-            }
-            String[][] rows = records.toArray(new String[0][]);
-            // We won't throw an error even if the CSV is empty - this can happen during edit in CLI when we expect
-            // to reuse the data on server side.
-
-            ObjectAccess[] columnVars = builderColumns.stream().filter(Objects::nonNull).map(SessionFactory::objectAccess)
-                  .toArray(ObjectAccess[]::new);
-            return Collections.singletonList(new RandomCsvRowStep(rows, columnVars, customRowSelector));
+         // Reading the file registers it in benchmark data; the content is sent to agents with the benchmark
+         // and each agent indexes it when the phase is initialized. Here we only check that the file is valid.
+         // We won't throw an error even if the CSV is empty - this can happen during edit in CLI when we expect
+         // to reuse the data on server side.
+         boolean multiline;
+         try (InputStream stream = Locator.current().benchmark().data().readFile(file)) {
+            multiline = CsvParser.validate(file, stream, separator, skipComments, CsvParser.charset(charset));
          } catch (IOException ioe) {
             throw new BenchmarkDefinitionException("Failed to read file " + file, ioe);
          }
+
+         ObjectAccess[] columnVars = builderColumns.stream().filter(Objects::nonNull).map(SessionFactory::objectAccess)
+               .toArray(ObjectAccess[]::new);
+         return Collections.singletonList(
+               new RandomCsvRowStep(file, separator, skipComments, charset, multiline, srcIndex, columnVars, mode,
+                     customRowSelector));
       }
 
       // Visible For Testing
@@ -237,6 +337,29 @@ public class RandomCsvRowStep implements Step {
          return this;
       }
 
+      /**
+       * Charset of the file. Only charsets that encode ASCII characters as single bytes (such as UTF-8 or ISO-8859-1)
+       * are supported. By default it is UTF-8.
+       *
+       * @param charset Charset name.
+       * @return Self.
+       */
+      public Builder charset(String charset) {
+         this.charset = charset;
+         return this;
+      }
+
+      /**
+       * Order in which the rows are selected. By default the rows are selected randomly.
+       *
+       * @param mode Selection mode.
+       * @return Self.
+       */
+      public Builder mode(Mode mode) {
+         this.mode = mode;
+         return this;
+      }
+
       public class ColumnsBuilder extends PairBuilder.OfString {
          /**
           * Use 0-based column as the key and variable name as the value.
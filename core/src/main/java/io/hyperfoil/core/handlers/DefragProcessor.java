@@ -3,6 +3,7 @@ package io.hyperfoil.core.handlers;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
@@ -10,8 +11,10 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 
 public class DefragProcessor extends Processor.BaseDelegating
-      implements ResourceUtilizer, Session.ResourceKey<DefragProcessor.Context> {
+      implements ResourceUtilizer {
    private static final Logger log = LogManager.getLogger(DefragProcessor.class);
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
 
    public static Processor of(Processor delegate, boolean fragmented) {
       return fragmented ? new DefragProcessor(delegate) : delegate;
@@ -23,7 +26,7 @@ public class DefragProcessor extends Processor.BaseDelegating
 
    @Override
    public void process(Session session, ByteBuf data, int offset, int length, boolean isLastPart) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       if (isLastPart && !ctx.isBuffering()) {
          delegate.process(session, data, offset, length, true);
          return;
@@ -41,7 +44,7 @@ public class DefragProcessor extends Processor.BaseDelegating
       // Note: contrary to the recommended pattern the Context won't reserve all objects ahead, the CompositeByteBuf
       // will be allocated only if needed (and only once). This is necessary since we don't know the type of allocator
       // that is used for the received buffers ahead.
-      session.declareResource(this, Context::new);
+      session.declareResource(resourceKey, Context::new);
    }
 
    static class Context implements Session.Resource {
@@ -3,6 +3,7 @@ package io.hyperfoil.core.handlers;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Transformer;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
@@ -10,8 +11,10 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
 
 public class DefragTransformer extends Transformer.BaseDelegating
-      implements ResourceUtilizer, Session.ResourceKey<DefragTransformer.Context> {
+      implements ResourceUtilizer {
    private static final Logger log = LogManager.getLogger(DefragTransformer.class);
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
 
    public DefragTransformer(Transformer delegate) {
       super(delegate);
@@ -19,7 +22,7 @@ public class DefragTransformer extends Transformer.BaseDelegating
 
    @Override
    public void transform(Session session, ByteBuf in, int offset, int length, boolean lastFragment, ByteBuf out) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       if (lastFragment && !ctx.isBuffering()) {
          delegate.transform(session, in, offset, length, true, out);
          return;
@@ -37,7 +40,7 @@ public class DefragTransformer extends Transformer.BaseDelegating
       // Note: contrary to the recommended pattern the Context won't reserve all objects ahead, the CompositeByteBuf
       // will be allocated only if needed (and only once). This is necessary since we don't know the type of allocator
       // that is used for the received buffers ahead.
-      session.declareResource(this, Context::new);
+      session.declareResource(resourceKey, Context::new);
    }
 
    static class Context implements Session.Resource {
@@ -10,6 +10,7 @@ import org.apache.logging.log4j.message.FormattedMessage;
 import org.kohsuke.MetaInfServices;
 
 import io.hyperfoil.api.config.Name;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.connection.Request;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.session.ReadAccess;
@@ -22,7 +23,7 @@ import io.netty.buffer.Unpooled;
 
 // Based on java.util.zip.GZIPInputStream
 public class GzipInflatorProcessor extends MultiProcessor
-      implements ResourceUtilizer, Session.ResourceKey<GzipInflatorProcessor.InflaterResource> {
+      implements ResourceUtilizer {
    private static final Logger log = LogManager.getLogger(GzipInflatorProcessor.class);
    private static final int FHCRC = 2; // Header CRC
    private static final int FEXTRA = 4; // Extra field
@@ -30,6 +31,8 @@ public class GzipInflatorProcessor extends MultiProcessor
    private static final int FCOMMENT = 16; // File comment
 
    private final ReadAccess encodingVar;
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<InflaterResource> resourceKey = new Session.SlottedResourceKey<>();
 
    public GzipInflatorProcessor(Processor[] processors, ReadAccess encodingVar) {
       super(processors);
@@ -39,7 +42,7 @@ public class GzipInflatorProcessor extends MultiProcessor
    @Override
    public void process(Session session, ByteBuf data, int offset, int length, boolean isLastPart) {
       Session.Var var = encodingVar.getVar(session);
-      InflaterResource resource = session.getResource(this);
+      InflaterResource resource = session.getResource(resourceKey);
       switch (resource.state) {
          case NOT_ENCRYPTED:
             super.process(session, data, offset, length, isLastPart);
@@ -61,7 +64,7 @@ public class GzipInflatorProcessor extends MultiProcessor
 
    @Override
    public void reserve(Session session) {
-      session.declareResource(this, InflaterResource::new);
+      session.declareResource(resourceKey, InflaterResource::new);
    }
 
    public class InflaterResource implements Session.Resource {
@@ -2,6 +2,7 @@ package io.hyperfoil.core.handlers;
 
 import java.nio.charset.StandardCharsets;
 
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
@@ -11,11 +12,13 @@ import io.netty.buffer.ByteBuf;
  * Simple pattern (no regexp) search based on Rabin-Karp algorithm.
  * Does not handle the intricacies of UTF-8 mapping same strings to different bytes.
  */
-public class SearchHandler implements Processor, ResourceUtilizer, Session.ResourceKey<SearchHandler.Context> {
+public class SearchHandler implements Processor, ResourceUtilizer {
    private final byte[] begin, end;
    private final int beginHash, endHash;
    private final int beginCoef, endCoef;
    private Processor processor;
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
 
    public SearchHandler(String begin, String end, Processor processor) {
       this.begin = begin.getBytes(StandardCharsets.UTF_8);
@@ -29,14 +32,14 @@ public class SearchHandler implements Processor, ResourceUtilizer, Session.Resou
 
    @Override
    public void before(Session session) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       ctx.reset();
       processor.before(session);
    }
 
    @Override
    public void process(Session session, ByteBuf data, final int offset, int length, boolean isLast) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       ctx.add(data, offset, length);
       int endIndex = offset + length;
       int index = ctx.initHash(offset, ctx.lookupText.length);
@@ -90,7 +93,7 @@ public class SearchHandler implements Processor, ResourceUtilizer, Session.Resou
 
    @Override
    public void after(Session session) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       // release buffers
       ctx.reset();
       processor.after(session);
@@ -98,7 +101,7 @@ public class SearchHandler implements Processor, ResourceUtilizer, Session.Resou
 
    @Override
    public void reserve(Session session) {
-      session.declareResource(this, Context::new);
+      session.declareResource(resourceKey, Context::new);
    }
 
    class Context extends BaseSearchContext {
@@ -3,6 +3,7 @@ package io.hyperfoil.core.handlers;
 import java.nio.charset.StandardCharsets;
 import java.util.function.IntPredicate;
 
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
@@ -12,11 +13,13 @@ import io.netty.buffer.ByteBuf;
  * Simple pattern (no regexp) search based on Rabin-Karp algorithm.
  * Does not handle the intricacies of UTF-8 mapping same strings to different bytes.
  */
-public class SearchValidator implements Processor, ResourceUtilizer, Session.ResourceKey<SearchValidator.Context> {
+public class SearchValidator implements Processor, ResourceUtilizer {
    private final byte[] text;
    private final int hash;
    private final int coef;
    private final IntPredicate match;
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
 
    /**
     * @param text Search pattern.
@@ -31,7 +34,7 @@ public class SearchValidator implements Processor, ResourceUtilizer, Session.Res
 
    @Override
    public void process(Session session, ByteBuf data, final int offset, int length, boolean isLastPart) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       ctx.add(data, offset, length);
       int endIndex = offset + length;
       int index = ctx.initHash(offset, text.length);
@@ -59,13 +62,13 @@ public class SearchValidator implements Processor, ResourceUtilizer, Session.Res
 
    @Override
    public void before(Session session) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       ctx.reset();
    }
 
    @Override
    public void after(Session session) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       boolean match = this.match.test(ctx.matches);
       ctx.reset();
       if (!match) {
@@ -75,7 +78,7 @@ public class SearchValidator implements Processor, ResourceUtilizer, Session.Res
 
    @Override
    public void reserve(Session session) {
-      session.declareResource(this, Context::new);
+      session.declareResource(resourceKey, Context::new);
    }
 
    static class Context extends BaseSearchContext {
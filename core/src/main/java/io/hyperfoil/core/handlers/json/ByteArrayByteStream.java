@@ -23,6 +23,11 @@ public class ByteArrayByteStream implements ByteStream {
       return array[index];
    }
 
+   @Override
+   public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+      System.arraycopy(array, index, dst, dstIndex, length);
+   }
+
    @Override
    public int writerIndex() {
       return array.length;
@@ -21,6 +21,11 @@ public class ByteBufByteStream implements ByteStream {
       return buffer.getByte(index);
    }
 
+   @Override
+   public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+      buffer.getBytes(index, dst, dstIndex, length);
+   }
+
    @Override
    public int writerIndex() {
       return writerIndex;
@@ -6,6 +6,16 @@ package io.hyperfoil.core.handlers.json;
 public interface ByteStream {
    int getByte(int index);
 
+   /**
+    * Copy bytes starting at absolute <code>index</code> (not affected by {@link #readerIndex()}).
+    *
+    * @param index Index of the first byte.
+    * @param dst Destination array.
+    * @param dstIndex Offset in the destination array.
+    * @param length Number of bytes to copy.
+    */
+   void getBytes(int index, byte[] dst, int dstIndex, int length);
+
    int writerIndex();
 
    int readerIndex();
@@ -3,6 +3,7 @@ package io.hyperfoil.core.handlers.json;
 import org.kohsuke.MetaInfServices;
 
 import io.hyperfoil.api.config.Name;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.processor.Transformer;
 import io.hyperfoil.api.session.ResourceUtilizer;
@@ -10,7 +11,9 @@ import io.hyperfoil.api.session.Session;
 import io.hyperfoil.core.builders.ServiceLoadedBuilderProvider;
 import io.netty.buffer.ByteBuf;
 
-public class JsonHandler extends JsonParser implements Processor, ResourceUtilizer, Session.ResourceKey<JsonHandler.Context> {
+public class JsonHandler extends JsonParser implements Processor, ResourceUtilizer {
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
 
    public JsonHandler(String query, boolean delete, Transformer replace, Processor processor) {
       super(query.trim(), delete, replace, processor);
@@ -27,7 +30,7 @@ public class JsonHandler extends JsonParser implements Processor, ResourceUtiliz
 
    @Override
    public void process(Session session, ByteBuf data, int offset, int length, boolean isLast) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       ctx.parse(ctx.wrap(data, offset, length), session, isLast);
    }
 
@@ -37,7 +40,7 @@ public class JsonHandler extends JsonParser implements Processor, ResourceUtiliz
          replace.after(session);
       }
       processor.after(session);
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       ctx.reset();
    }
 
@@ -51,7 +54,7 @@ public class JsonHandler extends JsonParser implements Processor, ResourceUtiliz
 
    @Override
    public void reserve(Session session) {
-      session.declareResource(this, Context::new);
+      session.declareResource(resourceKey, Context::new);
    }
 
    @Override
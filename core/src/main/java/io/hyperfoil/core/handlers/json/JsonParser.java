@@ -1,9 +1,7 @@
 package io.hyperfoil.core.handlers.json;
 
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.function.Function;
 
@@ -27,13 +25,15 @@ import io.netty.buffer.PooledByteBufAllocator;
 public abstract class JsonParser implements Serializable {
    protected static final Logger log = LogManager.getLogger(JsonParser.class);
    protected static final int INITIAL_PARTS = 16;
+   private static final int INITIAL_DEPTH = 16;
+   private static final int SCAN_BUFFER_SIZE = 1024;
 
    protected final String query;
    protected final boolean delete;
    protected final Transformer replace;
    protected final Processor processor;
    @Visitor.Ignore
-   private final JsonParser.Selector[] selectors;
+   private final JsonQuery compiled;
    @Visitor.Ignore
    private final StreamQueue.Consumer<Context, Session> record = JsonParser.this::record;
 
@@ -42,133 +42,47 @@ public abstract class JsonParser implements Serializable {
       this.delete = delete;
       this.replace = replace;
       this.processor = processor;
-
-      byte[] queryBytes = query.getBytes(StandardCharsets.UTF_8);
-      if (queryBytes.length == 0 || queryBytes[0] != '.') {
-         throw new BenchmarkDefinitionException("Path should start with '.'");
-      }
-      ArrayList<Selector> selectors = new ArrayList<>();
-      int next = 1;
-      for (int i = 1; i < queryBytes.length; ++i) {
-         if (queryBytes[i] == '[' || queryBytes[i] == '.' && next < i) {
-            while (queryBytes[next] == '.')
-               ++next;
-            if (next != i) {
-               selectors.add(new AttribSelector(Arrays.copyOfRange(queryBytes, next, i)));
-            }
-            next = i + 1;
-         }
-         if (queryBytes[i] == '[') {
-            ArraySelector arraySelector = new ArraySelector();
-            ++i;
-            int startIndex = i, endIndex = i;
-            for (; i < queryBytes.length; ++i) {
-               if (queryBytes[i] == ']') {
-                  if (endIndex < i) {
-                     arraySelector.rangeEnd = bytesToInt(queryBytes, startIndex, i);
-                     if (startIndex == endIndex) {
-                        arraySelector.rangeStart = arraySelector.rangeEnd;
-                     }
-                  }
-                  selectors.add(arraySelector);
-                  next = i + 1;
-                  break;
-               } else if (queryBytes[i] == ':') {
-                  if (startIndex < i) {
-                     arraySelector.rangeStart = bytesToInt(queryBytes, startIndex, i);
-                  }
-                  endIndex = i + 1;
-               }
-            }
-         }
-      }
-      if (next < queryBytes.length) {
-         while (queryBytes[next] == '.')
-            ++next;
-         selectors.add(new AttribSelector(Arrays.copyOfRange(queryBytes, next, queryBytes.length)));
+      this.compiled = JsonQuery.compile(query);
+      if ((delete || replace != null) && (compiled.hasFilters || compiled.hasRecursion)) {
+         throw new BenchmarkDefinitionException("JSON query '" + query
+               + "' uses filters or recursive descent; these cannot be combined with 'delete' or 'replace'.");
       }
-      this.selectors = selectors.toArray(new JsonParser.Selector[0]);
    }
 
    protected abstract void record(Context context, Session session, ByteStream data, int offset, int length,
          boolean isLastPart);
 
-   private static int bytesToInt(byte[] bytes, int start, int end) {
-      int value = 0;
-      for (;;) {
-         if (bytes[start] < '0' || bytes[start] > '9') {
-            throw new BenchmarkDefinitionException("Invalid range specification: " + new String(bytes));
-         }
-         value += bytes[start] - '0';
-         if (++start >= end) {
-            return value;
-         } else {
-            value *= 10;
-         }
-      }
-   }
-
-   interface Selector extends Serializable {
-      Context newContext();
-
-      interface Context {
-         void reset();
-      }
-   }
-
-   private static class AttribSelector implements JsonParser.Selector {
-      byte[] name;
-
-      AttribSelector(byte[] name) {
-         this.name = name;
-      }
-
-      boolean match(StreamQueue stream, int start, int end) {
-         assert start <= end;
-         // TODO: move this to StreamQueue and optimize access
-         for (int i = 0; i < name.length && i < end - start; ++i) {
-            if (name[i] != stream.getByte(start + i))
-               return false;
+   /**
+    * Filtered value for which the matches inside are reported only when the filter condition holds.
+    */
+   private static class Frame {
+      int level;
+      JsonQuery.FilterSelector filter;
+      int selector;
+      byte[] results;
+      byte state;
+      int[] pending = new int[8];
+      int pendingCount;
+
+      void addPending(int start, int end) {
+         if (pendingCount + 2 > pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
          }
-         return true;
-      }
-
-      @Override
-      public Context newContext() {
-         return null;
-      }
-   }
-
-   private static class ArraySelector implements Selector {
-      int rangeStart = 0;
-      int rangeEnd = Integer.MAX_VALUE;
-
-      @Override
-      public Context newContext() {
-         return new ArraySelectorContext();
-      }
-
-      boolean matches(ArraySelectorContext context) {
-         return context.active && context.currentItem >= rangeStart && context.currentItem <= rangeEnd;
-      }
-   }
-
-   private static class ArraySelectorContext implements Selector.Context {
-      boolean active;
-      int currentItem;
-
-      @Override
-      public void reset() {
-         active = false;
-         currentItem = 0;
+         pending[pendingCount++] = start;
+         pending[pendingCount++] = end;
       }
    }
 
    protected abstract class Context implements Session.Resource {
-      Selector.Context[] selectorContext = new Selector.Context[selectors.length];
       int level;
-      int selectorLevel;
-      int selector;
+      // selector states and operand path states of the value starting at current position
+      long valueStates;
+      long valueOperands;
+      // states for each level of nesting
+      long[] containerStates = new long[INITIAL_DEPTH];
+      long[] containerOperands = new long[INITIAL_DEPTH];
+      // index of current element for arrays, -1 for objects
+      int[] items = new int[INITIAL_DEPTH];
       boolean inQuote;
       boolean inKey;
       boolean escaped;
@@ -176,37 +90,45 @@ public abstract class JsonParser implements Serializable {
       int keyStartIndex;
       int lastCharIndex; // end of key name
       int valueStartIndex;
+      int recordLevel;
       int lastOutputIndex; // last byte we have written out
       int safeOutputIndex; // last byte we could definitely write out
+      Frame[] frames = new Frame[0];
+      int frameCount;
+      // captured operands of filter comparisons, indexed by comparison
+      long openOperands;
+      final int[] operandStart = new int[compiled.comparisons.length];
+      final int[] operandLevel = new int[compiled.comparisons.length];
+      final byte[] numberBuffer = new byte[32];
       ArrayDeque<ByteStream> pool = new ArrayDeque<>(INITIAL_PARTS);
+      // copy of the input for the scanner, with space for reading whole block past the end
+      final byte[] scanBuffer = new byte[SCAN_BUFFER_SIZE + StructuralScanner.BLOCK];
+      final long[] masks = new long[2];
       protected final ByteBuf replaceBuffer = PooledByteBufAllocator.DEFAULT.buffer();
       final StreamQueue.Consumer<Void, Session> replaceConsumer = this::replaceConsumer;
       final Function<Context, ByteStream> byteStreamFactory;
 
       protected Context(Function<Context, ByteStream> byteStreamSupplier) {
          this.byteStreamFactory = byteStreamSupplier;
-         for (int i = 0; i < selectors.length; ++i) {
-            selectorContext[i] = selectors[i].newContext();
-         }
          reset();
       }
 
       public void reset() {
-         for (Selector.Context ctx : selectorContext) {
-            if (ctx != null)
-               ctx.reset();
-         }
          level = -1;
-         selectorLevel = 0;
-         selector = 0;
+         // root value is in the initial state
+         valueStates = 1;
+         valueOperands = 0;
          inQuote = false;
          inKey = false;
          escaped = false;
          keyStartIndex = -1;
          lastCharIndex = -1;
          valueStartIndex = -1;
+         recordLevel = -1;
          lastOutputIndex = 0;
          safeOutputIndex = 0;
+         frameCount = 0;
+         openOperands = 0;
          stream.reset();
          replaceBuffer.clear();
       }
@@ -217,214 +139,414 @@ public abstract class JsonParser implements Serializable {
          stream.reset();
       }
 
-      private Selector.Context current() {
-         return selectorContext[selector];
-      }
-
       public void parse(ByteStream data, Session session, boolean isLast) {
          final int readableBytes = data.writerIndex() - data.readerIndex();
-         int readerIndex = stream.append(data);
-         for (int i = 0; i < readableBytes; i++) {
-            int b = stream.getByte(readerIndex++);
-            switch (b) {
-               case -1:
-                  throw new IllegalStateException("End of input while the JSON is not complete.");
-               case ' ':
-               case '\n':
-               case '\t':
-               case '\r':
-                  // ignore whitespace
-                  break;
-               case '\\':
-                  escaped = !escaped;
-                  break;
-               case '{':
-                  if (!inQuote) {
-                     ++level;
-                     inKey = true;
-                     if (valueStartIndex < 0) {
-                        safeOutputIndex = readerIndex;
-                     }
-                     // TODO assert we have active attrib selector
+         final int start = stream.append(data);
+         final int end = start + readableBytes;
+         for (int bufferIndex = start; bufferIndex < end; bufferIndex += SCAN_BUFFER_SIZE) {
+            int buffered = Math.min(SCAN_BUFFER_SIZE, end - bufferIndex);
+            // data was moved to the stream in append()
+            stream.getBytes(bufferIndex, scanBuffer, 0, buffered);
+            for (int offset = 0; offset < buffered; offset += StructuralScanner.BLOCK) {
+               int length = Math.min(StructuralScanner.BLOCK, buffered - offset);
+               StructuralScanner.INSTANCE.scan(scanBuffer, offset, length, masks);
+               long structural = masks[StructuralScanner.STRUCTURAL];
+               long other = ~(structural | masks[StructuralScanner.WHITESPACE]) & StructuralScanner.validBits(length);
+               int blockIndex = bufferIndex + offset;
+               int next = 0;
+               while (structural != 0) {
+                  int bit = Long.numberOfTrailingZeros(structural);
+                  structural &= structural - 1;
+                  if (bit > next) {
+                     skip(other, next, bit, blockIndex);
                   }
-                  break;
-               case '}':
-                  if (!inQuote) {
-                     tryRecord(session, readerIndex);
-                     if (level == selectorLevel) {
-                        --selectorLevel;
-                        --selector;
-                     }
-                     if (valueStartIndex < 0) {
-                        safeOutputIndex = readerIndex;
-                     }
-                     --level;
+                  structural(scanBuffer[offset + bit], blockIndex + bit + 1, session);
+                  next = bit + 1;
+               }
+               if (next < length) {
+                  skip(other, next, length, blockIndex);
+               }
+            }
+         }
+         final int readerIndex = end;
+         // pending matches and captured operands of filters
+         final int retainIndex = frameCount > 0 || openOperands != 0 ? retainIndex() : Integer.MAX_VALUE;
+         if (keyStartIndex >= 0 || valueStartIndex >= 0) {
+            stream.releaseUntil(Math.min(Math.min(Math.min(keyStartIndex, valueStartIndex), safeOutputIndex), retainIndex));
+            if (isLast) {
+               throw new IllegalStateException("End of input while the JSON is not complete.");
+            }
+         } else {
+            if ((delete || replace != null) && lastOutputIndex < safeOutputIndex) {
+               stream.consume(lastOutputIndex, safeOutputIndex, record, this, session, isLast);
+               lastOutputIndex = safeOutputIndex;
+            }
+            stream.releaseUntil(Math.min((delete || replace != null) ? Math.min(readerIndex, lastOutputIndex) : readerIndex,
+                  retainIndex));
+         }
+      }
+
+      /**
+       * Handles bytes between structural characters as if they were processed one by one: whitespace and
+       * contents of keys, strings and other values.
+       */
+      private void skip(long other, int from, int to, int blockIndex) {
+         escaped = false;
+         long bits = other & StructuralScanner.validBits(to) & (-1L << from);
+         if (bits != 0) {
+            lastCharIndex = blockIndex + Long.SIZE - Long.numberOfLeadingZeros(bits);
+            if (inKey && keyStartIndex < 0) {
+               keyStartIndex = blockIndex + Long.numberOfTrailingZeros(bits);
+            }
+         }
+      }
+
+      /**
+       * @param b Structural character.
+       * @param readerIndex Index right after the character.
+       */
+      private void structural(byte b, int readerIndex, Session session) {
+         switch (b) {
+            case '\\':
+               escaped = !escaped;
+               break;
+            case '{':
+               if (!inQuote) {
+                  openContainer(-1);
+                  inKey = true;
+                  if (valueStartIndex < 0) {
+                     safeOutputIndex = readerIndex;
                   }
-                  break;
-               case '"':
-                  if (!escaped) {
-                     inQuote = !inQuote;
+               }
+               break;
+            case '}':
+               if (!inQuote) {
+                  endValue(session, readerIndex);
+                  if (valueStartIndex < 0) {
+                     safeOutputIndex = readerIndex;
                   }
-                  break;
-               case ':':
-                  if (!inQuote) {
-                     if (selectorLevel == level && keyStartIndex >= 0 && selector < selectors.length
-                           && selectors[selector] instanceof AttribSelector) {
-                        AttribSelector selector = (AttribSelector) selectors[this.selector];
-                        if (selector.match(stream, keyStartIndex, lastCharIndex)) {
-                           if (onMatch(readerIndex) && (delete || replace != null)) {
-                              // omit key's starting quote
-                              int outputEnd = keyStartIndex - 1;
-                              // remove possible comma before the key
-                              LOOP: while (true) {
-                                 switch (stream.getByte(outputEnd - 1)) {
-                                    case ' ':
-                                    case '\n':
-                                    case '\t':
-                                    case '\r':
-                                    case ',':
-                                       --outputEnd;
-                                       break;
-                                    default:
-                                       break LOOP;
-                                 }
-                              }
-                              stream.consume(lastOutputIndex, outputEnd, record, this, session, false);
-                              lastOutputIndex = outputEnd;
+                  --level;
+               }
+               break;
+            case '"':
+               if (!escaped) {
+                  inQuote = !inQuote;
+               }
+               break;
+            case ':':
+               if (!inQuote) {
+                  if (level >= 0) {
+                     long states = childOfKey(containerStates[level]);
+                     long operands = operandsOfKey(containerOperands[level]);
+                     if (startValue(states, operands, readerIndex) && (delete || replace != null)) {
+                        // omit key's starting quote
+                        int outputEnd = keyStartIndex - 1;
+                        // remove possible comma before the key
+                        LOOP: while (true) {
+                           switch (stream.getByte(outputEnd - 1)) {
+                              case ' ':
+                              case '\n':
+                              case '\t':
+                              case '\r':
+                              case ',':
+                                 --outputEnd;
+                                 break;
+                              default:
+                                 break LOOP;
                            }
                         }
+                        stream.consume(lastOutputIndex, outputEnd, record, this, session, false);
+                        lastOutputIndex = outputEnd;
                      }
-                     keyStartIndex = -1;
-                     if (valueStartIndex < 0) {
-                        safeOutputIndex = readerIndex;
-                     }
-                     inKey = false;
                   }
-                  break;
-               case ',':
-                  if (!inQuote) {
-                     inKey = true;
-                     keyStartIndex = -1;
-                     tryRecord(session, readerIndex);
-                     if (selectorLevel == level && selector < selectors.length && current() instanceof ArraySelectorContext) {
-                        ArraySelectorContext asc = (ArraySelectorContext) current();
-                        if (asc.active) {
-                           asc.currentItem++;
-                        }
-                        if (((ArraySelector) selectors[selector]).matches(asc)) {
-                           if (onMatch(readerIndex) && (delete || replace != null)) {
-                              // omit the ','
-                              stream.consume(lastOutputIndex, readerIndex - 1, record, this, session, false);
-                              lastOutputIndex = readerIndex - 1;
-                           }
-                        }
-                     }
+                  keyStartIndex = -1;
+                  if (valueStartIndex < 0) {
+                     safeOutputIndex = readerIndex;
                   }
-                  break;
-               case '[':
-                  if (!inQuote) {
-                     if (valueStartIndex < 0) {
-                        safeOutputIndex = readerIndex;
-                     }
-                     ++level;
-                     if (selectorLevel == level && selector < selectors.length
-                           && selectors[selector] instanceof ArraySelector) {
-                        ArraySelectorContext asc = (ArraySelectorContext) current();
-                        asc.active = true;
-                        if (((ArraySelector) selectors[selector]).matches(asc)) {
-                           if (onMatch(readerIndex) && (delete || replace != null)) {
-                              stream.consume(lastOutputIndex, readerIndex, record, this, session, false);
-                              lastOutputIndex = readerIndex;
-                           }
-                        }
+                  inKey = false;
+               }
+               break;
+            case ',':
+               if (!inQuote) {
+                  inKey = true;
+                  keyStartIndex = -1;
+                  endValue(session, readerIndex);
+                  if (level >= 0 && items[level] >= 0) {
+                     long states = childOfIndex(containerStates[level], ++items[level]);
+                     if (startValue(states, 0, readerIndex) && (delete || replace != null)) {
+                        // omit the ','
+                        stream.consume(lastOutputIndex, readerIndex - 1, record, this, session, false);
+                        lastOutputIndex = readerIndex - 1;
                      }
                   }
-                  break;
-               case ']':
-                  if (!inQuote) {
-                     tryRecord(session, readerIndex);
-                     if (selectorLevel == level && selector < selectors.length && current() instanceof ArraySelectorContext) {
-                        ArraySelectorContext asc = (ArraySelectorContext) current();
-                        asc.active = false;
-                        --selectorLevel;
-                     }
-                     if (valueStartIndex < 0) {
-                        safeOutputIndex = readerIndex;
-                     }
-                     keyStartIndex = -1;
-                     inKey = false;
-                     --level;
+               }
+               break;
+            case '[':
+               if (!inQuote) {
+                  if (valueStartIndex < 0) {
+                     safeOutputIndex = readerIndex;
                   }
-                  break;
-               default:
-                  lastCharIndex = readerIndex;
-                  if (inKey && keyStartIndex < 0) {
-                     keyStartIndex = readerIndex - 1;
+                  openContainer(0);
+                  if (startValue(childOfIndex(containerStates[level], 0), 0, readerIndex) && (delete || replace != null)) {
+                     stream.consume(lastOutputIndex, readerIndex, record, this, session, false);
+                     lastOutputIndex = readerIndex;
+                  }
+               }
+               break;
+            case ']':
+               if (!inQuote) {
+                  endValue(session, readerIndex);
+                  if (valueStartIndex < 0) {
+                     safeOutputIndex = readerIndex;
                   }
+                  keyStartIndex = -1;
+                  inKey = false;
+                  --level;
+               }
+               break;
+         }
+         if (b != '\\') {
+            escaped = false;
+         }
+      }
+
+      private void openContainer(int firstItem) {
+         ++level;
+         if (level >= items.length) {
+            int depth = items.length * 2;
+            containerStates = Arrays.copyOf(containerStates, depth);
+            containerOperands = Arrays.copyOf(containerOperands, depth);
+            items = Arrays.copyOf(items, depth);
+         }
+         containerStates[level] = valueStates;
+         containerOperands[level] = valueOperands;
+         items[level] = firstItem;
+      }
+
+      private long childOfKey(long parent) {
+         long child = 0;
+         for (long s = parent & ~compiled.matchState; s != 0; s &= s - 1) {
+            int i = Long.numberOfTrailingZeros(s);
+            JsonQuery.Selector selector = compiled.selectors[i];
+            if (selector.recursive) {
+               child |= 1L << i;
             }
-            if (b != '\\') {
-               escaped = false;
+            // keyStartIndex < 0 means empty key
+            if (selector.matchesKey(stream, keyStartIndex, keyStartIndex < 0 ? keyStartIndex : lastCharIndex)) {
+               child |= 1L << (i + 1);
             }
          }
-         if (keyStartIndex >= 0 || valueStartIndex >= 0) {
-            stream.releaseUntil(Math.min(Math.min(keyStartIndex, valueStartIndex), safeOutputIndex));
-            if (isLast) {
-               throw new IllegalStateException("End of input while the JSON is not complete.");
+         return child;
+      }
+
+      private long childOfIndex(long parent, int index) {
+         long child = 0;
+         for (long s = parent & ~compiled.matchState; s != 0; s &= s - 1) {
+            int i = Long.numberOfTrailingZeros(s);
+            JsonQuery.Selector selector = compiled.selectors[i];
+            if (selector.recursive) {
+               child |= 1L << i;
             }
-         } else {
-            if ((delete || replace != null) && lastOutputIndex < safeOutputIndex) {
-               stream.consume(lastOutputIndex, safeOutputIndex, record, this, session, isLast);
-               lastOutputIndex = safeOutputIndex;
+            if (selector.matchesIndex(index)) {
+               child |= 1L << (i + 1);
             }
-            stream.releaseUntil((delete || replace != null) ? Math.min(readerIndex, lastOutputIndex) : readerIndex);
          }
+         return child;
       }
 
-      private boolean onMatch(int readerIndex) {
-         ++selector;
-         if (selector < selectors.length) {
-            ++selectorLevel;
-            return false;
-         } else {
+      private long operandsOfKey(long parent) {
+         long child = 0;
+         for (long s = parent & ~compiled.operandCompleteBits; s != 0; s &= s - 1) {
+            int bit = Long.numberOfTrailingZeros(s);
+            if (keyStartIndex >= 0 && JsonQuery.matches(compiled.operandStepNames[bit], stream, keyStartIndex, lastCharIndex)) {
+               child |= 1L << (bit + 1);
+            }
+         }
+         return child;
+      }
+
+      /**
+       * @return True if this value is a complete match.
+       */
+      private boolean startValue(long states, long operands, int readerIndex) {
+         if ((states & compiled.filterStates) != 0) {
+            for (long s = states & compiled.filterStates; s != 0; s &= s - 1) {
+               int selector = Long.numberOfTrailingZeros(s) - 1;
+               JsonQuery.FilterSelector filter = (JsonQuery.FilterSelector) compiled.selectors[selector];
+               pushFrame(filter, selector);
+               operands |= filter.operandStartBits;
+            }
+         }
+         valueStates = states;
+         valueOperands = operands;
+         if ((operands & compiled.operandCompleteBits) != 0) {
+            for (long s = operands & compiled.operandCompleteBits; s != 0; s &= s - 1) {
+               int k = compiled.comparisonOfBit[Long.numberOfTrailingZeros(s)];
+               openOperands |= 1L << k;
+               operandStart[k] = readerIndex;
+               operandLevel[k] = level;
+            }
+         }
+         if ((states & compiled.matchState) != 0 && valueStartIndex < 0) {
             valueStartIndex = readerIndex;
+            recordLevel = level;
             return true;
          }
+         return false;
       }
 
-      private void tryRecord(Session session, int readerIndex) {
-         if (selectorLevel == level && valueStartIndex >= 0) {
-            // valueStartIndex is always before quotes here
-            LOOP: while (true) {
-               switch (stream.getByte(valueStartIndex)) {
-                  case ' ':
-                  case '\n':
-                  case '\r':
-                  case '\t':
-                     ++valueStartIndex;
-                     break;
-                  case -1:
-                  default:
-                     break LOOP;
+      private void endValue(Session session, int readerIndex) {
+         if (openOperands != 0) {
+            evaluateOperands(session, readerIndex);
+         }
+         tryRecord(session, readerIndex);
+         while (frameCount > 0 && frames[frameCount - 1].level == level) {
+            Frame frame = frames[frameCount - 1];
+            if (frame.state == JsonQuery.UNKNOWN) {
+               // missing operands never match
+               for (int i = 0; i < frame.filter.comparisons; ++i) {
+                  if (frame.results[i] == JsonQuery.UNKNOWN) {
+                     frame.results[i] = JsonQuery.FALSE;
+                  }
                }
+               resolve(session, frameCount - 1, frame.filter.expression.eval(frame.results));
             }
-            int end = readerIndex - 1;
-            LOOP: while (end > valueStartIndex) {
-               switch (stream.getByte(end - 1)) {
-                  case ' ':
-                  case '\n':
-                  case '\r':
-                  case '\t':
-                     --end;
-                     break;
-                  default:
-                     break LOOP;
+            --frameCount;
+         }
+      }
+
+      private void pushFrame(JsonQuery.FilterSelector filter, int selector) {
+         if (frameCount == frames.length) {
+            frames = Arrays.copyOf(frames, Math.max(4, frames.length * 2));
+         }
+         Frame frame = frames[frameCount];
+         if (frame == null) {
+            frame = frames[frameCount] = new Frame();
+         }
+         ++frameCount;
+         frame.level = level;
+         frame.filter = filter;
+         frame.selector = selector;
+         if (frame.results == null || frame.results.length < filter.comparisons) {
+            frame.results = new byte[filter.comparisons];
+         } else {
+            Arrays.fill(frame.results, JsonQuery.UNKNOWN);
+         }
+         frame.state = JsonQuery.UNKNOWN;
+         frame.pendingCount = 0;
+      }
+
+      private void evaluateOperands(Session session, int readerIndex) {
+         for (long s = openOperands; s != 0; s &= s - 1) {
+            int k = Long.numberOfTrailingZeros(s);
+            if (operandLevel[k] != level) {
+               continue;
+            }
+            openOperands &= ~(1L << k);
+            int start = skipWhitespace(operandStart[k], readerIndex - 1);
+            int end = trimWhitespace(start, readerIndex - 1);
+            if (start == end) {
+               // empty array
+               continue;
+            }
+            JsonQuery.Comparison comparison = compiled.comparisons[k];
+            for (int i = frameCount - 1; i >= 0; --i) {
+               Frame frame = frames[i];
+               if (frame.selector == comparison.selector) {
+                  if (frame.state == JsonQuery.UNKNOWN && frame.results[comparison.id] == JsonQuery.UNKNOWN) {
+                     frame.results[comparison.id] = comparison.test(stream, start, end, numberBuffer) ? JsonQuery.TRUE
+                           : JsonQuery.FALSE;
+                     resolve(session, i, frame.filter.expression.eval(frame.results));
+                  }
+                  break;
                }
             }
+         }
+      }
+
+      private void resolve(Session session, int frameIndex, byte state) {
+         Frame frame = frames[frameIndex];
+         frame.state = state;
+         if (state == JsonQuery.TRUE) {
+            for (int i = 0; i < frame.pendingCount; i += 2) {
+               emit(session, frameIndex, frame.pending[i], frame.pending[i + 1]);
+            }
+            frame.pendingCount = 0;
+         } else if (state == JsonQuery.FALSE) {
+            frame.pendingCount = 0;
+         }
+      }
+
+      /**
+       * Report the match right away or defer it until conditions of all enclosing filters are known.
+       */
+      private void emit(Session session, int frameIndex, int start, int end) {
+         for (int i = frameIndex - 1; i >= 0; --i) {
+            Frame frame = frames[i];
+            if (frame.state == JsonQuery.FALSE) {
+               return;
+            } else if (frame.state == JsonQuery.UNKNOWN) {
+               frame.addPending(start, end);
+               return;
+            }
+         }
+         stream.consume(start, end, record, this, session, true);
+      }
+
+      private int retainIndex() {
+         int index = Integer.MAX_VALUE;
+         for (int i = 0; i < frameCount; ++i) {
+            if (frames[i].pendingCount > 0) {
+               index = Math.min(index, frames[i].pending[0]);
+            }
+         }
+         for (long s = openOperands; s != 0; s &= s - 1) {
+            index = Math.min(index, operandStart[Long.numberOfTrailingZeros(s)]);
+         }
+         return index;
+      }
+
+      private int skipWhitespace(int index, int end) {
+         while (index < end) {
+            switch (stream.getByte(index)) {
+               case ' ':
+               case '\n':
+               case '\r':
+               case '\t':
+                  ++index;
+                  break;
+               default:
+                  return index;
+            }
+         }
+         return index;
+      }
+
+      private int trimWhitespace(int start, int end) {
+         while (end > start) {
+            switch (stream.getByte(end - 1)) {
+               case ' ':
+               case '\n':
+               case '\r':
+               case '\t':
+                  --end;
+                  break;
+               default:
+                  return end;
+            }
+         }
+         return end;
+      }
+
+      private void tryRecord(Session session, int readerIndex) {
+         if (recordLevel == level && valueStartIndex >= 0) {
+            // valueStartIndex is always before quotes here
+            valueStartIndex = skipWhitespace(valueStartIndex, readerIndex - 1);
+            int end = trimWhitespace(valueStartIndex, readerIndex - 1);
             if (valueStartIndex == end) {
                // This happens when we try to select from a 0-length array
                // - as long as there are not quotes there's nothing to record.
                valueStartIndex = -1;
-               --selector;
                return;
             }
             if (replace != null) {
@@ -438,11 +560,10 @@ public abstract class JsonParser implements Serializable {
                   processor.process(session, replaceBuffer, replaceBuffer.readerIndex(), replaceBuffer.readableBytes(), false);
                }
             } else if (!delete) {
-               stream.consume(valueStartIndex, end, record, this, session, true);
+               emit(session, frameCount, valueStartIndex, end);
             }
             lastOutputIndex = end;
             valueStartIndex = -1;
-            --selector;
          }
       }
 
@@ -505,7 +626,10 @@ public abstract class JsonParser implements Serializable {
       }
 
       /**
-       * Query selecting the part of JSON.
+       * Query selecting the part of JSON. Supports attributes (<code>.foo</code> or <code>['foo']</code>),
+       * array elements (<code>[]</code>, <code>[1]</code>, <code>[1:3]</code>), wildcards (<code>.*</code>),
+       * recursive descent (<code>..foo</code>) and filters (<code>[?(@.status == 'ACTIVE' &amp;&amp; @.price &lt; 10)]</code>).
+       * Filters and recursive descent cannot be combined with <code>delete</code> or <code>replace</code>.
        *
        * @param query Query.
        * @return Self.
@@ -0,0 +1,660 @@
+package io.hyperfoil.core.handlers.json;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
+
+/**
+ * Query compiled into a streaming automaton. The query is a sequence of selectors; state <code>i</code>
+ * means that the value matched the first <code>i</code> selectors, state <code>selectors.length</code>
+ * is a complete match. Since recursive descent and wildcards can put a value into several states at once
+ * the parser tracks sets of states as bitmasks.
+ * <p>
+ * Supported syntax:
+ * <ul>
+ * <li><code>.name</code> or <code>['name']</code>: attribute</li>
+ * <li><code>.*</code> or <code>[*]</code>: any attribute or array element</li>
+ * <li><code>[]</code>, <code>[2]</code>, <code>[1:3]</code>, <code>[:3]</code>, <code>[1:]</code>: array elements,
+ * the range is inclusive</li>
+ * <li><code>..name</code>, <code>..*</code>, <code>..[0]</code>: recursive descent</li>
+ * <li><code>[?(@.status == 'ACTIVE')]</code>: filter on attributes or array elements. The condition compares
+ * <code>@</code> (the element itself) or <code>@.path.to.attribute</code> with a number, string,
+ * <code>true</code>, <code>false</code> or <code>null</code> using <code>== != &lt; &lt;= &gt; &gt;=</code>,
+ * or tests only presence of the attribute (<code>[?(@.name)]</code>). Conditions can be combined using
+ * <code>&amp;&amp;</code>, <code>||</code> and parentheses.</li>
+ * </ul>
+ */
+final class JsonQuery implements Serializable {
+   static final byte UNKNOWN = 0;
+   static final byte TRUE = 1;
+   static final byte FALSE = 2;
+
+   final Selector[] selectors;
+   final long matchState;
+   // states entered through a filter selector
+   final long filterStates;
+   final boolean hasFilters;
+   final boolean hasRecursion;
+   // All comparisons from all filters; comparison k tracks path of its operand using bits
+   // operandBase[k] .. operandBase[k] + path length (the last one means that the path is complete).
+   final Comparison[] comparisons;
+   final long operandCompleteBits;
+   // indexed by operand bit
+   final byte[][] operandStepNames = new byte[Long.SIZE][];
+   final int[] comparisonOfBit = new int[Long.SIZE];
+
+   private JsonQuery(Selector[] selectors, Comparison[] comparisons) {
+      if (selectors.length >= Long.SIZE) {
+         throw new BenchmarkDefinitionException("Too many selectors in JSON query: " + selectors.length);
+      }
+      this.selectors = selectors;
+      this.matchState = 1L << selectors.length;
+      this.comparisons = comparisons;
+      long filterStates = 0;
+      boolean hasRecursion = false;
+      for (int i = 0; i < selectors.length; ++i) {
+         if (selectors[i] instanceof FilterSelector) {
+            filterStates |= 1L << (i + 1);
+         }
+         hasRecursion |= selectors[i].recursive;
+      }
+      this.filterStates = filterStates;
+      this.hasFilters = filterStates != 0;
+      this.hasRecursion = hasRecursion;
+      int bit = 0;
+      long operandCompleteBits = 0;
+      for (int k = 0; k < comparisons.length; ++k) {
+         Comparison c = comparisons[k];
+         if (bit + c.path.length >= Long.SIZE) {
+            throw new BenchmarkDefinitionException("Too many conditions in JSON query filters.");
+         }
+         c.operandBase = bit;
+         for (int p = 0; p < c.path.length; ++p) {
+            operandStepNames[bit] = c.path[p];
+            comparisonOfBit[bit++] = k;
+         }
+         operandCompleteBits |= 1L << bit;
+         comparisonOfBit[bit++] = k;
+      }
+      this.operandCompleteBits = operandCompleteBits;
+      for (Comparison c : comparisons) {
+         FilterSelector filter = (FilterSelector) selectors[c.selector];
+         filter.operandStartBits |= 1L << c.operandBase;
+      }
+   }
+
+   static JsonQuery compile(String query) {
+      return new QueryParser(query).parse();
+   }
+
+   abstract static class Selector implements Serializable {
+      boolean recursive;
+
+      boolean matchesKey(StreamQueue stream, int start, int end) {
+         return false;
+      }
+
+      boolean matchesIndex(int index) {
+         return false;
+      }
+   }
+
+   static class AttribSelector extends Selector {
+      final byte[] name;
+
+      AttribSelector(byte[] name) {
+         this.name = name;
+      }
+
+      @Override
+      boolean matchesKey(StreamQueue stream, int start, int end) {
+         return matches(name, stream, start, end);
+      }
+   }
+
+   static class WildcardSelector extends Selector {
+      @Override
+      boolean matchesKey(StreamQueue stream, int start, int end) {
+         return true;
+      }
+
+      @Override
+      boolean matchesIndex(int index) {
+         return true;
+      }
+   }
+
+   static class ArraySelector extends Selector {
+      int rangeStart = 0;
+      int rangeEnd = Integer.MAX_VALUE;
+
+      @Override
+      boolean matchesIndex(int index) {
+         return index >= rangeStart && index <= rangeEnd;
+      }
+   }
+
+   static class FilterSelector extends WildcardSelector {
+      final Expression expression;
+      final int comparisons;
+      long operandStartBits;
+
+      FilterSelector(Expression expression, int comparisons) {
+         this.expression = expression;
+         this.comparisons = comparisons;
+      }
+   }
+
+   static boolean matches(byte[] name, StreamQueue stream, int start, int end) {
+      if (end - start != name.length) {
+         return false;
+      }
+      for (int i = 0; i < name.length; ++i) {
+         if (name[i] != stream.getByte(start + i)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Three-valued expression: the result is {@link #UNKNOWN} until enough operands were seen.
+    */
+   interface Expression extends Serializable {
+      byte eval(byte[] results);
+   }
+
+   static class And implements Expression {
+      final Expression[] operands;
+
+      And(Expression[] operands) {
+         this.operands = operands;
+      }
+
+      @Override
+      public byte eval(byte[] results) {
+         byte result = TRUE;
+         for (Expression e : operands) {
+            byte r = e.eval(results);
+            if (r == FALSE) {
+               return FALSE;
+            } else if (r == UNKNOWN) {
+               result = UNKNOWN;
+            }
+         }
+         return result;
+      }
+   }
+
+   static class Or implements Expression {
+      final Expression[] operands;
+
+      Or(Expression[] operands) {
+         this.operands = operands;
+      }
+
+      @Override
+      public byte eval(byte[] results) {
+         byte result = FALSE;
+         for (Expression e : operands) {
+            byte r = e.eval(results);
+            if (r == TRUE) {
+               return TRUE;
+            } else if (r == UNKNOWN) {
+               result = UNKNOWN;
+            }
+         }
+         return result;
+      }
+   }
+
+   enum Operator {
+      EXISTS,
+      EQ,
+      NE,
+      LT,
+      LE,
+      GT,
+      GE
+   }
+
+   static class Comparison implements Expression {
+      private static final int INCOMPARABLE = Integer.MIN_VALUE;
+      private static final byte[] TRUE_BYTES = "true".getBytes(StandardCharsets.UTF_8);
+      private static final byte[] FALSE_BYTES = "false".getBytes(StandardCharsets.UTF_8);
+      private static final byte[] NULL_BYTES = "null".getBytes(StandardCharsets.UTF_8);
+
+      // selector index of the filter
+      final int selector;
+      // index into filter's results
+      final int id;
+      final byte[][] path;
+      final Operator operator;
+      // one of the following is set
+      final byte[] string;
+      final byte[] word;
+      final double number;
+      int operandBase;
+
+      Comparison(int selector, int id, byte[][] path, Operator operator, byte[] string, byte[] word, double number) {
+         this.selector = selector;
+         this.id = id;
+         this.path = path;
+         this.operator = operator;
+         this.string = string;
+         this.word = word;
+         this.number = number;
+      }
+
+      @Override
+      public byte eval(byte[] results) {
+         return results[id];
+      }
+
+      /**
+       * @param stream Source data.
+       * @param start Index of first byte of the value (without whitespace).
+       * @param end Index after the last byte of the value (without whitespace).
+       * @param scratch Temporary buffer.
+       * @return Result of the comparison.
+       */
+      boolean test(StreamQueue stream, int start, int end, byte[] scratch) {
+         int cmp = compare(stream, start, end, scratch);
+         switch (operator) {
+            case EXISTS:
+               return true;
+            case EQ:
+               return cmp == 0;
+            case NE:
+               return cmp != 0;
+            case LT:
+               return cmp != INCOMPARABLE && cmp < 0;
+            case LE:
+               return cmp != INCOMPARABLE && cmp <= 0;
+            case GT:
+               return cmp != INCOMPARABLE && cmp > 0;
+            case GE:
+               return cmp != INCOMPARABLE && cmp >= 0;
+            default:
+               throw new IllegalStateException();
+         }
+      }
+
+      private int compare(StreamQueue stream, int start, int end, byte[] scratch) {
+         if (operator == Operator.EXISTS) {
+            return 0;
+         }
+         int first = stream.getByte(start);
+         if (string != null) {
+            // compare raw (escaped) contents
+            if (first != '"' || end - start < 2 || stream.getByte(end - 1) != '"') {
+               return INCOMPARABLE;
+            }
+            for (int i = 0; i < string.length && start + 1 + i < end - 1; ++i) {
+               int diff = (stream.getByte(start + 1 + i) & 0xFF) - (string[i] & 0xFF);
+               if (diff != 0) {
+                  return diff;
+               }
+            }
+            return Integer.compare(end - start - 2, string.length);
+         } else if (word != null) {
+            return matches(word, stream, start, end) ? 0 : INCOMPARABLE;
+         } else {
+            if (first != '-' && (first < '0' || first > '9') || end - start > scratch.length) {
+               return INCOMPARABLE;
+            }
+            stream.getBytes(start, scratch, 0, end - start);
+            double value = parseNumber(scratch, 0, end - start);
+            return Double.isNaN(value) ? INCOMPARABLE : Double.compare(value, number);
+         }
+      }
+   }
+
+   private static final double[] POWERS_OF_TEN = new double[23];
+
+   static {
+      POWERS_OF_TEN[0] = 1;
+      for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+         POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+      }
+   }
+
+   /**
+    * Allocation-free parsing of JSON number; exact for up to 18 significant digits and small exponents.
+    *
+    * @return Parsed value or NaN if this is not a valid number.
+    */
+   static double parseNumber(byte[] bytes, int start, int end) {
+      int i = start;
+      boolean negative = i < end && bytes[i] == '-';
+      if (negative) {
+         ++i;
+      }
+      long mantissa = 0;
+      int exponent = 0;
+      int digits = 0;
+      boolean fraction = false;
+      for (; i < end; ++i) {
+         byte b = bytes[i];
+         if (b >= '0' && b <= '9') {
+            if (mantissa < 100_000_000_000_000_000L) {
+               mantissa = mantissa * 10 + (b - '0');
+               if (fraction) {
+                  --exponent;
+               }
+            } else if (!fraction) {
+               ++exponent;
+            }
+            ++digits;
+         } else if (b == '.' && !fraction) {
+            fraction = true;
+         } else if ((b == 'e' || b == 'E') && digits > 0) {
+            int exp = 0;
+            boolean negativeExp = false;
+            if (++i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+               negativeExp = bytes[i++] == '-';
+            }
+            if (i >= end) {
+               return Double.NaN;
+            }
+            for (; i < end; ++i) {
+               if (bytes[i] < '0' || bytes[i] > '9' || exp > 10_000) {
+                  return Double.NaN;
+               }
+               exp = exp * 10 + (bytes[i] - '0');
+            }
+            exponent += negativeExp ? -exp : exp;
+            break;
+         } else {
+            return Double.NaN;
+         }
+      }
+      if (digits == 0) {
+         return Double.NaN;
+      }
+      double value;
+      if (exponent >= 0) {
+         value = exponent < POWERS_OF_TEN.length ? mantissa * POWERS_OF_TEN[exponent] : mantissa * Math.pow(10, exponent);
+      } else {
+         value = -exponent < POWERS_OF_TEN.length ? mantissa / POWERS_OF_TEN[-exponent] : mantissa / Math.pow(10, -exponent);
+      }
+      return negative ? -value : value;
+   }
+
+   private static class QueryParser {
+      private final String query;
+      private final List<Selector> selectors = new ArrayList<>();
+      private final List<Comparison> comparisons = new ArrayList<>();
+      private int pos;
+      private int filterComparisons;
+
+      QueryParser(String query) {
+         this.query = query;
+      }
+
+      JsonQuery parse() {
+         if (query.startsWith("$")) {
+            ++pos;
+         }
+         if (pos >= query.length() || query.charAt(pos) != '.' && query.charAt(pos) != '[') {
+            throw new BenchmarkDefinitionException("Path should start with '.'");
+         }
+         boolean recursive = false;
+         while (pos < query.length()) {
+            char c = query.charAt(pos);
+            if (c == '.') {
+               if (recursive) {
+                  throw error("Too many dots");
+               }
+               ++pos;
+               if (pos < query.length() && query.charAt(pos) == '.') {
+                  recursive = true;
+                  ++pos;
+               }
+               if (pos >= query.length() || query.charAt(pos) == '[') {
+                  continue;
+               } else if (query.charAt(pos) == '*') {
+                  ++pos;
+                  add(new WildcardSelector(), recursive);
+               } else {
+                  int start = pos;
+                  while (pos < query.length() && query.charAt(pos) != '.' && query.charAt(pos) != '[') {
+                     ++pos;
+                  }
+                  if (start == pos) {
+                     throw error("Expected attribute name");
+                  }
+                  add(new AttribSelector(query.substring(start, pos).getBytes(StandardCharsets.UTF_8)), recursive);
+               }
+               recursive = false;
+            } else if (c == '[') {
+               ++pos;
+               add(parseBracket(), recursive);
+               recursive = false;
+            } else {
+               throw error("Unexpected character '" + c + "'");
+            }
+         }
+         if (recursive) {
+            throw error("Recursive descent must be followed by a selector");
+         }
+         return new JsonQuery(selectors.toArray(new Selector[0]), comparisons.toArray(new Comparison[0]));
+      }
+
+      private void add(Selector selector, boolean recursive) {
+         selector.recursive = recursive;
+         selectors.add(selector);
+      }
+
+      private Selector parseBracket() {
+         skipWhitespace();
+         char c = peek();
+         Selector selector;
+         if (c == ']') {
+            selector = new ArraySelector();
+         } else if (c == '*') {
+            ++pos;
+            selector = new WildcardSelector();
+         } else if (c == '\'' || c == '"') {
+            selector = new AttribSelector(parseString());
+         } else if (c == '?') {
+            ++pos;
+            expect('(');
+            filterComparisons = 0;
+            Expression expression = parseOr();
+            expect(')');
+            selector = new FilterSelector(expression, filterComparisons);
+         } else {
+            ArraySelector arraySelector = new ArraySelector();
+            int start = pos;
+            while (pos < query.length() && query.charAt(pos) != ':' && query.charAt(pos) != ']') {
+               ++pos;
+            }
+            boolean range = pos < query.length() && query.charAt(pos) == ':';
+            if (start < pos) {
+               arraySelector.rangeStart = parseInt(start, pos);
+               if (!range) {
+                  arraySelector.rangeEnd = arraySelector.rangeStart;
+               }
+            }
+            if (range) {
+               start = ++pos;
+               while (pos < query.length() && query.charAt(pos) != ']') {
+                  ++pos;
+               }
+               if (start < pos) {
+                  arraySelector.rangeEnd = parseInt(start, pos);
+               }
+            }
+            selector = arraySelector;
+         }
+         skipWhitespace();
+         expect(']');
+         return selector;
+      }
+
+      private int parseInt(int start, int end) {
+         int value = 0;
+         for (int i = start; i < end; ++i) {
+            char c = query.charAt(i);
+            if (c < '0' || c > '9') {
+               throw new BenchmarkDefinitionException("Invalid range specification: " + query);
+            }
+            value = value * 10 + c - '0';
+         }
+         return value;
+      }
+
+      private Expression parseOr() {
+         List<Expression> operands = new ArrayList<>();
+         operands.add(parseAnd());
+         while (tryConsume("||")) {
+            operands.add(parseAnd());
+         }
+         return operands.size() == 1 ? operands.get(0) : new Or(operands.toArray(new Expression[0]));
+      }
+
+      private Expression parseAnd() {
+         List<Expression> operands = new ArrayList<>();
+         operands.add(parsePrimary());
+         while (tryConsume("&&")) {
+            operands.add(parsePrimary());
+         }
+         return operands.size() == 1 ? operands.get(0) : new And(operands.toArray(new Expression[0]));
+      }
+
+      private Expression parsePrimary() {
+         skipWhitespace();
+         if (tryConsume("(")) {
+            Expression expression = parseOr();
+            skipWhitespace();
+            expect(')');
+            return expression;
+         }
+         expect('@');
+         List<byte[]> path = new ArrayList<>();
+         while (pos < query.length()) {
+            char c = query.charAt(pos);
+            if (c == '.') {
+               int start = ++pos;
+               while (pos < query.length() && isNameChar(query.charAt(pos))) {
+                  ++pos;
+               }
+               if (start == pos) {
+                  throw error("Expected attribute name");
+               }
+               path.add(query.substring(start, pos).getBytes(StandardCharsets.UTF_8));
+            } else if (c == '[') {
+               ++pos;
+               skipWhitespace();
+               path.add(parseString());
+               skipWhitespace();
+               expect(']');
+            } else {
+               break;
+            }
+         }
+         skipWhitespace();
+         Operator operator;
+         if (tryConsume("==")) {
+            operator = Operator.EQ;
+         } else if (tryConsume("!=")) {
+            operator = Operator.NE;
+         } else if (tryConsume("<=")) {
+            operator = Operator.LE;
+         } else if (tryConsume(">=")) {
+            operator = Operator.GE;
+         } else if (tryConsume("<")) {
+            operator = Operator.LT;
+         } else if (tryConsume(">")) {
+            operator = Operator.GT;
+         } else {
+            operator = Operator.EXISTS;
+         }
+         byte[] string = null;
+         byte[] word = null;
+         double number = Double.NaN;
+         if (operator != Operator.EXISTS) {
+            skipWhitespace();
+            char c = peek();
+            if (c == '\'' || c == '"') {
+               string = parseString();
+            } else {
+               int start = pos;
+               while (pos < query.length() && isNameChar(query.charAt(pos)) || pos < query.length() && "+-.".indexOf(
+                     query.charAt(pos)) >= 0) {
+                  ++pos;
+               }
+               String literal = query.substring(start, pos);
+               if (literal.equals("true") || literal.equals("false") || literal.equals("null")) {
+                  word = literal.getBytes(StandardCharsets.UTF_8);
+               } else {
+                  byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+                  number = parseNumber(bytes, 0, bytes.length);
+                  if (Double.isNaN(number)) {
+                     throw error("Invalid literal '" + literal + "'");
+                  }
+               }
+            }
+         }
+         Comparison comparison = new Comparison(selectors.size(), filterComparisons++, path.toArray(new byte[0][]),
+               operator, string, word, number);
+         comparisons.add(comparison);
+         return comparison;
+      }
+
+      private static boolean isNameChar(char c) {
+         return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '$';
+      }
+
+      private byte[] parseString() {
+         char quote = query.charAt(pos++);
+         StringBuilder sb = new StringBuilder();
+         while (pos < query.length() && query.charAt(pos) != quote) {
+            char c = query.charAt(pos++);
+            if (c == '\\' && pos < query.length()) {
+               c = query.charAt(pos++);
+            }
+            sb.append(c);
+         }
+         expect(quote);
+         return sb.toString().getBytes(StandardCharsets.UTF_8);
+      }
+
+      private void skipWhitespace() {
+         while (pos < query.length() && Character.isWhitespace(query.charAt(pos))) {
+            ++pos;
+         }
+      }
+
+      private boolean tryConsume(String token) {
+         skipWhitespace();
+         if (query.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+         }
+         return false;
+      }
+
+      private char peek() {
+         if (pos >= query.length()) {
+            throw error("Unexpected end of query");
+         }
+         return query.charAt(pos);
+      }
+
+      private void expect(char c) {
+         if (peek() != c) {
+            throw error("Expected '" + c + "'");
+         }
+         ++pos;
+      }
+
+      private BenchmarkDefinitionException error(String message) {
+         return new BenchmarkDefinitionException(message + " at position " + pos + " in JSON query '" + query + "'");
+      }
+   }
+}
@@ -2,6 +2,7 @@ package io.hyperfoil.core.handlers.json;
 
 import java.nio.charset.StandardCharsets;
 
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.processor.Transformer;
 import io.hyperfoil.api.session.ResourceUtilizer;
@@ -10,7 +11,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 
 public class JsonUnquotingTransformer
-      implements Transformer, Processor, ResourceUtilizer, Session.ResourceKey<JsonUnquotingTransformer.Context> {
+      implements Transformer, Processor, ResourceUtilizer {
    private static final ByteBuf NEWLINE = Unpooled.wrappedBuffer("\n".getBytes(StandardCharsets.UTF_8));
    private static final ByteBuf BACKSPACE = Unpooled.wrappedBuffer("\b".getBytes(StandardCharsets.UTF_8));
    private static final ByteBuf FORMFEED = Unpooled.wrappedBuffer("\f".getBytes(StandardCharsets.UTF_8));
@@ -18,6 +19,8 @@ public class JsonUnquotingTransformer
    private static final ByteBuf TAB = Unpooled.wrappedBuffer("\t".getBytes(StandardCharsets.UTF_8));
 
    protected final Transformer delegate;
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
 
    public JsonUnquotingTransformer(Transformer delegate) {
       this.delegate = delegate;
@@ -30,7 +33,7 @@ public class JsonUnquotingTransformer
    @Override
    public void before(Session session) {
       delegate.before(session);
-      Context context = session.getResource(this);
+      Context context = session.getResource(resourceKey);
       context.reset();
    }
 
@@ -41,7 +44,7 @@ public class JsonUnquotingTransformer
 
    @Override
    public void transform(Session session, ByteBuf input, int offset, int length, boolean isLastFragment, ByteBuf output) {
-      Context context = session.getResource(this);
+      Context context = session.getResource(resourceKey);
       int begin;
       if (context.unicode) {
          begin = offset + processUnicode(session, input, offset, length, isLastFragment, output, context, 0);
@@ -156,7 +159,7 @@ public class JsonUnquotingTransformer
 
    @Override
    public void reserve(Session session) {
-      session.declareResource(this, Context::new);
+      session.declareResource(resourceKey, Context::new);
    }
 
    public static class Context implements Session.Resource {
@@ -174,5 +177,4 @@ public class JsonUnquotingTransformer
          unicodeChar = 0;
       }
    }
-
 }
@@ -0,0 +1,27 @@
+package io.hyperfoil.core.handlers.json;
+
+class ScalarStructuralScanner extends StructuralScanner {
+   private static final byte[] CLASSES = new byte[256];
+
+   static {
+      for (char c : "\"\\{}[]:,".toCharArray()) {
+         CLASSES[c] = 1;
+      }
+      for (char c : " \n\t\r".toCharArray()) {
+         CLASSES[c] = 2;
+      }
+   }
+
+   @Override
+   void scan(byte[] data, int offset, int length, long[] masks) {
+      long structural = 0;
+      long whitespace = 0;
+      for (int i = 0; i < length; ++i) {
+         long c = CLASSES[data[offset + i] & 0xFF];
+         structural |= (c & 1) << i;
+         whitespace |= (c >> 1) << i;
+      }
+      masks[STRUCTURAL] = structural;
+      masks[WHITESPACE] = whitespace;
+   }
+}
@@ -153,6 +153,30 @@ public class StreamQueue {
       return part.getByte(readerIndexOf(part, partIndex));
    }
 
+   /**
+    * Copy <code>length</code> bytes starting at <code>index</code> into <code>dst</code>; the bytes may span
+    * several parts.
+    */
+   public void getBytes(int index, byte[] dst, int dstIndex, int length) {
+      int i = findPartIndexWith(index);
+      if (i < 0) {
+         throw new IllegalArgumentException("Index " + index + " not found.");
+      }
+      int partIndex = partOffset(index, i);
+      while (length > 0) {
+         ByteStream part = parts[i];
+         int n = part == null ? 0 : Math.min(length, readableBytesOf(part) - partIndex);
+         if (n <= 0) {
+            throw new IllegalArgumentException("Reading after the end of the stream.");
+         }
+         part.getBytes(readerIndexOf(part, partIndex), dst, dstIndex, n);
+         dstIndex += n;
+         length -= n;
+         partIndex = 0;
+         i = next(i);
+      }
+   }
+
    /**
     * Since parts are ordered based on the starting index they deal with, this search backward from the last appended
     * one - which contains the highest indexes - to find the part which contains the given index.
@@ -0,0 +1,70 @@
+package io.hyperfoil.core.handlers.json;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.hyperfoil.internal.Properties;
+
+/**
+ * Classifies up to {@link #BLOCK} bytes at once, producing bitmasks (bit <code>i</code> for byte <code>i</code>)
+ * of structural characters (<code>" \ { } [ ] : ,</code>) and whitespace. {@link JsonParser} runs its state
+ * machine only on the structural positions and handles everything else as runs of bits.
+ * <p>
+ * The implementation using the (incubating) Vector API is selected when the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>; otherwise we fall back to the scalar implementation.
+ * This can be overridden with <code>-Dio.hyperfoil.json.scanner=scalar|vector</code>.
+ */
+abstract class StructuralScanner {
+   private static final Logger log = LogManager.getLogger(StructuralScanner.class);
+   static final int BLOCK = 64;
+   static final StructuralScanner INSTANCE = create(Properties.get(Properties.JSON_SCANNER, null));
+
+   static final int STRUCTURAL = 0;
+   static final int WHITESPACE = 1;
+
+   /**
+    * @param data Input bytes. The array must be readable at least {@link #BLOCK} bytes after <code>offset</code>.
+    * @param offset Index of the first byte.
+    * @param length Number of bytes to classify, at most {@link #BLOCK}.
+    * @param masks Output: masks for {@link #STRUCTURAL} and {@link #WHITESPACE} characters. Bits after
+    *        <code>length</code> are cleared.
+    */
+   abstract void scan(byte[] data, int offset, int length, long[] masks);
+
+   static long validBits(int length) {
+      return length == BLOCK ? -1L : (1L << length) - 1;
+   }
+
+   static StructuralScanner create(String type) {
+      if ("scalar".equals(type)) {
+         return new ScalarStructuralScanner();
+      } else if (type != null && !"vector".equals(type)) {
+         throw new IllegalArgumentException("Unknown JSON scanner '" + type + "', use 'scalar' or 'vector'");
+      }
+      StructuralScanner vector = vector();
+      if (vector != null) {
+         log.debug("Using vectorized JSON scanner");
+         return vector;
+      } else if (type != null) {
+         log.warn("Vectorized JSON scanner is not available, start the JVM with --add-modules jdk.incubator.vector");
+      }
+      return new ScalarStructuralScanner();
+   }
+
+   /**
+    * @return Vectorized implementation or <code>null</code> if the Vector API is not available.
+    */
+   static StructuralScanner vector() {
+      if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+         return null;
+      }
+      try {
+         // loaded reflectively to not link jdk.incubator.vector classes when the module is missing
+         return (StructuralScanner) Class.forName(StructuralScanner.class.getPackageName() + ".VectorStructuralScanner")
+               .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+         log.debug("Cannot use vectorized JSON scanner", e);
+         return null;
+      }
+   }
+}
@@ -0,0 +1,5 @@
+package io.hyperfoil.core.impl;
+
+public interface ArrivalStatsConsumer {
+   void accept(String phase, long arrivals, long wakeUps, long maxArrivalsPerWakeUp);
+}
@@ -1,7 +1,12 @@
 package io.hyperfoil.core.impl;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import io.hyperfoil.internal.Properties;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollSocketChannel;
@@ -13,6 +18,7 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 
 public abstract class EventLoopFactory {
+   private static final Logger log = LogManager.getLogger(EventLoopFactory.class);
    public static final EventLoopFactory INSTANCE;
 
    static {
@@ -29,18 +35,37 @@ public abstract class EventLoopFactory {
             case "kqueue":
                INSTANCE = new KqueueEventLoopFactory();
                break;
-            // TODO: io_uring requires kernel >= 5.9
+            case "io_uring":
+            case "iouring":
+               EventLoopFactory ioUring = IoUringEventLoopFactory.create();
+               if (ioUring != null) {
+                  INSTANCE = ioUring;
+               } else {
+                  INSTANCE = detect(false);
+                  log.warn("Transport io_uring is not available ({}), falling back to {}",
+                        IoUringEventLoopFactory.unavailabilityCause(), INSTANCE.name());
+               }
+               break;
             default:
-               throw new IllegalStateException("Unknown transport '" + transport + "', use either 'nio' or 'epoll'.");
+               throw new IllegalStateException(
+                     "Unknown transport '" + transport + "', use one of 'nio', 'epoll', 'kqueue' or 'io_uring'.");
          }
       } else {
-         if (Epoll.isAvailable()) {
-            INSTANCE = new EpollEventLoopFactory();
-         } else if (KQueue.isAvailable()) {
-            INSTANCE = new KqueueEventLoopFactory();
-         } else {
-            INSTANCE = new NioEventLoopFactory();
-         }
+         INSTANCE = detect(true);
+      }
+   }
+
+   private static EventLoopFactory detect(boolean tryIoUring) {
+      // io_uring is used only when the native library is explicitly added to classpath
+      EventLoopFactory ioUring = tryIoUring ? IoUringEventLoopFactory.create() : null;
+      if (ioUring != null) {
+         return ioUring;
+      } else if (Epoll.isAvailable()) {
+         return new EpollEventLoopFactory();
+      } else if (KQueue.isAvailable()) {
+         return new KqueueEventLoopFactory();
+      } else {
+         return new NioEventLoopFactory();
       }
    }
 
@@ -48,6 +73,11 @@ public abstract class EventLoopFactory {
 
    public abstract Class<? extends SocketChannel> socketChannel();
 
+   /**
+    * @return Name of the transport, as used in {@link Properties#NETTY_TRANSPORT}.
+    */
+   public abstract String name();
+
    private static class NioEventLoopFactory extends EventLoopFactory {
       @Override
       public EventLoopGroup create(int threads) {
@@ -58,6 +88,11 @@ public abstract class EventLoopFactory {
       public Class<? extends SocketChannel> socketChannel() {
          return NioSocketChannel.class;
       }
+
+      @Override
+      public String name() {
+         return "nio";
+      }
    }
 
    private static class EpollEventLoopFactory extends EventLoopFactory {
@@ -70,6 +105,11 @@ public abstract class EventLoopFactory {
       public Class<? extends SocketChannel> socketChannel() {
          return EpollSocketChannel.class;
       }
+
+      @Override
+      public String name() {
+         return "epoll";
+      }
    }
 
    private static class KqueueEventLoopFactory extends EventLoopFactory {
@@ -82,5 +122,68 @@ public abstract class EventLoopFactory {
       public Class<? extends SocketChannel> socketChannel() {
          return KQueueSocketChannel.class;
       }
+
+      @Override
+      public String name() {
+         return "kqueue";
+      }
+   }
+
+   /**
+    * The io_uring transport (kernel >= 5.9) lives in <code>netty-transport-native-io_uring</code> which is not
+    * a compile-time dependency; we access it reflectively so that it can be dropped into the classpath
+    * (e.g. using the <code>io_uring</code> Maven profile) without rebuilding Hyperfoil.
+    */
+   private static class IoUringEventLoopFactory extends EventLoopFactory {
+      private static final String PACKAGE = "io.netty.channel.uring.";
+
+      private final IoHandlerFactory ioHandlerFactory;
+      private final Class<? extends SocketChannel> socketChannel;
+
+      private IoUringEventLoopFactory(IoHandlerFactory ioHandlerFactory, Class<? extends SocketChannel> socketChannel) {
+         this.ioHandlerFactory = ioHandlerFactory;
+         this.socketChannel = socketChannel;
+      }
+
+      static EventLoopFactory create() {
+         try {
+            Class<?> ioUring = Class.forName(PACKAGE + "IoUring");
+            if (!(Boolean) ioUring.getMethod("isAvailable").invoke(null)) {
+               return null;
+            }
+            IoHandlerFactory ioHandlerFactory = (IoHandlerFactory) Class.forName(PACKAGE + "IoUringIoHandler")
+                  .getMethod("newFactory").invoke(null);
+            Class<? extends SocketChannel> socketChannel = Class.forName(PACKAGE + "IoUringSocketChannel")
+                  .asSubclass(SocketChannel.class);
+            return new IoUringEventLoopFactory(ioHandlerFactory, socketChannel);
+         } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            log.debug("Cannot load io_uring transport", e);
+            return null;
+         }
+      }
+
+      static String unavailabilityCause() {
+         try {
+            Throwable cause = (Throwable) Class.forName(PACKAGE + "IoUring").getMethod("unavailabilityCause").invoke(null);
+            return cause == null ? "unknown reason" : cause.toString();
+         } catch (ReflectiveOperationException | LinkageError e) {
+            return "netty-transport-native-io_uring is not on classpath";
+         }
+      }
+
+      @Override
+      public EventLoopGroup create(int threads) {
+         return new MultiThreadIoEventLoopGroup(threads, ioHandlerFactory);
+      }
+
+      @Override
+      public Class<? extends SocketChannel> socketChannel() {
+         return socketChannel;
+      }
+
+      @Override
+      public String name() {
+         return "io_uring";
+      }
    }
 }
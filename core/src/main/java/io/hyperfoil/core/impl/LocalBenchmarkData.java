@@ -1,6 +1,5 @@
 package io.hyperfoil.core.impl;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -10,10 +9,12 @@ import java.util.HashMap;
 import java.util.Map;
 
 import io.hyperfoil.api.config.BenchmarkData;
+import io.hyperfoil.api.config.MappedFiles;
 
 public class LocalBenchmarkData implements BenchmarkData {
    protected final Path benchmarkPath;
-   protected final Map<String, byte[]> files = new HashMap<>();
+   // The content is not read into memory; the files can be larger than 2 GB
+   protected final Map<String, String> paths = new HashMap<>();
 
    public LocalBenchmarkData(Path benchmarkPath) {
       this.benchmarkPath = benchmarkPath;
@@ -21,27 +22,24 @@ public class LocalBenchmarkData implements BenchmarkData {
 
    @Override
    public InputStream readFile(String file) {
-      byte[] bytes = files.get(file);
-      if (bytes == null) {
-         Path path = Paths.get(file);
-         if (!path.isAbsolute()) {
-            if (benchmarkPath == null) {
-               throw new MissingFileException(file, "Cannot load relative path " + file, null);
-            }
-            path = benchmarkPath.getParent().resolve(file);
-         }
-         try {
-            bytes = Files.readAllBytes(path);
-            files.put(file, bytes);
-         } catch (IOException e) {
-            throw new MissingFileException(file, "Local file " + file + " (" + path.toAbsolutePath() + ") cannot be read.", e);
+      Path path = Paths.get(file);
+      if (!path.isAbsolute()) {
+         if (benchmarkPath == null) {
+            throw new MissingFileException(file, "Cannot load relative path " + file, null);
          }
+         path = benchmarkPath.getParent().resolve(file);
+      }
+      try {
+         InputStream stream = Files.newInputStream(path);
+         paths.put(file, path.toAbsolutePath().toString());
+         return stream;
+      } catch (IOException e) {
+         throw new MissingFileException(file, "Local file " + file + " (" + path.toAbsolutePath() + ") cannot be read.", e);
       }
-      return new ByteArrayInputStream(bytes);
    }
 
    @Override
    public Map<String, byte[]> files() {
-      return files;
+      return new MappedFiles(paths);
    }
 }
@@ -10,6 +10,16 @@ final class OpenModel {
    public static PhaseInstance constantRate(Phase def, String runId, int agentId) {
       var model = (Model.ConstantRate) def.model;
       double usersPerSec = def.benchmark().slice(model.usersPerSec, agentId);
+      if (model.perThreadScheduling) {
+         int threads = def.benchmark().threads(agentId);
+         FireTimeSequence[] sequences = new FireTimeSequence[threads];
+         for (int i = 0; i < threads; ++i) {
+            // Superposition of independent Poisson processes is a Poisson process with the sum of rates
+            sequences[i] = model.variance ? FireTimeSequence.poissonConstantRate(usersPerSec / threads)
+                  : FireTimeSequence.constantRate(usersPerSec, i, threads);
+         }
+         return new OpenModelPhase(sequences, def, runId, agentId);
+      }
       if (model.variance) {
          return new OpenModelPhase(FireTimeSequence.poissonConstantRate(usersPerSec), def, runId, agentId);
       } else {
@@ -22,6 +32,16 @@ final class OpenModel {
       double initialUsersPerSec = def.benchmark().slice(model.initialUsersPerSec, agentId);
       double targetUsersPerSec = def.benchmark().slice(model.targetUsersPerSec, agentId);
       long durationNs = def.duration * 1_000_000L;
+      if (model.perThreadScheduling) {
+         int threads = def.benchmark().threads(agentId);
+         FireTimeSequence[] sequences = new FireTimeSequence[threads];
+         for (int i = 0; i < threads; ++i) {
+            sequences[i] = model.variance
+                  ? FireTimeSequence.poissonRampRate(initialUsersPerSec / threads, targetUsersPerSec / threads, durationNs)
+                  : FireTimeSequence.rampRate(initialUsersPerSec, targetUsersPerSec, durationNs, i, threads);
+         }
+         return new OpenModelPhase(sequences, def, runId, agentId);
+      }
       if (model.variance) {
          return new OpenModelPhase(FireTimeSequence.poissonRampRate(initialUsersPerSec, targetUsersPerSec, durationNs), def,
                runId, agentId);
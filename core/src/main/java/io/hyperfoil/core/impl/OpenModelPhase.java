@@ -2,11 +2,14 @@ package io.hyperfoil.core.impl;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.hyperfoil.api.config.Model;
 import io.hyperfoil.api.config.Phase;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.core.impl.rate.FireTimeSequence;
+import io.netty.util.concurrent.EventExecutor;
 
 /**
  * This is a base class for Open Model phases that need to compensate users based on the available ones in the session pool.
@@ -26,21 +29,51 @@ import io.hyperfoil.core.impl.rate.FireTimeSequence;
  * is scheduled on the {@link #executorGroup} (which round-robins across event loops). This ensures catch-up sessions
  * are distributed evenly across all event loops, preventing a single core from being saturated (see issue #627),
  * while preserving progress guarantees since {@code acquire()} can still work-steal from other event loops.
+ * <p>
+ * With {@link Model.OpenModel#perThreadScheduling} the arrival rate is split into one {@link FireTimeSequence} per
+ * event loop. Each {@link ThreadScheduler} reschedules itself only on its own event loop and acquires sessions from the
+ * local queue of the session pool first, so there is no single chain of tasks bouncing across the whole group.
+ * Throttled users are tracked per event loop, too: a session finishing on a loop with throttled users is restarted
+ * right away on the same loop rather than being released and re-acquired. A loop might not own any sessions
+ * (e.g. when there are fewer sessions than threads, or these were stolen by other loops); a session finishing on another
+ * loop takes over its throttled users and starts them through the regular catch-up.
+ * <p>
+ * With {@link Model.OpenModel#batchArrivals()} a single wake-up starts all arrivals that are already due, plus those
+ * within {@link Model.OpenModel#batchLookAheadNs}, instead of scheduling one task per arrival. Due arrivals keep their
+ * exact intended start time. Arrivals from the look-ahead window are started early, therefore their intended start
+ * time is the time of dispatch: compensated latencies can be only longer, never shorter than the real ones.
  */
 final class OpenModelPhase extends PhaseInstanceImpl {
+   // Upper bound on arrivals started in one wake-up so that a large backlog does not monopolize the event loop
+   private static final int MAX_ARRIVALS_PER_WAKE_UP = 1024;
 
    private final int maxSessions;
+   private final long batchLookAheadNs;
    private final AtomicLong throttledUsers = new AtomicLong(0);
-   private final FireTimeSequence fireTimeSequence;
-   private final Runnable proceedTask = this::proceed;
+   private final FireTimeSequence[] fireTimeSequences;
    private final Runnable catchUpTask = this::catchUp;
-   private long nextScheduledFireTimeNs;
+   private final LongAdder wakeUps = new LongAdder();
+   private final LongAdder batchedArrivals = new LongAdder();
+   private final LongAccumulator maxArrivalsPerWakeUp = new LongAccumulator(Math::max, 0);
+   private final SharedScheduler sharedScheduler;
+   // Written once by proceed() and read from all event loops in notifyFinished()
+   private volatile ThreadScheduler[] threadSchedulers;
 
    OpenModelPhase(FireTimeSequence fireTimeSequence, Phase def, String runId, int agentId) {
+      this(new FireTimeSequence[] { fireTimeSequence }, def, runId, agentId);
+   }
+
+   /**
+    * @param fireTimeSequences Single sequence for the whole agent or, with {@link Model.OpenModel#perThreadScheduling},
+    *        one sequence per agent thread; together they must produce the phase rate.
+    */
+   OpenModelPhase(FireTimeSequence[] fireTimeSequences, Phase def, String runId, int agentId) {
       super(def, runId, agentId);
-      this.fireTimeSequence = fireTimeSequence;
-      this.maxSessions = Math.max(1, def.benchmark().slice(((Model.OpenModel) def.model).maxSessions, agentId));
-      this.nextScheduledFireTimeNs = fireTimeSequence.nextFireTimeNs();
+      Model.OpenModel model = (Model.OpenModel) def.model;
+      this.fireTimeSequences = fireTimeSequences;
+      this.maxSessions = Math.max(1, def.benchmark().slice(model.maxSessions, agentId));
+      this.batchLookAheadNs = model.batchLookAheadNs;
+      this.sharedScheduler = model.perThreadScheduling ? null : new SharedScheduler(fireTimeSequences[0]);
    }
 
    @Override
@@ -56,56 +89,113 @@ final class OpenModelPhase extends PhaseInstanceImpl {
       if (status.isFinished()) {
          return;
       }
-      long elapsedTimeNs = System.nanoTime() - nanoTimeStart;
-      if (elapsedTimeNs < nextScheduledFireTimeNs) {
-         // this can happen on PhaseInstanceImpl::start once RUNNING
-         executorGroup.schedule(proceedTask,
-               nextScheduledFireTimeNs - elapsedTimeNs, TimeUnit.NANOSECONDS);
-         return;
+      if (sharedScheduler != null) {
+         sharedScheduler.run();
+      } else {
+         startThreadSchedulers();
       }
-      // Handle the current fire time
-      long fireTimeNs = nextScheduledFireTimeNs;
-      long absoluteStartTimeMs = absoluteStartTime + TimeUnit.NANOSECONDS.toMillis(fireTimeNs);
-      long absoluteStartNanoTime = nanoTimeStart + fireTimeNs;
-      if (!startNewSession(absoluteStartTimeMs, absoluteStartNanoTime)) {
-         throttledUsers.incrementAndGet();
+   }
+
+   private synchronized void startThreadSchedulers() {
+      if (threadSchedulers != null) {
+         log.warn("Phase {} has already started its schedulers", def.name);
+         return;
       }
-      // Compute next fire time and schedule accordingly
-      nextScheduledFireTimeNs = fireTimeSequence.nextFireTimeNs();
-      long nowNs = System.nanoTime() - nanoTimeStart;
-      long delayNs = nextScheduledFireTimeNs - nowNs;
-      if (delayNs <= 0) {
-         executorGroup.execute(proceedTask);
-      } else {
-         if (trace) {
-            log.trace("{}: {} ns after start, next fire in {} ns ({} throttled)",
-                  def.name, nowNs, delayNs, throttledUsers);
+      ThreadScheduler[] schedulers = new ThreadScheduler[fireTimeSequences.length];
+      int i = 0;
+      for (EventExecutor executor : executorGroup) {
+         if (i >= schedulers.length) {
+            throw new IllegalStateException(
+                  def.name + " has " + schedulers.length + " fire time sequences but there are more executors");
          }
-         executorGroup.schedule(proceedTask, delayNs, TimeUnit.NANOSECONDS);
+         schedulers[i] = new ThreadScheduler(executor, fireTimeSequences[i]);
+         ++i;
+      }
+      if (i != schedulers.length) {
+         throw new IllegalStateException(
+               def.name + " has " + schedulers.length + " fire time sequences but only " + i + " executors");
+      }
+      threadSchedulers = schedulers;
+      for (ThreadScheduler scheduler : schedulers) {
+         scheduler.executor.execute(scheduler);
+      }
+   }
+
+   @Override
+   public void finish() {
+      super.finish();
+      long wakeUps = this.wakeUps.sum();
+      if (wakeUps > 0) {
+         log.info("Phase {} started {} users in {} wake-ups ({} per wake-up on average, at most {})",
+               def.name, batchedArrivals.sum(), wakeUps, String.format("%.2f", arrivalsPerWakeUp()),
+               maxArrivalsPerWakeUp.get());
       }
    }
 
+   /**
+    * Reports cumulative number of users started in batches, scheduler wake-ups that started at least one user
+    * and maximum number of users started in a single wake-up; recorded only when batching arrivals.
+    */
+   void visitArrivalStats(ArrivalStatsConsumer consumer) {
+      long wakeUps = this.wakeUps.sum();
+      if (wakeUps > 0) {
+         consumer.accept(def.name, batchedArrivals.sum(), wakeUps, maxArrivalsPerWakeUp.get());
+      }
+   }
+
+   private double arrivalsPerWakeUp() {
+      long wakeUps = this.wakeUps.sum();
+      return wakeUps == 0 ? 0 : (double) batchedArrivals.sum() / wakeUps;
+   }
+
    @Override
    public void notifyFinished(Session session) {
       if (session != null && !status.isFinished()) {
-         long throttled = throttledUsers.get();
-         while (throttled != 0) {
-            if (throttledUsers.compareAndSet(throttled, throttled - 1)) {
-               // Release the session back to the pool and schedule a new session acquisition
-               // on the executorGroup, which round-robins across event loops. This distributes
-               // catch-up load evenly while preserving progress guarantees (acquire() can still
-               // work-steal from other event loops if the local queue is empty).
-               super.notifyFinished(session);
-               executorGroup.execute(catchUpTask);
+         ThreadScheduler[] schedulers = threadSchedulers;
+         if (schedulers != null) {
+            int threadId = session.agentThreadId();
+            ThreadScheduler own = schedulers[threadId];
+            if (own.executor.inEventLoop() && takeThrottledUser(own.throttledUsers)) {
+               // Keep the session active (activeSessions does not change) and restart it on the same event loop
+               session.start(-1, -1, this);
                return;
-            } else {
-               throttled = throttledUsers.get();
             }
+            // Check other loops (and this loop, if we're not running in it) last
+            for (int i = 1; i <= schedulers.length; ++i) {
+               ThreadScheduler scheduler = schedulers[(threadId + i) % schedulers.length];
+               if (takeThrottledUser(scheduler.throttledUsers)) {
+                  super.notifyFinished(session);
+                  // acquire() prefers sessions local to the scheduler's loop but steals from others if there are none
+                  scheduler.executor.execute(catchUpTask);
+                  return;
+               }
+            }
+         }
+         // Users that could not be caught up are tracked in the shared counter even with per-thread scheduling
+         if (takeThrottledUser(throttledUsers)) {
+            // Release the session back to the pool and schedule a new session acquisition
+            // on the executorGroup, which round-robins across event loops. This distributes
+            // catch-up load evenly while preserving progress guarantees (acquire() can still
+            // work-steal from other event loops if the local queue is empty).
+            super.notifyFinished(session);
+            executorGroup.execute(catchUpTask);
+            return;
          }
       }
       super.notifyFinished(session);
    }
 
+   private static boolean takeThrottledUser(AtomicLong counter) {
+      long throttled = counter.get();
+      while (throttled != 0) {
+         if (counter.compareAndSet(throttled, throttled - 1)) {
+            return true;
+         }
+         throttled = counter.get();
+      }
+      return false;
+   }
+
    private void catchUp() {
       if (!startNewSession(-1, -1)) {
          // Session acquisition failed (e.g., the released session was grabbed by proceed()
@@ -114,4 +204,125 @@ final class OpenModelPhase extends PhaseInstanceImpl {
       }
    }
 
+   private abstract class ArrivalScheduler implements Runnable {
+      private final FireTimeSequence fireTimeSequence;
+      private long nextScheduledFireTimeNs;
+
+      private ArrivalScheduler(FireTimeSequence fireTimeSequence) {
+         this.fireTimeSequence = fireTimeSequence;
+         this.nextScheduledFireTimeNs = fireTimeSequence.nextFireTimeNs();
+      }
+
+      abstract void execute();
+
+      abstract void schedule(long delayNs);
+
+      abstract void onThrottled();
+
+      abstract long throttledUsers();
+
+      @Override
+      public void run() {
+         if (status.isFinished()) {
+            return;
+         }
+         long elapsedTimeNs = System.nanoTime() - nanoTimeStart;
+         if (elapsedTimeNs < nextScheduledFireTimeNs) {
+            // this can happen on PhaseInstanceImpl::start once RUNNING
+            schedule(nextScheduledFireTimeNs - elapsedTimeNs);
+            return;
+         }
+         // Each wake-up starts at a due fire time; when batching we continue up to the horizon
+         long horizonNs = batchLookAheadNs > 0 ? elapsedTimeNs + batchLookAheadNs : elapsedTimeNs;
+         int arrivals = 0;
+         do {
+            long fireTimeNs = nextScheduledFireTimeNs;
+            long intendedStartNs = Math.min(fireTimeNs, elapsedTimeNs);
+            long absoluteStartTimeMs = absoluteStartTime + TimeUnit.NANOSECONDS.toMillis(intendedStartNs);
+            long absoluteStartNanoTime = nanoTimeStart + intendedStartNs;
+            if (!startNewSession(absoluteStartTimeMs, absoluteStartNanoTime)) {
+               onThrottled();
+            }
+            ++arrivals;
+            nextScheduledFireTimeNs = fireTimeSequence.nextFireTimeNs();
+         } while (batchLookAheadNs >= 0 && nextScheduledFireTimeNs <= horizonNs
+               && arrivals < MAX_ARRIVALS_PER_WAKE_UP && !status.isFinished());
+         if (batchLookAheadNs >= 0) {
+            wakeUps.increment();
+            batchedArrivals.add(arrivals);
+            maxArrivalsPerWakeUp.accumulate(arrivals);
+         }
+         long nowNs = System.nanoTime() - nanoTimeStart;
+         long delayNs = nextScheduledFireTimeNs - nowNs;
+         if (delayNs <= 0) {
+            execute();
+         } else {
+            if (trace) {
+               log.trace("{}: {} ns after start, started {} users, next fire in {} ns ({} throttled)",
+                     def.name, nowNs, arrivals, delayNs, throttledUsers());
+            }
+            schedule(delayNs);
+         }
+      }
+   }
+
+   /**
+    * Single chain of tasks, each one executed in the next executor from the group.
+    */
+   private final class SharedScheduler extends ArrivalScheduler {
+      private SharedScheduler(FireTimeSequence fireTimeSequence) {
+         super(fireTimeSequence);
+      }
+
+      @Override
+      void execute() {
+         executorGroup.execute(this);
+      }
+
+      @Override
+      void schedule(long delayNs) {
+         executorGroup.schedule(this, delayNs, TimeUnit.NANOSECONDS);
+      }
+
+      @Override
+      void onThrottled() {
+         throttledUsers.incrementAndGet();
+      }
+
+      @Override
+      long throttledUsers() {
+         return throttledUsers.get();
+      }
+   }
+
+   private final class ThreadScheduler extends ArrivalScheduler {
+      private final EventExecutor executor;
+      // Incremented only by this scheduler but taken by sessions finishing on any event loop
+      private final AtomicLong throttledUsers = new AtomicLong();
+
+      private ThreadScheduler(EventExecutor executor, FireTimeSequence fireTimeSequence) {
+         super(fireTimeSequence);
+         this.executor = executor;
+      }
+
+      @Override
+      void execute() {
+         executor.execute(this);
+      }
+
+      @Override
+      void schedule(long delayNs) {
+         executor.schedule(this, delayNs, TimeUnit.NANOSECONDS);
+      }
+
+      @Override
+      void onThrottled() {
+         throttledUsers.incrementAndGet();
+      }
+
+      @Override
+      long throttledUsers() {
+         return throttledUsers.get();
+      }
+   }
 }
@@ -45,6 +45,7 @@ import io.hyperfoil.core.session.GlobalDataImpl;
 import io.hyperfoil.core.session.SessionFactory;
 import io.hyperfoil.core.session.ThreadDataImpl;
 import io.hyperfoil.core.util.watchdog.CpuWatchdog;
+import io.hyperfoil.core.util.watchdog.EventLoopProbe;
 import io.hyperfoil.impl.Util;
 import io.hyperfoil.internal.Properties;
 import io.netty.channel.EventLoop;
@@ -159,7 +160,7 @@ public class SimulationRunner {
          // at this point all session resources should be reserved
       }
 
-      // Check if native epoll transport is available for sub-millisecond timing precision
+      // Check if the native transport in use supports sub-millisecond timing precision
       checkNativeTransportForSubMillisecondTiming();
 
       // hint the GC to tenure sessions
@@ -370,6 +371,18 @@ public class SimulationRunner {
       }
    }
 
+   public void visitArrivalStats(ArrivalStatsConsumer consumer) {
+      for (PhaseInstance instance : instances.values()) {
+         if (instance instanceof OpenModelPhase) {
+            ((OpenModelPhase) instance).visitArrivalStats(consumer);
+         }
+      }
+   }
+
+   public EventLoopProbe createEventLoopProbe() {
+      return new EventLoopProbe(executors);
+   }
+
    public void visitConnectionStats(ConnectionStatsConsumer consumer) {
       for (PluginRunData plugin : runData) {
          plugin.visitConnectionStats(consumer);
@@ -568,9 +581,10 @@ public class SimulationRunner {
          }
       }
 
-      // Warn if sub-millisecond precision is needed but native epoll is not available
+      // Warn if sub-millisecond precision is needed but the transport in use cannot provide it
       if (requiresSubMillisecondPrecision) {
-         if (Epoll.isAvailable()) {
+         String transport = EventLoopFactory.INSTANCE.name();
+         if ("epoll".equals(transport)) {
             try {
                String kernelVersion = Native.KERNEL_VERSION;
                String[] parts = kernelVersion.split("[\\.-]");
@@ -580,14 +594,16 @@ public class SimulationRunner {
                boolean epollPwait2Support = major > 5 || (major == 5 && minor >= 11);
                if (!epollPwait2Support) {
                   log.warn(
-                        "Sub-millisecond rate detected and native epoll transport is available but your Linux kernel does not support epoll_pwait2. Timing precision may be limited to millisecond granularity.");
+                        "Sub-millisecond rate detected and native epoll transport is used but your Linux kernel does not support epoll_pwait2. Timing precision may be limited to millisecond granularity.");
                }
             } catch (Exception e) {
                log.error("Failed to detect epoll_pwait2.", e);
             }
-         } else {
+         } else if (!"io_uring".equals(transport)) {
+            // io_uring timeouts use nanosecond timespec on all supported kernels
             log.warn(
-                  "Sub-millisecond rate detected but native epoll transport is unavailable. Timing precision may be limited to millisecond granularity.");
+                  "Sub-millisecond rate detected but {} transport is used{}. Timing precision may be limited to millisecond granularity.",
+                  transport, Epoll.isAvailable() ? "" : " (native epoll is unavailable)");
          }
       }
    }
@@ -1,16 +1,29 @@
 package io.hyperfoil.core.impl.rate;
 
+/**
+ * Generates fire times at a constant rate. When {@code stride > 1} the generator yields only every
+ * {@code stride}-th fire time of the full sequence, starting at {@code offset}; this lets several
+ * generators share the rate without overlapping.
+ */
 final class ConstantRateGenerator implements FireTimeSequence {
 
    private final double fireTimesPerSec;
+   private final int stride;
    private long index;
 
    ConstantRateGenerator(final double fireTimesPerSec) {
+      this(fireTimesPerSec, 0, 1);
+   }
+
+   ConstantRateGenerator(final double fireTimesPerSec, final int offset, final int stride) {
       this.fireTimesPerSec = fireTimesPerSec;
+      this.stride = stride;
+      this.index = offset + 1 - stride;
    }
 
    @Override
    public long nextFireTimeNs() {
-      return (long) Math.ceil(1_000_000_000.0 * ++index / fireTimesPerSec);
+      index += stride;
+      return (long) Math.ceil(1_000_000_000.0 * index / fireTimesPerSec);
    }
 }
@@ -22,11 +22,28 @@ public interface FireTimeSequence {
       return new ConstantRateGenerator(fireTimesPerSec);
    }
 
+   /**
+    * Deterministic constant rate sequence that yields only every {@code stride}-th fire time, starting with the
+    * {@code offset}-th one. Sequences with the same rate and stride and offsets {@code 0..stride-1} together
+    * produce exactly the fire times of {@link #constantRate(double)}.
+    */
+   static FireTimeSequence constantRate(double fireTimesPerSec, int offset, int stride) {
+      return new ConstantRateGenerator(fireTimesPerSec, offset, stride);
+   }
+
    static FireTimeSequence rampRate(double initialFireTimesPerSec, double targetFireTimesPerSec, long durationNs) {
+      return rampRate(initialFireTimesPerSec, targetFireTimesPerSec, durationNs, 0, 1);
+   }
+
+   /**
+    * Strided variant of {@link #rampRate(double, double, long)}, see {@link #constantRate(double, int, int)}.
+    */
+   static FireTimeSequence rampRate(double initialFireTimesPerSec, double targetFireTimesPerSec, long durationNs,
+         int offset, int stride) {
       if (Math.abs(targetFireTimesPerSec - initialFireTimesPerSec) < 0.000001) {
-         return constantRate(initialFireTimesPerSec);
+         return constantRate(initialFireTimesPerSec, offset, stride);
       }
-      return new RampRateGenerator(initialFireTimesPerSec, targetFireTimesPerSec, durationNs);
+      return new RampRateGenerator(initialFireTimesPerSec, targetFireTimesPerSec, durationNs, offset, stride);
    }
 
    static FireTimeSequence poissonConstantRate(Random random, double usersPerSec) {
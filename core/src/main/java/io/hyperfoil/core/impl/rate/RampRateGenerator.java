@@ -23,21 +23,32 @@ package io.hyperfoil.core.impl.rate;
  * <li>{@code c = -N}</li>
  * </ul>
  * Solving this quadratic equation for {@code t} provides the time at which the Nth event should be scheduled.
+ * <p>
+ * As N is computed directly, the generator can yield only every {@code stride}-th event starting at {@code offset}.
  */
 final class RampRateGenerator implements FireTimeSequence {
 
    private final double bCoef;
    private final double progress;
+   private final int stride;
    private long index;
 
    RampRateGenerator(final double initialFireTimesPerSec, final double targetFireTimesPerSec, final long durationNs) {
+      this(initialFireTimesPerSec, targetFireTimesPerSec, durationNs, 0, 1);
+   }
+
+   RampRateGenerator(final double initialFireTimesPerSec, final double targetFireTimesPerSec, final long durationNs,
+         final int offset, final int stride) {
+      this.stride = stride;
+      this.index = offset + 1 - stride;
       bCoef = initialFireTimesPerSec / 1_000_000_000.0;
       progress = (targetFireTimesPerSec - initialFireTimesPerSec) / ((double) durationNs * 1_000_000_000.0);
    }
 
    @Override
    public long nextFireTimeNs() {
-      long targetFireTimes = ++index;
+      index += stride;
+      long targetFireTimes = index;
       return (long) Math.ceil((-bCoef + Math.sqrt(bCoef * bCoef + 2 * progress * targetFireTimes)) / progress);
    }
 }
@@ -33,7 +33,8 @@ public class StatisticsCollector implements Consumer<SessionStatistics> {
          log.trace("Received statistics for: {}", statistics);
       }
       for (int i = 0; i < statistics.size(); ++i) {
-         int phaseAndStepId = (statistics.phase(i).id() << 16) + statistics.step(i);
+         Phase phase = statistics.phase(i);
+         int phaseAndStepId = (phase.id() << 16) + statistics.step(i);
 
          Map<String, IntObjectMap<StatisticsSnapshot>> metricMap = aggregated.get(phaseAndStepId);
          if (metricMap == null) {
@@ -51,7 +52,7 @@ public class StatisticsCollector implements Consumer<SessionStatistics> {
                assert snapshot.sequenceId >= 0;
                StatisticsSnapshot existing = snapshots.get(snapshot.sequenceId);
                if (existing == null) {
-                  existing = new StatisticsSnapshot();
+                  existing = new StatisticsSnapshot(phase.benchmark().histogramSettings(metric));
                   existing.sequenceId = snapshot.sequenceId;
                   snapshots.put(snapshot.sequenceId, existing);
                }
@@ -0,0 +1,26 @@
+package io.hyperfoil.core.parser;
+
+import io.hyperfoil.api.config.HistogramBuilder;
+import io.hyperfoil.impl.Util;
+
+/**
+ * Range and precision of response time histograms; the settings can be overridden for individual metrics
+ * in the <code>metrics</code> mapping.
+ */
+class HistogramParser extends AbstractMappingParser<HistogramBuilder> {
+   private static final HistogramParser METRIC = new HistogramParser(false);
+
+   HistogramParser() {
+      this(true);
+   }
+
+   private HistogramParser(boolean allowMetrics) {
+      register("maxValue", new PropertyParser.String<>((builder, value) -> builder.maxValue(Util.parseToNanos(value))));
+      register("precision", new PropertyParser.Int<>(HistogramBuilder::precision));
+      register("packed", new PropertyParser.Boolean<>(HistogramBuilder::packed));
+      if (allowMetrics) {
+         register("metrics", (ctx, target) -> ctx.parseMapping(target,
+               event -> (c, builder) -> METRIC.parse(c, builder.metric(event.getValue()))));
+      }
+   }
+}
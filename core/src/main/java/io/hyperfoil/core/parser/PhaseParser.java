@@ -1,5 +1,6 @@
 package io.hyperfoil.core.parser;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 import org.yaml.snakeyaml.events.Event;
@@ -12,6 +13,7 @@ import io.hyperfoil.api.config.Model;
 import io.hyperfoil.api.config.PhaseBuilder;
 import io.hyperfoil.api.config.SLABuilder;
 import io.hyperfoil.api.config.SessionLimitPolicy;
+import io.hyperfoil.impl.Util;
 
 abstract class PhaseParser extends AbstractParser<PhaseBuilder.Catalog, PhaseBuilder<?>> {
 
@@ -88,6 +90,12 @@ abstract class PhaseParser extends AbstractParser<PhaseBuilder.Catalog, PhaseBui
                new PropertyParser.Boolean<>((builder, variance) -> ((PhaseBuilder.OpenModel<?>) builder).variance(variance)));
          register("sessionLimitPolicy", new PropertyParser.Enum<>(SessionLimitPolicy.values(),
                (builder, policy) -> ((PhaseBuilder.OpenModel<?>) builder).sessionLimitPolicy(policy)));
+         register("perThreadScheduling", new PropertyParser.Boolean<>(
+               (builder, perThread) -> ((PhaseBuilder.OpenModel<?>) builder).perThreadScheduling(perThread)));
+         register("batchArrivals", new PropertyParser.Boolean<>(
+               (builder, batch) -> ((PhaseBuilder.OpenModel<?>) builder).batchArrivals(batch)));
+         register("batchLookAhead", new PropertyParser.String<>((builder, lookAhead) -> ((PhaseBuilder.OpenModel<?>) builder)
+               .batchLookAhead(Util.parseToNanos(lookAhead), TimeUnit.NANOSECONDS)));
       }
    }
 
@@ -1,10 +1,9 @@
 package io.hyperfoil.core.session;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -21,10 +20,12 @@ import io.hyperfoil.api.connection.Request;
 import io.hyperfoil.api.session.AgentData;
 import io.hyperfoil.api.session.GlobalData;
 import io.hyperfoil.api.session.PhaseInstance;
+import io.hyperfoil.api.session.ResourceLayout;
 import io.hyperfoil.api.session.SequenceInstance;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.api.session.SessionStopException;
 import io.hyperfoil.api.session.ThreadData;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.SessionStatistics;
 import io.hyperfoil.api.statistics.Statistics;
 import io.netty.util.concurrent.EventExecutor;
@@ -35,7 +36,14 @@ class SessionImpl implements Session {
    private static final boolean trace = log.isTraceEnabled();
 
    private final Var[] vars;
-   private final Map<ResourceKey<?>, Object> resources = new HashMap<>();
+   // Statistics resolved through metric handles, valid for current phase only
+   private final Statistics[] metricStats;
+   // Metric names for dynamic handles' slots
+   private final String[] metricNames;
+   private final ResourceLayout resourceLayout;
+   // Indexed by slots from the resource layout; either the resource or an array with one resource per sequence instance
+   private Object[] resources;
+   private ResourceKey<?>[] resourceKeys;
    private final List<Var> allVars = new ArrayList<>();
    private final List<Resource> allResources = new ArrayList<>();
    private final LimitedPool<SequenceInstance> sequencePool;
@@ -72,6 +80,11 @@ class SessionImpl implements Session {
       this.usedSequences = new BitSet(scenario.sumConcurrency());
       this.uniqueId = uniqueId;
       this.vars = scenario.createVars(this);
+      this.metricStats = new Statistics[scenario.metricSlots()];
+      this.metricNames = new String[scenario.metricSlots()];
+      this.resourceLayout = scenario.resourceLayout();
+      this.resources = new Object[resourceLayout.size()];
+      this.resourceKeys = resourceLayout.keys();
    }
 
    @Override
@@ -184,7 +197,8 @@ class SessionImpl implements Session {
 
    @Override
    public <R extends Resource> void declareResource(ResourceKey<R> key, Supplier<R> resourceSupplier, boolean singleton) {
-      if (resources.containsKey(key)) {
+      int slot = slotForDeclaration(key);
+      if (slot < 0) {
          return;
       }
       // Current sequence should be null only during unit testing
@@ -196,27 +210,51 @@ class SessionImpl implements Session {
             array[i] = resource;
             allResources.add(resource);
          }
-         resources.put(key, array);
+         resources[slot] = array;
       } else {
          R resource = resourceSupplier.get();
-         resources.put(key, resource);
+         resources[slot] = resource;
          allResources.add(resource);
       }
    }
 
    @Override
    public <R extends Resource> void declareSingletonResource(ResourceKey<R> key, R resource) {
-      if (resources.containsKey(key)) {
+      int slot = slotForDeclaration(key);
+      if (slot < 0) {
          return;
       }
-      resources.put(key, resource);
+      resources[slot] = resource;
       allResources.add(resource);
    }
 
+   /**
+    * @return Slot for the key or negative value if the resource has already been declared.
+    */
+   private int slotForDeclaration(ResourceKey<?> key) {
+      int slot = resourceLayout.assign(key);
+      if (slot >= resources.length) {
+         resources = Arrays.copyOf(resources, Math.max(slot + 1, resourceLayout.size()));
+      } else if (resources[slot] != null) {
+         return -1;
+      }
+      resourceKeys = resourceLayout.keys();
+      return slot;
+   }
+
    @SuppressWarnings("unchecked")
    @Override
    public <R extends Resource> R getResource(ResourceKey<R> key) {
-      Object res = resources.get(key);
+      Object[] resources = this.resources;
+      int slot = key.slot(resourceLayout);
+      if (slot < 0 || slot >= resources.length || resourceKeys[slot] != key) {
+         // The key does not resolve its slot or it was assigned in another scenario's layout
+         slot = resourceLayout.lookup(key);
+         if (slot < 0 || slot >= resources.length) {
+            return null;
+         }
+      }
+      Object res = resources[slot];
       if (res == null) {
          return null;
       } else if (res.getClass().isArray() && res instanceof Resource[]) {
@@ -495,6 +533,44 @@ class SessionImpl implements Session {
       return statistics.getOrCreate(phase.definition(), stepId, name, phase.absoluteStartTime());
    }
 
+   @Override
+   public Statistics statistics(MetricHandle handle) {
+      int index = handle.index();
+      if (index < 0) {
+         return statistics(handle.stepId(), handle.metric());
+      }
+      Statistics s = metricStats[index];
+      if (s == null) {
+         s = statistics(handle.stepId(), handle.metric());
+         metricStats[index] = s;
+      }
+      return s;
+   }
+
+   @Override
+   public Statistics statistics(MetricHandle handle, String metric) {
+      int index = handle.index();
+      if (index < 0) {
+         return statistics(handle.stepId(), metric);
+      }
+      int end = index + MetricHandle.DYNAMIC_CACHE_SIZE;
+      for (int i = index; i < end; ++i) {
+         String name = metricNames[i];
+         if (name == null) {
+            break;
+         } else if (name == metric || name.equals(metric)) {
+            return metricStats[i];
+         }
+      }
+      Statistics s = statistics(handle.stepId(), metric);
+      // most recently used metric goes first, least recently used is evicted
+      System.arraycopy(metricNames, index, metricNames, index + 1, MetricHandle.DYNAMIC_CACHE_SIZE - 1);
+      System.arraycopy(metricStats, index, metricStats, index + 1, MetricHandle.DYNAMIC_CACHE_SIZE - 1);
+      metricNames[index] = metric;
+      metricStats[index] = s;
+      return s;
+   }
+
    @Override
    public void pruneStats(Phase phase) {
       statistics.prune(phase);
@@ -529,6 +605,9 @@ class SessionImpl implements Session {
       assert phase == null || newPhase.definition().sharedResources.equals(phase.definition().sharedResources);
       assert phase == null || phase.status().isTerminated();
       phase = newPhase;
+      // statistics are per phase
+      Arrays.fill(metricStats, null);
+      Arrays.fill(metricNames, null);
    }
 
    @Override
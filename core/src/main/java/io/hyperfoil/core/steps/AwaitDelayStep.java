@@ -27,14 +27,9 @@ public class AwaitDelayStep implements Step {
       // checking the diff because of the possibility of numerical overflow.
       boolean canProgress = (System.nanoTime() - blockedUntil.timestamp) >= 0;
       if (canProgress) {
-         var expirationTask = blockedUntil.delayExpired;
-         if (expirationTask != null) {
-            // there's no point here to check if the task isDone, since "normally"
-            // we get here while it is still executing, but if AwaitDelayStep detect progress, before that,
-            // it will cancel the task, before will trigger a further usage of a Session we don't own anymore
-            expirationTask.cancel(false);
-            blockedUntil.delayExpired = null;
-         }
+         // If AwaitDelayStep detects progress before the timeout fires we cancel it,
+         // as it would trigger a further usage of a Session we might not own anymore
+         blockedUntil.delayExpired.cancel();
       }
       return canProgress;
    }
@@ -12,11 +12,11 @@ import io.hyperfoil.api.config.Step;
 import io.hyperfoil.api.session.PhaseInstance;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
-import io.netty.util.concurrent.ScheduledFuture;
+import io.hyperfoil.api.session.TimingWheel;
 
 public class DelaySessionStartStep implements Step, ResourceUtilizer {
    private static final Logger log = LogManager.getLogger(DelaySessionStartStep.class);
-   public static final Session.ResourceKey<Holder> KEY = new Session.ResourceKey<>() {
+   public static final Session.ResourceKey<Holder> KEY = new Session.SharedResourceKey<>() {
    };
 
    private final String[] sequences;
@@ -51,13 +51,18 @@ public class DelaySessionStartStep implements Step, ResourceUtilizer {
       long now = System.currentTimeMillis();
       long next = holder.startTimeWithOffset + (long) (holder.iteration * holder.period);
       if (now < next) {
-         if (holder.future == null) {
+         if (holder.timeout == null) {
+            holder.timeout = new TimingWheel.Timeout(session.runTask());
+         }
+         if (!holder.timeout.isScheduled()) {
             log.trace("#{} scheduling in {} ms", session.uniqueId(), next - now);
-            holder.future = session.executor().schedule(session.runTask(), next - now, TimeUnit.MILLISECONDS);
+            session.timingWheel().schedule(holder.timeout, next - now, TimeUnit.MILLISECONDS);
          }
          return false;
       }
-      holder.future = null;
+      if (holder.timeout != null) {
+         holder.timeout.cancel();
+      }
       holder.iteration++;
       for (String sequence : sequences) {
          session.startSequence(sequence, false, Session.ConcurrencyPolicy.FAIL);
@@ -74,7 +79,7 @@ public class DelaySessionStartStep implements Step, ResourceUtilizer {
       public int iteration = 0;
       public long startTimeWithOffset = Long.MIN_VALUE;
       public double period;
-      public ScheduledFuture<?> future;
+      public TimingWheel.Timeout timeout;
       public PhaseInstance phase;
 
       public long lastStartTime() {
@@ -83,9 +88,8 @@ public class DelaySessionStartStep implements Step, ResourceUtilizer {
 
       @Override
       public void onSessionReset(Session session) {
-         if (future != null) {
-            future.cancel(false);
-            future = null;
+         if (timeout != null) {
+            timeout.cancel();
          }
       }
 
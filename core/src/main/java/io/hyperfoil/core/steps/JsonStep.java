@@ -11,6 +11,7 @@ import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.api.config.Name;
 import io.hyperfoil.api.config.Step;
 import io.hyperfoil.api.config.StepBuilder;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.processor.Transformer;
 import io.hyperfoil.api.session.ReadAccess;
@@ -38,7 +39,7 @@ public class JsonStep implements Step {
          if (array.length == 0) {
             return true;
          }
-         ByteArrayParser.Context ctx = session.getResource(byteArrayParser);
+         ByteArrayParser.Context ctx = session.getResource(byteArrayParser.resourceKey);
          byteArrayParser.before(session);
          ctx.parse(ctx.wrap((byte[]) object), session, true);
          byteArrayParser.after(session);
@@ -95,14 +96,17 @@ public class JsonStep implements Step {
    }
 
    private static class ByteArrayParser extends JsonParser
-         implements ResourceUtilizer, Session.ResourceKey<ByteArrayParser.Context> {
+         implements ResourceUtilizer {
+      @Visitor.Ignore
+      private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
+
       ByteArrayParser(String query, boolean delete, Transformer replace, Processor processor) {
          super(query, delete, replace, processor);
       }
 
       @Override
       public void reserve(Session session) {
-         session.declareResource(this, Context::new);
+         session.declareResource(resourceKey, Context::new);
       }
 
       @Override
@@ -3,7 +3,6 @@ package io.hyperfoil.core.steps;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
@@ -21,6 +20,7 @@ import io.hyperfoil.api.config.StepBuilder;
 import io.hyperfoil.api.session.ObjectAccess;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.session.TimingWheel;
 import io.hyperfoil.core.builders.BaseStepBuilder;
 import io.hyperfoil.core.session.SessionFactory;
 import io.hyperfoil.core.util.Unique;
@@ -63,7 +63,7 @@ public class ScheduleDelayStep implements Step, ResourceUtilizer {
       long delay = blockedUntil.timestamp - now;
       if (delay > 0) {
          log.trace("Scheduling #{} to run in {}", session.uniqueId(), delay);
-         blockedUntil.delayExpired = session.executor().schedule(session.runTask(), delay, TimeUnit.NANOSECONDS);
+         session.timingWheel().schedule(blockedUntil.delayExpired, delay, TimeUnit.NANOSECONDS);
       } else {
          log.trace("Continuing, duration {} resulted in delay {}", duration, delay);
       }
@@ -72,7 +72,7 @@ public class ScheduleDelayStep implements Step, ResourceUtilizer {
 
    @Override
    public void reserve(Session session) {
-      key.setObject(session, new Timestamp());
+      key.setObject(session, new Timestamp(session));
    }
 
    public enum Type {
@@ -98,7 +98,11 @@ public class ScheduleDelayStep implements Step, ResourceUtilizer {
 
    static class Timestamp {
       long timestamp = Long.MAX_VALUE;
-      ScheduledFuture<?> delayExpired;
+      final TimingWheel.Timeout delayExpired;
+
+      Timestamp(Session session) {
+         delayExpired = new TimingWheel.Timeout(session.runTask());
+      }
    }
 
    /**
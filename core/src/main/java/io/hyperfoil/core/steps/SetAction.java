@@ -12,6 +12,7 @@ import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.api.config.BuilderBase;
 import io.hyperfoil.api.config.InitFromParam;
 import io.hyperfoil.api.config.Name;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.session.Action;
 import io.hyperfoil.api.session.ObjectAccess;
 import io.hyperfoil.api.session.ReadAccess;
@@ -154,15 +155,18 @@ public class SetAction implements Action {
    }
 
    private abstract static class ValueSupplier<T>
-         implements SerializableFunction<Session, Object>, Session.ResourceKey<ValueResource<T>>, ResourceUtilizer {
+         implements SerializableFunction<Session, Object>, ResourceUtilizer {
+      @Visitor.Ignore
+      private final Session.SlottedResourceKey<ValueResource<T>> resourceKey = new Session.SlottedResourceKey<>();
+
       @Override
       public T apply(Session session) {
-         return session.getResource(this).object;
+         return session.getResource(resourceKey).object;
       }
 
       @Override
       public void reserve(Session session) {
-         session.declareResource(this, () -> new ValueResource<>(create(session), this::reset));
+         session.declareResource(resourceKey, () -> new ValueResource<>(create(session), this::reset));
       }
 
       protected abstract T create(Session session);
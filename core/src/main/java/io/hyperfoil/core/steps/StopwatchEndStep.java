@@ -2,23 +2,24 @@ package io.hyperfoil.core.steps;
 
 import io.hyperfoil.api.session.ReadAccess;
 import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.Statistics;
 
 public class StopwatchEndStep extends StatisticsStep {
    private final ReadAccess key;
-   private final String metrics;
+   private final MetricHandle metricHandle;
 
    public StopwatchEndStep(ReadAccess key, String metrics) {
       super(StatisticsStep.nextId());
       this.key = key;
-      this.metrics = metrics;
+      this.metricHandle = new MetricHandle(id(), metrics);
    }
 
    @Override
    public boolean invoke(Session session) {
       long now = System.nanoTime();
       StopwatchBeginStep.StartTime startTime = (StopwatchBeginStep.StartTime) key.getObject(session);
-      Statistics statistics = session.statistics(id(), metrics);
+      Statistics statistics = session.statistics(metricHandle);
       statistics.incrementRequests(startTime, session);
       statistics.recordResponse(startTime, now - startTime.getStartTimestampNanos(session), session);
       // TODO: record any request/response counts?
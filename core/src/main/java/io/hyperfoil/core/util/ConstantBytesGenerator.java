@@ -1,5 +1,8 @@
 package io.hyperfoil.core.util;
 
+import java.nio.ByteBuffer;
+
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.connection.Connection;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.function.SerializableBiFunction;
@@ -8,6 +11,8 @@ import io.netty.buffer.Unpooled;
 
 public class ConstantBytesGenerator implements SerializableBiFunction<Session, Connection, ByteBuf> {
    private final byte[] bytes;
+   @Visitor.Ignore
+   private transient volatile ByteBuf shared;
 
    public ConstantBytesGenerator(byte[] bytes) {
       this.bytes = bytes;
@@ -15,9 +20,25 @@ public class ConstantBytesGenerator implements SerializableBiFunction<Session, C
 
    @Override
    public ByteBuf apply(Session session, Connection connection) {
-      // TODO: implement pooling of wrapping buffers.
-      // We cannot cache this buffer since despite the wrapped array is constant the code
-      // writing the buffer to socket would mutate the ByteBuf (move readerIndex/writerIndex, decrement refCnt...)
-      return Unpooled.wrappedBuffer(bytes);
+      ByteBuf shared = this.shared;
+      if (shared == null) {
+         shared = initShared();
+      }
+      // The content is copied off-heap only once per agent; each request gets its own indices
+      // but the socket (or SSL engine) reads directly from the shared memory. Release is a no-op.
+      // The memory is freed when this generator (part of the benchmark definition) is collected after the run.
+      return shared.duplicate();
+   }
+
+   private synchronized ByteBuf initShared() {
+      ByteBuf shared = this.shared;
+      if (shared == null) {
+         // Unpooled.directBuffer() might allocate memory without a cleaner; that would never be freed
+         // as we don't release the buffer explicitly.
+         ByteBuffer memory = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+         shared = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(memory));
+         this.shared = shared;
+      }
+      return shared;
    }
 }
@@ -0,0 +1,64 @@
+package io.hyperfoil.core.util;
+
+import java.nio.ByteBuffer;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkData;
+import io.hyperfoil.api.config.Visitor;
+import io.hyperfoil.api.connection.Connection;
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.function.SerializableBiFunction;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Content of a benchmark file. The file is not embedded in the generator: on the agent the content is a read-only
+ * slice of the mapping returned from {@link Benchmark#fileSegments(String)}, i.e. the file the agent received
+ * and verified once when the benchmark was initialized. The socket reads directly from the mapped memory;
+ * a secured connection encrypts it in chunks.
+ */
+public class FileBytesGenerator implements SerializableBiFunction<Session, Connection, ByteBuf> {
+   private final String file;
+   @Visitor.Ignore
+   private transient volatile ByteBuf shared;
+
+   /**
+    * @param file File name as registered in benchmark data.
+    */
+   public FileBytesGenerator(String file) {
+      this.file = file;
+   }
+
+   @Override
+   public ByteBuf apply(Session session, Connection connection) {
+      ByteBuf shared = this.shared;
+      if (shared == null) {
+         shared = initShared(session.phase().definition().benchmark());
+      }
+      // Each request gets its own indices; release is a no-op as the mapping lives as long as the benchmark.
+      return shared.duplicate();
+   }
+
+   private synchronized ByteBuf initShared(Benchmark benchmark) {
+      ByteBuf shared = this.shared;
+      if (shared == null) {
+         ByteBuffer[] segments = benchmark.fileSegments(file);
+         if (segments == null) {
+            segments = benchmark.fileSegments(BenchmarkData.sanitize(file));
+         }
+         if (segments == null) {
+            throw new IllegalStateException("File " + file + " is not available in benchmark " + benchmark.name());
+         } else if (segments.length > 1) {
+            throw new IllegalStateException("File " + file + " is too big to be sent as request body.");
+         }
+         ByteBuffer content = segments[0];
+         if (!content.isDirect()) {
+            // Files provided in memory are copied off-heap once rather than by the channel on each write
+            content = ByteBuffer.allocateDirect(content.remaining()).put(content).flip();
+         }
+         shared = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(content).asReadOnly());
+         this.shared = shared;
+      }
+      return shared;
+   }
+}
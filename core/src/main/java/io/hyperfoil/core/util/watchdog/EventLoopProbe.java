@@ -0,0 +1,49 @@
+package io.hyperfoil.core.util.watchdog;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Measures how long a task waits in the queue of each event loop before it gets executed.
+ * Each invocation of {@link #probe(long[])} submits a task to every event loop (unless the previous one is
+ * still waiting) and reports the latency of the previous probe.
+ */
+public class EventLoopProbe {
+   private final EventExecutor[] executors;
+   // nanoTime when the pending probe was submitted, or 0 if there's no pending probe
+   private final AtomicLongArray submitted;
+   private final AtomicLongArray latencies;
+
+   public EventLoopProbe(EventExecutor[] executors) {
+      this.executors = executors;
+      this.submitted = new AtomicLongArray(executors.length);
+      this.latencies = new AtomicLongArray(executors.length);
+   }
+
+   public int size() {
+      return executors.length;
+   }
+
+   /**
+    * @param result Array of at least {@link #size()} elements, receives the latency in nanoseconds. When the previous
+    *        probe for given event loop did not execute yet the time it has been waiting so far is reported.
+    */
+   public void probe(long[] result) {
+      long now = System.nanoTime();
+      for (int i = 0; i < executors.length; ++i) {
+         long pendingSince = submitted.get(i);
+         if (pendingSince != 0) {
+            result[i] = now - pendingSince;
+            continue;
+         }
+         result[i] = latencies.get(i);
+         submitted.set(i, now);
+         int index = i;
+         executors[i].execute(() -> {
+            latencies.set(index, System.nanoTime() - now);
+            submitted.set(index, 0);
+         });
+      }
+   }
+}
@@ -0,0 +1,71 @@
+package io.hyperfoil.core.generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CsvRowIndexTest {
+   @Test
+   public void testSparseIndex() {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 5 * CsvRowIndex.SPARSE + 3; ++i) {
+         sb.append(i % 7 == 0 ? "# comment\n" : "").append("row").append(i).append(",\"value\r\n").append(i)
+               .append("\"\r\n");
+      }
+      CsvRowIndex index = index(sb.toString(), 0, 1, true);
+      assertEquals(5 * CsvRowIndex.SPARSE + 3, index.size());
+      String[] values = new String[2];
+      for (int i = index.size() - 1; i >= 0; --i) {
+         index.read(i, new int[] { 0, 1 }, values);
+         assertEquals("row" + i, values[0]);
+         assertEquals("value\n" + i, values[1]);
+      }
+   }
+
+   @Test
+   public void testPartitions() throws IOException {
+      StringBuilder singleLine = new StringBuilder();
+      StringBuilder multiLine = new StringBuilder();
+      for (int i = 0; i < 100; ++i) {
+         String padding = "x".repeat(i % 13);
+         singleLine.append("# comment ").append(padding).append('\n').append(i).append(",\"").append(padding)
+               .append("\"\r\n");
+         multiLine.append(i).append(",\"").append(padding).append("\n").append(i).append("\"\n");
+      }
+      for (StringBuilder content : List.of(singleLine, multiLine)) {
+         boolean multiline = CsvParser.validate("test.csv",
+               new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8)), ',', true,
+               StandardCharsets.UTF_8);
+         assertEquals(content == multiLine, multiline);
+         for (int partitions = 1; partitions <= 7; ++partitions) {
+            List<String> all = new ArrayList<>();
+            for (int partition = 0; partition < partitions; ++partition) {
+               CsvRowIndex index = index(content.toString(), partition, partitions, multiline);
+               String[] values = new String[1];
+               for (int i = 0; i < index.size(); ++i) {
+                  index.read(i, new int[] { 0 }, values);
+                  all.add(values[0]);
+               }
+            }
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 100; ++i) {
+               expected.add(String.valueOf(i));
+            }
+            assertEquals(expected, all, "Partitions: " + partitions);
+         }
+      }
+   }
+
+   private static CsvRowIndex index(String content, int partition, int partitions, boolean multiline) {
+      ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+      return new CsvRowIndex("test.csv", new ByteBuffer[] { buffer }, ',', true, StandardCharsets.UTF_8, partition,
+            partitions, multiline);
+   }
+}
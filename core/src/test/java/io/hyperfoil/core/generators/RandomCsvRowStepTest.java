@@ -4,24 +4,42 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
+import io.hyperfoil.api.config.ContentAddressedFiles;
 import io.hyperfoil.api.config.Locator;
 import io.hyperfoil.api.config.Step;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.api.session.WriteAccess;
+import io.hyperfoil.core.impl.ProvidedBenchmarkData;
 import io.hyperfoil.core.session.SessionFactory;
 import io.hyperfoil.core.test.TestUtil;
+import io.hyperfoil.impl.Util;
 
 public class RandomCsvRowStepTest {
 
@@ -42,7 +60,7 @@ public class RandomCsvRowStepTest {
          var pos = Integer.toString(i);
          cols.accept(pos, pos);
       }
-      String[][] rows = ((RandomCsvRowStep) builder.build().get(0)).rows();
+      String[][] rows = withData((RandomCsvRowStep) builder.build().get(0)).rows();
       Locator.pop();
       assertEquals(rows.length, DATA.length);
       for (int i = 0; i < DATA.length; i++) {
@@ -74,7 +92,7 @@ public class RandomCsvRowStepTest {
       var steps = builder.build();
       Locator.pop();
       var csvRowStep = (RandomCsvRowStep) steps.get(0);
-      TestUtil.resolveAccess(session, csvRowStep);
+      prepare(session, withData(csvRowStep));
       for (String[] row : DATA) {
          assertTrue(csvRowStep.invoke(session));
          assertEquals(row.length, access.length);
@@ -125,6 +143,150 @@ public class RandomCsvRowStepTest {
       }
    }
 
+   @Test
+   public void testIndexFromBenchmarkFiles() throws IOException, ClassNotFoundException {
+      Locator.push(TestUtil.locator());
+      RandomCsvRowStep csvRowStep = buildWithMode(RandomCsvRowStep.Mode.SEQUENTIAL);
+      WriteAccess access = SessionFactory.objectAccess("first");
+      Locator.pop();
+      // The index is not serialized; after deserialization the step finds the file in benchmark
+      RandomCsvRowStep deserialized = serializeAndDeserialize(csvRowStep);
+      Session session = SessionFactory.forTesting(access);
+      prepare(session, withData(deserialized));
+      for (String[] row : DATA) {
+         assertTrue(deserialized.invoke(session));
+         assertThat(access.getObject(session)).isEqualTo(row[0]);
+      }
+   }
+
+   private static RandomCsvRowStep serializeAndDeserialize(RandomCsvRowStep step) throws IOException, ClassNotFoundException {
+      final byte[] serializedBytes;
+      try (var byteArrayStream = new ByteArrayOutputStream();
+            var objectOutputStream = new ObjectOutputStream(byteArrayStream)) {
+         objectOutputStream.writeObject(step);
+         objectOutputStream.flush();
+         serializedBytes = byteArrayStream.toByteArray();
+      }
+      try (var objectInputStream = new ObjectInputStream(new ByteArrayInputStream(serializedBytes))) {
+         return (RandomCsvRowStep) objectInputStream.readObject();
+      }
+   }
+
+   @Test
+   public void testMappedFile(@TempDir Path dir) throws IOException, ClassNotFoundException {
+      Locator.push(TestUtil.locator());
+      RandomCsvRowStep csvRowStep = serializeAndDeserialize(buildWithMode(RandomCsvRowStep.Mode.SEQUENTIAL));
+      WriteAccess access = SessionFactory.objectAccess("first");
+      Locator.pop();
+      Path path = dir.resolve("testdata.csv");
+      try (InputStream stream = getClass().getClassLoader().getResourceAsStream("data/testdata.csv")) {
+         Files.copy(stream, path);
+      }
+      // This is how remote agents see the files: the content is attached from a local cache
+      ContentAddressedFiles files = new ContentAddressedFiles(Map.of("data/testdata.csv", "cafebabe"));
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         files.attach(Map.of("data/testdata.csv",
+               new ByteBuffer[] { channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) }));
+      }
+      Benchmark benchmark = BenchmarkBuilder.builder().build();
+      benchmark = new Benchmark(benchmark.name(), benchmark.version(), benchmark.source(), benchmark.params(), files,
+            benchmark.agents(), benchmark.defaultThreads(), Map.of(), benchmark.phases(), benchmark.tags(),
+            benchmark.statisticsCollectionPeriod(), benchmark.triggerUrl(), benchmark.preHooks(), benchmark.postHooks(),
+            benchmark.failurePolicy(), benchmark.histogramSettings(), benchmark.metricHistogramSettings());
+      assertArrayEquals(Files.readAllBytes(path), benchmark.fileStream("data/testdata.csv").readAllBytes());
+      csvRowStep.init(benchmark, 0, 1);
+
+      Session session = SessionFactory.forTesting(access);
+      prepare(session, csvRowStep);
+      for (String[] row : DATA) {
+         assertTrue(csvRowStep.invoke(session));
+         assertThat(access.getObject(session)).isEqualTo(row[0]);
+      }
+   }
+
+   @Test
+   public void testSequential() {
+      Locator.push(TestUtil.locator());
+      RandomCsvRowStep csvRowStep = withData(buildWithMode(RandomCsvRowStep.Mode.SEQUENTIAL));
+      WriteAccess access = SessionFactory.objectAccess("first");
+      Locator.pop();
+      Session session = SessionFactory.forTesting(access);
+      prepare(session, csvRowStep);
+      for (int i = 0; i < 2 * DATA.length; ++i) {
+         assertTrue(csvRowStep.invoke(session));
+         assertThat(access.getObject(session)).isEqualTo(DATA[i % DATA.length][0]);
+      }
+   }
+
+   @Test
+   public void testUnique() {
+      Locator.push(TestUtil.locator());
+      RandomCsvRowStep csvRowStep = withData(buildWithMode(RandomCsvRowStep.Mode.UNIQUE));
+      WriteAccess access = SessionFactory.objectAccess("first");
+      Locator.pop();
+      Session session = SessionFactory.forTesting(access);
+      prepare(session, csvRowStep);
+      for (String[] row : DATA) {
+         assertTrue(csvRowStep.invoke(session));
+         assertThat(access.getObject(session)).isEqualTo(row[0]);
+      }
+      assertThrows(IllegalStateException.class, () -> csvRowStep.invoke(session));
+
+      // Session in another phase gets all the rows again
+      Session nextPhaseSession = SessionFactory.forTesting(access);
+      prepare(nextPhaseSession, csvRowStep);
+      for (String[] row : DATA) {
+         assertTrue(csvRowStep.invoke(nextPhaseSession));
+         assertThat(access.getObject(nextPhaseSession)).isEqualTo(row[0]);
+      }
+   }
+
+   @Test
+   public void testValidation() throws IOException {
+      assertThrows(BenchmarkDefinitionException.class, () -> CsvParser.validate("test.csv",
+            new ByteArrayInputStream(new byte[0]), '\u20ac', false, StandardCharsets.UTF_8));
+      assertThrows(BenchmarkDefinitionException.class, () -> CsvParser.charset("UTF-16"));
+      assertThrows(BenchmarkDefinitionException.class, () -> validate("foo,b\"ar\n"));
+      assertThrows(BenchmarkDefinitionException.class, () -> validate("foo,\"bar\"x\n"));
+      // Quotes are fine in comments and in quoted values, the file can be empty
+      assertTrue(validate("# \"comment\n\"foo\"\"bar\",\"multi\nline\"\r\nbaz"));
+      assertFalse(validate("# \"comment\n\"foo\"\"bar\",\"single line\"\r\nbaz"));
+      assertFalse(validate(""));
+   }
+
+   private static boolean validate(String content) throws IOException {
+      return CsvParser.validate("test.csv", new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), ',', true,
+            StandardCharsets.UTF_8);
+   }
+
+   private static RandomCsvRowStep withData(RandomCsvRowStep step) {
+      byte[] bytes;
+      try (InputStream stream = RandomCsvRowStepTest.class.getClassLoader().getResourceAsStream("data/testdata.csv")) {
+         bytes = Util.toByteArray(stream);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      // Steps index the file from benchmark they're running in; testing sessions run in an empty benchmark.
+      Benchmark benchmark = BenchmarkBuilder.builder()
+            .data(new ProvidedBenchmarkData(Map.of("data/testdata.csv", bytes))).build();
+      step.init(benchmark, 0, 1);
+      return step;
+   }
+
+   private static void prepare(Session session, RandomCsvRowStep step) {
+      TestUtil.resolveAccess(session, step);
+      step.reserve(session);
+   }
+
+   private RandomCsvRowStep buildWithMode(RandomCsvRowStep.Mode mode) {
+      RandomCsvRowStep.Builder builder = new RandomCsvRowStep.Builder()
+            .skipComments(true)
+            .mode(mode)
+            .file("data/testdata.csv");
+      builder.columns().accept("0", "first");
+      return (RandomCsvRowStep) builder.build().get(0);
+   }
+
    private void test(String[] vars) {
       Locator.push(TestUtil.locator());
       RandomCsvRowStep.Builder builder = new RandomCsvRowStep.Builder()
@@ -141,7 +303,7 @@ public class RandomCsvRowStepTest {
       List<Step> steps = builder.build();
       Locator.pop();
       RandomCsvRowStep csvRowStep = (RandomCsvRowStep) steps.get(0);
-      TestUtil.resolveAccess(session, csvRowStep);
+      prepare(session, withData(csvRowStep));
 
       OUTER: for (int i = 0; i < 10; ++i) {
          csvRowStep.invoke(session);
@@ -1,6 +1,7 @@
 package io.hyperfoil.core.handlers;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -9,6 +10,7 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.processor.Transformer;
 import io.hyperfoil.api.session.ResourceUtilizer;
@@ -359,6 +361,93 @@ public class JsonHandlerTest {
       }
    }
 
+   @Test
+   public void testExactAttributeName() {
+      byte[] json = "{ \"idx\": 1, \"i\": 2, \"id\": 3 }".getBytes(StandardCharsets.UTF_8);
+      assertThat(selectAllSplits(".id", json)).containsExactly("3");
+   }
+
+   @Test
+   public void testWildcard() {
+      assertThat(selectAllSplits(".[1].*", JSON)).containsExactly("420", "\"Various herbs\"", "321");
+      assertThat(selectAllSplits(".[*].units", JSON)).containsExactly("123", "321", "456");
+      assertThat(selectAllSplits("$[0]['product']", JSON)).containsExactly("\"Teapots\"");
+   }
+
+   @Test
+   public void testRecursiveDescent() {
+      byte[] json = ("{ \"id\": 1, \"items\": [ { \"id\": 2, \"sub\": { \"id\": 3 } }, { \"x\": { \"y\": [ { \"id\": 4 } ] } } ]}")
+            .getBytes(StandardCharsets.UTF_8);
+      assertThat(selectAllSplits("..id", json)).containsExactly("1", "2", "3", "4");
+      assertThat(selectAllSplits(".items..id", json)).containsExactly("2", "3", "4");
+      assertThat(selectAllSplits("..y[0].id", json)).containsExactly("4");
+   }
+
+   @Test
+   public void testFilter() {
+      byte[] json = ("{ \"items\": [" +
+            "{ \"id\": 1, \"status\": \"ACTIVE\", \"price\": 10 }," +
+            "{ \"id\": 2, \"status\": \"INACTIVE\", \"price\": 20.5 }," +
+            "{ \"status\": \"ACTIVE\", \"id\": 3, \"price\": 1e2, \"tags\": [\"a\", \"b\"] }," +
+            "{ \"id\": 4, \"meta\": { \"status\": \"ACTIVE\" } }" +
+            "]}").getBytes(StandardCharsets.UTF_8);
+      // condition attribute before and after the selected one
+      assertThat(selectAllSplits(".items[?(@.status == 'ACTIVE')].id", json)).containsExactly("1", "3");
+      assertThat(selectAllSplits(".items[?(@.status != \"ACTIVE\")].id", json)).containsExactly("2");
+      assertThat(selectAllSplits(".items[?(@.price > 15)].id", json)).containsExactly("2", "3");
+      assertThat(selectAllSplits(".items[?(@.price <= 20.5 && @.status == 'INACTIVE')].id", json)).containsExactly("2");
+      assertThat(selectAllSplits(".items[?(@.id == 4 || (@.price < 11 && @.id >= 1))].id", json))
+            .containsExactly("1", "4");
+      assertThat(selectAllSplits(".items[?(@.tags)].id", json)).containsExactly("3");
+      assertThat(selectAllSplits(".items[?(@.meta.status == 'ACTIVE')].id", json)).containsExactly("4");
+      assertThat(selectAllSplits(".items[?(@.id == 2)]", json))
+            .containsExactly("{ \"id\": 2, \"status\": \"INACTIVE\", \"price\": 20.5 }");
+      assertThat(selectAllSplits(".items[*].tags[?(@ == 'b')]", json)).containsExactly("\"b\"");
+   }
+
+   @Test
+   public void testNestedFilters() {
+      byte[] json = ("[ { \"name\": \"a\", \"values\": [ { \"v\": 1, \"ok\": true }, { \"v\": 2, \"ok\": false } ], \"enabled\": true },"
+            +
+            "{ \"name\": \"b\", \"values\": [ { \"v\": 3, \"ok\": true } ], \"enabled\": false } ]")
+            .getBytes(StandardCharsets.UTF_8);
+      assertThat(selectAllSplits(".[?(@.enabled == true)].values[?(@.ok == true)].v", json)).containsExactly("1");
+      assertThat(selectAllSplits(".[?(@.enabled == false || @.name == 'a')].values[?(@.ok != false)].v", json))
+            .containsExactly("1", "3");
+   }
+
+   @Test
+   public void testInvalidQueries() {
+      for (String query : new String[] { "foo", ".a...b", ".a[?(@.x == )]", ".a[?(@.x == 1]", ".a..", ".a[x]" }) {
+         assertThatThrownBy(() -> new JsonHandler(query, false, null, new StringCollector()))
+               .as(query).isInstanceOf(BenchmarkDefinitionException.class);
+      }
+      assertThatThrownBy(() -> new JsonHandler(".[?(@.id)]", true, null, new StringCollector()))
+            .isInstanceOf(BenchmarkDefinitionException.class);
+   }
+
+   private List<String> selectAllSplits(String query, byte[] json) {
+      List<String> expected = null;
+      for (int i = 0; i <= json.length; ++i) {
+         List<String> values = new ArrayList<>();
+         Processor collector = (session, data, offset, length, isLastPart) -> {
+            byte[] bytes = new byte[length];
+            data.getBytes(offset, bytes);
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+         };
+         JsonHandler handler = new JsonHandler(query, false, null, new DefragProcessor(collector));
+         Session session = SessionFactory.forTesting();
+         ResourceUtilizer.reserveForTesting(session, handler);
+         handleSplit(handler, session, json, i);
+         if (expected == null) {
+            expected = values;
+         } else {
+            assertThat(values).as("%s split at %d", query, i).isEqualTo(expected);
+         }
+      }
+      return expected;
+   }
+
    private boolean contains(byte[] data, int offset, int length, byte[] string) {
       OUTER: for (int i = 0; i <= length - string.length; ++i) {
          for (int j = 0; j < string.length && i + j < length; ++j) {
@@ -0,0 +1,53 @@
+package io.hyperfoil.core.handlers.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class StructuralScannerTest {
+   private static final byte[] ALPHABET = "\"\\{}[]:, \n\t\rax0|;;{é".getBytes(StandardCharsets.UTF_8);
+
+   @Test
+   public void testScalar() {
+      byte[] data = "{\"a\": [1, \"x\\\"\"]}\t".getBytes(StandardCharsets.UTF_8);
+      byte[] padded = new byte[data.length + StructuralScanner.BLOCK];
+      System.arraycopy(data, 0, padded, 0, data.length);
+      long[] masks = new long[2];
+      new ScalarStructuralScanner().scan(padded, 0, data.length, masks);
+      assertThat(toString(masks[StructuralScanner.STRUCTURAL], data.length)).isEqualTo("110110101010111110");
+      assertThat(toString(masks[StructuralScanner.WHITESPACE], data.length)).isEqualTo("000001000100000001");
+   }
+
+   @Test
+   public void testVectorMatchesScalar() {
+      StructuralScanner vector = StructuralScanner.vector();
+      assumeTrue(vector != null, "Vector API is not available");
+      StructuralScanner scalar = new ScalarStructuralScanner();
+      Random random = new Random(42);
+      byte[] data = new byte[4 * StructuralScanner.BLOCK];
+      long[] expected = new long[2];
+      long[] actual = new long[2];
+      for (int i = 0; i < 1000; ++i) {
+         for (int j = 0; j < data.length; ++j) {
+            data[j] = random.nextInt(4) == 0 ? (byte) random.nextInt() : ALPHABET[random.nextInt(ALPHABET.length)];
+         }
+         int offset = random.nextInt(2 * StructuralScanner.BLOCK);
+         int length = random.nextInt(StructuralScanner.BLOCK + 1);
+         scalar.scan(data, offset, length, expected);
+         vector.scan(data, offset, length, actual);
+         assertThat(actual).as("offset %d length %d", offset, length).containsExactly(expected);
+      }
+   }
+
+   private static String toString(long mask, int length) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < length; ++i) {
+         sb.append((mask >>> i) & 1);
+      }
+      return sb.toString();
+   }
+}
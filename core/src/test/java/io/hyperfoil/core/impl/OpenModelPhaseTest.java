@@ -0,0 +1,132 @@
+package io.hyperfoil.core.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.PhaseBuilder;
+import io.hyperfoil.api.config.Step;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.core.builders.BaseStepBuilder;
+import io.hyperfoil.core.builders.StepCatalog;
+import io.hyperfoil.core.session.BaseScenarioTest;
+import io.hyperfoil.core.session.SessionFactory;
+import io.hyperfoil.core.steps.StopwatchBeginStep;
+import io.hyperfoil.core.steps.StopwatchEndStep;
+
+public class OpenModelPhaseTest extends BaseScenarioTest {
+   private static final int RATE = 2000;
+   private static final long DURATION_MS = 1000;
+
+   @Test
+   public void testBatchedArrivals() {
+      PhaseBuilder.ConstantRate phase = benchmarkBuilder.addPhase("test").constantRate(RATE)
+            .variance(false)
+            .batchArrivals(true)
+            .batchLookAhead(5, TimeUnit.MILLISECONDS);
+      checkBatched(runAndCheck(phase));
+   }
+
+   @Test
+   public void testBatchedArrivalsPerThread() {
+      PhaseBuilder.ConstantRate phase = benchmarkBuilder.addPhase("test").constantRate(RATE)
+            .variance(false)
+            .perThreadScheduling(true)
+            .batchArrivals(true)
+            .batchLookAhead(5, TimeUnit.MILLISECONDS);
+      checkBatched(runAndCheck(phase));
+   }
+
+   @Test
+   public void testPerThreadScheduling() {
+      PhaseBuilder.ConstantRate phase = benchmarkBuilder.addPhase("test").constantRate(RATE)
+            .variance(false)
+            .perThreadScheduling(true);
+      LocalSimulationRunner runner = runAndCheck(phase);
+      runner.visitArrivalStats((phaseName, arrivals, wakeUps, maxArrivalsPerWakeUp) -> {
+         throw new AssertionError("Arrivals are not batched");
+      });
+   }
+
+   @Test
+   public void testThrottledUsersOnLoopWithoutSessions() {
+      AtomicInteger started = new AtomicInteger();
+      // With a single session only one of the event loops owns it; arrivals throttled on the others must be caught up
+      // by the session finishing on its own loop. The rate decreases from 300 to 0 users per second (150 users in total)
+      // so that the session cannot keep up at the beginning but it can catch up all throttled users until the end.
+      // @formatter:off
+      benchmarkBuilder.addPhase("test").rampRate(300, 0)
+            .variance(false)
+            .perThreadScheduling(true)
+            .duration(DURATION_MS)
+            .maxSessions(1)
+            .scenario()
+            .initialSequence("request")
+            .step(session -> {
+               started.incrementAndGet();
+               return true;
+            })
+            .step(StepCatalog.SC).thinkTime(4, TimeUnit.MILLISECONDS).endStep();
+      // @formatter:on
+
+      new LocalSimulationRunner(benchmarkBuilder.build(), new TestStatistics(), null, null).run();
+      assertThat(threads()).isGreaterThan(1);
+      assertThat(started.get()).isBetween(140, 151);
+   }
+
+   private void checkBatched(LocalSimulationRunner runner) {
+      AtomicLong arrivals = new AtomicLong(), wakeUps = new AtomicLong(), maxArrivals = new AtomicLong();
+      runner.visitArrivalStats((phaseName, a, w, max) -> {
+         arrivals.set(a);
+         wakeUps.set(w);
+         maxArrivals.set(max);
+      });
+      // with 5 ms look-ahead at 2000 users per second each wake-up should start about 10 users
+      assertThat(wakeUps.get()).isPositive();
+      assertThat((double) arrivals.get() / wakeUps.get()).isGreaterThan(1);
+      assertThat(maxArrivals.get()).isGreaterThan(1);
+   }
+
+   private LocalSimulationRunner runAndCheck(PhaseBuilder.ConstantRate phase) {
+      AtomicInteger started = new AtomicInteger();
+      // @formatter:off
+      phase.duration(DURATION_MS)
+            .maxSessions(RATE)
+            .scenario()
+            .initialSequence("request")
+            .step(session -> {
+               started.incrementAndGet();
+               return true;
+            })
+            .stepBuilder(new BaseStepBuilder() {
+               @Override
+               public List<Step> build() {
+                  Object key = new Object();
+                  // compensated stopwatch uses the intended start time of the session
+                  return Arrays.asList(
+                        new StopwatchBeginStep(SessionFactory.objectAccess(key), true),
+                        new StopwatchEndStep(SessionFactory.readAccess(key), "request"));
+               }
+            });
+      // @formatter:on
+
+      TestStatistics statisticsConsumer = new TestStatistics();
+      LocalSimulationRunner runner = new LocalSimulationRunner(benchmarkBuilder.build(), statisticsConsumer, null, null);
+      runner.run();
+      Map<String, StatisticsSnapshot> stats = statisticsConsumer.firstPhaseStats();
+
+      // the look-ahead window may let a few more users in before the phase finishes
+      assertThat(started.get()).isBetween(RATE * 9 / 10, RATE * 11 / 10);
+      StatisticsSnapshot snapshot = stats.get("request");
+      assertThat(snapshot.responseCount).isEqualTo(started.get());
+      assertThat(snapshot.histogram().getMinValue()).isGreaterThanOrEqualTo(0);
+      return runner;
+   }
+}
@@ -3,6 +3,9 @@ package io.hyperfoil.core.impl.rate;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
 import org.junit.jupiter.api.Test;
 
 /**
@@ -125,4 +128,25 @@ public class FireTimeGenerationTest {
       }
       assertEquals(5_000, count, "1 second at 5,000/sec should produce exactly 5,000 fire times");
    }
+
+   @Test
+   public void stridedConstantRateSequencesPartitionFullSequence() {
+      assertStridedPartition(FireTimeSequence.constantRate(7_000),
+            i -> FireTimeSequence.constantRate(7_000, i, 4), 4);
+   }
+
+   @Test
+   public void stridedRampRateSequencesPartitionFullSequence() {
+      long durationNs = 10_000_000_000L;
+      assertStridedPartition(FireTimeSequence.rampRate(100, 1000, durationNs),
+            i -> FireTimeSequence.rampRate(100, 1000, durationNs, i, 3), 3);
+   }
+
+   private static void assertStridedPartition(FireTimeSequence full, IntFunction<FireTimeSequence> strided, int stride) {
+      FireTimeSequence[] parts = new FireTimeSequence[stride];
+      Arrays.setAll(parts, strided);
+      for (int i = 0; i < 1000; i++) {
+         assertEquals(full.nextFireTimeNs(), parts[i % stride].nextFireTimeNs(), "Fire time at index " + i);
+      }
+   }
 }
@@ -0,0 +1,108 @@
+package io.hyperfoil.core.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.Phase;
+import io.hyperfoil.api.config.Scenario;
+import io.hyperfoil.api.config.Sequence;
+import io.hyperfoil.api.config.Step;
+import io.hyperfoil.api.session.PhaseInstance;
+import io.hyperfoil.api.statistics.MetricHandle;
+import io.hyperfoil.api.statistics.SessionStatistics;
+import io.hyperfoil.api.statistics.Statistics;
+import io.hyperfoil.core.impl.PhaseInstanceImpl;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+public class MetricHandleTest {
+   private final MetricHandle first = new MetricHandle(1, "first");
+   private final MetricHandle dynamic = new MetricHandle(2);
+   private final MetricHandle second = new MetricHandle(3, "second");
+   private final Scenario scenario = new Scenario(new Sequence[0], new Sequence[] {
+         new Sequence("test", 0, 1, 0, new Step[0]) {
+            final MetricHandle[] handles = { first, dynamic, second };
+         }
+   }, 16, 16);
+   private final Phase phase = new Phase(Benchmark::forTesting, 0, 0, "test", scenario, 0,
+         Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), 0, -1, "test", false, () -> "test",
+         Collections.emptyMap(), null);
+
+   @Test
+   public void testSlots() {
+      assertThat(first.index()).isEqualTo(0);
+      assertThat(dynamic.index()).isEqualTo(1);
+      assertThat(second.index()).isEqualTo(1 + MetricHandle.DYNAMIC_CACHE_SIZE);
+      assertThat(scenario.metricSlots()).isEqualTo(2 + MetricHandle.DYNAMIC_CACHE_SIZE);
+   }
+
+   @Test
+   public void testStatic() {
+      SessionImpl session = session();
+      Statistics statistics = session.statistics(first);
+      assertThat(statistics).isSameAs(session.statistics(1, "first"));
+      assertThat(session.statistics(first)).isSameAs(statistics);
+      assertThat(session.statistics(second)).isSameAs(session.statistics(3, "second")).isNotSameAs(statistics);
+   }
+
+   @Test
+   public void testDynamic() {
+      SessionImpl session = session();
+      // more metrics than the cache can hold
+      int metrics = MetricHandle.DYNAMIC_CACHE_SIZE * 2;
+      for (int round = 0; round < 3; ++round) {
+         for (int i = 0; i < metrics; ++i) {
+            // new string instance each time
+            String metric = "metric-" + i;
+            assertThat(session.statistics(dynamic, metric)).isSameAs(session.statistics(2, metric));
+         }
+      }
+   }
+
+   @Test
+   public void testUnregistered() {
+      SessionImpl session = session();
+      MetricHandle handle = new MetricHandle(4, "unregistered");
+      assertThat(session.statistics(handle)).isSameAs(session.statistics(4, "unregistered"));
+      assertThat(session.statistics(new MetricHandle(4), "unregistered")).isSameAs(session.statistics(handle));
+   }
+
+   @Test
+   public void testPhaseChange() {
+      SessionImpl session = session();
+      Statistics statistics = session.statistics(first);
+      Statistics dynamicStatistics = session.statistics(dynamic, "dynamic");
+      session.phase().setTerminated();
+      // the same scenario can be used in another phase; statistics are per phase
+      Phase otherPhase = new Phase(Benchmark::forTesting, 1, 0, "other", scenario, 0,
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), 0, -1, "test", false, () -> "test",
+            Collections.emptyMap(), null);
+      session.resetPhase(phaseInstance(otherPhase));
+      assertThat(session.statistics(first)).isNotSameAs(statistics).isSameAs(session.statistics(1, "first"));
+      assertThat(session.statistics(dynamic, "dynamic")).isNotSameAs(dynamicStatistics);
+   }
+
+   private SessionImpl session() {
+      SessionImpl session = new SessionImpl(scenario, 0, 0);
+      PhaseInstance phaseInstance = phaseInstance(phase);
+      phaseInstance.setComponents(null, null, (p, status, sessionLimitExceeded, error) -> null);
+      session.resetPhase(phaseInstance);
+      session.attach(ImmediateEventExecutor.INSTANCE, null, null, null, new SessionStatistics());
+      return session;
+   }
+
+   private PhaseInstance phaseInstance(Phase phase) {
+      return new PhaseInstanceImpl(phase, "test", 0) {
+         @Override
+         protected void proceed() {
+         }
+
+         @Override
+         public void reserveSessions() {
+         }
+      };
+   }
+}
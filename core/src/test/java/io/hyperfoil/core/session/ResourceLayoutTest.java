@@ -0,0 +1,110 @@
+package io.hyperfoil.core.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.Scenario;
+import io.hyperfoil.api.config.Sequence;
+import io.hyperfoil.api.session.ResourceLayout;
+import io.hyperfoil.api.session.Session;
+
+public class ResourceLayoutTest {
+   private static final Session.ResourceKey<TestResource> SHARED_A = new Session.SharedResourceKey<>();
+   private static final Session.ResourceKey<TestResource> SHARED_B = new Session.SharedResourceKey<>();
+
+   private static Scenario scenario() {
+      return new Scenario(new Sequence[0], new Sequence[0], 16, 16);
+   }
+
+   @Test
+   public void testSharedLayout() {
+      Scenario scenario = scenario();
+      Session.SlottedResourceKey<TestResource> first = new Session.SlottedResourceKey<>();
+      Session.SlottedResourceKey<TestResource> second = new Session.SlottedResourceKey<>();
+      SessionImpl s1 = new SessionImpl(scenario, 0, 0);
+      SessionImpl s2 = new SessionImpl(scenario, 0, 1);
+      for (SessionImpl session : new SessionImpl[] { s1, s2 }) {
+         session.declareResource(first, TestResource::new);
+         session.declareResource(second, TestResource::new);
+      }
+      ResourceLayout layout = scenario.resourceLayout();
+      assertThat(first.slot(layout)).isEqualTo(0);
+      assertThat(second.slot(layout)).isEqualTo(1);
+      assertThat(s1.getResource(first)).isNotNull().isNotSameAs(s2.getResource(first));
+      assertThat(s1.getResource(first)).isNotSameAs(s1.getResource(second));
+      // repeated declaration does not replace the resource
+      TestResource resource = s1.getResource(first);
+      s1.declareResource(first, TestResource::new);
+      assertThat(s1.getResource(first)).isSameAs(resource);
+   }
+
+   @Test
+   public void testSharedKeysInTwoScenarios() {
+      Scenario scenario1 = scenario();
+      Scenario scenario2 = scenario();
+      Session.SlottedResourceKey<TestResource> own1 = new Session.SlottedResourceKey<>();
+      Session.SlottedResourceKey<TestResource> own2 = new Session.SlottedResourceKey<>();
+      SessionImpl s1 = new SessionImpl(scenario1, 0, 0);
+      s1.declareResource(SHARED_A, TestResource::new);
+      s1.declareResource(own1, TestResource::new);
+      s1.declareResource(SHARED_B, TestResource::new);
+      // the other scenario declares the keys in a different order
+      SessionImpl s2 = new SessionImpl(scenario2, 0, 0);
+      s2.declareResource(own2, TestResource::new);
+      s2.declareResource(SHARED_B, TestResource::new);
+      s2.declareResource(SHARED_A, TestResource::new);
+
+      // every key resolves to the slot holding it in each layout, without falling back to the map
+      assertSlot(scenario1.resourceLayout(), SHARED_A, 0);
+      assertSlot(scenario1.resourceLayout(), own1, 1);
+      assertSlot(scenario1.resourceLayout(), SHARED_B, 2);
+      assertSlot(scenario2.resourceLayout(), own2, 0);
+      assertSlot(scenario2.resourceLayout(), SHARED_B, 1);
+      assertSlot(scenario2.resourceLayout(), SHARED_A, 2);
+
+      assertThat(s1.getResource(SHARED_A)).isNotNull().isNotSameAs(s1.getResource(SHARED_B));
+      assertThat(s2.getResource(SHARED_A)).isNotNull().isNotSameAs(s2.getResource(SHARED_B));
+      assertThat(s1.getResource(SHARED_A)).isNotSameAs(s2.getResource(SHARED_A));
+      assertThat(s1.getResource(own2)).isNull();
+      assertThat(s2.getResource(own1)).isNull();
+   }
+
+   @Test
+   public void testSlottedKeyInTwoScenarios() {
+      Session.SlottedResourceKey<TestResource> key = new Session.SlottedResourceKey<>();
+      Session.SlottedResourceKey<TestResource> other = new Session.SlottedResourceKey<>();
+      Scenario scenario2 = scenario();
+      SessionImpl s1 = new SessionImpl(scenario(), 0, 0);
+      s1.declareResource(key, TestResource::new);
+      SessionImpl s2 = new SessionImpl(scenario2, 0, 0);
+      s2.declareResource(other, TestResource::new);
+      s2.declareResource(key, TestResource::new);
+      // the key keeps the slot from the first scenario, the other session finds it through the map
+      assertThat(key.slot(scenario2.resourceLayout())).isEqualTo(0);
+      assertThat(scenario2.resourceLayout().lookup(key)).isEqualTo(1);
+      assertThat(s2.getResource(key)).isNotNull().isNotSameAs(s2.getResource(other));
+      assertThat(s1.getResource(key)).isNotNull().isNotSameAs(s2.getResource(key));
+      assertThat(s1.getResource(other)).isNull();
+   }
+
+   private static void assertSlot(ResourceLayout layout, Session.ResourceKey<?> key, int slot) {
+      assertThat(key.slot(layout)).isEqualTo(slot);
+      assertThat(layout.keys()[slot]).isSameAs(key);
+   }
+
+   @Test
+   public void testKeyWithoutSlot() {
+      Session.ResourceKey<TestResource> key = new Session.ResourceKey<>() {
+      };
+      Scenario scenario = scenario();
+      SessionImpl session = new SessionImpl(scenario, 0, 0);
+      assertThat(session.getResource(key)).isNull();
+      session.declareResource(key, TestResource::new);
+      assertThat(key.slot(scenario.resourceLayout())).isEqualTo(0);
+      assertThat(session.getResource(key)).isNotNull();
+   }
+
+   private static class TestResource implements Session.Resource {
+   }
+}
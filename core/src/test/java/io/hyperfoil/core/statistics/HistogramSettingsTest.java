@@ -0,0 +1,127 @@
+package io.hyperfoil.core.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
+import io.hyperfoil.api.config.StartTimeSource;
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.statistics.HistogramSettings;
+import io.hyperfoil.api.statistics.Statistics;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.core.parser.ParserException;
+import io.hyperfoil.core.session.BaseBenchmarkParserTest;
+
+public class HistogramSettingsTest extends BaseBenchmarkParserTest {
+   private static final long BASE_TIME = 1710774000000L;
+   private static final long TWO_MINUTES = TimeUnit.MINUTES.toNanos(2);
+
+   @Test
+   public void testParse() throws IOException, ParserException {
+      String yaml = """
+            name: histogram
+            histogram:
+              maxValue: 5m
+              precision: 3
+              metrics:
+                long-poll:
+                  packed: true
+                short:
+                  maxValue: 1s
+            phases:
+            - test:
+                atOnce:
+                  users: 1
+                  scenario:
+                  - test:
+                    - noop: {}
+            """;
+      Benchmark benchmark = loadBenchmark(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+      assertThat(benchmark.histogramSettings())
+            .isEqualTo(new HistogramSettings(TimeUnit.MINUTES.toNanos(5), 3, false));
+      assertThat(benchmark.histogramSettings("long-poll"))
+            .isEqualTo(new HistogramSettings(TimeUnit.MINUTES.toNanos(5), 3, true));
+      assertThat(benchmark.histogramSettings("short"))
+            .isEqualTo(new HistogramSettings(TimeUnit.SECONDS.toNanos(1), 3, false));
+      assertThat(benchmark.histogramSettings("other")).isSameAs(benchmark.histogramSettings());
+   }
+
+   @Test
+   public void testInvalidPrecision() {
+      BenchmarkBuilder builder = BenchmarkBuilder.builder();
+      builder.histogram().metric("foo").precision(7);
+      builder.addPhase("test").atOnce(1).scenario().initialSequence("test");
+      assertThrows(BenchmarkDefinitionException.class, builder::build);
+   }
+
+   @Test
+   public void testPackedRecordsBeyondDefaultRange() {
+      Statistics statistics = new Statistics(BASE_TIME, new HistogramSettings(0, 2, true));
+      statistics.recordResponse(new FixedStartTime(BASE_TIME), TWO_MINUTES, null);
+      statistics.end(BASE_TIME + 1000);
+      StatisticsSnapshot total = new StatisticsSnapshot();
+      statistics.visitSnapshots(total::add);
+      assertThat(total.responseCount).isEqualTo(1);
+      assertThat(total.histogram().getMaxValue()).isGreaterThanOrEqualTo(TWO_MINUTES);
+   }
+
+   @Test
+   public void testAddWidensSettings() {
+      StatisticsSnapshot narrow = new StatisticsSnapshot();
+      narrow.histogram().recordValue(1_000_000);
+      StatisticsSnapshot wide = new StatisticsSnapshot(new HistogramSettings(TimeUnit.MINUTES.toNanos(10), 3, false));
+      wide.histogram().recordValue(TWO_MINUTES);
+
+      StatisticsSnapshot sum = new StatisticsSnapshot();
+      sum.add(narrow);
+      sum.add(wide);
+      assertThat(sum.histogram().getTotalCount()).isEqualTo(2);
+      assertThat(sum.histogram().getNumberOfSignificantValueDigits()).isEqualTo(3);
+      assertThat(sum.histogram().getMaxValue()).isGreaterThanOrEqualTo(TWO_MINUTES);
+      assertThat(sum.histogram().getMinValue()).isLessThanOrEqualTo(1_000_000);
+   }
+
+   @Test
+   public void testSubtractWidensSettings() {
+      StatisticsSnapshot total = new StatisticsSnapshot();
+      total.histogram().recordValue(1_000_000);
+      total.histogram().recordValue(2_000_000);
+      total.responseCount = 2;
+      StatisticsSnapshot wide = new StatisticsSnapshot(new HistogramSettings(TimeUnit.MINUTES.toNanos(10), 2, false));
+      wide.histogram().recordValue(1_000_000);
+      wide.responseCount = 1;
+
+      total.subtract(wide);
+      assertThat(total.responseCount).isEqualTo(1);
+      assertThat(total.histogram().getTotalCount()).isEqualTo(1);
+      assertThat(total.histogram().getHighestTrackableValue()).isGreaterThanOrEqualTo(TimeUnit.MINUTES.toNanos(10));
+      assertThat(total.histogram().getMinValue()).isGreaterThan(1_000_000);
+   }
+
+   private static class FixedStartTime implements StartTimeSource {
+      private final long startTimestampMillis;
+
+      private FixedStartTime(long startTimestampMillis) {
+         this.startTimestampMillis = startTimestampMillis;
+      }
+
+      @Override
+      public long getStartTimestampMillis(Session session) {
+         return startTimestampMillis;
+      }
+
+      @Override
+      public long getStartTimestampNanos(Session session) {
+         return 0;
+      }
+   }
+}
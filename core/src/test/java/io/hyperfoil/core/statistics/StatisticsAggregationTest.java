@@ -97,7 +97,7 @@ public class StatisticsAggregationTest {
       Map<Long, Integer> statsPerTimestamp = new HashMap<>();
       stats.visitSnapshots(snapshot -> {
          if (snapshot.responseCount > 0) {
-            statsPerTimestamp.put(snapshot.histogram.getStartTimeStamp(), snapshot.responseCount);
+            statsPerTimestamp.put(snapshot.histogram().getStartTimeStamp(), snapshot.responseCount);
          }
       });
 
@@ -118,7 +118,7 @@ public class StatisticsAggregationTest {
       Map<Long, Integer> phase1 = new HashMap<>();
       stats.visitSnapshots(snapshot -> {
          if (snapshot.responseCount > 0) {
-            phase1.put(snapshot.histogram.getStartTimeStamp(), snapshot.responseCount);
+            phase1.put(snapshot.histogram().getStartTimeStamp(), snapshot.responseCount);
          }
       });
       assertEquals(4, phase1.values().stream().mapToInt(Integer::intValue).sum(),
@@ -133,7 +133,7 @@ public class StatisticsAggregationTest {
       Map<Long, Integer> phase2 = new HashMap<>();
       stats.visitSnapshots(snapshot -> {
          if (snapshot.responseCount > 0) {
-            phase2.put(snapshot.histogram.getStartTimeStamp(), snapshot.responseCount);
+            phase2.put(snapshot.histogram().getStartTimeStamp(), snapshot.responseCount);
          }
       });
       assertEquals(5, phase2.values().stream().mapToInt(Integer::intValue).sum());
@@ -148,7 +148,7 @@ public class StatisticsAggregationTest {
       Map<Long, Integer> phase3 = new HashMap<>();
       stats.visitSnapshots(snapshot -> {
          if (snapshot.responseCount > 0) {
-            phase3.put(snapshot.histogram.getStartTimeStamp(), snapshot.responseCount);
+            phase3.put(snapshot.histogram().getStartTimeStamp(), snapshot.responseCount);
          }
       });
       long ts5 = baseTime + (5 * millis);
@@ -175,7 +175,7 @@ public class StatisticsAggregationTest {
       Map<Long, Integer> statsPerTimestamp = new HashMap<>();
       stats.visitSnapshots(snapshot -> {
          if (snapshot.responseCount > 0) {
-            statsPerTimestamp.put(snapshot.histogram.getStartTimeStamp(), snapshot.responseCount);
+            statsPerTimestamp.put(snapshot.histogram().getStartTimeStamp(), snapshot.responseCount);
          }
       });
 
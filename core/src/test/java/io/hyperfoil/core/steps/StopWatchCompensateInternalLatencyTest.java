@@ -61,7 +61,7 @@ public class StopWatchCompensateInternalLatencyTest extends BaseScenarioTest {
          throw new IllegalStateException("No statistics found for the 'request' sequence");
       }
 
-      return snapshot.histogram.getMaxValue();
+      return snapshot.histogram().getMaxValue();
    }
 
    @Test
@@ -5,7 +5,7 @@ import io.hyperfoil.hotrod.connection.HotRodRemoteCachePoolImpl;
 
 public interface HotRodRemoteCachePool extends Session.Resource {
 
-   Session.ResourceKey<HotRodRemoteCachePool> KEY = new Session.ResourceKey<>() {
+   Session.ResourceKey<HotRodRemoteCachePool> KEY = new Session.SharedResourceKey<>() {
    };
 
    static HotRodRemoteCachePool get(Session session) {
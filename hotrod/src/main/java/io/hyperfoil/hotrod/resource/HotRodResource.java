@@ -25,7 +25,7 @@ public class HotRodResource implements Session.Resource {
       return timestamps[1];
    }
 
-   public static class Key implements Session.ResourceKey<HotRodResource> {
+   public static class Key extends Session.SlottedResourceKey<HotRodResource> {
 
    }
 }
@@ -9,6 +9,7 @@ import io.hyperfoil.api.config.SLA;
 import io.hyperfoil.api.config.StartTimeSource;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.Statistics;
 import io.hyperfoil.core.metric.MetricSelector;
 import io.hyperfoil.core.steps.StatisticsStep;
@@ -27,6 +28,7 @@ public class HotRodRequestStep extends StatisticsStep implements ResourceUtilize
    final SerializableFunction<Session, String> keyGenerator;
    final SerializableFunction<Session, String> valueGenerator;
    final boolean useSessionStartTime;
+   final MetricHandle metricHandle;
 
    protected HotRodRequestStep(int id, HotRodResource.Key futureWrapperKey,
          SerializableFunction<Session, HotRodOperation> operation,
@@ -43,6 +45,7 @@ public class HotRodRequestStep extends StatisticsStep implements ResourceUtilize
       this.keyGenerator = keyGenerator;
       this.valueGenerator = valueGenerator;
       this.useSessionStartTime = useSessionStartTime;
+      this.metricHandle = new MetricHandle(id);
    }
 
    @Override
@@ -63,7 +66,7 @@ public class HotRodRequestStep extends StatisticsStep implements ResourceUtilize
       HotRodRemoteCachePool pool = HotRodRemoteCachePool.get(session);
       HotRodRemoteCachePoolImpl.RemoteCacheWithoutToString remoteCache = pool.getRemoteCache(cacheName);
       String metric = metricSelector.apply(null, cacheName);
-      Statistics statistics = session.statistics(id(), metric);
+      Statistics statistics = session.statistics(metricHandle, metric);
 
       HotRodResource resource = session.getResource(futureWrapperKey);
 
@@ -100,7 +103,7 @@ public class HotRodRequestStep extends StatisticsStep implements ResourceUtilize
 
    private void trackResponseError(Session session, String metric, Object ex) {
       assert session.executor().inEventLoop();
-      Statistics statistics = session.statistics(id(), metric);
+      Statistics statistics = session.statistics(metricHandle, metric);
       HotRodResource resource = session.getResource(futureWrapperKey);
       if (ex instanceof TimeoutException || ex instanceof HotRodTimeoutException) {
          statistics.incrementTimeouts(this, session);
@@ -114,7 +117,7 @@ public class HotRodRequestStep extends StatisticsStep implements ResourceUtilize
       assert session.executor().inEventLoop();
       HotRodResource resource = session.getResource(futureWrapperKey);
       long startTimestampNanos = resource.getStartTimestampNanos();
-      Statistics statistics = session.statistics(id(), metric);
+      Statistics statistics = session.statistics(metricHandle, metric);
       statistics.recordResponse(this, System.nanoTime() - startTimestampNanos, session);
    }
 
@@ -69,7 +69,7 @@ public class HotRodCompensateInternalLatencyTest extends BaseHotRodTest {
          throw new IllegalStateException("No statistics found for the 'request' sequence");
       }
 
-      return snapshot.histogram.getMaxValue();
+      return snapshot.histogram().getMaxValue();
    }
 
    @Test
@@ -12,7 +12,7 @@ import io.hyperfoil.http.api.HttpRequest;
 public class HttpRequestPool extends LimitedPoolResource<HttpRequest> {
    private static final Logger log = LogManager.getLogger(HttpRequestPool.class);
    private static final boolean trace = log.isTraceEnabled();
-   public static final Session.ResourceKey<LimitedPoolResource<HttpRequest>> KEY = new Key<>();
+   public static final Session.ResourceKey<LimitedPoolResource<HttpRequest>> KEY = new Session.SharedResourceKey<>();
 
    public HttpRequestPool(Scenario scenario, Session session, boolean httpCacheEnabled) {
       super(scenario.maxRequests(), HttpRequest.class, () -> new HttpRequest(session, httpCacheEnabled));
@@ -3,6 +3,7 @@ package io.hyperfoil.http;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.function.SerializableBiConsumer;
@@ -10,8 +11,7 @@ import io.hyperfoil.http.api.HttpRequestWriter;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.util.AsciiString;
 
-public class UserAgentAppender implements SerializableBiConsumer<Session, HttpRequestWriter>, ResourceUtilizer,
-      Session.ResourceKey<UserAgentAppender.SessionId> {
+public class UserAgentAppender implements SerializableBiConsumer<Session, HttpRequestWriter>, ResourceUtilizer {
    private static final String HOSTNAME;
 
    static {
@@ -24,15 +24,18 @@ public class UserAgentAppender implements SerializableBiConsumer<Session, HttpRe
       HOSTNAME = hostname;
    }
 
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<SessionId> resourceKey = new Session.SlottedResourceKey<>();
+
    @Override
    public void accept(Session session, HttpRequestWriter httpRequestWriter) {
-      httpRequestWriter.putHeader(HttpHeaderNames.USER_AGENT, session.getResource(this).id);
+      httpRequestWriter.putHeader(HttpHeaderNames.USER_AGENT, session.getResource(resourceKey).id);
    }
 
    @Override
    public void reserve(Session session) {
       SessionId sessionId = new SessionId(new AsciiString("#" + session.uniqueId() + "@" + HOSTNAME));
-      session.declareResource(this, () -> sessionId);
+      session.declareResource(resourceKey, () -> sessionId);
    }
 
    public static final class SessionId implements Session.Resource {
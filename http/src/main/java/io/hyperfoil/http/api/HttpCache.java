@@ -3,7 +3,7 @@ package io.hyperfoil.http.api;
 import io.hyperfoil.api.session.Session;
 
 public interface HttpCache extends Session.Resource {
-   Session.ResourceKey<HttpCache> KEY = new Session.ResourceKey<>() {
+   Session.ResourceKey<HttpCache> KEY = new Session.SharedResourceKey<>() {
    };
 
    void beforeRequestHeaders(HttpRequest request);
@@ -6,6 +6,7 @@ import java.util.function.BiFunction;
 import io.hyperfoil.api.connection.Connection;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.http.config.Http;
+import io.hyperfoil.http.connection.ConnectionSelector;
 import io.netty.buffer.ByteBuf;
 
 /**
@@ -39,6 +40,11 @@ public interface HttpConnection extends Connection {
     */
    long lastUsed();
 
+   /**
+    * @return Bookkeeping used by the shared connection pool.
+    */
+   ConnectionSelector.Entry selectorEntry();
+
    enum Status {
       OPEN,
       CLOSING,
@@ -15,7 +15,9 @@ import io.hyperfoil.api.session.SessionStopException;
 import io.hyperfoil.api.statistics.Statistics;
 import io.hyperfoil.http.HttpRequestPool;
 import io.hyperfoil.http.statistics.HttpStats;
+import io.hyperfoil.http.statistics.HttpTimings;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.Future;
 
 public class HttpRequest extends Request {
    public static final Logger log = LogManager.getLogger(HttpRequest.class);
@@ -24,8 +26,13 @@ public class HttpRequest extends Request {
    public HttpMethod method;
    public String authority;
    public String path;
+   public HttpRequestTemplate template;
    public final CacheControl cacheControl;
    private HttpConnectionPool pool;
+   private long sendTimestampNanos;
+   // Timestamps for HttpTimings; recorded only when the timing breakdown is enabled
+   private boolean recordTimings;
+   private long firstByteTimestampNanos;
 
    public HttpRequest(Session session, boolean httpCacheEnabled) {
       super(session);
@@ -45,6 +52,7 @@ public class HttpRequest extends Request {
          boolean useSessionStartTime) {
       this.handlers = handlers;
       this.pool = pool;
+      this.recordTimings = pool.clientPool().config().timingBreakdown();
       start(sequence, statistics, useSessionStartTime);
    }
 
@@ -67,6 +75,7 @@ public class HttpRequest extends Request {
       }
 
       attach(connection);
+      sendTimestampNanos = System.nanoTime();
       connection.attach(pool);
       connection.request(this, headerAppenders, injectHostHeader, bodyGenerator);
    }
@@ -83,12 +92,56 @@ public class HttpRequest extends Request {
       this.method = null;
       this.authority = null;
       this.path = null;
+      this.template = null;
       this.pool = null;
+      this.recordTimings = false;
       if (this.cacheControl != null) {
          this.cacheControl.reset();
       }
    }
 
+   /**
+    * Starts recording of {@link HttpTimings} (if enabled) for this request; must be called right before {@link #send}.
+    *
+    * @param blockedTime Time in nanoseconds the request waited for a connection.
+    */
+   public void startTimings(long blockedTime) {
+      if (!recordTimings) {
+         return;
+      }
+      firstByteTimestampNanos = Long.MIN_VALUE;
+      HttpTimings.record(this, HttpTimings.CONNECTION_WAIT, blockedTime);
+   }
+
+   /**
+    * @return Timestamp from System.nanoTime() when the request was sent.
+    */
+   public long sendTimestampNanos() {
+      return sendTimestampNanos;
+   }
+
+   public void recordFirstByte() {
+      if (recordTimings && firstByteTimestampNanos == Long.MIN_VALUE) {
+         firstByteTimestampNanos = System.nanoTime();
+         HttpTimings.record(this, HttpTimings.FIRST_BYTE, firstByteTimestampNanos - sendTimestampNanos);
+      }
+   }
+
+   public void recordBodyTransfer(long endTimestampNanos) {
+      if (recordTimings && firstByteTimestampNanos != Long.MIN_VALUE) {
+         HttpTimings.record(this, HttpTimings.BODY_TRANSFER, endTimestampNanos - firstByteTimestampNanos);
+      }
+   }
+
+   @Override
+   public void operationComplete(Future<Void> future) {
+      super.operationComplete(future);
+      // the request might have been completed (and reused) before the write promise completed
+      if (recordTimings && future.isSuccess() && isRunning()) {
+         HttpTimings.record(this, HttpTimings.WRITE, System.nanoTime() - sendTimestampNanos);
+      }
+   }
+
    public HttpResponseHandlers handlers() {
       return handlers;
    }
@@ -0,0 +1,176 @@
+package io.hyperfoil.http.api;
+
+import java.io.Serializable;
+import java.util.List;
+
+import io.hyperfoil.api.config.Visitor;
+import io.hyperfoil.api.session.Session;
+import io.hyperfoil.function.SerializableBiConsumer;
+import io.hyperfoil.impl.Util;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
+
+/**
+ * Parts of the request that do not change between invocations of the request step, encoded when the scenario
+ * is built: the method (if it is constant), the constant prefix of the path and static headers. HTTP 1.x connections
+ * copy these bytes into the request instead of encoding the strings for every request; the rest of the path
+ * (if it contains variables) is written straight into the request buffer.
+ */
+public class HttpRequestTemplate implements Serializable {
+   // Dynamic part of the path is used as written unless it contains a space (that must be escaped) or a non-ASCII
+   // character (encodePath writes only the low byte of each char while patterns write UTF-8).
+   private static final ByteProcessor PATH_AS_IS = value -> value != ' ' && value >= 0;
+
+   private final HttpMethod method;
+   private final String path;
+   private final SerializableBiConsumer<Session, ByteBuf> pathSuffix;
+   @Visitor.Ignore
+   private final byte[] methodBytes;
+   @Visitor.Ignore
+   private final byte[] pathBytes;
+   private final CharSequence[] headerNames;
+   private final CharSequence[] headerValues;
+   @Visitor.Ignore
+   private final byte[] headerBytes;
+
+   /**
+    * @param method Constant method or <code>null</code> if the method is selected for each request.
+    * @param path Constant path, or its constant prefix if <code>pathSuffix</code> is set, or <code>null</code>
+    *        if the path is generated for each request.
+    * @param pathSuffix Writes the rest of the path or <code>null</code> if the path is constant.
+    *        Must produce the same characters as the path generator.
+    * @param headerNames Names of static headers.
+    * @param headerValues Values of static headers.
+    */
+   public HttpRequestTemplate(HttpMethod method, String path, SerializableBiConsumer<Session, ByteBuf> pathSuffix,
+         List<CharSequence> headerNames, List<CharSequence> headerValues) {
+      if (path == null && pathSuffix != null) {
+         throw new IllegalArgumentException("Path suffix requires a prefix.");
+      }
+      this.method = method;
+      this.path = path;
+      this.pathSuffix = pathSuffix;
+      this.headerNames = headerNames.toArray(new CharSequence[0]);
+      this.headerValues = headerValues.toArray(new CharSequence[0]);
+      if (method != null) {
+         ByteBuf buf = Unpooled.buffer();
+         writeMethod(method, buf);
+         methodBytes = toArray(buf);
+      } else {
+         methodBytes = null;
+      }
+      if (path != null) {
+         ByteBuf buf = Unpooled.buffer(path.length());
+         encodePath(path, buf);
+         pathBytes = toArray(buf);
+      } else {
+         pathBytes = null;
+      }
+      ByteBuf buf = Unpooled.buffer();
+      for (int i = 0; i < this.headerNames.length; ++i) {
+         encodeHeader(this.headerNames[i], this.headerValues[i], buf);
+      }
+      headerBytes = toArray(buf);
+   }
+
+   private static byte[] toArray(ByteBuf buf) {
+      byte[] bytes = new byte[buf.readableBytes()];
+      buf.readBytes(bytes);
+      return bytes;
+   }
+
+   /**
+    * Encodes path for the HTTP 1.x request line; spaces are replaced with <code>%20</code> before the query
+    * and with <code>+</code> in the query.
+    */
+   public static void encodePath(CharSequence path, ByteBuf buf) {
+      boolean beforeQuestion = true;
+      for (int i = 0; i < path.length(); ++i) {
+         char c = path.charAt(i);
+         if (c == ' ') {
+            if (beforeQuestion) {
+               buf.writeByte(0xFF & '%');
+               buf.writeByte(0xFF & '2');
+               buf.writeByte(0xFF & '0');
+            } else {
+               buf.writeByte(0xFF & '+');
+            }
+         } else {
+            if (c == '?') {
+               beforeQuestion = false;
+            }
+            buf.writeByte(0xFF & c);
+         }
+      }
+   }
+
+   private static void encodeHeader(CharSequence header, CharSequence value, ByteBuf buf) {
+      // header name CANNOT be anything but US-ASCII: latin is already wider
+      buf.writeCharSequence(header, CharsetUtil.ISO_8859_1);
+      buf.writeByte(':');
+      buf.writeByte(' ');
+      buf.writeCharSequence(value, Util.isLatin(value) ? CharsetUtil.ISO_8859_1 : CharsetUtil.UTF_8);
+      buf.writeByte('\r');
+      buf.writeByte('\n');
+   }
+
+   /**
+    * Writes method and path of the HTTP 1.x request line.
+    */
+   public void writeMethodAndPath(HttpRequest request, ByteBuf buf) {
+      if (method != null && method == request.method) {
+         buf.writeBytes(methodBytes);
+      } else {
+         writeMethod(request.method, buf);
+      }
+      if (path == null) {
+         encodePath(request.path, buf);
+      } else if (pathSuffix == null) {
+         // The path generator returns the same instance when the path is constant
+         if (path == request.path || path.equals(request.path)) {
+            buf.writeBytes(pathBytes);
+         } else {
+            encodePath(request.path, buf);
+         }
+      } else {
+         int pathStart = buf.writerIndex();
+         buf.writeBytes(pathBytes);
+         int suffixStart = buf.writerIndex();
+         pathSuffix.accept(request.session, buf);
+         if (buf.forEachByte(suffixStart, buf.writerIndex() - suffixStart, PATH_AS_IS) >= 0) {
+            // rare case: encode the whole path again as we need to know if the space is in the query
+            buf.writerIndex(pathStart);
+            encodePath(request.path, buf);
+         }
+      }
+   }
+
+   public static void writeMethod(HttpMethod method, ByteBuf buf) {
+      buf.writeBytes(method.netty.asciiName().array());
+      buf.writeByte(' ');
+   }
+
+   /**
+    * Writes encoded static headers into HTTP 1.x request.
+    */
+   public void writeHeaders(HttpRequest request, ByteBuf buf) {
+      buf.writeBytes(headerBytes);
+      if (request.hasCacheControl()) {
+         HttpCache httpCache = HttpCache.get(request.session);
+         for (int i = 0; i < headerNames.length; ++i) {
+            httpCache.requestHeader(request, headerNames[i], headerValues[i]);
+         }
+      }
+   }
+
+   /**
+    * Adds static headers through the writer; used with protocols that do not encode headers as text.
+    */
+   public void putHeaders(HttpRequestWriter writer) {
+      for (int i = 0; i < headerNames.length; ++i) {
+         writer.putHeader(headerNames[i], headerValues[i]);
+      }
+   }
+}
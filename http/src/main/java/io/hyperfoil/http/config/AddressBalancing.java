@@ -0,0 +1,27 @@
+package io.hyperfoil.http.config;
+
+/**
+ * Selects the address (from {@link Http#addresses()}) for a new connection.
+ * Addresses where the last connection attempt failed are avoided for a while unless all addresses failed.
+ */
+public enum AddressBalancing {
+   /**
+    * Pick a random address.
+    */
+   RANDOM,
+   /**
+    * Use the addresses in turns.
+    */
+   ROUND_ROBIN,
+   /**
+    * Pick the address with the lowest average response time (exponentially weighted moving average);
+    * addresses without recent responses are preferred, ties are broken by the number of open connections.
+    * Idle connections to an address that is much slower than the others are closed and reopened.
+    */
+   LEAST_LATENCY,
+   /**
+    * Pick two addresses at random and use the one with lower product of average response time and number of open
+    * connections plus one. Idle connections to an address that is much slower than the others are closed and reopened.
+    */
+   TWO_CHOICES
+}
@@ -10,12 +10,17 @@ public class ConnectionPoolConfig implements Serializable {
    private final int max;
    private final int buffer;
    private final long keepAliveTime;
+   private final ConnectionSelection selection;
+   private final boolean borrow;
 
-   public ConnectionPoolConfig(int core, int max, int buffer, long keepAliveTime) {
+   public ConnectionPoolConfig(int core, int max, int buffer, long keepAliveTime, ConnectionSelection selection,
+         boolean borrow) {
       this.core = core;
       this.max = max;
       this.buffer = buffer;
       this.keepAliveTime = keepAliveTime;
+      this.selection = selection;
+      this.borrow = borrow;
    }
 
    public int core() {
@@ -34,12 +39,22 @@ public class ConnectionPoolConfig implements Serializable {
       return keepAliveTime;
    }
 
+   public ConnectionSelection selection() {
+      return selection;
+   }
+
+   public boolean borrow() {
+      return borrow;
+   }
+
    public static class Builder implements BuilderBase<Builder> {
       private final HttpBuilder parent;
       private int core;
       private int max;
       private int buffer;
       private long keepAliveTime;
+      private ConnectionSelection selection = ConnectionSelection.IDLE_FIRST;
+      private boolean borrow;
 
       public Builder(HttpBuilder parent) {
          this.parent = parent;
@@ -65,6 +80,16 @@ public class ConnectionPoolConfig implements Serializable {
          return this;
       }
 
+      public Builder selection(ConnectionSelection selection) {
+         this.selection = selection;
+         return this;
+      }
+
+      public Builder borrow(boolean borrow) {
+         this.borrow = borrow;
+         return this;
+      }
+
       public ConnectionPoolConfig build() {
          if (core < 0) {
             throw new BenchmarkDefinitionException("Illegal value for 'core': " + core + " (must be >= 0)");
@@ -78,7 +103,7 @@ public class ConnectionPoolConfig implements Serializable {
          } else if (buffer > max) {
             throw new BenchmarkDefinitionException("'buffer' > 'max': " + buffer + " > " + max);
          }
-         return new io.hyperfoil.http.config.ConnectionPoolConfig(core, max, buffer, keepAliveTime);
+         return new io.hyperfoil.http.config.ConnectionPoolConfig(core, max, buffer, keepAliveTime, selection, borrow);
       }
 
       public HttpBuilder end() {
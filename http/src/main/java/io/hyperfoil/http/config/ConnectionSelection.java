@@ -0,0 +1,31 @@
+package io.hyperfoil.http.config;
+
+/**
+ * Selects the connection from the shared pool that will be used for the next request.
+ * This makes a difference only when a connection can serve several requests at once
+ * (HTTP 2.0 or HTTP 1.1 with pipelining), or with {@link #TWO_CHOICES_LATENCY}.
+ */
+public enum ConnectionSelection {
+   /**
+    * Connections without any in-flight requests are preferred; other connections are used
+    * in the order they became available.
+    */
+   IDLE_FIRST,
+   /**
+    * Connections are used in the order they became available, regardless of the number of in-flight requests.
+    */
+   ROUND_ROBIN,
+   /**
+    * Always pick the connection with the lowest number of in-flight requests.
+    */
+   LEAST_IN_FLIGHT,
+   /**
+    * Pick two connections at random and use the one with lower number of in-flight requests.
+    */
+   TWO_CHOICES_IN_FLIGHT,
+   /**
+    * Pick two connections at random and use the one with lower product of average response time
+    * (exponentially weighted moving average) and number of in-flight requests (plus one).
+    */
+   TWO_CHOICES_LATENCY
+}
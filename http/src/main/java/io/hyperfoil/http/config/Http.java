@@ -48,12 +48,18 @@ public class Http implements Serializable {
    private final TrustManager trustManager;
    private final ConnectionStrategy connectionStrategy;
    private final boolean useHttpCache;
+   private final boolean flushConsolidation;
+   private final boolean timingBreakdown;
+   private final AddressBalancing addressBalancing;
+   private final boolean addressStats;
+   private final String[] localAddresses;
 
    public Http(String name, boolean isDefault, String originalDestination, Protocol protocol, String host, int port,
          String[] addresses, HttpVersion[] versions, int maxHttp2Streams, int pipeliningLimit,
          ConnectionPoolConfig sharedConnections, boolean directHttp2, long requestTimeout, long sslHandshakeTimeout,
          boolean rawBytesHandlers, KeyManager keyManager, TrustManager trustManager,
-         ConnectionStrategy connectionStrategy, boolean useHttpCache) {
+         ConnectionStrategy connectionStrategy, boolean useHttpCache, boolean flushConsolidation,
+         boolean timingBreakdown, AddressBalancing addressBalancing, boolean addressStats, String[] localAddresses) {
       this.name = name;
       this.isDefault = isDefault;
       this.originalDestination = originalDestination;
@@ -73,6 +79,11 @@ public class Http implements Serializable {
       this.trustManager = trustManager;
       this.connectionStrategy = connectionStrategy;
       this.useHttpCache = useHttpCache;
+      this.flushConsolidation = flushConsolidation;
+      this.timingBreakdown = timingBreakdown;
+      this.addressBalancing = addressBalancing;
+      this.addressStats = addressStats;
+      this.localAddresses = localAddresses;
    }
 
    public String name() {
@@ -156,6 +167,44 @@ public class Http implements Serializable {
       return useHttpCache;
    }
 
+   /**
+    * When enabled the connections do not flush each request; requests written in the same event loop
+    * iteration are flushed together once the current tasks are processed.
+    */
+   public boolean flushConsolidation() {
+      return flushConsolidation;
+   }
+
+   /**
+    * When enabled the requests record {@link io.hyperfoil.http.statistics.HttpTimings} in addition to the response time.
+    */
+   public boolean timingBreakdown() {
+      return timingBreakdown;
+   }
+
+   /**
+    * Policy choosing one of the {@link #addresses()} for each new connection.
+    */
+   public AddressBalancing addressBalancing() {
+      return addressBalancing;
+   }
+
+   /**
+    * When enabled and there are multiple {@link #addresses()} the response times are recorded in
+    * {@link io.hyperfoil.http.statistics.HttpAddressStats} and connections are counted for each address.
+    */
+   public boolean addressStats() {
+      return addressStats;
+   }
+
+   /**
+    * Local (source) addresses, optionally with port ranges, the connections are bound to.
+    * When empty the operating system chooses the source address and port.
+    */
+   public String[] localAddresses() {
+      return localAddresses;
+   }
+
    public static class KeyManager implements Serializable {
       private final String storeType;
       private final byte[] storeBytes;
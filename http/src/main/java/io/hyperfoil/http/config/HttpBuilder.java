@@ -47,6 +47,7 @@ public class HttpBuilder implements BuilderBase<HttpBuilder> {
    private String host;
    private int port = -1;
    private List<String> addresses = new ArrayList<>();
+   private List<String> localAddresses = new ArrayList<>();
    private boolean allowHttp1x = true;
    private boolean allowHttp2 = true;
    private ConnectionPoolConfig.Builder sharedConnections = new ConnectionPoolConfig.Builder(this);
@@ -60,6 +61,10 @@ public class HttpBuilder implements BuilderBase<HttpBuilder> {
    private TrustManagerBuilder trustManager = new TrustManagerBuilder(this);
    private ConnectionStrategy connectionStrategy = ConnectionStrategy.SHARED_POOL;
    private boolean useHttpCache = true;
+   private boolean flushConsolidation = false;
+   private boolean timingBreakdown = false;
+   private AddressBalancing addressBalancing = AddressBalancing.RANDOM;
+   private boolean addressStats = false;
 
    public static HttpBuilder forTesting() {
       return new HttpBuilder(null);
@@ -230,6 +235,11 @@ public class HttpBuilder implements BuilderBase<HttpBuilder> {
       return this;
    }
 
+   public HttpBuilder addLocalAddress(String localAddress) {
+      localAddresses.add(localAddress);
+      return this;
+   }
+
    public HttpBuilder rawBytesHandlers(boolean rawBytesHandlers) {
       this.rawBytesHandlers = rawBytesHandlers;
       return this;
@@ -261,6 +271,26 @@ public class HttpBuilder implements BuilderBase<HttpBuilder> {
       return useHttpCache;
    }
 
+   public HttpBuilder flushConsolidation(boolean flushConsolidation) {
+      this.flushConsolidation = flushConsolidation;
+      return this;
+   }
+
+   public HttpBuilder timingBreakdown(boolean timingBreakdown) {
+      this.timingBreakdown = timingBreakdown;
+      return this;
+   }
+
+   public HttpBuilder addressBalancing(AddressBalancing addressBalancing) {
+      this.addressBalancing = addressBalancing;
+      return this;
+   }
+
+   public HttpBuilder addressStats(boolean addressStats) {
+      this.addressStats = addressStats;
+      return this;
+   }
+
    @Override
    public void prepareBuild() {
    }
@@ -294,7 +324,8 @@ public class HttpBuilder implements BuilderBase<HttpBuilder> {
       return http = new Http(name, isDefault, originalDestination, protocol, host, protocol.portOrDefault(port),
             addresses.toArray(new String[0]), httpVersions.toArray(new HttpVersion[0]), maxHttp2Streams,
             pipeliningLimit, sharedConnections.build(), directHttp2, requestTimeout, sslHandshakeTimeout,
-            rawBytesHandlers, keyManager.build(), trustManager.build(), connectionStrategy, useHttpCache);
+            rawBytesHandlers, keyManager.build(), trustManager.build(), connectionStrategy, useHttpCache,
+            flushConsolidation, timingBreakdown, addressBalancing, addressStats, localAddresses.toArray(new String[0]));
    }
 
    public static class KeyManagerBuilder implements BuilderBase<KeyManagerBuilder> {
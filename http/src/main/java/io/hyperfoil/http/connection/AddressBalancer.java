@@ -0,0 +1,343 @@
+package io.hyperfoil.http.connection;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.hyperfoil.api.statistics.Statistics;
+import io.hyperfoil.http.api.HttpRequest;
+import io.hyperfoil.http.config.AddressBalancing;
+import io.hyperfoil.http.statistics.HttpAddressStats;
+
+/**
+ * Chooses the address for new connections when the endpoint has multiple addresses (see {@link AddressBalancing}).
+ * <p>
+ * The instance is shared by all event loops. The per-address state is updated without synchronization;
+ * lost updates of the average response time are not a concern as this is only an estimate.
+ */
+public abstract class AddressBalancer {
+   // An address is avoided for this period after a failed connection attempt.
+   private static final long UNHEALTHY_NANOS = TimeUnit.SECONDS.toNanos(1);
+   // Connections are recycled when the address is this many times slower than the fastest other address...
+   private static final long DEGRADED_RATIO = 2;
+   // ... and new connections avoid it until it is at most this many times (in percent) slower.
+   private static final long RECOVERED_PERCENT = 150;
+   // The average of a degraded address is not updated as there are no connections to it;
+   // a single connection is opened to re-measure it in this interval.
+   static final long PROBE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+   protected final Address[] addresses;
+
+   AddressBalancer(Address[] addresses) {
+      this.addresses = addresses;
+   }
+
+   static AddressBalancer create(AddressBalancing balancing, Address[] addresses) {
+      switch (balancing) {
+         case RANDOM:
+            return new Random(addresses);
+         case ROUND_ROBIN:
+            return new RoundRobin(addresses);
+         case LEAST_LATENCY:
+            return new LeastLatency(addresses);
+         case TWO_CHOICES:
+            return new TwoChoices(addresses);
+         default:
+            throw new IllegalArgumentException("Unknown address balancing " + balancing);
+      }
+   }
+
+   /**
+    * @return Address for a new connection; if all addresses recently failed any of them can be returned.
+    */
+   Address select() {
+      return select(System.nanoTime());
+   }
+
+   Address select(long now) {
+      Address address = select(now, true);
+      return address != null ? address : select(now, false);
+   }
+
+   /**
+    * @return Selected address or <code>null</code> if there's no healthy address and <code>healthyOnly</code> is set.
+    */
+   protected abstract Address select(long now, boolean healthyOnly);
+
+   /**
+    * @return True if idle connections to this address should be closed and opened again (possibly to another address).
+    */
+   boolean isDegraded(Address address) {
+      return false;
+   }
+
+   /**
+    * @return True if new connections can be opened to this address. Must be consistent with {@link #isDegraded(Address)},
+    *         otherwise the connections would be closed right after the first response.
+    */
+   protected boolean isEligible(Address address, long now) {
+      return address.isHealthy(now);
+   }
+
+   Address[] addresses() {
+      return addresses;
+   }
+
+   private static class Random extends AddressBalancer {
+      Random(Address[] addresses) {
+         super(addresses);
+      }
+
+      @Override
+      protected Address select(long now, boolean healthyOnly) {
+         ThreadLocalRandom random = ThreadLocalRandom.current();
+         int offset = random.nextInt(addresses.length);
+         for (int i = 0; i < addresses.length; ++i) {
+            Address address = addresses[(offset + i) % addresses.length];
+            if (!healthyOnly || isEligible(address, now)) {
+               return address;
+            }
+         }
+         return null;
+      }
+   }
+
+   private static class RoundRobin extends AddressBalancer {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      RoundRobin(Address[] addresses) {
+         super(addresses);
+      }
+
+      @Override
+      protected Address select(long now, boolean healthyOnly) {
+         for (int i = 0; i < addresses.length; ++i) {
+            Address address = addresses[Math.floorMod(counter.getAndIncrement(), addresses.length)];
+            if (!healthyOnly || isEligible(address, now)) {
+               return address;
+            }
+         }
+         return null;
+      }
+   }
+
+   private abstract static class LatencyAware extends AddressBalancer {
+      LatencyAware(Address[] addresses) {
+         super(addresses);
+      }
+
+      @Override
+      Address select(long now) {
+         for (Address address : addresses) {
+            // concurrent selection in another event loop might start another probe; that's not a problem
+            if (address.degraded && now - address.nextProbe >= 0 && address.isHealthy(now)) {
+               address.nextProbe = now + PROBE_NANOS;
+               address.probing = true;
+               return address;
+            }
+         }
+         return super.select(now);
+      }
+
+      @Override
+      boolean isDegraded(Address address) {
+         return updateDegraded(address, System.nanoTime());
+      }
+
+      @Override
+      protected boolean isEligible(Address address, long now) {
+         return address.isHealthy(now) && !updateDegraded(address, now);
+      }
+
+      private boolean updateDegraded(Address address, long now) {
+         long latency = address.averageResponseTime();
+         long best = Long.MAX_VALUE;
+         for (Address other : addresses) {
+            if (other != address && other.isHealthy(now)) {
+               long otherLatency = other.averageResponseTime();
+               if (otherLatency > 0 && otherLatency < best) {
+                  best = otherLatency;
+               }
+            }
+         }
+         boolean degraded;
+         if (latency == 0 || best == Long.MAX_VALUE) {
+            degraded = false;
+         } else if (address.degraded) {
+            // hysteresis: an address on the edge would be alternately avoided and picked otherwise
+            degraded = latency * 100 > best * RECOVERED_PERCENT;
+         } else {
+            degraded = latency > best * DEGRADED_RATIO;
+            if (degraded) {
+               address.nextProbe = now + PROBE_NANOS;
+            }
+         }
+         address.degraded = degraded;
+         return degraded;
+      }
+   }
+
+   private static class LeastLatency extends LatencyAware {
+      LeastLatency(Address[] addresses) {
+         super(addresses);
+      }
+
+      @Override
+      protected Address select(long now, boolean healthyOnly) {
+         Address best = null;
+         long bestLatency = Long.MAX_VALUE;
+         int bestConnections = Integer.MAX_VALUE;
+         for (Address address : addresses) {
+            if (healthyOnly && !isEligible(address, now)) {
+               continue;
+            }
+            long latency = address.averageResponseTime();
+            int connections = address.connections();
+            if (latency < bestLatency || (latency == bestLatency && connections < bestConnections)) {
+               best = address;
+               bestLatency = latency;
+               bestConnections = connections;
+            }
+         }
+         return best;
+      }
+   }
+
+   private static class TwoChoices extends LatencyAware {
+      TwoChoices(Address[] addresses) {
+         super(addresses);
+      }
+
+      @Override
+      protected Address select(long now, boolean healthyOnly) {
+         if (addresses.length == 1) {
+            return !healthyOnly || isEligible(addresses[0], now) ? addresses[0] : null;
+         }
+         ThreadLocalRandom random = ThreadLocalRandom.current();
+         int first = random.nextInt(addresses.length);
+         int second = random.nextInt(addresses.length - 1);
+         if (second >= first) {
+            ++second;
+         }
+         Address a = addresses[first];
+         Address b = addresses[second];
+         boolean useA = !healthyOnly || isEligible(a, now);
+         boolean useB = !healthyOnly || isEligible(b, now);
+         if (useA && useB) {
+            return compare(a, b);
+         } else if (useA) {
+            return a;
+         } else if (useB) {
+            return b;
+         }
+         for (Address address : addresses) {
+            if (isEligible(address, now)) {
+               return address;
+            }
+         }
+         return null;
+      }
+
+      private Address compare(Address a, Address b) {
+         long costA = a.averageResponseTime() * (a.connections() + 1);
+         long costB = b.averageResponseTime() * (b.connections() + 1);
+         if (costA == costB) {
+            return b.connections() < a.connections() ? b : a;
+         }
+         return costB < costA ? b : a;
+      }
+   }
+
+   public static final class Address {
+      private final String host;
+      private final int port;
+      private final String name;
+      // Tag for connection stats, null if address stats are disabled
+      private final String connectionsTag;
+      private final Statistics.LongUpdater<HttpAddressStats> statsRecorder;
+      private final AtomicInteger connections = new AtomicInteger();
+      private volatile long averageResponseTime;
+      private volatile boolean degraded;
+      private volatile long nextProbe;
+      // The next response replaces the average instead of moving it
+      private volatile boolean probing;
+      private volatile long unhealthyUntil = System.nanoTime();
+
+      Address(String host, int port, boolean stats) {
+         this.host = host;
+         this.port = port;
+         this.name = (host.indexOf(':') >= 0 && !host.startsWith("[") ? "[" + host + "]" : host) + ":" + port;
+         this.connectionsTag = stats ? "connections to " + name : null;
+         this.statsRecorder = stats ? HttpAddressStats.recorder(name) : null;
+      }
+
+      public String host() {
+         return host;
+      }
+
+      public int port() {
+         return port;
+      }
+
+      public String name() {
+         return name;
+      }
+
+      String connectionsTag() {
+         return connectionsTag;
+      }
+
+      /**
+       * @return Number of open connections to this address from all event loops.
+       */
+      public int connections() {
+         return connections.get();
+      }
+
+      /**
+       * @return Moving average of response times or 0 if there were no responses yet. When there are no connections
+       *         to this address the average is not updated; the last value is kept rather than treating
+       *         the address as the fastest one, until a probe connection measures it again.
+       */
+      long averageResponseTime() {
+         return averageResponseTime;
+      }
+
+      boolean isHealthy(long now) {
+         return now - unhealthyUntil >= 0;
+      }
+
+      void updateAverage(long nanos) {
+         if (probing) {
+            probing = false;
+            averageResponseTime = Math.max(nanos, 1);
+            return;
+         }
+         averageResponseTime = ConnectionSelector.Entry.movingAverage(averageResponseTime, nanos);
+      }
+
+      public void recordStats(HttpRequest request, long nanos) {
+         if (statsRecorder != null) {
+            HttpAddressStats.record(request, statsRecorder, nanos);
+         }
+      }
+
+      ConnectionReceiver track(ConnectionReceiver handler) {
+         return (connection, error) -> {
+            if (error != null) {
+               unhealthyUntil = System.nanoTime() + UNHEALTHY_NANOS;
+            } else {
+               connection.selectorEntry().address = this;
+               connections.incrementAndGet();
+               connection.context().channel().closeFuture().addListener(v -> connections.decrementAndGet());
+            }
+            handler.accept(connection, error);
+         };
+      }
+
+      @Override
+      public String toString() {
+         return name;
+      }
+   }
+}
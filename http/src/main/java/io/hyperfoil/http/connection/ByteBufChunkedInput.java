@@ -0,0 +1,64 @@
+package io.hyperfoil.http.connection;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+/**
+ * Emits slices of a (possibly shared) buffer; {@link io.netty.handler.stream.ChunkedWriteHandler} pulls these
+ * only while the channel is writable, so the SSL engine does not encrypt the whole body at once.
+ * <p>
+ * This is used only on TLS connections. Plaintext connections write the body buffer as a whole: constant bodies
+ * are off-heap and file bodies are slices of the file mapping, so the socket reads straight from that memory
+ * and the transport already writes as much as the socket accepts.
+ */
+class ByteBufChunkedInput implements ChunkedInput<ByteBuf> {
+   private final ByteBuf buf;
+   private final int chunkSize;
+   private final long length;
+
+   ByteBufChunkedInput(ByteBuf buf, int chunkSize) {
+      this.buf = buf;
+      this.chunkSize = chunkSize;
+      this.length = buf.readableBytes();
+   }
+
+   ByteBuf buffer() {
+      return buf;
+   }
+
+   @Override
+   public boolean isEndOfInput() {
+      return !buf.isReadable();
+   }
+
+   @Override
+   public void close() {
+      buf.release();
+   }
+
+   @Deprecated
+   @Override
+   public ByteBuf readChunk(ChannelHandlerContext ctx) {
+      return readChunk(ctx.alloc());
+   }
+
+   @Override
+   public ByteBuf readChunk(ByteBufAllocator allocator) {
+      if (!buf.isReadable()) {
+         return null;
+      }
+      return buf.readRetainedSlice(Math.min(chunkSize, buf.readableBytes()));
+   }
+
+   @Override
+   public long length() {
+      return length;
+   }
+
+   @Override
+   public long progress() {
+      return length - buf.readableBytes();
+   }
+}
@@ -62,5 +62,30 @@ public class ConnectionPoolStats {
 
    protected void incrementTypeStats(HttpConnection conn) {
       typeStats.computeIfAbsent(tagConnection(conn), t -> new Watermarks()).incrementUsed();
+      String addressTag = addressTag(conn);
+      if (addressTag != null) {
+         typeStats.computeIfAbsent(addressTag, t -> new Watermarks()).incrementUsed();
+      }
+      String localAddressTag = conn.selectorEntry().localAddressTag;
+      if (localAddressTag != null) {
+         typeStats.computeIfAbsent(localAddressTag, t -> new Watermarks()).incrementUsed();
+      }
+   }
+
+   protected void decrementTypeStats(HttpConnection conn) {
+      typeStats.get(tagConnection(conn)).decrementUsed();
+      String addressTag = addressTag(conn);
+      if (addressTag != null) {
+         typeStats.get(addressTag).decrementUsed();
+      }
+      String localAddressTag = conn.selectorEntry().localAddressTag;
+      if (localAddressTag != null) {
+         typeStats.get(localAddressTag).decrementUsed();
+      }
+   }
+
+   private static String addressTag(HttpConnection conn) {
+      AddressBalancer.Address address = conn.selectorEntry().address();
+      return address == null ? null : address.connectionsTag();
    }
 }
@@ -0,0 +1,336 @@
+package io.hyperfoil.http.connection;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import io.hyperfoil.http.api.HttpConnection;
+import io.hyperfoil.http.config.ConnectionSelection;
+
+/**
+ * Holds connections that can accept another request and decides which one is used next
+ * (see {@link ConnectionSelection}). The selector can return connections that got closed in the meantime;
+ * it is up to the caller to skip those.
+ * <p>
+ * This instance is not thread-safe as it should be accessed only from the event loop of the pool.
+ */
+public abstract class ConnectionSelector {
+   static ConnectionSelector create(ConnectionSelection selection, int capacity) {
+      switch (selection) {
+         case IDLE_FIRST:
+            return new IdleFirst(capacity);
+         case ROUND_ROBIN:
+            return new RoundRobin(capacity);
+         case LEAST_IN_FLIGHT:
+            return new LeastInFlight();
+         case TWO_CHOICES_IN_FLIGHT:
+            return new TwoChoices(capacity, false);
+         case TWO_CHOICES_LATENCY:
+            return new TwoChoices(capacity, true);
+         default:
+            throw new IllegalArgumentException("Unknown connection selection " + selection);
+      }
+   }
+
+   /**
+    * Adds a connection. The connection might be already present if a response arrived while the connection was
+    * acquired but the request was not sent yet; the queue-based implementations keep such duplicates (polling
+    * the connection again is safe as long as it is available) while the others just update it.
+    */
+   abstract void add(HttpConnection connection);
+
+   /**
+    * Removes the connection that should be used for the next request.
+    *
+    * @return Connection or <code>null</code> if there's no connection.
+    */
+   abstract HttpConnection poll();
+
+   abstract boolean contains(HttpConnection connection);
+
+   abstract int size();
+
+   abstract void forEach(Consumer<HttpConnection> consumer);
+
+   /**
+    * Notifies the selector that a request on the connection has completed while the connection
+    * was held in the selector.
+    */
+   void update(HttpConnection connection) {
+   }
+
+   /**
+    * Per-connection bookkeeping used by the selectors, the {@link AddressBalancer} and the {@link LocalAddressPool}.
+    */
+   public static final class Entry {
+      // The weight of the last sample in moving average is 1/8
+      private static final int EWMA_SHIFT = 3;
+      // Only every n-th connection average is propagated to the (shared) address average
+      private static final int ADDRESS_SAMPLE_MASK = 7;
+
+      private final HttpConnection connection;
+      // position in the selector (meaning depends on the implementation) or -1 if not present
+      private int index = -1;
+      private Entry prev;
+      private Entry next;
+      private long averageResponseTime;
+      private int responses;
+      // set only when the connection was opened to one of multiple addresses
+      AddressBalancer.Address address;
+      // tag for connection stats, set only when the connection was bound to one of the local addresses
+      String localAddressTag;
+
+      public Entry(HttpConnection connection) {
+         this.connection = connection;
+      }
+
+      public void recordResponseTime(long nanos) {
+         averageResponseTime = movingAverage(averageResponseTime, nanos);
+         if (address != null && (responses++ & ADDRESS_SAMPLE_MASK) == 0) {
+            address.updateAverage(averageResponseTime);
+         }
+      }
+
+      /**
+       * @param average Current average, 0 if there are no samples yet.
+       * @param sample New value.
+       * @return Updated exponentially weighted moving average; never 0 after the first sample.
+       */
+      static long movingAverage(long average, long sample) {
+         if (average == 0) {
+            return Math.max(sample, 1);
+         }
+         return Math.max(average + ((sample - average) >> EWMA_SHIFT), 1);
+      }
+
+      /**
+       * @return Exponentially weighted moving average of response times in nanoseconds.
+       */
+      public long averageResponseTime() {
+         return averageResponseTime;
+      }
+
+      /**
+       * @return Address the connection was opened to or <code>null</code> if the endpoint has a single address.
+       */
+      public AddressBalancer.Address address() {
+         return address;
+      }
+   }
+
+   private static class IdleFirst extends ConnectionSelector {
+      final ArrayDeque<HttpConnection> queue;
+
+      IdleFirst(int capacity) {
+         queue = new ArrayDeque<>(capacity);
+      }
+
+      @Override
+      void add(HttpConnection connection) {
+         // We are adding to the beginning of the queue to prefer reusing connections rather than cycling
+         // too many often-idle connections
+         if (connection.inFlight() == 0) {
+            queue.addFirst(connection);
+         } else {
+            queue.addLast(connection);
+         }
+      }
+
+      @Override
+      HttpConnection poll() {
+         return queue.pollFirst();
+      }
+
+      @Override
+      boolean contains(HttpConnection connection) {
+         return queue.contains(connection);
+      }
+
+      @Override
+      int size() {
+         return queue.size();
+      }
+
+      @Override
+      void forEach(Consumer<HttpConnection> consumer) {
+         queue.forEach(consumer);
+      }
+   }
+
+   private static class RoundRobin extends IdleFirst {
+      RoundRobin(int capacity) {
+         super(capacity);
+      }
+
+      @Override
+      void add(HttpConnection connection) {
+         queue.addLast(connection);
+      }
+   }
+
+   /**
+    * Connections are kept in buckets by the number of in-flight requests. Adding or moving a connection is O(1);
+    * polling needs to skip empty buckets but since in-flight counts change by one the lowest non-empty bucket
+    * is usually next to the previous one.
+    */
+   private static class LeastInFlight extends ConnectionSelector {
+      private Entry[] buckets = new Entry[16];
+      private int lowest;
+      private int size;
+
+      @Override
+      void add(HttpConnection connection) {
+         Entry entry = connection.selectorEntry();
+         if (entry.index >= 0) {
+            update(connection);
+            return;
+         }
+         link(entry, connection.inFlight());
+         ++size;
+      }
+
+      private void link(Entry entry, int bucket) {
+         if (bucket >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(buckets.length * 2, bucket + 1));
+         }
+         entry.index = bucket;
+         entry.prev = null;
+         entry.next = buckets[bucket];
+         if (entry.next != null) {
+            entry.next.prev = entry;
+         }
+         buckets[bucket] = entry;
+         lowest = Math.min(lowest, bucket);
+      }
+
+      private void unlink(Entry entry) {
+         if (entry.prev == null) {
+            buckets[entry.index] = entry.next;
+         } else {
+            entry.prev.next = entry.next;
+         }
+         if (entry.next != null) {
+            entry.next.prev = entry.prev;
+         }
+         entry.prev = null;
+         entry.next = null;
+         entry.index = -1;
+      }
+
+      @Override
+      HttpConnection poll() {
+         if (size == 0) {
+            return null;
+         }
+         while (buckets[lowest] == null) {
+            ++lowest;
+         }
+         Entry entry = buckets[lowest];
+         unlink(entry);
+         --size;
+         return entry.connection;
+      }
+
+      @Override
+      boolean contains(HttpConnection connection) {
+         return connection.selectorEntry().index >= 0;
+      }
+
+      @Override
+      int size() {
+         return size;
+      }
+
+      @Override
+      void forEach(Consumer<HttpConnection> consumer) {
+         for (Entry bucket : buckets) {
+            for (Entry entry = bucket; entry != null; entry = entry.next) {
+               consumer.accept(entry.connection);
+            }
+         }
+      }
+
+      @Override
+      void update(HttpConnection connection) {
+         Entry entry = connection.selectorEntry();
+         if (entry.index >= 0 && entry.index != connection.inFlight()) {
+            unlink(entry);
+            link(entry, connection.inFlight());
+         }
+      }
+   }
+
+   /**
+    * Power of two choices: compares two random connections, O(1) for all operations.
+    */
+   private static class TwoChoices extends ConnectionSelector {
+      private final boolean latency;
+      private Entry[] entries;
+      private int size;
+
+      TwoChoices(int capacity, boolean latency) {
+         this.entries = new Entry[Math.max(capacity, 1)];
+         this.latency = latency;
+      }
+
+      @Override
+      void add(HttpConnection connection) {
+         Entry entry = connection.selectorEntry();
+         if (entry.index >= 0) {
+            return;
+         }
+         if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+         }
+         entry.index = size;
+         entries[size++] = entry;
+      }
+
+      @Override
+      HttpConnection poll() {
+         if (size == 0) {
+            return null;
+         }
+         int selected = 0;
+         if (size > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+               ++second;
+            }
+            selected = cost(entries[second]) < cost(entries[first]) ? second : first;
+         }
+         Entry entry = entries[selected];
+         Entry last = entries[--size];
+         entries[selected] = last;
+         last.index = selected;
+         entries[size] = null;
+         entry.index = -1;
+         return entry.connection;
+      }
+
+      private long cost(Entry entry) {
+         long inFlight = entry.connection.inFlight();
+         return latency ? entry.averageResponseTime * (inFlight + 1) : inFlight;
+      }
+
+      @Override
+      boolean contains(HttpConnection connection) {
+         return connection.selectorEntry().index >= 0;
+      }
+
+      @Override
+      int size() {
+         return size;
+      }
+
+      @Override
+      void forEach(Consumer<HttpConnection> consumer) {
+         for (int i = 0; i < size; ++i) {
+            consumer.accept(entries[i].connection);
+         }
+      }
+   }
+}
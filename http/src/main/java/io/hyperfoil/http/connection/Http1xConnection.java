@@ -15,6 +15,7 @@ import io.hyperfoil.http.api.HttpCache;
 import io.hyperfoil.http.api.HttpConnection;
 import io.hyperfoil.http.api.HttpConnectionPool;
 import io.hyperfoil.http.api.HttpRequest;
+import io.hyperfoil.http.api.HttpRequestTemplate;
 import io.hyperfoil.http.api.HttpRequestWriter;
 import io.hyperfoil.http.api.HttpVersion;
 import io.hyperfoil.http.config.Http;
@@ -25,6 +26,7 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 
@@ -35,11 +37,15 @@ class Http1xConnection extends ChannelDuplexHandler implements HttpConnection {
    private static final Logger log = LogManager.getLogger(Http1xConnection.class);
    private static final boolean trace = log.isTraceEnabled();
    private static final byte[] HTTP1_1 = { ' ', 'H', 'T', 'T', 'P', '/', '1', '.', '1', '\r', '\n' };
+   // Maximum plaintext size of a TLS record
+   static final int BODY_CHUNK_SIZE = 16384;
 
    private final Deque<HttpRequest> inflights;
    private final BiConsumer<HttpConnection, Throwable> activationHandler;
    private final boolean secure;
    private final int pipeliningLimit;
+   private final boolean flushConsolidation;
+   private final Runnable flushTask = this::flushPending;
 
    private HttpConnectionPool pool;
    private ChannelHandlerContext ctx;
@@ -47,17 +53,22 @@ class Http1xConnection extends ChannelDuplexHandler implements HttpConnection {
    private boolean activated;
    private Status status = Status.OPEN;
    private long lastUsed = System.nanoTime();
+   private final ConnectionSelector.Entry selectorEntry = new ConnectionSelector.Entry(this);
+   private boolean flushPending;
+   private boolean chunkBodies;
 
    Http1xConnection(HttpClientPoolImpl client, BiConsumer<HttpConnection, Throwable> handler) {
       this.activationHandler = handler;
       this.inflights = new ArrayDeque<>(client.config().pipeliningLimit());
       this.secure = client.isSecure();
       this.pipeliningLimit = client.config().pipeliningLimit();
+      this.flushConsolidation = client.config().flushConsolidation();
    }
 
    @Override
    public void handlerAdded(ChannelHandlerContext ctx) {
       this.ctx = ctx;
+      this.chunkBodies = ctx.pipeline().get(ChunkedWriteHandler.class) != null;
       if (ctx.channel().isActive()) {
          checkActivated(ctx);
       }
@@ -121,24 +132,12 @@ class Http1xConnection extends ChannelDuplexHandler implements HttpConnection {
       assert aboutToSend > 0;
       aboutToSend--;
       ByteBuf buf = ctx.alloc().buffer();
-      buf.writeBytes(request.method.netty.asciiName().array());
-      buf.writeByte(' ');
-      boolean beforeQuestion = true;
-      for (int i = 0; i < request.path.length(); ++i) {
-         if (request.path.charAt(i) == ' ') {
-            if (beforeQuestion) {
-               buf.writeByte(0xFF & '%');
-               buf.writeByte(0xFF & '2');
-               buf.writeByte(0xFF & '0');
-            } else {
-               buf.writeByte(0xFF & '+');
-            }
-         } else {
-            if (request.path.charAt(i) == '?') {
-               beforeQuestion = false;
-            }
-            buf.writeByte(0xFF & request.path.charAt(i));
-         }
+      HttpRequestTemplate template = request.template;
+      if (template != null) {
+         template.writeMethodAndPath(request, buf);
+      } else {
+         HttpRequestTemplate.writeMethod(request.method, buf);
+         HttpRequestTemplate.encodePath(request.path, buf);
       }
       buf.writeBytes(HTTP1_1);
 
@@ -165,9 +164,12 @@ class Http1xConnection extends ChannelDuplexHandler implements HttpConnection {
          httpCache.beforeRequestHeaders(request);
       }
 
-      // TODO: if headers are strings, UTF-8 conversion creates a lot of trash
+      if (template != null) {
+         template.writeHeaders(request, buf);
+      }
       HttpRequestWriterImpl writer = new HttpRequestWriterImpl(request, buf);
       if (headerAppenders != null) {
+         // TODO: dynamic headers (e.g. from patterns) are still formatted into a new String for each request
          // TODO: allocation, if it's not eliminated we could store a reusable object
          for (BiConsumer<Session, HttpRequestWriter> headerAppender : headerAppenders) {
             headerAppender.accept(request.session, writer);
@@ -191,15 +193,35 @@ class Http1xConnection extends ChannelDuplexHandler implements HttpConnection {
       inflights.add(request);
       ChannelPromise writePromise = ctx.newPromise();
       writePromise.addListener(request);
-      if (body.isReadable()) {
+      // Large bodies over TLS are encrypted in chunks as the channel becomes writable
+      Object bodyMsg = chunkBodies && body.readableBytes() > BODY_CHUNK_SIZE ? new ByteBufChunkedInput(body, BODY_CHUNK_SIZE)
+            : body;
+      if (flushConsolidation) {
+         if (body.isReadable()) {
+            ctx.write(buf);
+            ctx.write(bodyMsg, writePromise);
+         } else {
+            ctx.write(buf, writePromise);
+         }
+         if (!flushPending) {
+            // Requests sent from other sessions in this event loop iteration are flushed together
+            flushPending = true;
+            ctx.executor().execute(flushTask);
+         }
+      } else if (body.isReadable()) {
          ctx.write(buf);
-         ctx.writeAndFlush(body, writePromise);
+         ctx.writeAndFlush(bodyMsg, writePromise);
       } else {
          ctx.writeAndFlush(buf, writePromise);
       }
       pool.afterRequestSent(this);
    }
 
+   private void flushPending() {
+      flushPending = false;
+      ctx.flush();
+   }
+
    private void writeHeader(ByteBuf buf, byte[] name, byte[] value) {
       buf.writeBytes(name).writeByte(':').writeByte(' ').writeBytes(value).writeByte('\r').writeByte('\n');
    }
@@ -283,6 +305,11 @@ class Http1xConnection extends ChannelDuplexHandler implements HttpConnection {
       return lastUsed;
    }
 
+   @Override
+   public ConnectionSelector.Entry selectorEntry() {
+      return selectorEntry;
+   }
+
    @Override
    public ChannelHandlerContext context() {
       return ctx;
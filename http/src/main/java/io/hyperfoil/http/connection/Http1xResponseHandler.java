@@ -26,6 +26,7 @@ public class Http1xResponseHandler extends BaseResponseHandler {
    private static final byte LF = 10;
    private static final int MAX_LINE_LENGTH = 4096;
 
+   private final boolean rawBytesHandlers;
    private State state = State.STATUS;
    private boolean crRead = false;
    private int contentLength = -1;
@@ -41,8 +42,17 @@ public class Http1xResponseHandler extends BaseResponseHandler {
       TRAILERS
    }
 
-   Http1xResponseHandler(HttpConnection connection) {
+   Http1xResponseHandler(HttpConnection connection, boolean rawBytesHandlers) {
       super(connection);
+      this.rawBytesHandlers = rawBytesHandlers;
+   }
+
+   @Override
+   protected void onRawData(HttpRequest request, ByteBuf data, boolean isLastPart) {
+      // The parser is installed even when raw bytes handlers are disabled
+      if (rawBytesHandlers) {
+         super.onRawData(request, data, isLastPart);
+      }
    }
 
    @Override
@@ -51,6 +51,8 @@ class Http2Connection extends Http2EventAdapter implements HttpConnection {
    private final IntObjectMap<HttpRequest> streams = new IntObjectHashMap<>();
    private final long clientMaxStreams;
    private final boolean secure;
+   private final boolean flushConsolidation;
+   private final Runnable flushTask = this::flushPending;
 
    private HttpConnectionPool pool;
    private int aboutToSend;
@@ -58,6 +60,8 @@ class Http2Connection extends Http2EventAdapter implements HttpConnection {
    private Status status = Status.OPEN;
    private HttpRequest dispatchedRequest;
    private long lastUsed = System.nanoTime();
+   private final ConnectionSelector.Entry selectorEntry = new ConnectionSelector.Entry(this);
+   private boolean flushPending;
 
    Http2Connection(ChannelHandlerContext context,
          io.netty.handler.codec.http2.Http2Connection connection,
@@ -69,6 +73,7 @@ class Http2Connection extends Http2EventAdapter implements HttpConnection {
       this.encoder = encoder;
       this.clientMaxStreams = this.maxStreams = clientPool.config().maxHttp2Streams();
       this.secure = clientPool.isSecure();
+      this.flushConsolidation = clientPool.config().flushConsolidation();
 
       Http2EventAdapter listener = new EventAdapter();
 
@@ -183,6 +188,9 @@ class Http2Connection extends Http2EventAdapter implements HttpConnection {
       }
 
       HttpRequestWriterImpl writer = new HttpRequestWriterImpl(request, headers);
+      if (request.template != null) {
+         request.template.putHeaders(writer);
+      }
       if (headerAppenders != null) {
          for (BiConsumer<Session, HttpRequestWriter> headerAppender : headerAppenders) {
             headerAppender.accept(request.session, writer);
@@ -219,13 +227,23 @@ class Http2Connection extends Http2EventAdapter implements HttpConnection {
          encoder.writeData(context, id, buf, 0, true, writePromise);
       }
       writePromise.addListener(request);
-      // We need to flush the channel - context.flush() would skip (?) the uppermost handler
-      // and the request body would not be sent.
-      context.channel().flush();
+      if (!flushConsolidation) {
+         // We need to flush the channel - context.flush() would skip (?) the uppermost handler
+         // and the request body would not be sent.
+         context.channel().flush();
+      } else if (!flushPending) {
+         flushPending = true;
+         context.executor().execute(flushTask);
+      }
       dispatchedRequest = null;
       pool.afterRequestSent(this);
    }
 
+   private void flushPending() {
+      flushPending = false;
+      context.channel().flush();
+   }
+
    @Override
    public HttpRequest dispatchedRequest() {
       return dispatchedRequest;
@@ -281,6 +299,11 @@ class Http2Connection extends Http2EventAdapter implements HttpConnection {
       return lastUsed;
    }
 
+   @Override
+   public ConnectionSelector.Entry selectorEntry() {
+      return selectorEntry;
+   }
+
    private int nextStreamId() {
       return connection.local().incrementAndGetNextStreamId();
    }
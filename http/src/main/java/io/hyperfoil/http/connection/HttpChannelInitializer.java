@@ -22,6 +22,7 @@ import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.ssl.SslMasterKeyHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.internal.SystemPropertyUtil;
 
 class HttpChannelInitializer extends ChannelInitializer<Channel> {
@@ -107,8 +108,12 @@ class HttpChannelInitializer extends ChannelInitializer<Channel> {
 
    private void initHttp1xConnection(ChannelPipeline pipeline) {
       Http1xConnection connection = new Http1xConnection(clientPool, handler);
+      if (clientPool.sslContext != null) {
+         // Outbound messages pass through RawRequestHandler before being split into chunks
+         pipeline.addLast(new ChunkedWriteHandler());
+      }
+      pipeline.addLast(new Http1xResponseHandler(connection, clientPool.http.rawBytesHandlers()));
       if (clientPool.http.rawBytesHandlers()) {
-         pipeline.addLast(new Http1xResponseHandler(connection));
          pipeline.addLast(new RawRequestHandler(connection));
       }
       pipeline.addLast("handler", connection);
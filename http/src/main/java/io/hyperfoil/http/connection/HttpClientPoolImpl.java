@@ -16,7 +16,6 @@ import java.security.cert.CertificateFactory;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Base64;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -35,6 +34,7 @@ import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.core.impl.ConnectionStatsConsumer;
 import io.hyperfoil.core.impl.EventLoopFactory;
 import io.hyperfoil.http.api.HttpClientPool;
+import io.hyperfoil.http.api.HttpConnection;
 import io.hyperfoil.http.api.HttpConnectionPool;
 import io.hyperfoil.http.api.HttpVersion;
 import io.hyperfoil.http.config.ConnectionPoolConfig;
@@ -42,10 +42,11 @@ import io.hyperfoil.http.config.Http;
 import io.hyperfoil.impl.Util;
 import io.hyperfoil.internal.Properties;
 import io.netty.bootstrap.Bootstrap;
-import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.handler.codec.http2.Http2SecurityUtil;
 import io.netty.handler.ssl.ApplicationProtocolConfig;
 import io.netty.handler.ssl.SslContext;
@@ -64,8 +65,12 @@ public class HttpClientPoolImpl implements HttpClientPool {
    private static final Logger log = LogManager.getLogger(HttpClientPoolImpl.class);
 
    final Http http;
-   final String[] addressHosts;
-   final int[] addressPorts;
+   // null if the endpoint does not have multiple addresses
+   final AddressBalancer balancer;
+   // null if the connections are not bound to specific local addresses
+   final LocalAddressPool localAddresses;
+   // Maximum number of attempts to find a local address and port that is not in use
+   private static final int MAX_BIND_ATTEMPTS = 16;
    final int port;
    final String host;
    final String scheme;
@@ -148,7 +153,8 @@ public class HttpClientPoolImpl implements HttpClientPool {
             int max = maxShare + (i < maxRemainder ? 1 : 0);
             int buffer = bufferShare + (i < bufferRemainder ? 1 : 0);
             children[i] = new SharedConnectionPool(this, executors[i],
-                  new ConnectionPoolConfig(core, max, buffer, http.sharedConnections().keepAliveTime()));
+                  new ConnectionPoolConfig(core, max, buffer, http.sharedConnections().keepAliveTime(),
+                        http.sharedConnections().selection(), http.sharedConnections().borrow()));
          } else {
             children[i] = new ConnectionAllocator(this, executors[i]);
          }
@@ -162,9 +168,8 @@ public class HttpClientPoolImpl implements HttpClientPool {
          nextSupplier = () -> children[idx.getAndIncrement() % children.length];
       }
 
-      addressHosts = new String[http.addresses().length];
-      addressPorts = new int[http.addresses().length];
       String[] addresses = http.addresses();
+      AddressBalancer.Address[] parsedAddresses = new AddressBalancer.Address[addresses.length];
       for (int i = 0; i < addresses.length; i++) {
          final String address = addresses[i];
          // This code must handle addresses in form ipv4address, ipv4address:port, [ipv6address]:port, ipv6address
@@ -173,13 +178,14 @@ public class HttpClientPoolImpl implements HttpClientPool {
          int lastColonIndex = address.lastIndexOf(':');
          if (lastColonIndex >= 0 && ((bracketIndex >= 0 && lastColonIndex > bracketIndex)
                || (bracketIndex < 0 && lastColonIndex == firstColonIndex))) {
-            addressHosts[i] = address.substring(0, lastColonIndex);
-            addressPorts[i] = (int) Util.parseLong(address, lastColonIndex + 1, address.length(), port);
+            parsedAddresses[i] = new AddressBalancer.Address(address.substring(0, lastColonIndex),
+                  (int) Util.parseLong(address, lastColonIndex + 1, address.length(), port), http.addressStats());
          } else {
-            addressHosts[i] = address;
-            addressPorts[i] = port;
+            parsedAddresses[i] = new AddressBalancer.Address(address, port, http.addressStats());
          }
       }
+      balancer = parsedAddresses.length == 0 ? null : AddressBalancer.create(http.addressBalancing(), parsedAddresses);
+      localAddresses = http.localAddresses().length == 0 ? null : new LocalAddressPool(http.localAddresses());
    }
 
    private SslContext createSslContext() throws SSLException {
@@ -343,24 +349,70 @@ public class HttpClientPoolImpl implements HttpClientPool {
    }
 
    void connect(final HttpConnectionPool pool, ConnectionReceiver handler) {
+      connect(pool, handler, 1);
+   }
+
+   private void connect(HttpConnectionPool pool, ConnectionReceiver handler, int attempt) {
       Bootstrap bootstrap = new Bootstrap();
       bootstrap.channel(EventLoopFactory.INSTANCE.socketChannel());
       bootstrap.group(pool.executor());
       bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
       bootstrap.option(ChannelOption.SO_REUSEADDR, true);
 
-      bootstrap.handler(new HttpChannelInitializer(this, handler));
-
       String address = this.host;
       int port = this.port;
-      if (addressHosts.length > 0) {
-         int index = ThreadLocalRandom.current().nextInt(addressHosts.length);
-         address = addressHosts[index];
-         port = addressPorts[index];
+      ConnectionReceiver receiver = handler;
+      if (balancer != null) {
+         AddressBalancer.Address selected = balancer.select();
+         address = selected.host();
+         port = selected.port();
+         receiver = selected.track(receiver);
+      }
+      InetSocketAddress remoteAddress = new InetSocketAddress(address, port);
+      if (localAddresses == null) {
+         bootstrap.handler(new HttpChannelInitializer(this, receiver));
+         bootstrap.connect(remoteAddress).addListener(receiver);
+         return;
       }
 
-      ChannelFuture fut = bootstrap.connect(new InetSocketAddress(address, port));
-      fut.addListener(handler);
+      LocalAddressPool.Source source = localAddresses.next();
+      ConnectionReceiver tracked = source.track(receiver);
+      if (!source.hasPorts() && "epoll".equals(EventLoopFactory.INSTANCE.name())) {
+         // Defer choosing the port until connect() so that a port can be shared by connections
+         // to different destinations.
+         bootstrap.option(EpollChannelOption.IP_BIND_ADDRESS_NO_PORT, true);
+      }
+      boolean[] retried = new boolean[1];
+      // Closing the channel after failed connect could report (e.g. TLS handshake) failure of the retried attempt
+      bootstrap.handler(new HttpChannelInitializer(this, (connection, error) -> {
+         if (!retried[0]) {
+            tracked.accept(connection, error);
+         }
+      }));
+      bootstrap.connect(remoteAddress, source.nextBindAddress()).addListener((ChannelFutureListener) future -> {
+         if (!future.isSuccess() && attempt < MAX_BIND_ATTEMPTS && LocalAddressPool.isAddressConflict(future.cause())) {
+            retried[0] = true;
+            log.debug("Cannot connect from {} (attempt {}), trying another local address", source, attempt, future.cause());
+            connect(pool, handler, attempt + 1);
+         } else {
+            tracked.operationComplete(future);
+         }
+      });
+   }
+
+   HttpConnectionPool[] children() {
+      return children;
+   }
+
+   /**
+    * @return True if the connection should not be reused as it leads to an address much slower than the others.
+    */
+   boolean isDegraded(HttpConnection connection) {
+      if (balancer == null) {
+         return false;
+      }
+      AddressBalancer.Address address = connection.selectorEntry().address();
+      return address != null && balancer.isDegraded(address);
    }
 
    @Override
@@ -0,0 +1,137 @@
+package io.hyperfoil.http.connection;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
+import io.hyperfoil.impl.Util;
+
+/**
+ * Spreads new connections across local (source) addresses. A TCP connection is identified by the source
+ * and destination address and port; with a single source address the number of connections to one destination
+ * is limited by the number of ephemeral ports (at most 64k).
+ * <p>
+ * Each local address is either a plain IP address (the port is chosen by the operating system)
+ * or an IP address with port or port range in form <code>address:from-to</code>; IPv6 addresses with port must
+ * be enclosed in square brackets. The instance is shared by all event loops.
+ */
+class LocalAddressPool {
+   private final Source[] sources;
+   private final AtomicInteger counter = new AtomicInteger();
+
+   LocalAddressPool(String[] localAddresses) {
+      sources = new Source[localAddresses.length];
+      for (int i = 0; i < localAddresses.length; ++i) {
+         sources[i] = parse(localAddresses[i].trim());
+      }
+   }
+
+   private static Source parse(String spec) {
+      String host = spec;
+      int minPort = 0, maxPort = 0;
+      int bracketIndex = spec.lastIndexOf(']');
+      int firstColonIndex = spec.indexOf(':');
+      int lastColonIndex = spec.lastIndexOf(':');
+      if (lastColonIndex >= 0 && ((bracketIndex >= 0 && lastColonIndex > bracketIndex)
+            || (bracketIndex < 0 && lastColonIndex == firstColonIndex))) {
+         host = spec.substring(0, lastColonIndex);
+         int dashIndex = spec.indexOf('-', lastColonIndex);
+         if (dashIndex < 0) {
+            minPort = maxPort = parsePort(spec, lastColonIndex + 1, spec.length());
+         } else {
+            minPort = parsePort(spec, lastColonIndex + 1, dashIndex);
+            maxPort = parsePort(spec, dashIndex + 1, spec.length());
+         }
+         if (minPort <= 0 || maxPort > 65535 || minPort > maxPort) {
+            throw new BenchmarkDefinitionException("Invalid port range in local address " + spec);
+         }
+      }
+      if (host.startsWith("[") && host.endsWith("]")) {
+         host = host.substring(1, host.length() - 1);
+      }
+      try {
+         return new Source(spec, InetAddress.getByName(host), minPort, maxPort);
+      } catch (UnknownHostException e) {
+         throw new BenchmarkDefinitionException("Cannot resolve local address " + spec, e);
+      }
+   }
+
+   private static int parsePort(String spec, int begin, int end) {
+      return begin < end ? (int) Util.parseLong(spec, begin, end, -1) : -1;
+   }
+
+   Source next() {
+      return sources[Math.floorMod(counter.getAndIncrement(), sources.length)];
+   }
+
+   Source[] sources() {
+      return sources;
+   }
+
+   /**
+    * @return True if the connection failed because the source address and port are in use (we can try another one).
+    */
+   static boolean isAddressConflict(Throwable cause) {
+      if (cause instanceof BindException) {
+         return true;
+      }
+      // Native transports don't throw BindException
+      String message = cause instanceof IOException ? cause.getMessage() : null;
+      return message != null && (message.contains("Address already in use")
+            || message.contains("Cannot assign requested address"));
+   }
+
+   static final class Source {
+      private final String spec;
+      private final InetAddress address;
+      private final int minPort;
+      private final int maxPort;
+      private final AtomicInteger nextPort = new AtomicInteger();
+      private final String connectionsTag;
+
+      Source(String spec, InetAddress address, int minPort, int maxPort) {
+         this.spec = spec;
+         this.address = address;
+         this.minPort = minPort;
+         this.maxPort = maxPort;
+         this.connectionsTag = "connections from " + spec;
+      }
+
+      boolean hasPorts() {
+         return minPort > 0;
+      }
+
+      /**
+       * @return Address to bind to; the ports from the range are used in turns.
+       */
+      InetSocketAddress nextBindAddress() {
+         if (minPort == 0) {
+            return new InetSocketAddress(address, 0);
+         }
+         int port = minPort + Math.floorMod(nextPort.getAndIncrement(), maxPort - minPort + 1);
+         return new InetSocketAddress(address, port);
+      }
+
+      String connectionsTag() {
+         return connectionsTag;
+      }
+
+      ConnectionReceiver track(ConnectionReceiver handler) {
+         return (connection, error) -> {
+            if (connection != null) {
+               connection.selectorEntry().localAddressTag = connectionsTag;
+            }
+            handler.accept(connection, error);
+         };
+      }
+
+      @Override
+      public String toString() {
+         return spec;
+      }
+   }
+}
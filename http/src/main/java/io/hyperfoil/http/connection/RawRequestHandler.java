@@ -20,8 +20,9 @@ public class RawRequestHandler extends ChannelOutboundHandlerAdapter {
 
    @Override
    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
-      if (msg instanceof ByteBuf) {
-         ByteBuf buf = (ByteBuf) msg;
+      if (msg instanceof ByteBuf || msg instanceof ByteBufChunkedInput) {
+         // Large bodies are split only later in the pipeline, handlers still see the whole body
+         ByteBuf buf = msg instanceof ByteBuf ? (ByteBuf) msg : ((ByteBufChunkedInput) msg).buffer();
          HttpRequest request = connection.dispatchedRequest();
          if (request != null) {
             if (request.handlers != null) {
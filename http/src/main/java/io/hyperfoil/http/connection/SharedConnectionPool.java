@@ -7,12 +7,16 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.FormattedMessage;
 
+import io.hyperfoil.core.impl.ConnectionStatsConsumer;
+import io.hyperfoil.core.util.Watermarks;
 import io.hyperfoil.http.api.ConnectionConsumer;
 import io.hyperfoil.http.api.HttpClientPool;
 import io.hyperfoil.http.api.HttpConnection;
@@ -27,23 +31,42 @@ import io.vertx.core.Handler;
 
 /**
  * This instance is not thread-safe as it should be accessed only the {@link #executor()}.
+ * <p>
+ * When {@link ConnectionPoolConfig#borrow()} is enabled and this pool has used all its share of connections
+ * while sessions are waiting, it asks pools of other event loops to lend it part of their share. Connections
+ * never move between event loops: the lending pool gives up unused share or closes an idle connection
+ * and this pool opens a new connection in its own event loop. All the state is modified only from the event loop
+ * that owns the pool; the pools communicate by submitting tasks to each other's executor.
  */
 public class SharedConnectionPool extends ConnectionPoolStats implements HttpConnectionPool {
    private static final Logger log = LogManager.getLogger(SharedConnectionPool.class);
    private static final boolean trace = log.isTraceEnabled();
    //TODO: configurable
    private static final int MAX_FAILURES = 100;
+   // Do not ask other pools again for this period after all of them refused to lend a connection
+   private static final long BORROW_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
 
    private final HttpClientPoolImpl clientPool;
    private final ArrayList<HttpConnection> connections = new ArrayList<>();
-   private final ArrayDeque<HttpConnection> available;
+   private final ConnectionSelector available;
    private final List<HttpConnection> temporaryInFlight;
    private final ConnectionReceiver handleNewConnection = this::handleNewConnection;
    private final Runnable checkCreateConnections = this::checkCreateConnections;
    private final Runnable onConnectFailure = this::onConnectFailure;
    private final ConnectionPoolConfig sizeConfig;
    private final EventLoop eventLoop;
-
+   // number of connections lent to/borrowed from other pools
+   private final Watermarks borrowed = new Watermarks();
+   private final Watermarks lent = new Watermarks();
+
+   // the share of connections can change when borrowing from other pools
+   private int coreConnections;
+   private int maxConnections;
+   private SharedConnectionPool[] siblings;
+   private boolean borrowing;
+   private int borrowAttempts;
+   private int borrowOffset;
+   private long borrowBackoffUntil = Long.MIN_VALUE;
    private int connecting; // number of connections being opened
    private int created;
    private int closed; // number of closed connections in #connections
@@ -67,7 +90,9 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
       this.clientPool = clientPool;
       this.sizeConfig = sizeConfig;
       this.eventLoop = eventLoop;
-      this.available = new ArrayDeque<>(sizeConfig.max());
+      this.coreConnections = sizeConfig.core();
+      this.maxConnections = sizeConfig.max();
+      this.available = ConnectionSelector.create(sizeConfig.selection(), sizeConfig.max());
       this.temporaryInFlight = new ArrayList<>(sizeConfig.max());
    }
 
@@ -80,7 +105,7 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
       assert eventLoop.inEventLoop();
       try {
          for (;;) {
-            HttpConnection connection = available.pollFirst();
+            HttpConnection connection = available.poll();
             if (connection == null) {
                if (trace) {
                   log.trace("No connection to {} available, currently used {}", authority, usedConnections.current());
@@ -108,7 +133,9 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
          }
       } finally {
          if (!temporaryInFlight.isEmpty()) {
-            available.addAll(temporaryInFlight);
+            for (int i = 0; i < temporaryInFlight.size(); ++i) {
+               available.add(temporaryInFlight.get(i));
+            }
             temporaryInFlight.clear();
          }
       }
@@ -133,19 +160,16 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
          }
          waiting.add(consumer);
          blockedSessions.incrementUsed();
+         tryBorrow();
       }
    }
 
    @Override
    public void afterRequestSent(HttpConnection connection) {
-      // Move it to the back of the queue if it is still available (do not prefer it for subsequent requests)
+      // Return it to the selector if it is still available; unless the request was not executed in the end
+      // (response was cached) the connection is not preferred for subsequent requests
       if (connection.isAvailable()) {
-         if (connection.inFlight() == 0) {
-            // The request was not executed in the end (response was cached)
-            available.addFirst(connection);
-         } else {
-            available.addLast(connection);
-         }
+         available.add(connection);
       }
    }
 
@@ -163,17 +187,16 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
                alreadyInAvailable);
       }
       if (becameAvailable) {
-         if (!connection.isClosed()) {
-            if (connection.inFlight() == 0) {
-               // We are adding to the beginning of the queue to prefer reusing connections rather than cycling
-               // too many often-idle connections
-               assert !available.contains(connection);
-               available.addFirst(connection);
-            } else {
-               assert !available.contains(connection);
-               available.addLast(connection);
-            }
+         if (connection.inFlight() == 0 && !connection.isClosed() && clientPool.isDegraded(connection)) {
+            // The close listener will open a new connection, probably to another address
+            log.debug("Closing {} to degraded address {}", connection, connection.selectorEntry().address());
+            connection.close();
+         } else if (!connection.isClosed()) {
+            assert !available.contains(connection);
+            available.add(connection);
          }
+      } else if (afterRequest) {
+         available.update(connection);
       }
       if (afterRequest) {
          inFlight.decrementUsed();
@@ -190,21 +213,25 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
          usedConnections.decrementUsed();
       }
       if (keepAliveFuture == null && sizeConfig.keepAliveTime() > 0) {
-         long lastUsed = available.stream().filter(c -> !c.isClosed()).mapToLong(HttpConnection::lastUsed).min()
-               .orElse(connection.lastUsed());
-         long nextCheck = sizeConfig.keepAliveTime() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastUsed);
+         long[] lastUsed = { connection.lastUsed() };
+         available.forEach(c -> {
+            if (!c.isClosed() && c.lastUsed() < lastUsed[0]) {
+               lastUsed[0] = c.lastUsed();
+            }
+         });
+         long nextCheck = sizeConfig.keepAliveTime() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastUsed[0]);
          log.debug("Scheduling next keep-alive check in {} ms", nextCheck);
          keepAliveFuture = eventLoop.schedule(() -> {
             long now = System.nanoTime();
             // We won't removing closed connections from available: acquire() will eventually remove these
-            for (HttpConnection c : available) {
+            available.forEach(c -> {
                if (c.isClosed())
-                  continue;
+                  return;
                long idleTime = TimeUnit.NANOSECONDS.toMillis(now - c.lastUsed());
                if (idleTime > sizeConfig.keepAliveTime()) {
                   c.close();
                }
-            }
+            });
             keepAliveFuture = null;
          }, nextCheck, TimeUnit.MILLISECONDS);
       }
@@ -296,6 +323,7 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
             consumer.accept(null);
          } else {
             waiting.addFirst(consumer);
+            tryBorrow();
          }
       }
       // The session might not use the connection (e.g. when it's terminated) and call pulse() again
@@ -317,6 +345,16 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
       return connections;
    }
 
+   /** Returns the number of connections this pool keeps open eagerly (for testing). */
+   int coreConnections() {
+      return coreConnections;
+   }
+
+   /** Returns the number of connections this pool may open, including borrowed ones (for testing). */
+   int maxConnections() {
+      return maxConnections;
+   }
+
    /** Returns the current number of entries in the available deque (for testing). */
    public int availableCount() {
       return available.size();
@@ -359,7 +397,7 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
    }
 
    private boolean needsMoreConnections() {
-      return created + connecting < sizeConfig.core() || (created + connecting < sizeConfig.max()
+      return created + connecting < coreConnections || (created + connecting < maxConnections
             && connecting + available.size() - availableClosed < sizeConfig.buffer());
    }
 
@@ -389,7 +427,7 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
          available.add(conn);
          if (trace) {
             log.trace("Created {} to {} ({}+{}=?{}:{}/{})", conn, authority,
-                  created, connecting, connections.size(), available.size() - availableClosed, sizeConfig.max());
+                  created, connecting, connections.size(), available.size() - availableClosed, maxConnections);
          }
 
          incrementTypeStats(conn);
@@ -398,16 +436,16 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
             conn.setClosed();
             if (log.isDebugEnabled()) {
                log.debug("Closed {} to {}. ({}+{}=?{}:{}/{})", conn, authority,
-                     created, connecting, connections.size(), available.size() - availableClosed, sizeConfig.max());
+                     created, connecting, connections.size(), available.size() - availableClosed, maxConnections);
             }
             created--;
             closed++;
             if (available.contains(conn)) {
                availableClosed++;
             }
-            typeStats.get(tagConnection(conn)).decrementUsed();
+            decrementTypeStats(conn);
             if (!shutdown) {
-               if (closed >= sizeConfig.max()) {
+               if (closed >= maxConnections) {
                   // do cleanup
                   connections.removeIf(HttpConnection::isClosed);
                   closed = 0;
@@ -419,7 +457,7 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
          if (needsMoreConnections()) {
             checkCreateConnections();
          } else {
-            if (startedHandler != null && created >= sizeConfig.core()) {
+            if (startedHandler != null && created >= coreConnections) {
                handler = startedHandler;
                startedHandler = null;
             }
@@ -432,6 +470,124 @@ public class SharedConnectionPool extends ConnectionPoolStats implements HttpCon
       }
    }
 
+   private void tryBorrow() {
+      if (!sizeConfig.borrow() || borrowing || shutdown || failures > MAX_FAILURES
+            || created + connecting < maxConnections || System.nanoTime() < borrowBackoffUntil) {
+         return;
+      }
+      // Connections that are still being opened will serve the waiting sessions; pulse() retries when they are ready
+      if (connecting >= waiting.size()) {
+         return;
+      }
+      if (siblings == null) {
+         siblings = Stream.of(clientPool.children()).filter(p -> p != this && p instanceof SharedConnectionPool)
+               .map(SharedConnectionPool.class::cast).toArray(SharedConnectionPool[]::new);
+      }
+      if (siblings.length == 0) {
+         return;
+      }
+      borrowing = true;
+      borrowAttempts = 0;
+      borrowOffset = ThreadLocalRandom.current().nextInt(siblings.length);
+      requestLoan();
+   }
+
+   private void requestLoan() {
+      SharedConnectionPool lender = siblings[(borrowOffset + borrowAttempts) % siblings.length];
+      lender.executor().execute(() -> lender.lend(this));
+   }
+
+   // invoked in the lender's event loop
+   private void lend(SharedConnectionPool borrower) {
+      boolean granted = false;
+      boolean coreTransferred = false;
+      // Idle pool can lend all its connections; it can borrow them back when the sessions arrive
+      if (!shutdown && waiting.isEmpty() && maxConnections > 0) {
+         HttpConnection idle = null;
+         if (created + connecting < maxConnections || (idle = pollIdle()) != null) {
+            granted = true;
+            // the share must be reduced before closing the connection, otherwise it would be reopened
+            --maxConnections;
+            // core moves to the borrower only when it no longer fits in this pool, keeping the total constant
+            if (coreConnections > maxConnections) {
+               coreConnections = maxConnections;
+               coreTransferred = true;
+            }
+            if (borrowed.current() > 0) {
+               borrowed.decrementUsed();
+            } else {
+               lent.incrementUsed();
+            }
+         }
+         if (idle != null) {
+            if (log.isDebugEnabled()) {
+               log.debug("Closing {} to {} as it is lent to another event loop", idle, authority);
+            }
+            idle.close();
+         }
+      }
+      boolean result = granted;
+      boolean withCore = coreTransferred;
+      borrower.executor().execute(() -> borrower.onLoan(result, withCore));
+   }
+
+   private HttpConnection pollIdle() {
+      HttpConnection idle = null;
+      HttpConnection connection;
+      while ((connection = available.poll()) != null) {
+         if (connection.isClosed()) {
+            availableClosed--;
+         } else if (connection.inFlight() == 0) {
+            idle = connection;
+            break;
+         } else {
+            temporaryInFlight.add(connection);
+         }
+      }
+      for (int i = 0; i < temporaryInFlight.size(); ++i) {
+         available.add(temporaryInFlight.get(i));
+      }
+      temporaryInFlight.clear();
+      return idle;
+   }
+
+   // invoked in the borrower's event loop
+   private void onLoan(boolean granted, boolean coreTransferred) {
+      if (granted) {
+         borrowing = false;
+         ++maxConnections;
+         if (coreTransferred) {
+            ++coreConnections;
+         }
+         if (lent.current() > 0) {
+            lent.decrementUsed();
+         } else {
+            borrowed.incrementUsed();
+         }
+         if (log.isDebugEnabled()) {
+            log.debug("Borrowed connection to {}, now using {} connections ({} waiting sessions)",
+                  authority, maxConnections, waiting.size());
+         }
+         checkCreateConnections();
+      } else if (++borrowAttempts < siblings.length) {
+         requestLoan();
+      } else {
+         borrowing = false;
+         borrowBackoffUntil = System.nanoTime() + BORROW_BACKOFF_NANOS;
+      }
+   }
+
+   @Override
+   public void visitConnectionStats(ConnectionStatsConsumer consumer) {
+      super.visitConnectionStats(consumer);
+      if (sizeConfig.borrow()) {
+         consumer.accept(authority, "borrowed connections", borrowed.minUsed(), borrowed.maxUsed());
+         borrowed.resetStats();
+         consumer.accept(authority, "lent connections", lent.minUsed(), lent.maxUsed());
+         lent.resetStats();
+      }
+   }
+
    private void onConnectFailure() {
       failures++;
       connecting--;
@@ -14,7 +14,7 @@ class CookieStore implements Session.Resource {
    private static final Logger log = LogManager.getLogger(CookieRecorder.class);
 
    // We need only single object for all cookies
-   public static final Session.ResourceKey<CookieStore> COOKIES = new Session.ResourceKey<CookieStore>() {
+   public static final Session.ResourceKey<CookieStore> COOKIES = new Session.SharedResourceKey<CookieStore>() {
    };
 
    private static final Attribute[] ATTRIBUTES = Attribute.values();
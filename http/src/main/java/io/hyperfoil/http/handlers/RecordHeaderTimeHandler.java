@@ -8,6 +8,7 @@ import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.api.config.InitFromParam;
 import io.hyperfoil.api.config.Locator;
 import io.hyperfoil.api.config.Name;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.Statistics;
 import io.hyperfoil.function.SerializableToLongFunction;
 import io.hyperfoil.http.api.HeaderHandler;
@@ -16,17 +17,15 @@ import io.hyperfoil.impl.Util;
 import io.netty.util.AsciiString;
 
 public class RecordHeaderTimeHandler implements HeaderHandler {
-   private final int stepId;
    private final String header;
-   private final String statistics;
+   private final MetricHandle statistics;
    private final SerializableToLongFunction<CharSequence> transform;
    private transient AsciiString asciiHeader;
 
    public RecordHeaderTimeHandler(int stepId, String header, String statistics,
          SerializableToLongFunction<CharSequence> transform) {
-      this.stepId = stepId;
       this.header = header;
-      this.statistics = statistics;
+      this.statistics = new MetricHandle(stepId, statistics);
       this.transform = transform;
       this.asciiHeader = new AsciiString(header);
    }
@@ -46,7 +45,7 @@ public class RecordHeaderTimeHandler implements HeaderHandler {
          // we're not recording negative values
          return;
       }
-      Statistics statistics = request.session.statistics(stepId, this.statistics);
+      Statistics statistics = request.session.statistics(this.statistics);
       // we need to set both requests and responses to calculate stats properly
       statistics.incrementRequests(request, request.session);
       statistics.recordResponse(request, longValue, request.session);
@@ -15,6 +15,7 @@ import org.kohsuke.MetaInfServices;
 import io.hyperfoil.api.config.BenchmarkDefinitionException;
 import io.hyperfoil.api.config.BuilderBase;
 import io.hyperfoil.api.config.Name;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.processor.Processor;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
@@ -23,12 +24,14 @@ import io.hyperfoil.impl.Util;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 
-public class HtmlHandler implements Processor, ResourceUtilizer, Session.ResourceKey<HtmlHandler.Context> {
+public class HtmlHandler implements Processor, ResourceUtilizer {
    private static final Logger log = LogManager.getLogger(HtmlHandler.class);
    private static final boolean trace = log.isTraceEnabled();
    private static final byte[] SCRIPT = "script".getBytes(StandardCharsets.UTF_8);
 
    private final TagHandler[] handlers;
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<Context> resourceKey = new Session.SlottedResourceKey<>();
 
    private HtmlHandler(TagHandler... handlers) {
       this.handlers = handlers;
@@ -50,7 +53,7 @@ public class HtmlHandler implements Processor, ResourceUtilizer, Session.Resourc
 
    @Override
    public void process(Session session, ByteBuf data, int offset, int length, boolean isLastPart) {
-      Context ctx = session.getResource(this);
+      Context ctx = session.getResource(resourceKey);
       switch (ctx.tagStatus) {
          case PARSING_TAG:
             ctx.tagStart = offset;
@@ -198,7 +201,7 @@ public class HtmlHandler implements Processor, ResourceUtilizer, Session.Resourc
 
    @Override
    public void reserve(Session session) {
-      session.declareResource(this, Context::new);
+      session.declareResource(resourceKey, Context::new);
    }
 
    public interface TagHandlerBuilder<S extends TagHandlerBuilder<S>> extends BuilderBase<S> {
@@ -462,5 +465,4 @@ public class HtmlHandler implements Processor, ResourceUtilizer, Session.Resourc
          }
       }
    }
-
 }
@@ -1,5 +1,7 @@
 package io.hyperfoil.http.parser;
 
+import java.util.function.BiConsumer;
+
 import org.yaml.snakeyaml.events.ScalarEvent;
 import org.yaml.snakeyaml.events.SequenceStartEvent;
 
@@ -10,13 +12,15 @@ import io.hyperfoil.core.parser.Parser;
 import io.hyperfoil.core.parser.ParserException;
 import io.hyperfoil.core.parser.PropertyParser;
 import io.hyperfoil.core.parser.ReflectionParser;
+import io.hyperfoil.http.config.AddressBalancing;
 import io.hyperfoil.http.config.ConnectionStrategy;
 import io.hyperfoil.http.config.HttpBuilder;
 import io.hyperfoil.http.config.HttpPluginBuilder;
 import io.hyperfoil.http.config.Protocol;
 
 public class HttpParser extends AbstractParser<BenchmarkBuilder, HttpBuilder> {
-   private static final AddressParser ADDRESS_PARSER = new AddressParser();
+   private static final AddressParser ADDRESS_PARSER = new AddressParser(HttpBuilder::addAddress);
+   private static final AddressParser LOCAL_ADDRESS_PARSER = new AddressParser(HttpBuilder::addLocalAddress);
 
    public HttpParser() {
       register("name", new PropertyParser.String<>(HttpBuilder::name));
@@ -31,12 +35,18 @@ public class HttpParser extends AbstractParser<BenchmarkBuilder, HttpBuilder> {
       register("directHttp2", new PropertyParser.Boolean<>(HttpBuilder::directHttp2));
       register("requestTimeout", new PropertyParser.String<>(HttpBuilder::requestTimeout));
       register("sslHandshakeTimeout", new PropertyParser.String<>(HttpBuilder::sslHandshakeTimeout));
-      register("addresses", HttpParser::parseAddresses);
+      register("addresses", (ctx, builder) -> parseAddresses(ctx, builder, ADDRESS_PARSER));
+      register("localAddresses", (ctx, builder) -> parseAddresses(ctx, builder, LOCAL_ADDRESS_PARSER));
       register("rawBytesHandlers", new PropertyParser.Boolean<>(HttpBuilder::rawBytesHandlers));
       register("keyManager", new ReflectionParser<>(HttpBuilder::keyManager));
       register("trustManager", new ReflectionParser<>(HttpBuilder::trustManager));
       register("connectionStrategy", new PropertyParser.Enum<>(ConnectionStrategy.values(), HttpBuilder::connectionStrategy));
       register("useHttpCache", new PropertyParser.Boolean<>(HttpBuilder::useHttpCache));
+      register("flushConsolidation", new PropertyParser.Boolean<>(HttpBuilder::flushConsolidation));
+      register("timingBreakdown", new PropertyParser.Boolean<>(HttpBuilder::timingBreakdown));
+      register("addressBalancing",
+            new PropertyParser.Enum<>(AddressBalancing.values(), HttpBuilder::addressBalancing));
+      register("addressStats", new PropertyParser.Boolean<>(HttpBuilder::addressStats));
    }
 
    @Override
@@ -53,22 +63,28 @@ public class HttpParser extends AbstractParser<BenchmarkBuilder, HttpBuilder> {
       }
    }
 
-   private static void parseAddresses(Context ctx, HttpBuilder builder) throws ParserException {
+   private static void parseAddresses(Context ctx, HttpBuilder builder, AddressParser parser) throws ParserException {
       if (ctx.peek() instanceof ScalarEvent) {
          String value = ctx.expectEvent(ScalarEvent.class).getValue();
          if (value != null && !value.isEmpty()) {
-            builder.addAddress(value);
+            parser.adder.accept(builder, value);
          }
       } else {
-         ctx.parseList(builder, ADDRESS_PARSER);
+         ctx.parseList(builder, parser);
       }
    }
 
    private static class AddressParser implements Parser<HttpBuilder> {
+      private final BiConsumer<HttpBuilder, String> adder;
+
+      private AddressParser(BiConsumer<HttpBuilder, String> adder) {
+         this.adder = adder;
+      }
+
       @Override
       public void parse(Context ctx, HttpBuilder target) throws ParserException {
          ScalarEvent event = ctx.expectEvent(ScalarEvent.class);
-         target.addAddress(event.getValue());
+         adder.accept(target, event.getValue());
       }
    }
 }
@@ -0,0 +1,182 @@
+package io.hyperfoil.http.statistics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+import org.kohsuke.MetaInfServices;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+import io.hyperfoil.api.statistics.HistogramSettings;
+import io.hyperfoil.api.statistics.Statistics;
+import io.hyperfoil.api.statistics.StatsExtension;
+import io.hyperfoil.http.api.HttpRequest;
+
+/**
+ * Response times recorded separately for each address the connections were opened to
+ * (when the endpoint has multiple addresses), with the same range and precision as the response time histogram.
+ */
+@MetaInfServices(StatsExtension.class)
+@JsonTypeName("addresses")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HttpAddressStats implements StatsExtension {
+   public static final String ADDRESSES = "addresses";
+
+   private static final String[] VALUES = { "Responses", "Mean", "p99", "Max" };
+
+   private final SortedMap<String, Histogram> histograms = new TreeMap<>();
+   private final HistogramSettings settings;
+
+   public HttpAddressStats() {
+      this(HistogramSettings.DEFAULT);
+   }
+
+   public HttpAddressStats(HistogramSettings settings) {
+      this.settings = settings;
+   }
+
+   public static Statistics.LongUpdater<HttpAddressStats> recorder(String address) {
+      return (s, value) -> s.record(address, value);
+   }
+
+   public static void record(HttpRequest request, Statistics.LongUpdater<HttpAddressStats> recorder, long nanos) {
+      request.statistics().updateHistograms(ADDRESSES, request, HttpAddressStats::new, recorder, nanos, request.session);
+   }
+
+   private void record(String address, long value) {
+      Histogram histogram = histogram(address);
+      // only packed histograms auto-resize
+      if (!histogram.isAutoResize() && value > histogram.getHighestTrackableValue()) {
+         value = histogram.getHighestTrackableValue();
+      }
+      histogram.recordValue(Math.max(0, value));
+   }
+
+   public Histogram histogram(String address) {
+      return histograms.computeIfAbsent(address, a -> settings.create());
+   }
+
+   private Histogram widen(String address, Histogram other) {
+      Histogram histogram = histogram(address);
+      Histogram widened = HistogramSettings.of(histogram).widen(histogram, other);
+      if (widened != histogram) {
+         histograms.put(address, widened);
+      }
+      return widened;
+   }
+
+   @JsonAnyGetter
+   public Map<String, SortedMap<String, Long>> summary() {
+      Map<String, SortedMap<String, Long>> summary = new TreeMap<>();
+      for (var entry : histograms.entrySet()) {
+         SortedMap<String, Long> values = new TreeMap<>();
+         for (String value : VALUES) {
+            values.put(value, value(entry.getValue(), value));
+         }
+         summary.put(entry.getKey(), values);
+      }
+      return summary;
+   }
+
+   private static long value(Histogram histogram, String value) {
+      if (histogram.getTotalCount() == 0) {
+         return 0;
+      }
+      switch (value) {
+         case "Responses":
+            return histogram.getTotalCount();
+         case "Mean":
+            return (long) histogram.getMean();
+         case "p99":
+            return histogram.getValueAtPercentile(99);
+         case "Max":
+            return histogram.getMaxValue();
+         default:
+            throw new IllegalArgumentException(value);
+      }
+   }
+
+   @Override
+   public boolean isNull() {
+      for (Histogram histogram : histograms.values()) {
+         if (histogram.getTotalCount() != 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public void add(StatsExtension other) {
+      if (other instanceof HttpAddressStats) {
+         HttpAddressStats o = (HttpAddressStats) other;
+         for (var entry : o.histograms.entrySet()) {
+            widen(entry.getKey(), entry.getValue()).add(entry.getValue());
+         }
+      } else {
+         throw new IllegalArgumentException(other.toString());
+      }
+   }
+
+   @Override
+   public void subtract(StatsExtension other) {
+      if (other instanceof HttpAddressStats) {
+         HttpAddressStats o = (HttpAddressStats) other;
+         for (var entry : o.histograms.entrySet()) {
+            widen(entry.getKey(), entry.getValue()).subtract(entry.getValue());
+         }
+      } else {
+         throw new IllegalArgumentException(other.toString());
+      }
+   }
+
+   @Override
+   public void reset() {
+      for (Histogram histogram : histograms.values()) {
+         histogram.reset();
+      }
+   }
+
+   @Override
+   public HttpAddressStats clone() {
+      HttpAddressStats copy = new HttpAddressStats(settings);
+      copy.add(this);
+      return copy;
+   }
+
+   @Override
+   public String[] headers() {
+      String[] headers = new String[histograms.size() * VALUES.length];
+      int i = 0;
+      for (String address : histograms.keySet()) {
+         for (String value : VALUES) {
+            headers[i++] = address + "." + value;
+         }
+      }
+      return headers;
+   }
+
+   @Override
+   public String byHeader(String header) {
+      int dot = header.lastIndexOf('.');
+      Histogram histogram = dot < 0 ? null : histograms.get(header.substring(0, dot));
+      if (histogram != null) {
+         String value = header.substring(dot + 1);
+         for (String v : VALUES) {
+            if (v.equals(value)) {
+               return String.valueOf(value(histogram, value));
+            }
+         }
+      }
+      return "<unknown header: " + header + ">";
+   }
+
+   @Override
+   public String toString() {
+      return summary().toString();
+   }
+}
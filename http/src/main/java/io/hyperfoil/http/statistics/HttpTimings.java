@@ -0,0 +1,200 @@
+package io.hyperfoil.http.statistics;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.HdrHistogram.Histogram;
+import org.kohsuke.MetaInfServices;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+import io.hyperfoil.api.statistics.HistogramSettings;
+import io.hyperfoil.api.statistics.Statistics;
+import io.hyperfoil.api.statistics.StatsExtension;
+import io.hyperfoil.http.api.HttpRequest;
+
+/**
+ * Breaks down the response time into phases of the request; each phase is recorded in a separate histogram.
+ * <ul>
+ * <li><code>ConnectionWait</code>: time the request was blocked waiting for a connection</li>
+ * <li><code>Write</code>: time from sending the request until the write completes</li>
+ * <li><code>FirstByte</code>: time from sending the request until the start of the response</li>
+ * <li><code>BodyTransfer</code>: time from the start of the response until it is complete</li>
+ * </ul>
+ * The histograms use the same range and precision as the response time histogram of the metric.
+ */
+@MetaInfServices(StatsExtension.class)
+@JsonTypeName("timings")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HttpTimings implements StatsExtension {
+   public static final String TIMINGS = "timings";
+   public static final int CONNECTION_WAIT = 0;
+   public static final int WRITE = 1;
+   public static final int FIRST_BYTE = 2;
+   public static final int BODY_TRANSFER = 3;
+
+   private static final String[] PHASES = { "ConnectionWait", "Write", "FirstByte", "BodyTransfer" };
+   private static final String[] VALUES = { "Mean", "p50", "p99", "Max" };
+   private static final String[] HEADERS = new String[PHASES.length * VALUES.length];
+   @SuppressWarnings("unchecked")
+   private static final Statistics.LongUpdater<HttpTimings>[] RECORDERS = new Statistics.LongUpdater[PHASES.length];
+
+   static {
+      for (int i = 0; i < PHASES.length; ++i) {
+         for (int j = 0; j < VALUES.length; ++j) {
+            HEADERS[i * VALUES.length + j] = PHASES[i] + "." + VALUES[j];
+         }
+         int phase = i;
+         RECORDERS[i] = (t, value) -> t.record(phase, value);
+      }
+   }
+
+   // A separate instance is created for each metric in each statistics period.
+   private final Histogram[] histograms = new Histogram[PHASES.length];
+
+   public HttpTimings() {
+      this(HistogramSettings.DEFAULT);
+   }
+
+   public HttpTimings(HistogramSettings settings) {
+      for (int i = 0; i < histograms.length; ++i) {
+         histograms[i] = settings.create();
+      }
+   }
+
+   public static void record(HttpRequest request, int phase, long nanos) {
+      request.statistics().updateHistograms(TIMINGS, request, HttpTimings::new, RECORDERS[phase], nanos, request.session);
+   }
+
+   private void record(int phase, long value) {
+      Histogram histogram = histograms[phase];
+      // only packed histograms auto-resize
+      if (!histogram.isAutoResize() && value > histogram.getHighestTrackableValue()) {
+         value = histogram.getHighestTrackableValue();
+      }
+      histogram.recordValue(Math.max(0, value));
+   }
+
+   public Histogram histogram(int phase) {
+      return histograms[phase];
+   }
+
+   @JsonProperty("connectionWait")
+   public SortedMap<String, Long> connectionWait() {
+      return summary(CONNECTION_WAIT);
+   }
+
+   @JsonProperty("write")
+   public SortedMap<String, Long> write() {
+      return summary(WRITE);
+   }
+
+   @JsonProperty("firstByte")
+   public SortedMap<String, Long> firstByte() {
+      return summary(FIRST_BYTE);
+   }
+
+   @JsonProperty("bodyTransfer")
+   public SortedMap<String, Long> bodyTransfer() {
+      return summary(BODY_TRANSFER);
+   }
+
+   private SortedMap<String, Long> summary(int phase) {
+      SortedMap<String, Long> summary = new TreeMap<>();
+      for (String value : VALUES) {
+         summary.put(value, value(histograms[phase], value));
+      }
+      return summary;
+   }
+
+   private static long value(Histogram histogram, String value) {
+      if (histogram.getTotalCount() == 0) {
+         return 0;
+      }
+      switch (value) {
+         case "Mean":
+            return (long) histogram.getMean();
+         case "p50":
+            return histogram.getValueAtPercentile(50);
+         case "p99":
+            return histogram.getValueAtPercentile(99);
+         case "Max":
+            return histogram.getMaxValue();
+         default:
+            throw new IllegalArgumentException(value);
+      }
+   }
+
+   @Override
+   public boolean isNull() {
+      for (Histogram histogram : histograms) {
+         if (histogram.getTotalCount() != 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public void add(StatsExtension other) {
+      if (other instanceof HttpTimings) {
+         HttpTimings o = (HttpTimings) other;
+         for (int i = 0; i < histograms.length; ++i) {
+            histograms[i] = HistogramSettings.of(histograms[i]).widen(histograms[i], o.histograms[i]);
+            histograms[i].add(o.histograms[i]);
+         }
+      } else {
+         throw new IllegalArgumentException(other.toString());
+      }
+   }
+
+   @Override
+   public void subtract(StatsExtension other) {
+      if (other instanceof HttpTimings) {
+         HttpTimings o = (HttpTimings) other;
+         for (int i = 0; i < histograms.length; ++i) {
+            histograms[i] = HistogramSettings.of(histograms[i]).widen(histograms[i], o.histograms[i]);
+            histograms[i].subtract(o.histograms[i]);
+         }
+      } else {
+         throw new IllegalArgumentException(other.toString());
+      }
+   }
+
+   @Override
+   public void reset() {
+      for (Histogram histogram : histograms) {
+         histogram.reset();
+      }
+   }
+
+   @Override
+   public HttpTimings clone() {
+      HttpTimings copy = new HttpTimings(HistogramSettings.of(histograms[0]));
+      copy.add(this);
+      return copy;
+   }
+
+   @Override
+   public String[] headers() {
+      return HEADERS;
+   }
+
+   @Override
+   public String byHeader(String header) {
+      for (int i = 0; i < HEADERS.length; ++i) {
+         if (HEADERS[i].equals(header)) {
+            return String.valueOf(value(histograms[i / VALUES.length], VALUES[i % VALUES.length]));
+         }
+      }
+      return "<unknown header: " + header + ">";
+   }
+
+   @Override
+   public String toString() {
+      return "{connectionWait=" + connectionWait() + ", write=" + write() + ", firstByte=" + firstByte()
+            + ", bodyTransfer=" + bodyTransfer() + '}';
+   }
+}
@@ -1,14 +1,18 @@
 package io.hyperfoil.http.steps;
 
 import io.hyperfoil.api.config.Step;
+import io.hyperfoil.api.config.Visitor;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.Session;
 import io.hyperfoil.core.util.BitSetResource;
 
-class BeforeSyncRequestStep implements Step, ResourceUtilizer, Session.ResourceKey<BitSetResource> {
+class BeforeSyncRequestStep implements Step, ResourceUtilizer {
+   @Visitor.Ignore
+   private final Session.SlottedResourceKey<BitSetResource> resourceKey = new Session.SlottedResourceKey<>();
+
    @Override
    public boolean invoke(Session s) {
-      BitSetResource resource = s.getResource(this);
+      BitSetResource resource = s.getResource(resourceKey);
       resource.clear(s.currentSequence().index());
       return true;
    }
@@ -16,6 +20,13 @@ class BeforeSyncRequestStep implements Step, ResourceUtilizer, Session.ResourceK
    @Override
    public void reserve(Session session) {
       int concurrency = session.currentSequence().definition().concurrency();
-      session.declareResource(this, () -> BitSetResource.with(concurrency), true);
+      session.declareResource(resourceKey, () -> BitSetResource.with(concurrency), true);
+   }
+
+   /**
+    * @return Key of the set of sequences waiting for their response, shared with the steps that complete the request.
+    */
+   Session.ResourceKey<BitSetResource> resourceKey() {
+      return resourceKey;
    }
 }
@@ -10,8 +10,8 @@ import io.hyperfoil.api.session.ReadAccess;
 import io.hyperfoil.core.generators.Pattern;
 import io.hyperfoil.core.session.SessionFactory;
 import io.hyperfoil.core.util.ConstantBytesGenerator;
+import io.hyperfoil.core.util.FileBytesGenerator;
 import io.hyperfoil.core.util.FromVarBytesGenerator;
-import io.hyperfoil.impl.Util;
 
 /**
  * Allows building HTTP request body from session variables.
@@ -81,15 +81,15 @@ public class BodyBuilder {
     */
    public BodyBuilder fromFile(String path) {
       parent.body(() -> {
+         // Opening the file registers it in benchmark data; agents send the content from the file they received.
          try (InputStream inputStream = Locator.current().benchmark().data().readFile(path)) {
             if (inputStream == null) {
-               throw new BenchmarkDefinitionException("Cannot load file `" + path + "` for randomItem (not found).");
+               throw new BenchmarkDefinitionException("Cannot load file `" + path + "` for request body (not found).");
             }
-            byte[] bytes = Util.toByteArray(inputStream);
-            return new ConstantBytesGenerator(bytes);
          } catch (IOException e) {
-            throw new BenchmarkDefinitionException("Cannot load file `" + path + "` for randomItem.", e);
+            throw new BenchmarkDefinitionException("Cannot load file `" + path + "` for request body.", e);
          }
+         return new FileBytesGenerator(path);
       });
       return this;
    }
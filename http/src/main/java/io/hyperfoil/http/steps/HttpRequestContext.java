@@ -59,13 +59,18 @@ class HttpRequestContext implements Session.Resource, ConnectionConsumer {
       }
    }
 
-   public void stopWaiting() {
+   /**
+    * @return Time in nanoseconds the request was blocked waiting for a connection.
+    */
+   public long stopWaiting() {
       if (waitTimestamp != Long.MIN_VALUE) {
          long blockedTime = System.nanoTime() - waitTimestamp;
          request.statistics().incrementBlockedTime(request, blockedTime, request.session);
+         return blockedTime;
       }
+      return 0;
    }
 
-   public static final class Key implements Session.ResourceKey<HttpRequestContext> {
+   public static final class Key extends Session.SlottedResourceKey<HttpRequestContext> {
    }
 }
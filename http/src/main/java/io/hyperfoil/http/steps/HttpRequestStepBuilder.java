@@ -32,6 +32,7 @@ import io.hyperfoil.api.connection.Connection;
 import io.hyperfoil.api.session.Action;
 import io.hyperfoil.api.session.ReadAccess;
 import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.Statistics;
 import io.hyperfoil.core.builders.BaseStepBuilder;
 import io.hyperfoil.core.generators.Pattern;
@@ -50,9 +51,11 @@ import io.hyperfoil.core.util.Unique;
 import io.hyperfoil.function.SerializableBiConsumer;
 import io.hyperfoil.function.SerializableBiFunction;
 import io.hyperfoil.function.SerializableFunction;
+import io.hyperfoil.http.HttpUtil;
 import io.hyperfoil.http.UserAgentAppender;
 import io.hyperfoil.http.api.HttpMethod;
 import io.hyperfoil.http.api.HttpRequest;
+import io.hyperfoil.http.api.HttpRequestTemplate;
 import io.hyperfoil.http.api.HttpRequestWriter;
 import io.hyperfoil.http.config.ConnectionStrategy;
 import io.hyperfoil.http.config.HttpBuilder;
@@ -574,7 +577,7 @@ public class HttpRequestStepBuilder extends BaseStepBuilder<HttpRequestStepBuild
       // that this is added immediately after the SendHttpRequestStep, in case some of the handlers
       // insert their own steps after current step. (We could do this in the build() method, too).
       if (sync) {
-         locator.sequence().insertAfter(locator).step(new AfterSyncRequestStep(beforeSyncRequestStep));
+         locator.sequence().insertAfter(locator).step(new AfterSyncRequestStep(beforeSyncRequestStep.resourceKey()));
       }
    }
 
@@ -640,18 +643,54 @@ public class HttpRequestStepBuilder extends BaseStepBuilder<HttpRequestStepBuild
             || http.connectionStrategy() == ConnectionStrategy.ALWAYS_NEW)) {
          this.sla = new SLABuilder.ListBuilder<>(this).addItem().blockedRatio(1.01).endSLA();
       }
+      // Static headers, constant method and path prefix are encoded only once, into the request template
+      List<CharSequence> staticHeaderNames = new ArrayList<>();
+      List<CharSequence> staticHeaderValues = new ArrayList<>();
+      List<SerializableBiConsumer<Session, HttpRequestWriter>> dynamicHeaderAppenders = new ArrayList<>();
+      for (Supplier<SerializableBiConsumer<Session, HttpRequestWriter>> supplier : this.headerAppenders) {
+         SerializableBiConsumer<Session, HttpRequestWriter> appender = supplier.get();
+         if (appender instanceof StaticHeaderWriter) {
+            staticHeaderNames.add(((StaticHeaderWriter) appender).header);
+            staticHeaderValues.add(((StaticHeaderWriter) appender).value);
+         } else {
+            dynamicHeaderAppenders.add(appender);
+         }
+      }
       @SuppressWarnings("unchecked")
-      SerializableBiConsumer<Session, HttpRequestWriter>[] headerAppenders = this.headerAppenders.isEmpty() ? null
-            : this.headerAppenders.stream().map(Supplier::get).toArray(SerializableBiConsumer[]::new);
+      SerializableBiConsumer<Session, HttpRequestWriter>[] headerAppenders = dynamicHeaderAppenders.isEmpty() ? null
+            : dynamicHeaderAppenders.toArray(SerializableBiConsumer[]::new);
+      String templatePath = null;
+      SerializableBiConsumer<Session, ByteBuf> templatePathSuffix = null;
+      if (pathGenerator instanceof Pattern) {
+         Pattern pattern = (Pattern) pathGenerator;
+         templatePath = pattern.constant();
+         if (templatePath == null) {
+            // Path starting with a slash cannot be a full URL; the variables will be written directly
+            templatePath = pattern.prefix();
+            if (templatePath.startsWith("/")) {
+               templatePathSuffix = pattern::acceptSuffix;
+            } else {
+               templatePath = null;
+            }
+         } else if (templatePath.startsWith(HttpUtil.HTTP_PREFIX) || templatePath.startsWith(HttpUtil.HTTPS_PREFIX)) {
+            // full URLs are split into authority and path when the request is prepared
+            templatePath = null;
+         }
+      }
+      SerializableFunction<Session, HttpMethod> methodSelector = this.method.build();
+      HttpMethod templateMethod = methodSelector instanceof HttpMethod.Provided ? methodSelector.apply(null) : null;
+      HttpRequestTemplate template = templatePath == null && staticHeaderNames.isEmpty() ? null
+            : new HttpRequestTemplate(templateMethod, templatePath, templatePathSuffix, staticHeaderNames,
+                  staticHeaderValues);
 
       SLA[] sla = this.sla != null ? this.sla.build() : SLABuilder.DEFAULT;
       SerializableBiFunction<Session, Connection, ByteBuf> bodyGenerator = this.body != null ? this.body.build() : null;
 
       HttpRequestContext.Key contextKey = new HttpRequestContext.Key();
-      PrepareHttpRequestStep prepare = new PrepareHttpRequestStep(stepId, contextKey, method.build(), endpoint, authority,
+      PrepareHttpRequestStep prepare = new PrepareHttpRequestStep(stepId, contextKey, methodSelector, endpoint, authority,
             pathGenerator, metricSelector, handler.build(), useSessionStartTime);
-      SendHttpRequestStep step = new SendHttpRequestStep(stepId, contextKey, bodyGenerator, headerAppenders, injectHostHeader,
-            timeout, sla);
+      SendHttpRequestStep step = new SendHttpRequestStep(stepId, contextKey, bodyGenerator, headerAppenders, template,
+            injectHostHeader, timeout, sla);
       return Arrays.asList(prepare, step);
    }
 
@@ -695,7 +734,7 @@ public class HttpRequestStepBuilder extends BaseStepBuilder<HttpRequestStepBuild
 
       @Override
       public void run(Session s) {
-         s.getResource(beforeSyncRequestStep).set(s.currentSequence().index());
+         s.getResource(beforeSyncRequestStep.resourceKey()).set(s.currentSequence().index());
       }
    }
 
@@ -802,8 +841,12 @@ public class HttpRequestStepBuilder extends BaseStepBuilder<HttpRequestStepBuild
        */
       public PartialHeadersBuilder pattern(String patternString) {
          ensureOnce();
-         parent.parent.headerAppenders
-               .add(() -> new PartialHeadersBuilder.PatternHeaderWriter(header, new Pattern(patternString, false)));
+         parent.parent.headerAppenders.add(() -> {
+            Pattern pattern = new Pattern(patternString, false);
+            String constant = pattern.constant();
+            return constant != null ? new StaticHeaderWriter(header, constant)
+                  : new PartialHeadersBuilder.PatternHeaderWriter(header, pattern);
+         });
          return this;
       }
 
@@ -943,11 +986,11 @@ public class HttpRequestStepBuilder extends BaseStepBuilder<HttpRequestStepBuild
    }
 
    public static class CompensatedResponseRecorder implements Action {
-      private final int stepId;
+      private final MetricHandle metricHandle;
       private final SerializableBiFunction<String, String, String> metricSelector;
 
       public CompensatedResponseRecorder(int stepId, SerializableBiFunction<String, String, String> metricSelector) {
-         this.stepId = stepId;
+         this.metricHandle = new MetricHandle(stepId);
          this.metricSelector = metricSelector;
       }
 
@@ -958,7 +1001,7 @@ public class HttpRequestStepBuilder extends BaseStepBuilder<HttpRequestStepBuild
             return;
          }
          String metric = metricSelector.apply(request.authority, request.path);
-         Statistics statistics = session.statistics(stepId, metric);
+         Statistics statistics = session.statistics(metricHandle, metric);
 
          DelaySessionStartStep.Holder holder = session.getResource(DelaySessionStartStep.KEY);
          long startTimeMs = holder.lastStartTime();
@@ -50,6 +50,7 @@ import io.hyperfoil.http.api.HttpResponseHandlers;
 import io.hyperfoil.http.api.StatusHandler;
 import io.hyperfoil.http.config.HttpErgonomics;
 import io.hyperfoil.http.config.HttpPluginBuilder;
+import io.hyperfoil.http.connection.ConnectionSelector;
 import io.hyperfoil.http.cookie.CookieRecorder;
 import io.hyperfoil.http.handlers.ConditionalHeaderHandler;
 import io.hyperfoil.http.handlers.Location;
@@ -103,6 +104,7 @@ public class HttpResponseHandlersImpl implements HttpResponseHandlers, Serializa
       if (trace) {
          log.trace("#{} Received status {}: {}", session.uniqueId(), status, reason);
       }
+      request.recordFirstByte();
 
       try {
          switch (request.method) {
@@ -284,7 +286,15 @@ public class HttpResponseHandlersImpl implements HttpResponseHandlers, Serializa
             request.setCompleting();
 
             if (executed) {
-               request.recordResponse(System.nanoTime());
+               long now = System.nanoTime();
+               request.recordResponse(now);
+               request.recordBodyTransfer(now);
+               long responseTime = now - request.sendTimestampNanos();
+               ConnectionSelector.Entry entry = request.connection().selectorEntry();
+               entry.recordResponseTime(responseTime);
+               if (entry.address() != null) {
+                  entry.address().recordStats(request, responseTime);
+               }
 
                if (headerHandlers != null) {
                   for (HeaderHandler handler : headerHandlers) {
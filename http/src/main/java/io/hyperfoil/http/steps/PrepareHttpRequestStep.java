@@ -8,6 +8,7 @@ import org.apache.logging.log4j.Logger;
 import io.hyperfoil.api.session.ResourceUtilizer;
 import io.hyperfoil.api.session.SequenceInstance;
 import io.hyperfoil.api.session.Session;
+import io.hyperfoil.api.statistics.MetricHandle;
 import io.hyperfoil.api.statistics.Statistics;
 import io.hyperfoil.core.metric.MetricSelector;
 import io.hyperfoil.core.steps.StatisticsStep;
@@ -30,6 +31,7 @@ public class PrepareHttpRequestStep extends StatisticsStep implements ResourceUt
    final MetricSelector metricSelector;
    final HttpResponseHandlersImpl handler;
    final boolean useSessionStartTime;
+   final MetricHandle metricHandle;
 
    public PrepareHttpRequestStep(int stepId, HttpRequestContext.Key contextKey,
          SerializableFunction<Session, HttpMethod> method,
@@ -48,6 +50,7 @@ public class PrepareHttpRequestStep extends StatisticsStep implements ResourceUt
       this.metricSelector = metricSelector;
       this.handler = handler;
       this.useSessionStartTime = useSessionStartTime;
+      this.metricHandle = new MetricHandle(stepId);
    }
 
    @Override
@@ -87,7 +90,7 @@ public class PrepareHttpRequestStep extends StatisticsStep implements ResourceUt
          request.authority = connectionPool.clientPool().authority();
          String metric = destinations.hasSingleDestination() ? metricSelector.apply(null, request.path)
                : metricSelector.apply(request.authority, request.path);
-         Statistics statistics = session.statistics(id(), metric);
+         Statistics statistics = session.statistics(metricHandle, metric);
          request.start(connectionPool, handler, session.currentSequence(), statistics, useSessionStartTime);
          connectionPool.acquire(false, context);
       } catch (Throwable t) {
@@ -13,6 +13,7 @@ import io.hyperfoil.core.steps.StatisticsStep;
 import io.hyperfoil.function.SerializableBiConsumer;
 import io.hyperfoil.function.SerializableBiFunction;
 import io.hyperfoil.http.api.HttpRequest;
+import io.hyperfoil.http.api.HttpRequestTemplate;
 import io.hyperfoil.http.api.HttpRequestWriter;
 import io.netty.buffer.ByteBuf;
 
@@ -23,6 +24,7 @@ public class SendHttpRequestStep extends StatisticsStep implements SLA.Provider
    final HttpRequestContext.Key contextKey;
    final SerializableBiFunction<Session, Connection, ByteBuf> bodyGenerator;
    final SerializableBiConsumer<Session, HttpRequestWriter>[] headerAppenders;
+   final HttpRequestTemplate template;
    @Visitor.Ignore
    private final boolean injectHostHeader;
    final long timeout;
@@ -31,12 +33,14 @@ public class SendHttpRequestStep extends StatisticsStep implements SLA.Provider
    public SendHttpRequestStep(int stepId, HttpRequestContext.Key contextKey,
          SerializableBiFunction<Session, Connection, ByteBuf> bodyGenerator,
          SerializableBiConsumer<Session, HttpRequestWriter>[] headerAppenders,
+         HttpRequestTemplate template,
          boolean injectHostHeader,
          long timeout, SLA[] sla) {
       super(stepId);
       this.contextKey = contextKey;
       this.bodyGenerator = bodyGenerator;
       this.headerAppenders = headerAppenders;
+      this.template = template;
       this.injectHostHeader = injectHostHeader;
       this.timeout = timeout;
       this.sla = sla;
@@ -56,9 +60,11 @@ public class SendHttpRequestStep extends StatisticsStep implements SLA.Provider
          session.stop();
          return false;
       }
-      context.stopWaiting();
+      long blockedTime = context.stopWaiting();
 
       HttpRequest request = context.request;
+      request.startTimings(blockedTime);
+      request.template = template;
       request.send(context.connection, headerAppenders, injectHostHeader, bodyGenerator);
       // We don't need the context anymore and we need to reset it (in case the step is repeated).
       context.reset();
@@ -71,7 +77,6 @@ public class SendHttpRequestStep extends StatisticsStep implements SLA.Provider
       }
       // Set up timeout only after successful request
       if (timeout > 0) {
-         // TODO alloc!
          request.setTimeout(timeout, TimeUnit.MILLISECONDS);
       } else {
          long timeout = request.connection().config().requestTimeout();
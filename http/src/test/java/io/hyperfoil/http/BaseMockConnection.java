@@ -11,10 +11,13 @@ import io.hyperfoil.http.api.HttpRequest;
 import io.hyperfoil.http.api.HttpRequestWriter;
 import io.hyperfoil.http.api.HttpVersion;
 import io.hyperfoil.http.config.Http;
+import io.hyperfoil.http.connection.ConnectionSelector;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 
 public class BaseMockConnection implements HttpConnection {
+   private final ConnectionSelector.Entry selectorEntry = new ConnectionSelector.Entry(this);
+
    @Override
    public void attach(HttpConnectionPool pool) {
    }
@@ -78,6 +81,11 @@ public class BaseMockConnection implements HttpConnection {
       return 0;
    }
 
+   @Override
+   public ConnectionSelector.Entry selectorEntry() {
+      return selectorEntry;
+   }
+
    @Override
    public ChannelHandlerContext context() {
       return null;
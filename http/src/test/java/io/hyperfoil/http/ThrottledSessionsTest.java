@@ -114,4 +114,42 @@ public class ThrottledSessionsTest extends BaseHttpScenarioTest {
 
       assertThat(requestCount.get()).isGreaterThan(1);
    }
+
+   @Test
+   public void testThrottledSessionsPerThreadScheduling() {
+      AtomicInteger requestCount = new AtomicInteger();
+
+      // @formatter:off
+      benchmarkBuilder.addPhase("test")
+            .constantRate(RATE)
+            .variance(false)
+            .perThreadScheduling(true)
+            .duration(DURATION_MS)
+            .maxSessions(1)
+            .scenario()
+            .initialSequence("request")
+               .step(SC).httpRequest(HttpMethod.GET)
+                  .path("/slow")
+                  .handler()
+                     .rawBytes(new RawBytesHandler() {
+                        @Override
+                        public void onRequest(Request request, ByteBuf buf, int offset, int length) {
+                           requestCount.incrementAndGet();
+                        }
+
+                        @Override
+                        public void onResponse(Request request, ByteBuf buf, int offset, int length,
+                              boolean isLastPart) {
+                        }
+                     })
+                  .endHandler()
+                  .endStep()
+            .endSequence();
+      // @formatter:on
+
+      runScenario();
+
+      // Throttled users are caught up on the same event loop by restarting the finished session
+      assertThat(requestCount.get()).isGreaterThan(RATE);
+   }
 }
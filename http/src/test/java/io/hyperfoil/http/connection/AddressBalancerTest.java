@@ -0,0 +1,179 @@
+package io.hyperfoil.http.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.http.config.AddressBalancing;
+
+public class AddressBalancerTest {
+   private static final long FAST = 1_000_000;
+   private static final long SLOW = 100_000_000;
+
+   @Test
+   public void testRoundRobin() {
+      AddressBalancer.Address[] addresses = addresses(3);
+      AddressBalancer balancer = AddressBalancer.create(AddressBalancing.ROUND_ROBIN, addresses);
+      for (int i = 0; i < 9; ++i) {
+         assertSame(addresses[i % 3], balancer.select());
+      }
+   }
+
+   @Test
+   public void testUnhealthyAddressIsAvoided() {
+      for (AddressBalancing balancing : AddressBalancing.values()) {
+         AddressBalancer.Address[] addresses = addresses(3);
+         AddressBalancer balancer = AddressBalancer.create(balancing, addresses);
+         fail(addresses[1]);
+         for (int i = 0; i < 100; ++i) {
+            assertNotSame(addresses[1], balancer.select(), balancing.name());
+         }
+      }
+   }
+
+   @Test
+   public void testAllAddressesUnhealthy() {
+      for (AddressBalancing balancing : AddressBalancing.values()) {
+         AddressBalancer.Address[] addresses = addresses(2);
+         AddressBalancer balancer = AddressBalancer.create(balancing, addresses);
+         fail(addresses[0]);
+         fail(addresses[1]);
+         Set<AddressBalancer.Address> selected = new HashSet<>();
+         for (int i = 0; i < 100; ++i) {
+            selected.add(balancer.select());
+         }
+         assertFalse(selected.contains(null), balancing.name());
+      }
+   }
+
+   @Test
+   public void testLeastLatency() {
+      AddressBalancer.Address[] addresses = addresses(3);
+      AddressBalancer balancer = AddressBalancer.create(AddressBalancing.LEAST_LATENCY, addresses);
+      addresses[0].updateAverage(SLOW);
+      addresses[1].updateAverage(FAST);
+      // address without responses is tried first
+      assertSame(addresses[2], balancer.select());
+      addresses[2].updateAverage(SLOW);
+      assertSame(addresses[1], balancer.select());
+   }
+
+   @Test
+   public void testTwoChoices() {
+      AddressBalancer.Address[] addresses = addresses(2);
+      AddressBalancer balancer = AddressBalancer.create(AddressBalancing.TWO_CHOICES, addresses);
+      addresses[0].updateAverage(SLOW);
+      addresses[1].updateAverage(FAST);
+      // with two addresses both are always compared
+      for (int i = 0; i < 10; ++i) {
+         assertSame(addresses[1], balancer.select());
+      }
+   }
+
+   @Test
+   public void testDegraded() {
+      AddressBalancer.Address[] addresses = addresses(3);
+      AddressBalancer balancer = AddressBalancer.create(AddressBalancing.LEAST_LATENCY, addresses);
+      addresses[0].updateAverage(SLOW);
+      addresses[1].updateAverage(FAST);
+      addresses[2].updateAverage(FAST + FAST / 2);
+      assertTrue(balancer.isDegraded(addresses[0]));
+      assertFalse(balancer.isDegraded(addresses[1]));
+      assertFalse(balancer.isDegraded(addresses[2]));
+
+      AddressBalancer random = AddressBalancer.create(AddressBalancing.RANDOM, addresses);
+      assertFalse(random.isDegraded(addresses[0]));
+   }
+
+   @Test
+   public void testDegradedAddressIsNotSelected() {
+      for (AddressBalancing balancing : new AddressBalancing[] { AddressBalancing.LEAST_LATENCY,
+            AddressBalancing.TWO_CHOICES }) {
+         AddressBalancer.Address[] addresses = addresses(2);
+         AddressBalancer balancer = AddressBalancer.create(balancing, addresses);
+         settle(addresses[0], 3 * FAST);
+         settle(addresses[1], FAST);
+         assertTrue(balancer.isDegraded(addresses[0]), balancing.name());
+         for (int i = 0; i < 10; ++i) {
+            assertSame(addresses[1], balancer.select(), balancing.name());
+         }
+         // below the degraded ratio but above the recovery threshold
+         settle(addresses[0], FAST * 18 / 10);
+         assertTrue(balancer.isDegraded(addresses[0]), balancing.name());
+         for (int i = 0; i < 10; ++i) {
+            assertSame(addresses[1], balancer.select(), balancing.name());
+         }
+         settle(addresses[0], FAST * 14 / 10);
+         assertFalse(balancer.isDegraded(addresses[0]), balancing.name());
+         // without that hysteresis it would be degraded again
+         settle(addresses[0], FAST * 18 / 10);
+         assertFalse(balancer.isDegraded(addresses[0]), balancing.name());
+      }
+   }
+
+   @Test
+   public void testDegradedAddressIsProbed() {
+      for (AddressBalancing balancing : new AddressBalancing[] { AddressBalancing.LEAST_LATENCY,
+            AddressBalancing.TWO_CHOICES }) {
+         AddressBalancer.Address[] addresses = addresses(2);
+         AddressBalancer balancer = AddressBalancer.create(balancing, addresses);
+         settle(addresses[0], 3 * FAST);
+         settle(addresses[1], FAST);
+         assertTrue(balancer.isDegraded(addresses[0]), balancing.name());
+         long now = System.nanoTime();
+         assertSame(addresses[1], balancer.select(now), balancing.name());
+
+         // single probe connection once the interval elapses
+         long later = now + AddressBalancer.PROBE_NANOS;
+         assertSame(addresses[0], balancer.select(later), balancing.name());
+         assertSame(addresses[1], balancer.select(later), balancing.name());
+         // the probe finds the address still slow
+         addresses[0].updateAverage(3 * FAST);
+         assertTrue(balancer.isDegraded(addresses[0]), balancing.name());
+
+         later += AddressBalancer.PROBE_NANOS;
+         assertSame(addresses[0], balancer.select(later), balancing.name());
+         // the address has recovered; its first response replaces the stale average
+         addresses[0].updateAverage(FAST);
+         assertFalse(balancer.isDegraded(addresses[0]), balancing.name());
+         Set<AddressBalancer.Address> selected = new HashSet<>();
+         for (int i = 0; i < 100; ++i) {
+            selected.add(balancer.select());
+         }
+         assertTrue(selected.contains(addresses[0]), balancing.name());
+      }
+   }
+
+   @Test
+   public void testAddressName() {
+      assertEquals("127.0.0.1:8080", new AddressBalancer.Address("127.0.0.1", 8080, false).name());
+      assertEquals("[::1]:8080", new AddressBalancer.Address("::1", 8080, false).name());
+      assertEquals("[::1]:8080", new AddressBalancer.Address("[::1]", 8080, false).name());
+   }
+
+   private static AddressBalancer.Address[] addresses(int count) {
+      AddressBalancer.Address[] addresses = new AddressBalancer.Address[count];
+      for (int i = 0; i < count; ++i) {
+         addresses[i] = new AddressBalancer.Address("10.0.0." + i, 8080, false);
+      }
+      return addresses;
+   }
+
+   private static void settle(AddressBalancer.Address address, long nanos) {
+      for (int i = 0; i < 1000; ++i) {
+         address.updateAverage(nanos);
+      }
+   }
+
+   private static void fail(AddressBalancer.Address address) {
+      address.track((connection, error) -> {
+      }).accept(null, new Exception("connection refused"));
+   }
+}
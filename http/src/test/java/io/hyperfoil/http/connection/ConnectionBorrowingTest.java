@@ -0,0 +1,150 @@
+package io.hyperfoil.http.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.core.VertxBaseTest;
+import io.hyperfoil.http.api.HttpConnection;
+import io.hyperfoil.http.config.Http;
+import io.hyperfoil.http.config.HttpBuilder;
+import io.hyperfoil.http.config.Protocol;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpServer;
+import io.vertx.junit5.VertxTestContext;
+
+public class ConnectionBorrowingTest extends VertxBaseTest {
+   private HttpServer httpServer;
+
+   @BeforeEach
+   public void before(VertxTestContext ctx) {
+      httpServer = vertx.createHttpServer().requestHandler(req -> req.response().end());
+      httpServer.listen(0, "localhost").onComplete(ctx.succeedingThenComplete());
+      cleanup.add(httpServer::close);
+   }
+
+   @Test
+   public void testBorrowIdleConnection(VertxTestContext ctx) {
+      var checkpoint = ctx.checkpoint();
+      startClientPool(ctx, true).onSuccess(client -> {
+         SharedConnectionPool borrower = (SharedConnectionPool) client.children()[0];
+         SharedConnectionPool lender = (SharedConnectionPool) client.children()[1];
+         borrower.executor().execute(() -> borrower.acquire(false, first -> {
+            // The second acquire has to wait until the connection is borrowed from the other event loop
+            borrower.acquire(false, second -> ctx.verify(() -> {
+               assertThat(second).isNotNull().isNotSameAs(first);
+               assertThat(second.context().channel().eventLoop()).isSameAs(borrower.executor());
+               borrower.cancelAcquire(first);
+               borrower.cancelAcquire(second);
+
+               assertThat(stats(borrower)).containsEntry("borrowed connections", 1);
+               lender.executor().execute(() -> ctx.verify(() -> {
+                  assertThat(stats(lender)).containsEntry("lent connections", 1);
+                  assertThat(lender.connections()).allMatch(HttpConnection::isClosed);
+                  checkpoint.flag();
+               }));
+            }));
+            assertThat(borrower.waitingSessions()).isEqualTo(1);
+         }));
+      });
+   }
+
+   @Test
+   public void testBorrowKeepsTotalCore(VertxTestContext ctx) {
+      var checkpoint = ctx.checkpoint();
+      // each pool keeps 1 connection open and opens another one when the first is used, up to 2
+      startClientPool(ctx, true, 2, 4, 2).onSuccess(client -> {
+         SharedConnectionPool borrower = (SharedConnectionPool) client.children()[0];
+         SharedConnectionPool lender = (SharedConnectionPool) client.children()[1];
+         borrower.executor().execute(() -> borrower.acquire(false, first -> {
+            // the buffered connection must not be replaced by a borrowed one
+            ctx.verify(() -> assertThat(borrower.maxConnections()).isEqualTo(2));
+            whenConnected(borrower, 2, () -> borrower.acquire(false, second -> {
+               borrower.acquire(false, third -> ctx.verify(() -> {
+                  assertThat(third).isNotNull();
+                  assertThat(borrower.connections()).hasSize(3);
+                  assertThat(borrower.maxConnections()).isEqualTo(3);
+                  // lender's core still fits its reduced share so no core slot was transferred
+                  assertThat(borrower.coreConnections()).isEqualTo(1);
+                  borrower.cancelAcquire(first);
+                  borrower.cancelAcquire(second);
+                  borrower.cancelAcquire(third);
+                  lender.executor().execute(() -> ctx.verify(() -> {
+                     assertThat(lender.maxConnections()).isEqualTo(1);
+                     assertThat(lender.coreConnections()).isEqualTo(1);
+                     checkpoint.flag();
+                  }));
+               }));
+            }));
+         }));
+      });
+   }
+
+   @Test
+   public void testBorrowingDisabled(VertxTestContext ctx) {
+      var checkpoint = ctx.checkpoint();
+      startClientPool(ctx, false).onSuccess(client -> {
+         SharedConnectionPool pool = (SharedConnectionPool) client.children()[0];
+         pool.executor().execute(() -> pool.acquire(false, first -> {
+            pool.acquire(false, second -> ctx.failNow("Should not get another connection"));
+            pool.executor().schedule(() -> {
+               ctx.verify(() -> {
+                  assertThat(pool.waitingSessions()).isEqualTo(1);
+                  assertThat(pool.connections()).hasSize(1);
+               });
+               checkpoint.flag();
+            }, 100, TimeUnit.MILLISECONDS);
+         }));
+      });
+   }
+
+   private static void whenConnected(SharedConnectionPool pool, int connections, Runnable action) {
+      if (pool.connections().size() >= connections) {
+         action.run();
+      } else {
+         pool.executor().schedule(() -> whenConnected(pool, connections, action), 10, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private static Map<String, Integer> stats(SharedConnectionPool pool) {
+      Map<String, Integer> stats = new HashMap<>();
+      pool.visitConnectionStats((authority, tag, min, max) -> stats.put(tag, max));
+      return stats;
+   }
+
+   private Future<HttpClientPoolImpl> startClientPool(VertxTestContext ctx, boolean borrow) {
+      return startClientPool(ctx, borrow, 2, 2, 0);
+   }
+
+   private Future<HttpClientPoolImpl> startClientPool(VertxTestContext ctx, boolean borrow, int core, int max, int buffer) {
+      HttpBuilder builder = HttpBuilder.forTesting().protocol(Protocol.HTTP)
+            .host("localhost").port(httpServer.actualPort());
+      builder.sharedConnections().core(core).max(max).buffer(buffer).borrow(borrow);
+      Http http = builder.build(true);
+      try {
+         HttpClientPoolImpl client = HttpClientPoolImpl.forTesting(http, 2);
+         Promise<HttpClientPoolImpl> promise = Promise.promise();
+         client.start(result -> {
+            if (result.failed()) {
+               ctx.failNow(result.cause());
+               promise.fail(result.cause());
+               return;
+            }
+            cleanup.add(client::shutdown);
+            promise.complete(client);
+         });
+         return promise.future();
+      } catch (SSLException e) {
+         ctx.failNow(e);
+         return Future.failedFuture(e);
+      }
+   }
+}
@@ -0,0 +1,133 @@
+package io.hyperfoil.http.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.http.BaseMockConnection;
+import io.hyperfoil.http.api.HttpConnection;
+import io.hyperfoil.http.config.ConnectionSelection;
+
+public class ConnectionSelectorTest {
+   @Test
+   public void testIdleFirst() {
+      ConnectionSelector selector = ConnectionSelector.create(ConnectionSelection.IDLE_FIRST, 4);
+      MockConnection busy = new MockConnection(3);
+      MockConnection idle = new MockConnection(0);
+      selector.add(busy);
+      selector.add(idle);
+      assertSame(idle, selector.poll());
+      assertSame(busy, selector.poll());
+      assertNull(selector.poll());
+   }
+
+   @Test
+   public void testRoundRobin() {
+      ConnectionSelector selector = ConnectionSelector.create(ConnectionSelection.ROUND_ROBIN, 4);
+      MockConnection busy = new MockConnection(3);
+      MockConnection idle = new MockConnection(0);
+      selector.add(busy);
+      selector.add(idle);
+      assertSame(busy, selector.poll());
+      selector.add(busy);
+      assertSame(idle, selector.poll());
+      assertSame(busy, selector.poll());
+   }
+
+   @Test
+   public void testLeastInFlight() {
+      ConnectionSelector selector = ConnectionSelector.create(ConnectionSelection.LEAST_IN_FLIGHT, 4);
+      MockConnection c1 = new MockConnection(5);
+      MockConnection c2 = new MockConnection(2);
+      MockConnection c3 = new MockConnection(40);
+      selector.add(c1);
+      selector.add(c2);
+      selector.add(c3);
+      assertEquals(3, selector.size());
+      assertTrue(selector.contains(c3));
+
+      assertSame(c2, selector.poll());
+      assertFalse(selector.contains(c2));
+      // the request on c2 was sent
+      c2.inFlight = 3;
+      selector.add(c2);
+      // requests on c3 completed while it was in the selector
+      c3.inFlight = 1;
+      selector.update(c3);
+      assertSame(c3, selector.poll());
+      assertSame(c2, selector.poll());
+      assertSame(c1, selector.poll());
+      assertNull(selector.poll());
+      assertEquals(0, selector.size());
+   }
+
+   @Test
+   public void testTwoChoicesInFlight() {
+      ConnectionSelector selector = ConnectionSelector.create(ConnectionSelection.TWO_CHOICES_IN_FLIGHT, 1);
+      MockConnection busy = new MockConnection(100);
+      MockConnection idle = new MockConnection(0);
+      for (int i = 0; i < 100; ++i) {
+         selector.add(busy);
+         selector.add(idle);
+         // with two connections both are always compared
+         assertSame(idle, selector.poll());
+         assertSame(busy, selector.poll());
+      }
+   }
+
+   @Test
+   public void testTwoChoicesLatency() {
+      ConnectionSelector selector = ConnectionSelector.create(ConnectionSelection.TWO_CHOICES_LATENCY, 2);
+      MockConnection slow = new MockConnection(1);
+      MockConnection fast = new MockConnection(1);
+      for (int i = 0; i < 10; ++i) {
+         slow.selectorEntry().recordResponseTime(100_000_000);
+         fast.selectorEntry().recordResponseTime(1_000_000);
+      }
+      selector.add(slow);
+      selector.add(fast);
+      assertSame(fast, selector.poll());
+      // the fast connection is still better with more requests in flight
+      fast.inFlight = 10;
+      selector.add(fast);
+      assertSame(fast, selector.poll());
+   }
+
+   @Test
+   public void testTwoChoicesKeepsAllConnections() {
+      ConnectionSelector selector = ConnectionSelector.create(ConnectionSelection.TWO_CHOICES_IN_FLIGHT, 2);
+      Set<HttpConnection> connections = new HashSet<>();
+      for (int i = 0; i < 20; ++i) {
+         MockConnection connection = new MockConnection(i % 3);
+         connections.add(connection);
+         selector.add(connection);
+      }
+      Set<HttpConnection> polled = new HashSet<>();
+      selector.forEach(c -> assertTrue(connections.contains(c)));
+      HttpConnection connection;
+      while ((connection = selector.poll()) != null) {
+         assertTrue(polled.add(connection));
+      }
+      assertEquals(connections, polled);
+   }
+
+   private static class MockConnection extends BaseMockConnection {
+      int inFlight;
+
+      MockConnection(int inFlight) {
+         this.inFlight = inFlight;
+      }
+
+      @Override
+      public int inFlight() {
+         return inFlight;
+      }
+   }
+}
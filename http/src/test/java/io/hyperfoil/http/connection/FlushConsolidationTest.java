@@ -0,0 +1,58 @@
+package io.hyperfoil.http.connection;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.http.BaseHttpScenarioTest;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.config.HttpBuilder;
+import io.hyperfoil.http.statistics.HttpStats;
+
+public class FlushConsolidationTest extends BaseHttpScenarioTest {
+   private static final int USERS = 64;
+   private static final int REPEATS = 10;
+
+   @Override
+   protected void initRouter() {
+      router.get("/test").handler(ctx -> ctx.response().setStatusCode(200).end("hello"));
+   }
+
+   @Override
+   protected int threads() {
+      // all sessions share single event loop to have many requests written in the same iteration
+      return 1;
+   }
+
+   @Override
+   protected void initHttp(HttpBuilder http) {
+      http.sharedConnections(4).pipeliningLimit(16).flushConsolidation(true)
+            .useHttpCache(false);
+   }
+
+   @Test
+   public void testAllRequestsComplete() {
+      // @formatter:off
+      parallelScenario(USERS).initialSequence("test")
+            .step(SC).loop("counter", REPEATS)
+               .steps()
+                  .step(SC).httpRequest(HttpMethod.GET)
+                     .path("/test")
+                     .metric("test")
+                  .endStep()
+            .endSequence();
+      // @formatter:on
+
+      Map<String, StatisticsSnapshot> stats = runScenario();
+      StatisticsSnapshot snapshot = stats.get("test");
+      assertThat(snapshot.requestCount).isEqualTo(USERS * REPEATS);
+      assertThat(snapshot.responseCount).isEqualTo(USERS * REPEATS);
+      assertThat(HttpStats.get(snapshot).status_2xx).isEqualTo(USERS * REPEATS);
+      assertThat(snapshot.connectionErrors).isEqualTo(0);
+      assertThat(snapshot.requestTimeouts).isEqualTo(0);
+   }
+}
@@ -0,0 +1,16 @@
+package io.hyperfoil.http.connection;
+
+import io.hyperfoil.http.config.HttpBuilder;
+
+public class Http2FlushConsolidationTest extends FlushConsolidationTest {
+   @Override
+   protected boolean useHttps() {
+      return true;
+   }
+
+   @Override
+   protected void initHttp(HttpBuilder http) {
+      super.initHttp(http);
+      http.allowHttp1x(false);
+   }
+}
@@ -0,0 +1,145 @@
+package io.hyperfoil.http.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.config.BenchmarkDefinitionException;
+import io.hyperfoil.core.VertxBaseTest;
+import io.hyperfoil.http.config.Http;
+import io.hyperfoil.http.config.HttpBuilder;
+import io.hyperfoil.http.config.Protocol;
+import io.vertx.core.http.HttpServer;
+import io.vertx.junit5.VertxTestContext;
+
+public class LocalAddressPoolTest extends VertxBaseTest {
+   private HttpServer httpServer;
+
+   @BeforeEach
+   public void before(VertxTestContext ctx) {
+      httpServer = vertx.createHttpServer().requestHandler(req -> req.response().end());
+      httpServer.listen(0, "localhost").onComplete(ctx.succeedingThenComplete());
+      cleanup.add(httpServer::close);
+   }
+
+   @Test
+   public void testParse() {
+      LocalAddressPool pool = new LocalAddressPool(new String[] {
+            "127.0.0.1", "127.0.0.2:20000-20001", "127.0.0.3:30000", "::1", "[::1]:40000-40010" });
+      LocalAddressPool.Source[] sources = pool.sources();
+      assertThat(sources[0].hasPorts()).isFalse();
+      assertThat(sources[0].nextBindAddress()).isEqualTo(new InetSocketAddress("127.0.0.1", 0));
+      assertThat(sources[1].nextBindAddress()).isEqualTo(new InetSocketAddress("127.0.0.2", 20000));
+      assertThat(sources[1].nextBindAddress()).isEqualTo(new InetSocketAddress("127.0.0.2", 20001));
+      assertThat(sources[1].nextBindAddress()).isEqualTo(new InetSocketAddress("127.0.0.2", 20000));
+      assertThat(sources[2].nextBindAddress()).isEqualTo(new InetSocketAddress("127.0.0.3", 30000));
+      assertThat(sources[3].hasPorts()).isFalse();
+      assertThat(sources[4].nextBindAddress()).isEqualTo(new InetSocketAddress("::1", 40000));
+      assertThat(sources[4].connectionsTag()).isEqualTo("connections from [::1]:40000-40010");
+
+      for (int i = 0; i < 10; ++i) {
+         assertThat(pool.next()).isSameAs(sources[i % sources.length]);
+      }
+   }
+
+   @Test
+   public void testInvalidPortRange() {
+      for (String spec : new String[] { "127.0.0.1:", "127.0.0.1:2000-1000", "127.0.0.1:x-y", "127.0.0.1:0-1000",
+            "127.0.0.1:1000-70000" }) {
+         assertThatThrownBy(() -> new LocalAddressPool(new String[] { spec }))
+               .isInstanceOf(BenchmarkDefinitionException.class);
+      }
+   }
+
+   @Test
+   public void testAddressConflict() {
+      assertThat(LocalAddressPool.isAddressConflict(new BindException("Address already in use"))).isTrue();
+      assertThat(LocalAddressPool.isAddressConflict(new ConnectException("Connection refused"))).isFalse();
+   }
+
+   @Test
+   public void testConnectionsSpread(VertxTestContext ctx) throws SSLException {
+      HttpBuilder builder = HttpBuilder.forTesting().protocol(Protocol.HTTP)
+            .host("localhost").port(httpServer.actualPort())
+            .addAddress("127.0.0.1")
+            .addLocalAddress("127.0.0.1:40100-40199").addLocalAddress("127.0.0.2");
+      builder.sharedConnections().core(4).max(4).buffer(0);
+      Http http = builder.build(true);
+      HttpClientPoolImpl client = HttpClientPoolImpl.forTesting(http, 1);
+      var checkpoint = ctx.checkpoint();
+      client.start(result -> {
+         if (result.failed()) {
+            ctx.failNow(result.cause());
+            return;
+         }
+         cleanup.add(client::shutdown);
+         SharedConnectionPool pool = (SharedConnectionPool) client.children()[0];
+         pool.executor().schedule(() -> {
+            ctx.verify(() -> {
+               Map<String, Integer> stats = new HashMap<>();
+               pool.visitConnectionStats((authority, tag, min, max) -> stats.put(tag, max));
+               assertThat(stats).containsEntry("connections from 127.0.0.1:40100-40199", 2)
+                     .containsEntry("connections from 127.0.0.2", 2);
+               Set<String> localHosts = new HashSet<>();
+               for (var connection : pool.connections()) {
+                  InetSocketAddress local = (InetSocketAddress) connection.context().channel().localAddress();
+                  localHosts.add(local.getAddress().getHostAddress());
+                  if (local.getAddress().getHostAddress().equals("127.0.0.1")) {
+                     assertThat(local.getPort()).isBetween(40100, 40199);
+                  }
+               }
+               assertThat(localHosts).containsExactlyInAnyOrder("127.0.0.1", "127.0.0.2");
+            });
+            checkpoint.flag();
+         }, 100, TimeUnit.MILLISECONDS);
+      });
+   }
+
+   @Test
+   public void testRetryPortInUse(VertxTestContext ctx) throws IOException {
+      ServerSocket blocker = new ServerSocket();
+      blocker.bind(new InetSocketAddress("127.0.0.1", 40200));
+      cleanup.add(() -> {
+         try {
+            blocker.close();
+         } catch (IOException e) {
+            // ignored
+         }
+      });
+      HttpBuilder builder = HttpBuilder.forTesting().protocol(Protocol.HTTP)
+            .host("localhost").port(httpServer.actualPort())
+            .addAddress("127.0.0.1")
+            .addLocalAddress("127.0.0.1:40200-40201");
+      builder.sharedConnections().core(1).max(1).buffer(0);
+      HttpClientPoolImpl client = HttpClientPoolImpl.forTesting(builder.build(true), 1);
+      var checkpoint = ctx.checkpoint();
+      client.start(result -> {
+         if (result.failed()) {
+            ctx.failNow(result.cause());
+            return;
+         }
+         cleanup.add(client::shutdown);
+         SharedConnectionPool pool = (SharedConnectionPool) client.children()[0];
+         pool.executor().execute(() -> {
+            ctx.verify(() -> assertThat(pool.connections()).singleElement().satisfies(c -> assertThat(
+                  ((InetSocketAddress) c.context().channel().localAddress()).getPort()).isEqualTo(40201)));
+            checkpoint.flag();
+         });
+      });
+   }
+}
@@ -0,0 +1,92 @@
+package io.hyperfoil.http.statistics;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.http.BaseHttpScenarioTest;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.config.HttpBuilder;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+
+public class HttpTimingsTest extends BaseHttpScenarioTest {
+   private static final int USERS = 4;
+   private static final int REPEATS = 5;
+
+   @Override
+   protected void initRouter() {
+      router.get("/test").handler(ctx -> ctx.response().setStatusCode(200).end("hello"));
+      router.get("/slow").handler(ctx -> {
+         ctx.response().setChunked(true).write("hello");
+         vertx.setTimer(50, id -> ctx.response().end("world"));
+      });
+   }
+
+   @Override
+   protected void initHttp(HttpBuilder http) {
+      http.timingBreakdown(true).useHttpCache(false);
+   }
+
+   @Test
+   public void testTimings() throws IOException, ClassNotFoundException {
+      // timings must follow the histogram settings of the metric
+      benchmarkBuilder.histogram().precision(3).metric("slow").packed(true);
+      // @formatter:off
+      parallelScenario(USERS).initialSequence("test")
+            .step(SC).loop("counter", REPEATS)
+               .steps()
+                  .step(SC).httpRequest(HttpMethod.GET)
+                     .path("/test")
+                     .metric("test")
+                  .endStep()
+                  .step(SC).httpRequest(HttpMethod.GET)
+                     .path("/slow")
+                     .metric("slow")
+                  .endStep()
+            .endSequence();
+      // @formatter:on
+
+      Map<String, StatisticsSnapshot> stats = runScenario();
+      for (String metric : new String[] { "test", "slow" }) {
+         StatisticsSnapshot snapshot = stats.get(metric);
+         assertThat(snapshot.responseCount).isEqualTo(USERS * REPEATS);
+         HttpTimings timings = (HttpTimings) snapshot.extensions.get(HttpTimings.TIMINGS);
+         assertThat(timings).isNotNull();
+         assertThat(timings.histogram(HttpTimings.CONNECTION_WAIT).getTotalCount()).isEqualTo(USERS * REPEATS);
+         assertThat(timings.histogram(HttpTimings.WRITE).getTotalCount()).isEqualTo(USERS * REPEATS);
+         assertThat(timings.histogram(HttpTimings.FIRST_BYTE).getTotalCount()).isEqualTo(USERS * REPEATS);
+         assertThat(timings.histogram(HttpTimings.BODY_TRANSFER).getTotalCount()).isEqualTo(USERS * REPEATS);
+         assertThat(timings.histogram(HttpTimings.FIRST_BYTE).getMaxValue())
+               .isLessThanOrEqualTo(snapshot.histogram().getMaxValue());
+         for (int phase = HttpTimings.CONNECTION_WAIT; phase <= HttpTimings.BODY_TRANSFER; ++phase) {
+            assertThat(timings.histogram(phase).getNumberOfSignificantValueDigits()).isEqualTo(3);
+            assertThat(timings.histogram(phase).isAutoResize()).isEqualTo(metric.equals("slow"));
+         }
+      }
+      HttpTimings slow = (HttpTimings) stats.get("slow").extensions.get(HttpTimings.TIMINGS);
+      assertThat(slow.histogram(HttpTimings.BODY_TRANSFER).getMaxValue()).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(40));
+      assertThat(slow.headers()).contains("BodyTransfer.p99");
+      assertThat(new JsonObject(Json.encode(slow)).getJsonObject("bodyTransfer").getLong("Max"))
+            .isEqualTo(slow.histogram(HttpTimings.BODY_TRANSFER).getMaxValue());
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+         out.writeObject(slow);
+      }
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+         HttpTimings copy = (HttpTimings) in.readObject();
+         assertThat(copy.byHeader("BodyTransfer.Max")).isEqualTo(slow.byHeader("BodyTransfer.Max"));
+      }
+   }
+}
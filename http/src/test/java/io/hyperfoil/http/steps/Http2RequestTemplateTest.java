@@ -0,0 +1,15 @@
+package io.hyperfoil.http.steps;
+
+import io.hyperfoil.http.config.HttpBuilder;
+
+public class Http2RequestTemplateTest extends HttpRequestTemplateTest {
+   @Override
+   protected boolean useHttps() {
+      return true;
+   }
+
+   @Override
+   protected void initHttp(HttpBuilder http) {
+      http.allowHttp1x(false);
+   }
+}
@@ -0,0 +1,79 @@
+package io.hyperfoil.http.steps;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.core.steps.SetAction;
+import io.hyperfoil.http.BaseHttpScenarioTest;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.statistics.HttpStats;
+
+public class HttpRequestTemplateTest extends BaseHttpScenarioTest {
+   @Override
+   protected void initRouter() {
+      router.get("/static").handler(ctx -> {
+         boolean valid = "a b".equals(ctx.request().getParam("q"))
+               && "foo".equals(ctx.request().getHeader("x-static"))
+               && "bar".equals(ctx.request().getHeader("x-constant-pattern"))
+               && "value-42".equals(ctx.request().getHeader("x-dynamic"));
+         ctx.response().setStatusCode(valid ? 200 : 400).end();
+      });
+      router.get("/dynamic/:id").handler(ctx -> {
+         boolean valid = "42".equals(ctx.pathParam("id")) && "x y".equals(ctx.request().getParam("q"));
+         ctx.response().setStatusCode(valid ? 200 : 400).end();
+      });
+   }
+
+   @Test
+   public void testStaticAndDynamicParts() {
+      // @formatter:off
+      scenario(3).initialSequence("test")
+            .step(SC).action(new SetAction.Builder().var("counter").value("42"))
+            .step(SC).httpRequest(HttpMethod.GET)
+               .path("/static?q=a b")
+               .headers()
+                  .header("x-static", "foo")
+                  .withKey("x-constant-pattern").pattern("bar").end()
+                  .withKey("x-dynamic").pattern("value-${counter}").end()
+               .endHeaders()
+               .metric("test")
+            .endStep()
+         .endSequence();
+      // @formatter:on
+
+      Map<String, StatisticsSnapshot> stats = runScenario();
+      StatisticsSnapshot snapshot = stats.get("test");
+      assertThat(snapshot.requestCount).isEqualTo(3);
+      assertThat(HttpStats.get(snapshot).status_2xx).isEqualTo(3);
+   }
+
+   @Test
+   public void testDynamicPath() {
+      // @formatter:off
+      scenario(3).initialSequence("test")
+            .step(SC).action(new SetAction.Builder().var("counter").value("42"))
+            .step(SC).action(new SetAction.Builder().var("query").value("x y"))
+            .step(SC).httpRequest(HttpMethod.GET)
+               .path("/dynamic/${counter}?q=${query}")
+               .metric("space-in-variable")
+            .endStep()
+            .step(SC).httpRequest(HttpMethod.GET)
+               .path("/dynamic/42?q=x y&n=${counter}")
+               .metric("space-in-prefix")
+            .endStep()
+         .endSequence();
+      // @formatter:on
+
+      Map<String, StatisticsSnapshot> stats = runScenario();
+      for (String metric : new String[] { "space-in-variable", "space-in-prefix" }) {
+         StatisticsSnapshot snapshot = stats.get(metric);
+         assertThat(snapshot.requestCount).isEqualTo(3);
+         assertThat(HttpStats.get(snapshot).status_2xx).isEqualTo(3);
+      }
+   }
+}
@@ -193,7 +193,7 @@ public class HttpRequestTest extends BaseHttpScenarioTest {
       // @formatter:on
       Map<String, StatisticsSnapshot> stats = runScenario();
       assertThat(stats.get("test").requestCount).isEqualTo(1);
-      assertThat(stats.get("x-foo").histogram.getCountAtValue(TimeUnit.MILLISECONDS.toNanos(5))).isEqualTo(1);
+      assertThat(stats.get("x-foo").histogram().getCountAtValue(TimeUnit.MILLISECONDS.toNanos(5))).isEqualTo(1);
    }
 
    @Test
@@ -0,0 +1,85 @@
+package io.hyperfoil.http.steps;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.Parameter;
+import org.junit.jupiter.params.ParameterizedClass;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import io.hyperfoil.api.connection.Request;
+import io.hyperfoil.api.processor.RawBytesHandler;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.api.HttpRequest;
+import io.hyperfoil.http.config.HttpBuilder;
+import io.hyperfoil.http.statistics.HttpStats;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+// The body is chunked both with and without raw bytes handlers
+@ParameterizedClass
+@ValueSource(booleans = { false, true })
+public class HttpsLargeBodyTest extends LargeBodyTest {
+   @Parameter
+   boolean rawBytesHandlers;
+
+   @Override
+   protected boolean useHttps() {
+      return true;
+   }
+
+   @Override
+   protected void initHttp(HttpBuilder http) {
+      http.allowHttp2(false).rawBytesHandlers(rawBytesHandlers);
+   }
+
+   @Test
+   public void testChunkedBodyWithRawBytesHandler() {
+      assumeTrue(rawBytesHandlers);
+      AtomicInteger chunkedRequests = new AtomicInteger();
+      AtomicInteger wholeBodies = new AtomicInteger();
+      // @formatter:off
+      scenario().initialSequence("test")
+            .step(SC).loop("counter", 3)
+               .steps()
+                  .step(SC).httpRequest(HttpMethod.POST)
+                     .path("/upload")
+                     .body().text(BODY).endBody()
+                     .metric("upload")
+                     .handler()
+                        .rawBytes(new RawBytesHandler() {
+                           @Override
+                           public void onRequest(Request request, ByteBuf buf, int offset, int length) {
+                              HttpRequest httpRequest = (HttpRequest) request;
+                              if (httpRequest.connection().context().pipeline().get(ChunkedWriteHandler.class) != null) {
+                                 chunkedRequests.incrementAndGet();
+                              }
+                              if (length == BODY_LENGTH) {
+                                 wholeBodies.incrementAndGet();
+                              }
+                           }
+
+                           @Override
+                           public void onResponse(Request request, ByteBuf buf, int offset, int length,
+                                 boolean isLastPart) {
+                           }
+                        })
+                     .endHandler()
+                  .endStep()
+            .endSequence();
+      // @formatter:on
+
+      Map<String, StatisticsSnapshot> stats = runScenario();
+      StatisticsSnapshot snapshot = stats.get("upload");
+      assertThat(HttpStats.get(snapshot).status_2xx).isEqualTo(3);
+      // headers and body are written separately
+      assertThat(chunkedRequests.get()).isEqualTo(6);
+      assertThat(wholeBodies.get()).isEqualTo(3);
+   }
+}
@@ -0,0 +1,85 @@
+package io.hyperfoil.http.steps;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.core.impl.LocalBenchmarkData;
+import io.hyperfoil.http.BaseHttpScenarioTest;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.statistics.HttpStats;
+import io.vertx.ext.web.handler.BodyHandler;
+
+public class LargeBodyTest extends BaseHttpScenarioTest {
+   // Spans many TLS records and does not end on a chunk boundary
+   static final int BODY_LENGTH = 1024 * 1024 + 123;
+   static final String BODY;
+
+   static {
+      StringBuilder sb = new StringBuilder(BODY_LENGTH);
+      for (int i = 0; i < BODY_LENGTH; ++i) {
+         sb.append((char) ('a' + i % 26));
+      }
+      BODY = sb.toString();
+   }
+
+   @Override
+   protected void initRouter() {
+      router.route().handler(BodyHandler.create().setBodyLimit(2 * BODY_LENGTH));
+      router.post("/upload").handler(ctx -> {
+         String body = ctx.body().asString();
+         ctx.response().setStatusCode(BODY.equals(body) ? 200 : 412).end();
+      });
+   }
+
+   @Test
+   public void testLargeBody() {
+      // @formatter:off
+      parallelScenario(4).initialSequence("test")
+            .step(SC).loop("counter", 5)
+               .steps()
+                  .step(SC).httpRequest(HttpMethod.POST)
+                     .path("/upload")
+                     .body().text(BODY).endBody()
+                     .metric("upload")
+                  .endStep()
+            .endSequence();
+      // @formatter:on
+
+      Map<String, StatisticsSnapshot> stats = runScenario();
+      StatisticsSnapshot snapshot = stats.get("upload");
+      assertThat(snapshot.requestCount).isEqualTo(20);
+      assertThat(HttpStats.get(snapshot).status_2xx).isEqualTo(20);
+   }
+
+   @Test
+   public void testLargeBodyFromFile(@TempDir Path dir) throws IOException {
+      Files.writeString(dir.resolve("body.txt"), BODY);
+      // The body is sent from the file mapping rather than from a copy
+      benchmarkBuilder.data(new LocalBenchmarkData(dir.resolve("benchmark.hf.yaml")));
+      // @formatter:off
+      parallelScenario(4).initialSequence("test")
+            .step(SC).loop("counter", 5)
+               .steps()
+                  .step(SC).httpRequest(HttpMethod.POST)
+                     .path("/upload")
+                     .body().fromFile("body.txt").endBody()
+                     .metric("upload")
+                  .endStep()
+            .endSequence();
+      // @formatter:on
+
+      Map<String, StatisticsSnapshot> stats = runScenario();
+      StatisticsSnapshot snapshot = stats.get("upload");
+      assertThat(snapshot.requestCount).isEqualTo(20);
+      assertThat(HttpStats.get(snapshot).status_2xx).isEqualTo(20);
+   }
+}
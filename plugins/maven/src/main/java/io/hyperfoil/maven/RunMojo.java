@@ -97,18 +97,18 @@ public class RunMojo extends AbstractMojo {
    }
 
    private void printStats(String phaseAndMetric, StatisticsSnapshot stats) {
-      double durationSeconds = (stats.histogram.getEndTimeStamp() - stats.histogram.getStartTimeStamp()) / 1000d;
+      double durationSeconds = (stats.histogram().getEndTimeStamp() - stats.histogram().getStartTimeStamp()) / 1000d;
       log.info("{}: ", phaseAndMetric);
-      log.info("{} requests in {} s, ", stats.histogram.getTotalCount(), durationSeconds);
+      log.info("{} requests in {} s, ", stats.histogram().getTotalCount(), durationSeconds);
       log.info("                  Avg     Stdev       Max");
-      log.info("Latency:    {} {} {}", Util.prettyPrintNanosFixed((long) stats.histogram.getMean()),
-            Util.prettyPrintNanosFixed((long) stats.histogram.getStdDeviation()),
-            Util.prettyPrintNanosFixed(stats.histogram.getMaxValue()));
-      log.info("Requests/sec: {}", String.format("%.2f", stats.histogram.getTotalCount() / durationSeconds));
+      log.info("Latency:    {} {} {}", Util.prettyPrintNanosFixed((long) stats.histogram().getMean()),
+            Util.prettyPrintNanosFixed((long) stats.histogram().getStdDeviation()),
+            Util.prettyPrintNanosFixed(stats.histogram().getMaxValue()));
+      log.info("Requests/sec: {}", String.format("%.2f", stats.histogram().getTotalCount() / durationSeconds));
 
       if (outputPercentileDistribution) {
          final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-         stats.histogram.outputPercentileDistribution(new PrintStream(baos, true, StandardCharsets.UTF_8), 1000.00);
+         stats.histogram().outputPercentileDistribution(new PrintStream(baos, true, StandardCharsets.UTF_8), 1000.00);
          String data = baos.toString(StandardCharsets.UTF_8);
 
          log.info("\nPercentile Distribution\n\n{}", data);
@@ -0,0 +1,99 @@
+package io.hyperfoil.benchmark.standalone;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.benchmark.BaseBenchmarkTest;
+import io.hyperfoil.core.impl.LocalSimulationRunner;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.config.AddressBalancing;
+import io.hyperfoil.http.config.HttpPluginBuilder;
+import io.hyperfoil.http.statistics.HttpAddressStats;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.junit5.VertxTestContext;
+
+/**
+ * The endpoint has two addresses, one of them responding with a delay; latency-aware balancing should move
+ * the connections away from the slow address.
+ */
+@Tag("io.hyperfoil.test.Benchmark")
+public class AddressBalancingTest extends BaseBenchmarkTest {
+   private static final Logger log = LogManager.getLogger(AddressBalancingTest.class);
+   private static final long SLOW_DELAY = 20;
+
+   private final AtomicInteger slowConnections = new AtomicInteger();
+   private HttpServer slowServer;
+
+   @BeforeEach
+   public void startSlowServer(Vertx vertx, VertxTestContext ctx) {
+      slowConnections.set(0);
+      slowServer = vertx.createHttpServer()
+            .connectionHandler(conn -> slowConnections.incrementAndGet())
+            .requestHandler(req -> vertx.setTimer(SLOW_DELAY, id -> req.response().end()));
+      slowServer.listen(0, "localhost").onComplete(ctx.succeedingThenComplete());
+   }
+
+   @ParameterizedTest
+   @EnumSource(value = AddressBalancing.class, names = { "ROUND_ROBIN", "LEAST_LATENCY", "TWO_CHOICES" })
+   public void testSlowAddress(AddressBalancing balancing) {
+      String fastAddress = "127.0.0.1:" + httpServer.actualPort();
+      String slowAddress = "127.0.0.1:" + slowServer.actualPort();
+      // @formatter:off
+      BenchmarkBuilder builder = BenchmarkBuilder.builder()
+            .name("addressBalancing")
+            .addPlugin(HttpPluginBuilder::new).http()
+               .host("localhost").port(httpServer.actualPort())
+               .addAddress(fastAddress).addAddress(slowAddress)
+               .addressBalancing(balancing).addressStats(true)
+               .sharedConnections(8)
+            .endHttp().endPlugin()
+            .threads(2);
+
+      builder.addPhase("test").always(8)
+            .duration(2000)
+            .scenario()
+               .initialSequence("request")
+                  .step(SC).httpRequest(HttpMethod.GET)
+                     .path("/")
+                  .endStep()
+               .endSequence();
+      // @formatter:on
+      Benchmark benchmark = builder.build();
+
+      StatisticsSnapshot total = new StatisticsSnapshot();
+      LocalSimulationRunner runner = new LocalSimulationRunner(benchmark,
+            (phase, stepId, metric, snapshot, countDown) -> total.add(snapshot), null, null);
+      runner.run();
+
+      HttpAddressStats addresses = (HttpAddressStats) total.extensions.get(HttpAddressStats.ADDRESSES);
+      long fast = addresses.histogram(fastAddress).getTotalCount();
+      long slow = addresses.histogram(slowAddress).getTotalCount();
+      log.info("{}: {} responses from fast address, {} from slow address over {} connections", balancing, fast, slow,
+            slowConnections.get());
+      assertEquals(0, total.invalid);
+      assertEquals(total.responseCount, fast + slow);
+      if (balancing == AddressBalancing.ROUND_ROBIN) {
+         // half of the connections stay with the slow address for the whole run
+         assertTrue(slow > 200, "slow = " + slow);
+      } else {
+         assertTrue(slow < 100, "slow = " + slow);
+      }
+      // Connections to the slow address are closed once; the balancer must not open new ones to it right away
+      // (that would mean a new connection for each request).
+      assertTrue(slowConnections.get() <= 8, "slow connections = " + slowConnections.get());
+   }
+}
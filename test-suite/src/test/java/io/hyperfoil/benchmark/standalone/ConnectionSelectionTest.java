@@ -0,0 +1,90 @@
+package io.hyperfoil.benchmark.standalone;
+
+import static io.hyperfoil.http.steps.HttpStepCatalog.SC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import io.hyperfoil.api.config.Benchmark;
+import io.hyperfoil.api.config.BenchmarkBuilder;
+import io.hyperfoil.api.statistics.StatisticsSnapshot;
+import io.hyperfoil.benchmark.BaseBenchmarkTest;
+import io.hyperfoil.core.impl.LocalSimulationRunner;
+import io.hyperfoil.http.api.HttpMethod;
+import io.hyperfoil.http.config.ConnectionSelection;
+import io.hyperfoil.http.config.HttpPluginBuilder;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.http.HttpServerRequest;
+
+/**
+ * One of the pipelined connections is served with a delay; strategies that take the load of the connection
+ * into account should keep the slow connection out of the 99th percentile.
+ */
+@Tag("io.hyperfoil.test.Benchmark")
+public class ConnectionSelectionTest extends BaseBenchmarkTest {
+   private static final Logger log = LogManager.getLogger(ConnectionSelectionTest.class);
+   private static final long SLOW_DELAY = 50;
+
+   private final AtomicReference<HttpConnection> slowConnection = new AtomicReference<>();
+
+   @Override
+   protected Handler<HttpServerRequest> getRequestHandler() {
+      return req -> {
+         slowConnection.compareAndSet(null, req.connection());
+         if (slowConnection.get() == req.connection()) {
+            vertx.setTimer(SLOW_DELAY, id -> req.response().end());
+         } else {
+            req.response().end();
+         }
+      };
+   }
+
+   @ParameterizedTest
+   @EnumSource(ConnectionSelection.class)
+   public void testSlowConnection(ConnectionSelection selection) {
+      // @formatter:off
+      BenchmarkBuilder builder = BenchmarkBuilder.builder()
+            .name("connectionSelection")
+            .addPlugin(HttpPluginBuilder::new).http()
+               .host("localhost").port(httpServer.actualPort())
+               .pipeliningLimit(16)
+               .sharedConnections().core(4).max(4).buffer(0).selection(selection).end()
+            .endHttp().endPlugin()
+            .threads(1);
+
+      builder.addPhase("test").always(16)
+            .duration(2000)
+            .scenario()
+               .initialSequence("request")
+                  .step(SC).httpRequest(HttpMethod.GET)
+                     .path("/")
+                  .endStep()
+               .endSequence();
+      // @formatter:on
+      Benchmark benchmark = builder.build();
+
+      StatisticsSnapshot total = new StatisticsSnapshot();
+      LocalSimulationRunner runner = new LocalSimulationRunner(benchmark,
+            (phase, stepId, metric, snapshot, countDown) -> total.add(snapshot), null, null);
+      runner.run();
+
+      long p99 = TimeUnit.NANOSECONDS.toMillis(total.histogram().getValueAtPercentile(99));
+      log.info("{}: {} responses, p99 response time {} ms", selection, total.responseCount, p99);
+      assertEquals(0, total.invalid);
+      if (selection == ConnectionSelection.IDLE_FIRST || selection == ConnectionSelection.ROUND_ROBIN) {
+         // the slow connection is used as often as the others until it reaches the pipelining limit
+         assertTrue(p99 >= SLOW_DELAY, "p99 = " + p99);
+      } else {
+         assertTrue(p99 < SLOW_DELAY, "p99 = " + p99);
+      }
+   }
+}
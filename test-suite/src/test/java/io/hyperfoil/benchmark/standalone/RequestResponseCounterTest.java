@@ -95,7 +95,7 @@ public class RequestResponseCounterTest extends BaseBenchmarkTest {
 
       AtomicLong actualNumberOfRequests = new AtomicLong(0);
       StatisticsCollector.StatisticsConsumer statisticsConsumer = (phase, stepId, metric, snapshot,
-            countDown) -> actualNumberOfRequests.addAndGet(snapshot.histogram.getTotalCount());
+            countDown) -> actualNumberOfRequests.addAndGet(snapshot.histogram().getTotalCount());
       LocalSimulationRunner runner = new LocalSimulationRunner(benchmark, statisticsConsumer, null, null);
       runner.run();
 